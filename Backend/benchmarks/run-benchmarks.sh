@@ -0,0 +1,22 @@
+#!/bin/bash
+
+# JMH Benchmark Runner
+# Installs the backend, builds the benchmarks jar and runs the benchmarks,
+# writing machine-readable results to benchmarks/target/jmh-result.json.
+#
+# Usage: ./benchmarks/run-benchmarks.sh [JMH options]
+#   e.g. ./benchmarks/run-benchmarks.sh JwtBenchmark -p claimsCache=uncached
+
+set -euo pipefail
+
+cd "$(dirname "$0")"
+
+echo "Installing backend classes..."
+mvn -q -f ../pom.xml -DskipTests install
+
+echo "Building benchmarks..."
+mvn -q package
+
+java -jar target/benchmarks.jar -rf json -rff target/jmh-result.json "$@"
+
+echo "Results written to benchmarks/target/jmh-result.json"
@@ -0,0 +1,49 @@
+package com.taskmanager.benchmark;
+
+import com.taskmanager.security.JwtUtil;
+import com.taskmanager.security.TokenRevocationService;
+import com.taskmanager.util.BloomFilter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.UUID;
+
+/**
+ * Shared fixtures for the benchmarks
+ * Builds components the way Spring would, without starting an application context
+ */
+final class BenchmarkSupport {
+    
+    static final String SECRET = "YourSuperSecretKeyForJWTGenerationAndValidationThatIsLongEnough";
+    
+    static final long EXPIRATION_MILLIS = 900000L;
+    
+    private BenchmarkSupport() {}
+    
+    /**
+     * JwtUtil configured as in application.yml, apart from the claims cache size
+     */
+    static JwtUtil jwtUtil(long claimsCacheMaxSize) {
+        JwtUtil jwtUtil = new JwtUtil();
+        ReflectionTestUtils.setField(jwtUtil, "secret", SECRET);
+        ReflectionTestUtils.setField(jwtUtil, "expiration", EXPIRATION_MILLIS);
+        ReflectionTestUtils.setField(jwtUtil, "claimsCacheMaxSize", claimsCacheMaxSize);
+        ReflectionTestUtils.setField(jwtUtil, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.invokeMethod(jwtUtil, "init");
+        return jwtUtil;
+    }
+    
+    /**
+     * TokenRevocationService whose filter is loaded with {@code revokedSessions} random session ids
+     * Sessions the filter rules out are answered without Redis, as on the request path
+     */
+    static TokenRevocationService tokenRevocationService(int revokedSessions) {
+        BloomFilter revoked = new BloomFilter(100000, 0.001);
+        for (int i = 0; i < revokedSessions; i++) {
+            revoked.put(UUID.randomUUID().toString());
+        }
+        TokenRevocationService tokenRevocationService = new TokenRevocationService();
+        ReflectionTestUtils.setField(tokenRevocationService, "revoked", revoked);
+        return tokenRevocationService;
+    }
+}
@@ -0,0 +1,99 @@
+package com.taskmanager.benchmark;
+
+import com.taskmanager.security.AuthenticatedUser;
+import com.taskmanager.security.JwtAuthenticationFilter;
+import com.taskmanager.security.JwtUtil;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import jakarta.servlet.FilterChain;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Full JwtAuthenticationFilter path for one authenticated request
+ * "uid" tokens carry the user id and are authenticated from their claims alone;
+ * "legacy" tokens predate that claim and go through the (stubbed) UserDetailsService
+ * "uid" tokens also carry a session id, checked against a denylist of 10000 revoked sessions
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Thread)
+public class JwtAuthenticationFilterBenchmark {
+    
+    private static final String USER_ID = "0b6f3c1e-7f43-4a8e-9d2c-5e1f2a3b4c5d";
+    
+    private static final String USERNAME = "benchmark-user";
+    
+    private static final String SESSION_ID = "5a7d2e90-1c3b-4f6a-8e2d-9b0c1d2e3f4a";
+    
+    @Param({"uid", "legacy"})
+    public String tokenType;
+    
+    private JwtAuthenticationFilter filter;
+    
+    private String authorizationHeader;
+    
+    private final FilterChain chain = (request, response) -> {};
+    
+    @Setup
+    public void setUp() {
+        JwtUtil jwtUtil = BenchmarkSupport.jwtUtil(10000);
+        UserDetailsService userDetailsService = username ->
+            new AuthenticatedUser(USER_ID, username, "", new ArrayList<>());
+        
+        filter = new JwtAuthenticationFilter();
+        ReflectionTestUtils.setField(filter, "jwtUtil", jwtUtil);
+        ReflectionTestUtils.setField(filter, "userDetailsService", userDetailsService);
+        ReflectionTestUtils.setField(filter, "tokenRevocationService", BenchmarkSupport.tokenRevocationService(10000));
+        
+        String token = "uid".equals(tokenType)
+            ? jwtUtil.generateToken(USER_ID, USERNAME, SESSION_ID)
+            : legacyToken();
+        authorizationHeader = "Bearer " + token;
+    }
+    
+    @Benchmark
+    public Authentication authenticate() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/tasks");
+        request.addHeader("Authorization", authorizationHeader);
+        filter.doFilter(request, new MockHttpServletResponse(), chain);
+        
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        SecurityContextHolder.clearContext();
+        return authentication;
+    }
+    
+    /**
+     * Token as issued before the user id claim was added
+     */
+    private static String legacyToken() {
+        return Jwts.builder()
+            .subject(USERNAME)
+            .issuedAt(new Date())
+            .expiration(new Date(System.currentTimeMillis() + BenchmarkSupport.EXPIRATION_MILLIS))
+            .signWith(Keys.hmacShaKeyFor(BenchmarkSupport.SECRET.getBytes()))
+            .compact();
+    }
+}
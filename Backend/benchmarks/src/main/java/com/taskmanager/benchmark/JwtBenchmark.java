@@ -0,0 +1,77 @@
+package com.taskmanager.benchmark;
+
+import com.taskmanager.security.JwtUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JWT generation and verification
+ * Requests cycle through a fixed set of tokens; with the "uncached" setting the
+ * claims cache is far smaller than that set, so nearly every call verifies a signature
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Thread)
+public class JwtBenchmark {
+    
+    private static final int TOKEN_COUNT = 4096;
+    
+    @Param({"cached", "uncached"})
+    public String claimsCache;
+    
+    private JwtUtil jwtUtil;
+    
+    private String[] tokens;
+    
+    private String[] usernames;
+    
+    private int next;
+    
+    @Setup
+    public void setUp() {
+        jwtUtil = BenchmarkSupport.jwtUtil("cached".equals(claimsCache) ? 10000 : 16);
+        tokens = new String[TOKEN_COUNT];
+        usernames = new String[TOKEN_COUNT];
+        for (int i = 0; i < TOKEN_COUNT; i++) {
+            usernames[i] = "user" + i;
+            tokens[i] = jwtUtil.generateToken("id-" + i, usernames[i], "session-" + i);
+        }
+    }
+    
+    @Benchmark
+    public String generateToken() {
+        int i = nextIndex();
+        return jwtUtil.generateToken("id-" + i, usernames[i], "session-" + i);
+    }
+    
+    @Benchmark
+    public String extractUsername() {
+        return jwtUtil.extractUsername(tokens[nextIndex()]);
+    }
+    
+    @Benchmark
+    public Boolean validateToken() {
+        int i = nextIndex();
+        return jwtUtil.validateToken(tokens[i], usernames[i]);
+    }
+    
+    private int nextIndex() {
+        int i = next;
+        next = (next + 1) % TOKEN_COUNT;
+        return i;
+    }
+}
@@ -0,0 +1,76 @@
+package com.taskmanager.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.taskmanager.model.Task;
+import com.taskmanager.model.TaskStatus;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Jackson serialization of task lists of increasing size
+ * Covers the JSON array written by GET /api/tasks and the newline-delimited
+ * form written by the streaming endpoint
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Thread)
+public class TaskSerializationBenchmark {
+    
+    @Param({"10", "100", "1000", "10000"})
+    public int taskCount;
+    
+    private ObjectMapper objectMapper;
+    
+    private List<Task> tasks;
+    
+    @Setup
+    public void setUp() {
+        // Configured like the ObjectMapper Spring Boot provides to the controllers
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        
+        String userId = UUID.randomUUID().toString();
+        TaskStatus[] statuses = TaskStatus.values();
+        tasks = new ArrayList<>(taskCount);
+        for (int i = 0; i < taskCount; i++) {
+            Task task = new Task("Task " + i, "Description of task " + i + " with some typical detail text",
+                statuses[i % statuses.length], userId);
+            task.setId(UUID.randomUUID().toString());
+            tasks.add(task);
+        }
+    }
+    
+    @Benchmark
+    public byte[] serializeList() throws IOException {
+        return objectMapper.writeValueAsBytes(tasks);
+    }
+    
+    @Benchmark
+    public byte[] serializeNdjson() throws IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        for (Task task : tasks) {
+            outputStream.write(objectMapper.writeValueAsBytes(task));
+            outputStream.write('\n');
+        }
+        return outputStream.toByteArray();
+    }
+}
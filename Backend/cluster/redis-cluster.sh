@@ -0,0 +1,100 @@
+#!/bin/bash
+
+# Local Redis Cluster
+# Starts Redis Cluster nodes on localhost for running the backend in sharded task
+# storage mode, adds nodes to a running cluster, and moves hash slots so every
+# master holds an even share. Each node keeps its data and cluster state under
+# target/redis-cluster/<port>.
+#
+# Requirements: redis-server and redis-cli 7+ on the PATH.
+#
+# Usage: ./cluster/redis-cluster.sh create [masters] [replicas per master]
+#        ./cluster/redis-cluster.sh add-node <port> [master port, to add a replica of it]
+#        ./cluster/redis-cluster.sh rebalance
+#        ./cluster/redis-cluster.sh stop
+#   e.g. ./cluster/redis-cluster.sh create 3 1
+#        ./cluster/redis-cluster.sh add-node 7006 && ./cluster/redis-cluster.sh rebalance
+#
+# Run the backend against it with:
+#   --spring.data.redis.cluster.nodes=localhost:7000,localhost:7001,localhost:7002
+#   --task-storage.mode=sharded --near-cache.enabled=false
+
+set -euo pipefail
+
+BASE_PORT=${BASE_PORT:-7000}
+CLUSTER_DIR="target/redis-cluster"
+
+cd "$(dirname "$0")/.."
+
+for tool in redis-server redis-cli; do
+    if ! command -v "$tool" > /dev/null; then
+        echo "$tool is required but was not found on the PATH"
+        exit 1
+    fi
+done
+
+start_node() {
+    local port=$1
+    mkdir -p "${CLUSTER_DIR}/${port}"
+    redis-server --port "$port" --cluster-enabled yes --cluster-config-file nodes.conf \
+        --cluster-node-timeout 5000 --appendonly yes --dir "${CLUSTER_DIR}/${port}" \
+        --daemonize yes --logfile redis.log
+    until redis-cli -p "$port" ping > /dev/null 2>&1; do
+        sleep 0.2
+    done
+}
+
+# Any node still in the cluster, to address cluster-wide commands to
+entry_node() {
+    for dir in "${CLUSTER_DIR}"/*/; do
+        local port
+        port=$(basename "$dir")
+        if redis-cli -p "$port" ping > /dev/null 2>&1; then
+            echo "127.0.0.1:${port}"
+            return
+        fi
+    done
+    echo "No cluster node is running, create one first" >&2
+    exit 1
+}
+
+case "${1:-}" in
+    create)
+        MASTERS=${2:-3}
+        REPLICAS=${3:-0}
+        NODES=()
+        for ((i = 0; i < MASTERS * (REPLICAS + 1); i++)); do
+            start_node $((BASE_PORT + i))
+            NODES+=("127.0.0.1:$((BASE_PORT + i))")
+        done
+        redis-cli --cluster create "${NODES[@]}" --cluster-replicas "$REPLICAS" --cluster-yes
+        ;;
+    add-node)
+        PORT=${2:?port of the new node}
+        ENTRY=$(entry_node)
+        start_node "$PORT"
+        if [ -n "${3:-}" ]; then
+            MASTER_ID=$(redis-cli -p "$3" cluster myid)
+            redis-cli --cluster add-node "127.0.0.1:${PORT}" "$ENTRY" --cluster-slave --cluster-master-id "$MASTER_ID"
+        else
+            redis-cli --cluster add-node "127.0.0.1:${PORT}" "$ENTRY"
+            echo "Node ${PORT} holds no slots yet; run rebalance to move a share of them to it"
+        fi
+        ;;
+    rebalance)
+        # Slots move key by key with MIGRATE; the Lettuce client follows the MOVED and ASK
+        # redirects and refreshes its slot map, so the backend keeps serving throughout
+        redis-cli --cluster rebalance "$(entry_node)" --cluster-use-empty-masters
+        redis-cli --cluster check "$(entry_node)"
+        ;;
+    stop)
+        for dir in "${CLUSTER_DIR}"/*/; do
+            [ -d "$dir" ] || continue
+            redis-cli -p "$(basename "$dir")" shutdown nosave > /dev/null 2>&1 || true
+        done
+        ;;
+    *)
+        echo "Usage: $0 create [masters] [replicas] | add-node <port> [master port] | rebalance | stop"
+        exit 1
+        ;;
+esac
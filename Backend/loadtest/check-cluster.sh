@@ -0,0 +1,101 @@
+#!/bin/bash
+
+# Sharded Storage Cluster Check
+# Creates a local Redis Cluster with cluster/redis-cluster.sh, boots the backend
+# against it in sharded storage mode and drives the usual load test traffic. Halfway
+# through the measured run a master is added and slots are rebalanced onto it, so
+# the run also covers the MOVED and ASK redirects of keys being migrated. Fails if
+# any request errored or any virtual user stopped early. The cluster is stopped and
+# its data removed afterwards.
+#
+# Requirements: redis-server and redis-cli 7+ on the PATH, Java 17+, Maven.
+#
+# Usage: ./loadtest/check-cluster.sh [masters] [key=value ...]
+#   e.g. ./loadtest/check-cluster.sh 3 users=50 duration=2m
+
+set -euo pipefail
+
+MASTERS=${1:-3}
+shift || true
+BASE_PORT=${BASE_PORT:-7000}
+NEW_PORT=$((BASE_PORT + MASTERS))
+RESULTS_DIR="target/cluster-check"
+REPORT="${RESULTS_DIR}/loadtest-report.json"
+LOG="${RESULTS_DIR}/loadtest.log"
+
+cd "$(dirname "$0")/.."
+
+# Later settings win, so the defaults go first
+ARGS=(users=20 duration=60s warmup=10s "$@" "report=../${REPORT}")
+
+seconds() {
+    case "$1" in
+        *ms) echo 0 ;;
+        *s) echo "${1%s}" ;;
+        *m) echo $(( ${1%m} * 60 )) ;;
+    esac
+}
+
+DURATION=60
+WARMUP=10
+for arg in "${ARGS[@]}"; do
+    case "$arg" in
+        duration=*) DURATION=$(seconds "${arg#duration=}") ;;
+        warmup=*) WARMUP=$(seconds "${arg#warmup=}") ;;
+    esac
+done
+
+NODES=""
+for ((i = 0; i < MASTERS; i++)); do
+    NODES="${NODES:+${NODES},}localhost:$((BASE_PORT + i))"
+done
+
+cleanup() {
+    ./cluster/redis-cluster.sh stop || true
+    rm -rf target/redis-cluster
+}
+trap cleanup EXIT
+
+mkdir -p "$RESULTS_DIR"
+rm -f "$REPORT" "$LOG"
+
+echo "Creating a cluster of ${MASTERS} masters..."
+./cluster/redis-cluster.sh create "$MASTERS" 0
+
+echo "Installing backend classes..."
+mvn -q -DskipTests install
+
+echo "Running load test against the cluster..."
+(cd loadtest && exec mvn -q compile exec:java -Dexec.args="cluster=${NODES} ${ARGS[*]}") > "$LOG" 2>&1 &
+LOADTEST=$!
+
+# The runner prints its plan once the application is up and the virtual users start
+until grep -q "^Running " "$LOG"; do
+    if ! kill -0 "$LOADTEST" 2> /dev/null; then
+        cat "$LOG"
+        echo "Load test stopped before the virtual users started"
+        exit 1
+    fi
+    sleep 1
+done
+sleep $(( WARMUP + DURATION / 2 ))
+
+echo "Adding master ${NEW_PORT} and rebalancing slots under load..."
+./cluster/redis-cluster.sh add-node "$NEW_PORT"
+./cluster/redis-cluster.sh rebalance
+
+wait "$LOADTEST" || true
+cat "$LOG"
+
+if [ ! -f "$REPORT" ]; then
+    echo "Cluster check failed: no report was written"
+    exit 1
+fi
+ERRORS=$(awk '/"total"/ { total = 1 } total && /"errors"/ { gsub(/[^0-9]/, ""); print; exit }' "$REPORT")
+FAILED=$(awk '/"failedUsers"/ { gsub(/[^0-9]/, ""); print; exit }' "$REPORT")
+echo
+if [ "${ERRORS:-1}" -ne 0 ] || [ "${FAILED:-1}" -ne 0 ]; then
+    echo "Cluster check failed: ${ERRORS:-unknown} request errors, ${FAILED:-unknown} virtual users stopped early"
+    exit 1
+fi
+echo "Cluster check passed with no request errors across the rebalance; report in ${REPORT}"
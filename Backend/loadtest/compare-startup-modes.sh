@@ -0,0 +1,141 @@
+#!/bin/bash
+
+# Startup Mode Benchmark
+# Starts the backend as a plain fat jar, as an AOT-processed jar with an AppCDS
+# archive, and as a GraalVM native image, and for each records the time until
+# the health check first answers, the first register and task list request
+# latencies, and resident memory once ready. Each mode is started RUNS times.
+#
+# Requirements: Java 17+, Redis on localhost:6379, curl. The native mode also
+# needs a GraalVM JDK with native-image on the PATH and is skipped otherwise.
+#
+# Usage: ./loadtest/compare-startup-modes.sh [runs]
+#   e.g. ./loadtest/compare-startup-modes.sh 5
+
+set -euo pipefail
+
+RUNS=${1:-3}
+PORT=${PORT:-18080}
+BASE_URL="http://localhost:${PORT}"
+RESULTS_DIR="target/startup"
+JAR_DIR="${RESULTS_DIR}/jar"
+AOT_DIR="${RESULTS_DIR}/aot"
+NATIVE_DIR="${RESULTS_DIR}/native"
+
+cd "$(dirname "$0")/.."
+
+for tool in java curl mvn; do
+    if ! command -v "$tool" > /dev/null; then
+        echo "$tool is required but was not found on the PATH"
+        exit 1
+    fi
+done
+
+if ! nc -z localhost 6379; then
+    echo "Redis is not running. Please start Redis first:"
+    echo "cd .. && docker-compose up -d redis"
+    exit 1
+fi
+
+mkdir -p "$RESULTS_DIR"
+
+# Each build copies its output aside, since the next one rewrites target/
+if [ ! -f "${JAR_DIR}/app.jar" ]; then
+    echo "Building the fat jar..."
+    mvn -q -DskipTests package
+    mkdir -p "$JAR_DIR"
+    cp target/task-manager-backend-0.0.1-SNAPSHOT.jar "${JAR_DIR}/app.jar"
+fi
+if [ ! -f "${AOT_DIR}/application.jsa" ]; then
+    echo "Building the AOT jar and its class data archive..."
+    mvn -q -Paot -DskipTests package
+    rm -rf "$AOT_DIR"
+    cp -r target/app "$AOT_DIR"
+fi
+MODES="jar aot"
+if command -v native-image > /dev/null; then
+    if [ ! -f "${NATIVE_DIR}/task-manager-backend" ]; then
+        echo "Building the native image..."
+        mvn -q -Pnative -DskipTests native:compile
+        mkdir -p "$NATIVE_DIR"
+        cp target/task-manager-backend "${NATIVE_DIR}/"
+    fi
+    MODES="$MODES native"
+else
+    echo "native-image not found, skipping the native mode"
+fi
+
+millis() {
+    date +%s%3N
+}
+
+start_app() {
+    local mode=$1
+    local args=(--server.port="$PORT" --rate-limit.enabled=false)
+    case "$mode" in
+        jar) java -jar "${JAR_DIR}/app.jar" "${args[@]}" ;;
+        aot) (cd "$AOT_DIR" && exec java -XX:SharedArchiveFile=application.jsa -Dspring.aot.enabled=true \
+                -jar task-manager-backend-0.0.1-SNAPSHOT-app.jar "${args[@]}") ;;
+        native) "${NATIVE_DIR}/task-manager-backend" "${args[@]}" ;;
+    esac
+}
+
+request_millis() {
+    curl -s -o /dev/null -w '%{time_total}' "$@" | awk '{ printf "%d", $1 * 1000 }'
+}
+
+run_once() {
+    local mode=$1
+    local run=$2
+    local log="${RESULTS_DIR}/${mode}-${run}.log"
+
+    local start
+    start=$(millis)
+    start_app "$mode" > "$log" 2>&1 &
+    local pid=$!
+    trap "kill $pid 2> /dev/null || true" EXIT
+
+    for _ in $(seq 1 1200); do
+        if curl -sf "${BASE_URL}/actuator/health" > /dev/null 2>&1; then
+            break
+        fi
+        sleep 0.05
+    done
+    local ready=$(( $(millis) - start ))
+
+    local username="startup_${mode}_${run}_$$"
+    local body="{\"username\":\"${username}\",\"password\":\"startup123\"}"
+    local register
+    register=$(request_millis -X POST "${BASE_URL}/api/auth/register" -H "Content-Type: application/json" -d "$body")
+    local token
+    token=$(curl -s -X POST "${BASE_URL}/api/auth/login" -H "Content-Type: application/json" -d "$body" \
+        | sed -n 's/.*"token":"\([^"]*\)".*/\1/p')
+    local list
+    list=$(request_millis -H "Authorization: Bearer ${token}" "${BASE_URL}/api/tasks?limit=50")
+    local rss
+    rss=$(( $(ps -o rss= -p "$pid" | tail -1) / 1024 ))
+
+    echo "${mode} ${ready} ${register} ${list} ${rss}" >> "${RESULTS_DIR}/results.txt"
+
+    kill "$pid"
+    wait "$pid" 2> /dev/null || true
+    trap - EXIT
+}
+
+rm -f "${RESULTS_DIR}/results.txt"
+for mode in $MODES; do
+    echo "=== ${mode} ==="
+    for run in $(seq 1 "$RUNS"); do
+        run_once "$mode" "$run"
+    done
+done
+
+echo
+printf "%-8s %16s %20s %18s %12s\n" "mode" "ready (ms)" "first register (ms)" "first list (ms)" "RSS (MB)"
+for mode in $MODES; do
+    awk -v mode="$mode" '$1 == mode { n++; r += $2; g += $3; l += $4; m += $5 }
+        END { if (n) printf "%-8s %16d %20d %18d %12d\n", mode, r / n, g / n, l / n, m / n }' \
+        "${RESULTS_DIR}/results.txt"
+done
+echo
+echo "Averages over ${RUNS} runs; per-run results and application logs are in ${RESULTS_DIR}"
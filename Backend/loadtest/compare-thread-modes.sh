@@ -0,0 +1,115 @@
+#!/bin/bash
+
+# Thread Mode Load Test
+# Starts the backend once on platform threads and once on virtual threads,
+# drives the same authenticated GET /api/tasks load against each, and prints
+# throughput, latency, live thread count and heap use side by side.
+#
+# Requirements: Java 21, Redis on localhost:6379, curl, and hey
+# (https://github.com/rakyll/hey) on the PATH.
+#
+# Usage: ./loadtest/compare-thread-modes.sh [concurrency] [duration]
+#   e.g. ./loadtest/compare-thread-modes.sh 2000 60s
+
+set -euo pipefail
+
+CONCURRENCY=${1:-1000}
+DURATION=${2:-30s}
+PORT=${PORT:-18080}
+SEED_TASKS=${SEED_TASKS:-200}
+BASE_URL="http://localhost:${PORT}"
+JAR="target/task-manager-backend-0.0.1-SNAPSHOT.jar"
+RESULTS_DIR="target/loadtest"
+
+cd "$(dirname "$0")/.."
+
+for tool in java curl hey; do
+    if ! command -v "$tool" > /dev/null; then
+        echo "$tool is required but was not found on the PATH"
+        exit 1
+    fi
+done
+
+if ! nc -z localhost 6379; then
+    echo "Redis is not running. Please start Redis first:"
+    echo "cd .. && docker-compose up -d redis"
+    exit 1
+fi
+
+if [ ! -f "$JAR" ]; then
+    echo "Building backend with the java21 profile..."
+    mvn -q -Pjava21 -DskipTests package
+fi
+
+mkdir -p "$RESULTS_DIR"
+
+# Actuator metrics need the actuator credential, so each run starts the backend with a throwaway one
+ACTUATOR_PASSWORD=${ACTUATOR_PASSWORD:-loadtest_$$}
+
+metric() {
+    curl -s -u "prometheus:${ACTUATOR_PASSWORD}" "${BASE_URL}/actuator/metrics/$1" | sed -n 's/.*"value":\([0-9.E+-]*\).*/\1/p' | head -1
+}
+
+run_mode() {
+    local mode=$1
+    local virtual=$2
+    local log="${RESULTS_DIR}/${mode}.log"
+
+    echo "=== ${mode} threads ==="
+    java -jar "$JAR" --server.port="$PORT" --spring.threads.virtual.enabled="$virtual" \
+        --rate-limit.enabled=false --actuator.password="$ACTUATOR_PASSWORD" > "$log" 2>&1 &
+    local pid=$!
+    trap "kill $pid 2> /dev/null || true" EXIT
+
+    for _ in $(seq 1 60); do
+        if curl -sf "${BASE_URL}/actuator/health" > /dev/null; then
+            break
+        fi
+        sleep 1
+    done
+
+    local username="loadtest_${mode}_$$"
+    curl -s -X POST "${BASE_URL}/api/auth/register" -H "Content-Type: application/json" \
+        -d "{\"username\":\"${username}\",\"password\":\"loadtest123\"}" > /dev/null
+    local token
+    token=$(curl -s -X POST "${BASE_URL}/api/auth/login" -H "Content-Type: application/json" \
+        -d "{\"username\":\"${username}\",\"password\":\"loadtest123\"}" | sed -n 's/.*"token":"\([^"]*\)".*/\1/p')
+
+    local tasks="["
+    for i in $(seq 1 "$SEED_TASKS"); do
+        tasks="${tasks}{\"title\":\"Load test task ${i}\",\"description\":\"Seeded task\"},"
+    done
+    tasks="${tasks%,}]"
+    curl -s -X POST "${BASE_URL}/api/tasks/bulk" -H "Content-Type: application/json" \
+        -H "Authorization: Bearer ${token}" -d "$tasks" > /dev/null
+
+    # Warm up before measuring
+    hey -z 5s -c 50 -H "Authorization: Bearer ${token}" "${BASE_URL}/api/tasks?limit=50" > /dev/null
+
+    hey -z "$DURATION" -c "$CONCURRENCY" -H "Authorization: Bearer ${token}" \
+        "${BASE_URL}/api/tasks?limit=50" > "${RESULTS_DIR}/${mode}.txt"
+
+    echo "threads.live=$(metric jvm.threads.live)" >> "${RESULTS_DIR}/${mode}.txt"
+    echo "memory.used=$(metric 'jvm.memory.used?tag=area:heap')" >> "${RESULTS_DIR}/${mode}.txt"
+
+    kill "$pid"
+    wait "$pid" 2> /dev/null || true
+    trap - EXIT
+}
+
+run_mode platform false
+run_mode virtual true
+
+echo
+printf "%-10s %15s %12s %12s %14s %16s\n" "mode" "requests/sec" "p50 (s)" "p99 (s)" "live threads" "heap used (B)"
+for mode in platform virtual; do
+    file="${RESULTS_DIR}/${mode}.txt"
+    printf "%-10s %15s %12s %12s %14s %16s\n" "$mode" \
+        "$(sed -n 's/ *Requests\/sec: *\([0-9.]*\)/\1/p' "$file")" \
+        "$(sed -n 's/ *50% in \([0-9.]*\) secs/\1/p' "$file")" \
+        "$(sed -n 's/ *99% in \([0-9.]*\) secs/\1/p' "$file")" \
+        "$(sed -n 's/threads.live=//p' "$file")" \
+        "$(sed -n 's/memory.used=//p' "$file")"
+done
+echo
+echo "Full hey reports and application logs are in ${RESULTS_DIR}"
@@ -0,0 +1,20 @@
+#!/bin/bash
+
+# End-to-end Load Test Runner
+# Installs the backend, then boots it against an embedded Redis server and drives it
+# with concurrent virtual users, writing machine-readable results to
+# loadtest/target/loadtest-report.json.
+#
+# Usage: ./loadtest/run-loadtest.sh [key=value ...]
+#   e.g. ./loadtest/run-loadtest.sh users=100 duration=2m warmup=15s stack=reactive
+#        ./loadtest/run-loadtest.sh mix=list:70,get:30 baseUrl=http://localhost:8082
+
+set -euo pipefail
+
+cd "$(dirname "$0")"
+
+echo "Installing backend classes..."
+mvn -q -f ../pom.xml -DskipTests install
+
+echo "Running load test..."
+mvn -q compile exec:java -Dexec.args="$*"
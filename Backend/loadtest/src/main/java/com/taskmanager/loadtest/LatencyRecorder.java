@@ -0,0 +1,71 @@
+package com.taskmanager.loadtest;
+
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Latency samples per operation
+ * Each virtual user records into its own instance, so recording needs no locking;
+ * the instances are merged once the run is over
+ */
+public class LatencyRecorder {
+    
+    private final Map<Operation, Samples> samples = new EnumMap<>(Operation.class);
+    
+    private final Map<Operation, Long> errors = new EnumMap<>(Operation.class);
+    
+    public void record(Operation operation, long latencyNanos, boolean success) {
+        samples.computeIfAbsent(operation, key -> new Samples()).add(latencyNanos);
+        if (!success) {
+            errors.merge(operation, 1L, Long::sum);
+        }
+    }
+    
+    public void merge(LatencyRecorder other) {
+        other.samples.forEach((operation, otherSamples) ->
+            samples.computeIfAbsent(operation, key -> new Samples()).addAll(otherSamples));
+        other.errors.forEach((operation, count) -> errors.merge(operation, count, Long::sum));
+    }
+    
+    /**
+     * Sorted latencies of an operation in nanoseconds
+     */
+    public long[] sortedLatencies(Operation operation) {
+        Samples operationSamples = samples.get(operation);
+        if (operationSamples == null) {
+            return new long[0];
+        }
+        long[] sorted = Arrays.copyOf(operationSamples.values, operationSamples.size);
+        Arrays.sort(sorted);
+        return sorted;
+    }
+    
+    public long errors(Operation operation) {
+        return errors.getOrDefault(operation, 0L);
+    }
+    
+    /**
+     * Growable array of primitive longs, avoiding a boxed object per sample
+     */
+    private static class Samples {
+        
+        private long[] values = new long[1024];
+        private int size;
+        
+        void add(long value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+        
+        void addAll(Samples other) {
+            if (size + other.size > values.length) {
+                values = Arrays.copyOf(values, Math.max(size + other.size, size * 2));
+            }
+            System.arraycopy(other.values, 0, values, size, other.size);
+            size += other.size;
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package com.taskmanager.loadtest;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Load test settings, given on the command line as key=value pairs
+ * e.g. users=100 duration=2m warmup=15s mix=list:50,get:20,create:15,update:10,delete:5
+ */
+public class LoadTestConfig {
+    
+    private static final String DEFAULT_MIX = "register:1,login:4,list:35,get:20,create:18,update:12,delete:10";
+    
+    private final int users;
+    private final Duration duration;
+    private final Duration warmup;
+    private final int seedTasks;
+    private final Map<Operation, Integer> mix;
+    private final String stack;
+    private final String baseUrl;
+    private final String cluster;
+    private final String appLogLevel;
+    private final Path report;
+    
+    private LoadTestConfig(Map<String, String> args) {
+        this.users = Integer.parseInt(args.getOrDefault("users", "50"));
+        this.duration = parseDuration(args.getOrDefault("duration", "60s"));
+        this.warmup = parseDuration(args.getOrDefault("warmup", "10s"));
+        this.seedTasks = Integer.parseInt(args.getOrDefault("seedTasks", "20"));
+        this.mix = parseMix(args.getOrDefault("mix", DEFAULT_MIX));
+        this.stack = args.getOrDefault("stack", "servlet");
+        this.baseUrl = args.get("baseUrl");
+        this.cluster = args.get("cluster");
+        this.appLogLevel = args.getOrDefault("appLogLevel", "WARN");
+        this.report = Path.of(args.getOrDefault("report", "target/loadtest-report.json"));
+    }
+    
+    /**
+     * Parse key=value arguments; unknown keys are rejected so typos do not go unnoticed
+     */
+    public static LoadTestConfig fromArgs(String[] args) {
+        Map<String, String> values = new HashMap<>();
+        for (String arg : args) {
+            int separator = arg.indexOf('=');
+            if (separator <= 0) {
+                throw new IllegalArgumentException("Expected key=value but got: " + arg);
+            }
+            String key = arg.substring(0, separator);
+            if (!key.matches("users|duration|warmup|seedTasks|mix|stack|baseUrl|cluster|appLogLevel|report")) {
+                throw new IllegalArgumentException("Unknown setting: " + key);
+            }
+            values.put(key, arg.substring(separator + 1));
+        }
+        return new LoadTestConfig(values);
+    }
+    
+    /**
+     * Durations such as 500ms, 30s or 2m
+     */
+    private static Duration parseDuration(String value) {
+        if (value.endsWith("ms")) {
+            return Duration.ofMillis(Long.parseLong(value.substring(0, value.length() - 2)));
+        }
+        long amount = Long.parseLong(value.substring(0, value.length() - 1));
+        return switch (value.charAt(value.length() - 1)) {
+            case 's' -> Duration.ofSeconds(amount);
+            case 'm' -> Duration.ofMinutes(amount);
+            default -> throw new IllegalArgumentException("Invalid duration: " + value);
+        };
+    }
+    
+    /**
+     * Relative operation weights such as list:40,create:10
+     */
+    private static Map<Operation, Integer> parseMix(String value) {
+        Map<Operation, Integer> weights = new EnumMap<>(Operation.class);
+        for (String entry : value.split(",")) {
+            String[] parts = entry.trim().split(":");
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("Invalid mix entry: " + entry);
+            }
+            int weight = Integer.parseInt(parts[1]);
+            if (weight > 0) {
+                weights.put(Operation.fromKey(parts[0]), weight);
+            }
+        }
+        if (weights.isEmpty()) {
+            throw new IllegalArgumentException("Mix has no operations");
+        }
+        return weights;
+    }
+    
+    public int getUsers() {
+        return users;
+    }
+    
+    public Duration getDuration() {
+        return duration;
+    }
+    
+    public Duration getWarmup() {
+        return warmup;
+    }
+    
+    public int getSeedTasks() {
+        return seedTasks;
+    }
+    
+    public Map<Operation, Integer> getMix() {
+        return mix;
+    }
+    
+    /**
+     * Web stack to boot the application with: servlet or reactive
+     */
+    public String getStack() {
+        return stack;
+    }
+    
+    /**
+     * URL of an already running instance to test instead of booting one, or null
+     */
+    public String getBaseUrl() {
+        return baseUrl;
+    }
+    
+    /**
+     * Redis Cluster nodes, e.g. localhost:7000,localhost:7001, to boot the application against
+     * in sharded storage mode instead of an embedded Redis, or null
+     */
+    public String getCluster() {
+        return cluster;
+    }
+    
+    public String getAppLogLevel() {
+        return appLogLevel;
+    }
+    
+    public Path getReport() {
+        return report;
+    }
+}
@@ -0,0 +1,142 @@
+package com.taskmanager.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * Per endpoint throughput and latency percentiles for one run,
+ * printed as a table and written as JSON for comparing runs
+ */
+public class LoadTestReport {
+    
+    private final LoadTestConfig config;
+    private final LatencyRecorder recorder;
+    private final double measuredSeconds;
+    private final int failedUsers;
+    
+    public LoadTestReport(LoadTestConfig config, LatencyRecorder recorder, double measuredSeconds, int failedUsers) {
+        this.config = config;
+        this.recorder = recorder;
+        this.measuredSeconds = measuredSeconds;
+        this.failedUsers = failedUsers;
+    }
+    
+    public void print() {
+        System.out.println();
+        System.out.printf(Locale.ROOT, "%-26s %9s %7s %9s %9s %9s %9s %9s %9s%n",
+            "endpoint", "requests", "errors", "req/s", "p50 ms", "p90 ms", "p99 ms", "max ms", "mean ms");
+        long[] all = new long[0];
+        long allErrors = 0;
+        for (Operation operation : Operation.values()) {
+            long[] latencies = recorder.sortedLatencies(operation);
+            if (latencies.length == 0) {
+                continue;
+            }
+            printRow(operation.getEndpoint(), latencies, recorder.errors(operation));
+            all = concat(all, latencies);
+            allErrors += recorder.errors(operation);
+        }
+        Arrays.sort(all);
+        if (all.length > 0) {
+            printRow("total", all, allErrors);
+        }
+        if (failedUsers > 0) {
+            System.out.printf("%d virtual users stopped early, see the log above%n", failedUsers);
+        }
+    }
+    
+    private void printRow(String label, long[] latencies, long errors) {
+        System.out.printf(Locale.ROOT, "%-26s %9d %7d %9.1f %9.2f %9.2f %9.2f %9.2f %9.2f%n",
+            label, latencies.length, errors, latencies.length / measuredSeconds,
+            millis(percentile(latencies, 0.50)), millis(percentile(latencies, 0.90)),
+            millis(percentile(latencies, 0.99)), millis(latencies[latencies.length - 1]), millis(mean(latencies)));
+    }
+    
+    public void write(ObjectMapper objectMapper, Path path) throws IOException {
+        ObjectNode root = objectMapper.createObjectNode();
+        root.put("timestamp", Instant.now().toString());
+        ObjectNode settings = root.putObject("config");
+        settings.put("stack", config.getStack());
+        settings.put("cluster", config.getCluster());
+        settings.put("users", config.getUsers());
+        settings.put("durationSeconds", config.getDuration().toSeconds());
+        settings.put("warmupSeconds", config.getWarmup().toSeconds());
+        settings.put("seedTasks", config.getSeedTasks());
+        ObjectNode mix = settings.putObject("mix");
+        config.getMix().forEach((operation, weight) -> mix.put(operation.getKey(), weight));
+        root.put("measuredSeconds", measuredSeconds);
+        root.put("failedUsers", failedUsers);
+        
+        ArrayNode endpoints = root.putArray("endpoints");
+        long[] all = new long[0];
+        long allErrors = 0;
+        for (Operation operation : Operation.values()) {
+            long[] latencies = recorder.sortedLatencies(operation);
+            if (latencies.length == 0) {
+                continue;
+            }
+            ObjectNode node = endpoints.addObject();
+            node.put("operation", operation.getKey());
+            node.put("endpoint", operation.getEndpoint());
+            putStats(node, latencies, recorder.errors(operation));
+            all = concat(all, latencies);
+            allErrors += recorder.errors(operation);
+        }
+        Arrays.sort(all);
+        if (all.length > 0) {
+            putStats(root.putObject("total"), all, allErrors);
+        }
+        
+        Path parent = path.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        objectMapper.writerWithDefaultPrettyPrinter().writeValue(path.toFile(), root);
+    }
+    
+    private void putStats(ObjectNode node, long[] latencies, long errors) {
+        node.put("requests", latencies.length);
+        node.put("errors", errors);
+        node.put("throughputPerSecond", latencies.length / measuredSeconds);
+        ObjectNode latency = node.putObject("latencyMillis");
+        latency.put("p50", millis(percentile(latencies, 0.50)));
+        latency.put("p90", millis(percentile(latencies, 0.90)));
+        latency.put("p99", millis(percentile(latencies, 0.99)));
+        latency.put("max", millis(latencies[latencies.length - 1]));
+        latency.put("mean", millis(mean(latencies)));
+    }
+    
+    /**
+     * Nearest-rank percentile of sorted samples
+     */
+    private static long percentile(long[] sorted, double quantile) {
+        int rank = (int) Math.ceil(quantile * sorted.length);
+        return sorted[Math.max(0, rank - 1)];
+    }
+    
+    private static double mean(long[] values) {
+        double sum = 0;
+        for (long value : values) {
+            sum += value;
+        }
+        return sum / values.length;
+    }
+    
+    private static double millis(double nanos) {
+        return nanos / 1_000_000.0;
+    }
+    
+    private static long[] concat(long[] first, long[] second) {
+        long[] result = Arrays.copyOf(first, first.length + second.length);
+        System.arraycopy(second, 0, result, first.length, second.length);
+        return result;
+    }
+}
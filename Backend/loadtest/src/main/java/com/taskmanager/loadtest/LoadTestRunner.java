@@ -0,0 +1,145 @@
+package com.taskmanager.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.taskmanager.TaskManagerApplication;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import redis.embedded.RedisServer;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * End-to-end load test entry point
+ * Starts an embedded Redis server and the application on free ports, drives it with
+ * concurrent virtual users over HTTP and reports per endpoint throughput and latency.
+ * Pass baseUrl=... to test an already running instance instead, or cluster=... to boot
+ * the application in sharded storage mode against a running Redis Cluster
+ */
+public class LoadTestRunner {
+    
+    public static void main(String[] args) throws Exception {
+        LoadTestConfig config = LoadTestConfig.fromArgs(args);
+        ObjectMapper objectMapper = new ObjectMapper();
+        
+        if (config.getBaseUrl() != null) {
+            run(config, config.getBaseUrl(), objectMapper);
+            return;
+        }
+        
+        if (config.getCluster() != null) {
+            // Keyspace notifications stay on the node that owns the key, so the near-cache must be off
+            runApplication(config, objectMapper,
+                "spring.data.redis.cluster.nodes=" + config.getCluster(),
+                "task-storage.mode=sharded",
+                "near-cache.enabled=false");
+            return;
+        }
+        
+        int redisPort = freePort();
+        RedisServer redis = RedisServer.newRedisServer()
+            .port(redisPort)
+            .setting("bind 127.0.0.1")
+            .setting("save \"\"")
+            .setting("appendonly no")
+            .build();
+        redis.start();
+        try {
+            runApplication(config, objectMapper,
+                "spring.data.redis.host=127.0.0.1",
+                "spring.data.redis.port=" + redisPort);
+        } finally {
+            redis.stop();
+        }
+    }
+    
+    /**
+     * Boot the application on a free port with the given Redis settings and drive it
+     */
+    private static void runApplication(LoadTestConfig config, ObjectMapper objectMapper, String... redisProperties)
+            throws InterruptedException, IOException {
+        List<String> properties = new ArrayList<>(List.of(redisProperties));
+        properties.add("spring.main.web-application-type=" + config.getStack());
+        properties.add("server.port=0");
+        // Every virtual user comes from one address, which the per-address limits would throttle
+        properties.add("rate-limit.enabled=false");
+        properties.add("logging.level.com.taskmanager=" + config.getAppLogLevel());
+        ConfigurableApplicationContext context = null;
+        try {
+            context = new SpringApplicationBuilder(TaskManagerApplication.class)
+                .properties(properties.toArray(new String[0]))
+                .run();
+            String port = context.getEnvironment().getProperty("local.server.port");
+            run(config, "http://127.0.0.1:" + port, objectMapper);
+        } finally {
+            if (context != null) {
+                context.close();
+            }
+        }
+    }
+    
+    private static void run(LoadTestConfig config, String baseUrl, ObjectMapper objectMapper)
+            throws InterruptedException, IOException {
+        ExecutorService clientExecutor = Executors.newFixedThreadPool(Math.max(4, Runtime.getRuntime().availableProcessors()));
+        try {
+            HttpClient httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5))
+                .executor(clientExecutor)
+                .build();
+            drive(config, baseUrl, httpClient, objectMapper);
+        } finally {
+            clientExecutor.shutdownNow();
+        }
+    }
+    
+    private static void drive(LoadTestConfig config, String baseUrl, HttpClient httpClient, ObjectMapper objectMapper)
+            throws InterruptedException, IOException {
+        long startNanos = System.nanoTime();
+        long recordFromNanos = startNanos + config.getWarmup().toNanos();
+        long deadlineNanos = recordFromNanos + config.getDuration().toNanos();
+        
+        System.out.printf("Running %d users against %s: %ds warmup, %ds measured%n", config.getUsers(), baseUrl,
+            config.getWarmup().toSeconds(), config.getDuration().toSeconds());
+        
+        List<VirtualUser> users = new ArrayList<>();
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < config.getUsers(); i++) {
+            VirtualUser user = new VirtualUser(i, baseUrl, httpClient, objectMapper, config, recordFromNanos, deadlineNanos);
+            Thread thread = new Thread(user, "virtual-user-" + i);
+            users.add(user);
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        
+        LatencyRecorder merged = new LatencyRecorder();
+        int failedUsers = 0;
+        for (VirtualUser user : users) {
+            merged.merge(user.getRecorder());
+            if (user.getFailure() != null) {
+                failedUsers++;
+                System.err.println("Virtual user failed: " + user.getFailure());
+            }
+        }
+        
+        LoadTestReport report = new LoadTestReport(config, merged, config.getDuration().toNanos() / 1e9, failedUsers);
+        report.print();
+        report.write(objectMapper, config.getReport());
+        System.out.println("Report written to " + config.getReport().toAbsolutePath());
+    }
+    
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+}
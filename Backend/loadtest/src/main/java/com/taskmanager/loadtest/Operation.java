@@ -0,0 +1,49 @@
+package com.taskmanager.loadtest;
+
+/**
+ * Requests the load test issues, reported separately
+ */
+public enum Operation {
+    REGISTER("register", "POST /api/auth/register"),
+    LOGIN("login", "POST /api/auth/login"),
+    LIST("list", "GET /api/tasks?limit=50"),
+    GET("get", "GET /api/tasks/{id}"),
+    CREATE("create", "POST /api/tasks"),
+    UPDATE("update", "PUT /api/tasks/{id}"),
+    DELETE("delete", "DELETE /api/tasks/{id}");
+    
+    private final String key;
+    private final String endpoint;
+    
+    Operation(String key, String endpoint) {
+        this.key = key;
+        this.endpoint = endpoint;
+    }
+    
+    /**
+     * Name used in the mix argument and the report
+     */
+    public String getKey() {
+        return key;
+    }
+    
+    public String getEndpoint() {
+        return endpoint;
+    }
+    
+    /**
+     * Whether the operation works on one of the user's existing tasks
+     */
+    public boolean targetsTask() {
+        return this == GET || this == UPDATE || this == DELETE;
+    }
+    
+    public static Operation fromKey(String key) {
+        for (Operation operation : values()) {
+            if (operation.key.equalsIgnoreCase(key)) {
+                return operation;
+            }
+        }
+        throw new IllegalArgumentException("Unknown operation: " + key);
+    }
+}
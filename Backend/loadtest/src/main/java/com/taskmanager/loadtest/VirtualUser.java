@@ -0,0 +1,207 @@
+package com.taskmanager.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.taskmanager.dto.LoginRequest;
+import com.taskmanager.dto.RegisterRequest;
+import com.taskmanager.dto.TaskRequest;
+import com.taskmanager.model.TaskStatus;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.UUID;
+
+/**
+ * One simulated client: registers, logs in and seeds its own tasks, then issues
+ * the configured operation mix back to back until the deadline
+ * Operations on a specific task fall back to create while the user owns none, and
+ * requests started during the warmup are not recorded
+ */
+public class VirtualUser implements Runnable {
+    
+    private static final String PASSWORD = "loadtest-password";
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(30);
+    
+    private final String baseUrl;
+    private final HttpClient httpClient;
+    private final ObjectMapper objectMapper;
+    private final LoadTestConfig config;
+    private final Operation[] weightedOperations;
+    private final long recordFromNanos;
+    private final long deadlineNanos;
+    
+    private final LatencyRecorder recorder = new LatencyRecorder();
+    private final SplittableRandom random;
+    private final List<String> taskIds = new ArrayList<>();
+    
+    private String username;
+    private String token;
+    private Exception failure;
+    
+    public VirtualUser(int index, String baseUrl, HttpClient httpClient, ObjectMapper objectMapper,
+                       LoadTestConfig config, long recordFromNanos, long deadlineNanos) {
+        this.baseUrl = baseUrl;
+        this.httpClient = httpClient;
+        this.objectMapper = objectMapper;
+        this.config = config;
+        this.weightedOperations = expand(config.getMix());
+        this.recordFromNanos = recordFromNanos;
+        this.deadlineNanos = deadlineNanos;
+        this.random = new SplittableRandom(index);
+    }
+    
+    /**
+     * Spread the weights into a lookup table so picking an operation is a single random index
+     */
+    private static Operation[] expand(Map<Operation, Integer> mix) {
+        List<Operation> table = new ArrayList<>();
+        mix.forEach((operation, weight) -> {
+            for (int i = 0; i < weight; i++) {
+                table.add(operation);
+            }
+        });
+        return table.toArray(new Operation[0]);
+    }
+    
+    @Override
+    public void run() {
+        try {
+            setUp();
+            while (System.nanoTime() < deadlineNanos) {
+                execute(weightedOperations[random.nextInt(weightedOperations.length)]);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            failure = e;
+        }
+    }
+    
+    /**
+     * Create the account and initial tasks; setup requests are never recorded
+     */
+    private void setUp() throws IOException, InterruptedException {
+        username = "lt-" + UUID.randomUUID().toString().substring(0, 12);
+        HttpResponse<String> registered = send(post("/api/auth/register", new RegisterRequest(username, PASSWORD), false));
+        if (registered.statusCode() != 200) {
+            throw new IllegalStateException("Registration failed with status " + registered.statusCode());
+        }
+        login();
+        if (token == null) {
+            throw new IllegalStateException("Login failed for " + username);
+        }
+        for (int i = 0; i < config.getSeedTasks(); i++) {
+            createTask();
+        }
+    }
+    
+    private void execute(Operation operation) throws IOException, InterruptedException {
+        Operation effective = operation.targetsTask() && taskIds.isEmpty() ? Operation.CREATE : operation;
+        long start = System.nanoTime();
+        boolean success = switch (effective) {
+            case REGISTER -> registerThrowaway();
+            case LOGIN -> login();
+            case LIST -> isSuccess(send(get("/api/tasks?limit=50")));
+            case GET -> isSuccess(send(get("/api/tasks/" + randomTaskId())));
+            case CREATE -> createTask();
+            case UPDATE -> updateTask(randomTaskId());
+            case DELETE -> deleteTask(taskIds.remove(random.nextInt(taskIds.size())));
+        };
+        long end = System.nanoTime();
+        if (start >= recordFromNanos && end <= deadlineNanos) {
+            recorder.record(effective, end - start, success);
+        }
+    }
+    
+    private String randomTaskId() {
+        return taskIds.get(random.nextInt(taskIds.size()));
+    }
+    
+    private boolean registerThrowaway() throws IOException, InterruptedException {
+        String throwaway = "lt-" + UUID.randomUUID().toString().substring(0, 12);
+        return isSuccess(send(post("/api/auth/register", new RegisterRequest(throwaway, PASSWORD), false)));
+    }
+    
+    private boolean login() throws IOException, InterruptedException {
+        HttpResponse<String> response = send(post("/api/auth/login", new LoginRequest(username, PASSWORD), false));
+        if (!isSuccess(response)) {
+            return false;
+        }
+        token = objectMapper.readTree(response.body()).path("token").asText(null);
+        return token != null;
+    }
+    
+    private boolean createTask() throws IOException, InterruptedException {
+        TaskRequest request = new TaskRequest("Load test task " + random.nextInt(1_000_000),
+            "Created by the load test harness", TaskStatus.PENDING);
+        HttpResponse<String> response = send(post("/api/tasks", request, true));
+        if (!isSuccess(response)) {
+            return false;
+        }
+        JsonNode id = objectMapper.readTree(response.body()).path("id");
+        if (!id.isMissingNode()) {
+            taskIds.add(id.asText());
+        }
+        return true;
+    }
+    
+    private boolean updateTask(String id) throws IOException, InterruptedException {
+        TaskStatus status = random.nextBoolean() ? TaskStatus.COMPLETED : TaskStatus.PENDING;
+        TaskRequest request = new TaskRequest("Updated load test task", "Updated by the load test harness", status);
+        HttpRequest httpRequest = authorized(baseUrl + "/api/tasks/" + id)
+            .header("Content-Type", "application/json")
+            .PUT(HttpRequest.BodyPublishers.ofString(objectMapper.writeValueAsString(request)))
+            .build();
+        return isSuccess(send(httpRequest));
+    }
+    
+    private boolean deleteTask(String id) throws IOException, InterruptedException {
+        return isSuccess(send(authorized(baseUrl + "/api/tasks/" + id).DELETE().build()));
+    }
+    
+    private HttpRequest get(String path) {
+        return authorized(baseUrl + path).GET().build();
+    }
+    
+    private HttpRequest post(String path, Object body, boolean authenticated) throws IOException {
+        HttpRequest.Builder builder = authenticated
+            ? authorized(baseUrl + path)
+            : HttpRequest.newBuilder(URI.create(baseUrl + path)).timeout(REQUEST_TIMEOUT);
+        return builder.header("Content-Type", "application/json")
+            .POST(HttpRequest.BodyPublishers.ofString(objectMapper.writeValueAsString(body)))
+            .build();
+    }
+    
+    private HttpRequest.Builder authorized(String url) {
+        return HttpRequest.newBuilder(URI.create(url))
+            .timeout(REQUEST_TIMEOUT)
+            .header("Authorization", "Bearer " + token);
+    }
+    
+    private HttpResponse<String> send(HttpRequest request) throws IOException, InterruptedException {
+        return httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+    
+    private static boolean isSuccess(HttpResponse<?> response) {
+        return response.statusCode() >= 200 && response.statusCode() < 300;
+    }
+    
+    public LatencyRecorder getRecorder() {
+        return recorder;
+    }
+    
+    /**
+     * Exception that ended this user early, or null
+     */
+    public Exception getFailure() {
+        return failure;
+    }
+}
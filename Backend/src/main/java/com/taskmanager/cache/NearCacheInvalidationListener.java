@@ -0,0 +1,144 @@
+package com.taskmanager.cache;
+
+import com.taskmanager.config.CacheConfig;
+import com.taskmanager.model.User;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * Evicts near-cache entries when their Redis keys change
+ * Listens to keyspace notifications, which Redis publishes for every write whichever replica or
+ * script made it, on the channels of the task and user keys only, so writes to other keys such
+ * as rate limits, refresh tokens and the task indexes never reach this node
+ */
+@Component
+@ConditionalOnProperty(name = "near-cache.enabled", havingValue = "true", matchIfMissing = true)
+public class NearCacheInvalidationListener implements MessageListener, InitializingBean {
+    
+    /**
+     * Keyspace channels of the keys the near-cache holds entries for
+     */
+    public static final List<String> KEYSPACE_PATTERNS = List.of("__keyspace@*__:Task:*", "__keyspace@*__:User:*");
+    
+    private static final String NOTIFY_KEYSPACE_EVENTS = "notify-keyspace-events";
+    
+    private static final String TASK_KEY_PREFIX = "Task:";
+    private static final String TASK_BINARY_KEY_PREFIX = "Task:bin:";
+    private static final String USER_KEY_PREFIX = "User:";
+    
+    private static final Logger logger = LoggerFactory.getLogger(NearCacheInvalidationListener.class);
+    
+    @Autowired
+    private CacheManager cacheManager;
+    
+    @Autowired
+    private RedisConnectionFactory connectionFactory;
+    
+    /**
+     * Event classes needed: K keyspace channel, g generic (DEL, RENAME), $ string (packed tasks),
+     * h hash, x expired, e evicted; sets and sorted sets, which only hold indexes, are left out
+     */
+    @Value("${near-cache.notify-keyspace-events:Kg$hxe}")
+    private String requiredEvents;
+    
+    /**
+     * Make sure the server publishes the keyspace notifications the cache relies on
+     * Classes already enabled for other subscribers are kept; only the missing ones are added.
+     * Managed Redis services may refuse CONFIG SET; those need the setting in their own configuration
+     */
+    @Override
+    public void afterPropertiesSet() {
+        try (RedisConnection connection = connectionFactory.getConnection()) {
+            Properties config = connection.serverCommands().getConfig(NOTIFY_KEYSPACE_EVENTS);
+            String current = config != null ? config.getProperty(NOTIFY_KEYSPACE_EVENTS, "") : "";
+            String merged = mergeEventClasses(current, requiredEvents);
+            if (!merged.equals(current)) {
+                connection.serverCommands().setConfig(NOTIFY_KEYSPACE_EVENTS, merged);
+                logger.info("Set Redis {} from '{}' to '{}'", NOTIFY_KEYSPACE_EVENTS, current, merged);
+            }
+        } catch (Exception e) {
+            logger.warn("Could not configure Redis {}; near-cache entries written by other replicas "
+                + "will only expire by TTL: {}", NOTIFY_KEYSPACE_EVENTS, e.getMessage());
+        }
+    }
+    
+    /**
+     * The channel names the key, the body the event; every event on these keys may change them
+     */
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String channel = new String(message.getChannel(), StandardCharsets.UTF_8);
+        String key = channel.substring(channel.indexOf("__:") + 3);
+        
+        if (key.startsWith(TASK_KEY_PREFIX)) {
+            String id = key.startsWith(TASK_BINARY_KEY_PREFIX)
+                ? entityId(key, TASK_BINARY_KEY_PREFIX)
+                : entityId(key, TASK_KEY_PREFIX);
+            Cache cache = cacheManager.getCache(CacheConfig.TASKS_CACHE);
+            if (id != null && cache != null) {
+                cache.evict(id);
+            }
+        } else if (key.startsWith(USER_KEY_PREFIX)) {
+            String id = entityId(key, USER_KEY_PREFIX);
+            Cache cache = cacheManager.getCache(CacheConfig.USERS_CACHE);
+            if (id != null && cache != null) {
+                evictUserById(cache, id);
+            }
+        }
+    }
+    
+    /**
+     * Users are cached by username; find the entry holding this id
+     * User writes are rare, so scanning the cache here is cheap overall
+     */
+    private void evictUserById(Cache cache, String id) {
+        if (cache.getNativeCache() instanceof com.github.benmanes.caffeine.cache.Cache<?, ?> nativeCache) {
+            Map<?, ?> entries = nativeCache.asMap();
+            entries.values().removeIf(value -> value instanceof User user && id.equals(user.getId()));
+        }
+    }
+    
+    /**
+     * Extract the entity id from an entity key such as Task:<id> or Task:bin:<id>, or
+     * Task:{<user id>}:<id> in the hash-tagged layout
+     * @return the id, or null for index and helper keys such as Task:userId:<id>
+     */
+    private static String entityId(String key, String prefix) {
+        String rest = key.substring(prefix.length());
+        if (rest.startsWith("{")) {
+            int tagEnd = rest.indexOf("}:");
+            rest = tagEnd >= 0 ? rest.substring(tagEnd + 2) : "";
+        }
+        return rest.isEmpty() || rest.indexOf(':') >= 0 ? null : rest;
+    }
+    
+    /**
+     * Add the event classes in {@code required} that {@code current} lacks
+     */
+    static String mergeEventClasses(String current, String required) {
+        StringBuilder merged = new StringBuilder(current);
+        for (char eventClass : required.toCharArray()) {
+            boolean coveredByAll = current.indexOf('A') >= 0 && "g$lshzxet".indexOf(eventClass) >= 0;
+            if (merged.indexOf(String.valueOf(eventClass)) < 0 && !coveredByAll) {
+                merged.append(eventClass);
+            }
+        }
+        return merged.toString();
+    }
+}
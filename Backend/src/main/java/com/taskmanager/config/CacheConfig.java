@@ -0,0 +1,89 @@
+package com.taskmanager.config;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.taskmanager.cache.NearCacheInvalidationListener;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.cache.support.NoOpCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.listener.PatternTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+import java.time.Duration;
+
+/**
+ * Near-cache configuration
+ * Keeps recently read tasks and users in process memory in front of Redis.
+ * Entries are evicted on local writes and, for writes made by other replicas,
+ * from Redis keyspace notifications. Set near-cache.enabled=false to turn it off.
+ */
+@Configuration
+@EnableCaching
+public class CacheConfig {
+    
+    public static final String TASKS_CACHE = "tasks";
+    public static final String USERS_CACHE = "users";
+    
+    @Value("${near-cache.tasks.max-size:100000}")
+    private long tasksMaxSize;
+    
+    @Value("${near-cache.tasks.ttl:30s}")
+    private Duration tasksTtl;
+    
+    @Value("${near-cache.users.max-size:10000}")
+    private long usersMaxSize;
+    
+    @Value("${near-cache.users.ttl:5m}")
+    private Duration usersTtl;
+    
+    /**
+     * Caffeine-backed cache manager; its caches are registered up front so
+     * actuator binds hit, miss and eviction metrics for them at startup
+     */
+    @Bean
+    @ConditionalOnProperty(name = "near-cache.enabled", havingValue = "true", matchIfMissing = true)
+    public CacheManager cacheManager() {
+        CaffeineCacheManager cacheManager = new CaffeineCacheManager();
+        cacheManager.setAllowNullValues(false);
+        cacheManager.registerCustomCache(TASKS_CACHE, Caffeine.newBuilder()
+            .maximumSize(tasksMaxSize)
+            .expireAfterWrite(tasksTtl)
+            .recordStats()
+            .build());
+        cacheManager.registerCustomCache(USERS_CACHE, Caffeine.newBuilder()
+            .maximumSize(usersMaxSize)
+            .expireAfterWrite(usersTtl)
+            .recordStats()
+            .build());
+        return cacheManager;
+    }
+    
+    /**
+     * Cache manager used when the near-cache is disabled; every read goes to Redis
+     */
+    @Bean
+    @ConditionalOnProperty(name = "near-cache.enabled", havingValue = "false")
+    public CacheManager noOpCacheManager() {
+        return new NoOpCacheManager();
+    }
+    
+    /**
+     * Subscribes to keyspace notifications so writes from other replicas evict local entries
+     */
+    @Bean
+    @ConditionalOnProperty(name = "near-cache.enabled", havingValue = "true", matchIfMissing = true)
+    public RedisMessageListenerContainer nearCacheListenerContainer(RedisConnectionFactory connectionFactory,
+                                                                    NearCacheInvalidationListener listener) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        container.addMessageListener(listener, NearCacheInvalidationListener.KEYSPACE_PATTERNS.stream()
+            .map(PatternTopic::new)
+            .toList());
+        return container;
+    }
+}
@@ -0,0 +1,26 @@
+package com.taskmanager.config;
+
+import com.taskmanager.logging.AsyncAppenderMetrics;
+import com.taskmanager.logging.LogSampler;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Logging configuration
+ * The appenders themselves are set up in logback-spring.xml; this exposes their
+ * queue metrics and the sampler for the per-request task read log lines
+ */
+@Configuration
+public class LoggingConfig {
+    
+    @Bean
+    public AsyncAppenderMetrics asyncAppenderMetrics() {
+        return new AsyncAppenderMetrics();
+    }
+    
+    @Bean
+    public LogSampler taskReadLogSampler(@Value("${logging.sampling.task-reads:100}") int rate) {
+        return new LogSampler(rate);
+    }
+}
@@ -0,0 +1,103 @@
+package com.taskmanager.config;
+
+import com.taskmanager.dto.AuthResponse;
+import com.taskmanager.dto.BulkDeleteRequest;
+import com.taskmanager.dto.BulkItemResult;
+import com.taskmanager.dto.BulkStatusRequest;
+import com.taskmanager.dto.BulkTaskResponse;
+import com.taskmanager.dto.LoginRequest;
+import com.taskmanager.dto.RefreshRequest;
+import com.taskmanager.dto.RegisterRequest;
+import com.taskmanager.dto.TaskEvent;
+import com.taskmanager.dto.TaskPageResponse;
+import com.taskmanager.dto.TaskPatchRequest;
+import com.taskmanager.dto.TaskRequest;
+import com.taskmanager.dto.TaskStatsResponse;
+import com.taskmanager.dto.TaskSyncResponse;
+import com.taskmanager.logging.MeteredAsyncAppender;
+import com.taskmanager.model.Task;
+import com.taskmanager.model.TaskStatus;
+import com.taskmanager.model.User;
+import org.springframework.aot.hint.BindingReflectionHintsRegistrar;
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+import org.springframework.aot.hint.TypeReference;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.ImportRuntimeHints;
+import org.springframework.util.ClassUtils;
+
+/**
+ * Reflection and resource hints for AOT-processed and native builds
+ * Jackson binds the models and DTOs, Spring Data Redis maps the entities field by field,
+ * jjwt loads its implementation classes by name and Logback builds its appenders from XML,
+ * none of which static analysis can see.
+ * Ignored on a regular JVM
+ */
+@Configuration
+@ImportRuntimeHints(NativeHintsConfig.TaskManagerRuntimeHints.class)
+public class NativeHintsConfig {
+    
+    static class TaskManagerRuntimeHints implements RuntimeHintsRegistrar {
+        
+        /**
+         * Classes the jjwt API instantiates reflectively from jjwt-impl and jjwt-jackson
+         */
+        private static final String[] JJWT_TYPES = {
+            "io.jsonwebtoken.impl.DefaultJwtBuilder",
+            "io.jsonwebtoken.impl.DefaultJwtParserBuilder",
+            "io.jsonwebtoken.impl.DefaultJwtHeaderBuilder",
+            "io.jsonwebtoken.impl.DefaultClaimsBuilder",
+            "io.jsonwebtoken.impl.io.StandardCompressionAlgorithms",
+            "io.jsonwebtoken.impl.security.StandardSecureDigestAlgorithms",
+            "io.jsonwebtoken.impl.security.StandardKeyOperations",
+            "io.jsonwebtoken.impl.security.StandardKeyAlgorithms",
+            "io.jsonwebtoken.impl.security.StandardEncryptionAlgorithms",
+            "io.jsonwebtoken.impl.security.StandardHashAlgorithms",
+            "io.jsonwebtoken.impl.security.StandardCurves",
+            "io.jsonwebtoken.impl.security.KeysBridge",
+            "io.jsonwebtoken.impl.security.DefaultDynamicJwkBuilder",
+            "io.jsonwebtoken.impl.security.DefaultJwkParserBuilder",
+            "io.jsonwebtoken.impl.security.DefaultJwkSetBuilder",
+            "io.jsonwebtoken.impl.security.DefaultJwkSetParserBuilder",
+            "io.jsonwebtoken.jackson.io.JacksonSerializer",
+            "io.jsonwebtoken.jackson.io.JacksonDeserializer"
+        };
+        
+        @Override
+        public void registerHints(RuntimeHints hints, ClassLoader classLoader) {
+            new BindingReflectionHintsRegistrar().registerReflectionHints(hints.reflection(),
+                Task.class, TaskStatus.class, User.class,
+                AuthResponse.class, LoginRequest.class, RegisterRequest.class, RefreshRequest.class,
+                TaskRequest.class, TaskPatchRequest.class, TaskPageResponse.class, TaskStatsResponse.class,
+                TaskSyncResponse.class, TaskEvent.class, BulkDeleteRequest.class, BulkStatusRequest.class,
+                BulkItemResult.class, BulkTaskResponse.class);
+            
+            // Spring Data Redis reads and writes entity fields directly
+            for (Class<?> entity : new Class<?>[] {Task.class, User.class}) {
+                hints.reflection().registerType(entity, MemberCategory.DECLARED_FIELDS,
+                    MemberCategory.INVOKE_DECLARED_CONSTRUCTORS, MemberCategory.INVOKE_PUBLIC_METHODS);
+            }
+            
+            for (String type : JJWT_TYPES) {
+                if (ClassUtils.isPresent(type, classLoader)) {
+                    hints.reflection().registerType(TypeReference.of(type),
+                        MemberCategory.INVOKE_DECLARED_CONSTRUCTORS, MemberCategory.INVOKE_PUBLIC_METHODS,
+                        MemberCategory.DECLARED_FIELDS);
+                }
+            }
+            
+            // logback-spring.xml creates the async appender and sets its properties by name
+            hints.reflection().registerType(MeteredAsyncAppender.class,
+                MemberCategory.INVOKE_PUBLIC_CONSTRUCTORS, MemberCategory.INVOKE_PUBLIC_METHODS);
+            hints.resources().registerPattern("logback-spring.xml");
+            
+            // spring.factories names the key layout initializer, which is created by name
+            hints.reflection().registerType(TaskKeyLayoutInitializer.class,
+                MemberCategory.INVOKE_PUBLIC_CONSTRUCTORS);
+            
+            // Lua scripts are loaded from the classpath when first run
+            hints.resources().registerPattern("scripts/*.lua");
+        }
+    }
+}
@@ -0,0 +1,170 @@
+package com.taskmanager.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Rate limiting settings, bound from {@code rate-limit.*}
+ * Routes are matched in order and the first match applies; requests matching no route are not limited
+ */
+@Component
+@ConfigurationProperties(prefix = "rate-limit")
+public class RateLimitProperties {
+    
+    private boolean enabled = true;
+    
+    /**
+     * Buckets kept per route; the least recently used clients are dropped beyond it
+     */
+    private long maxClients = 100000;
+    
+    /**
+     * How often counts of admitted requests are sent to Redis for routes with a global limit
+     */
+    private Duration globalSyncInterval = Duration.ofSeconds(1);
+    
+    private List<Route> routes = new ArrayList<>();
+    
+    public boolean isEnabled() {
+        return enabled;
+    }
+    
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+    
+    public long getMaxClients() {
+        return maxClients;
+    }
+    
+    public void setMaxClients(long maxClients) {
+        this.maxClients = maxClients;
+    }
+    
+    public Duration getGlobalSyncInterval() {
+        return globalSyncInterval;
+    }
+    
+    public void setGlobalSyncInterval(Duration globalSyncInterval) {
+        this.globalSyncInterval = globalSyncInterval;
+    }
+    
+    public List<Route> getRoutes() {
+        return routes;
+    }
+    
+    public void setRoutes(List<Route> routes) {
+        this.routes = routes;
+    }
+    
+    /**
+     * Limit for the requests matching a path pattern
+     */
+    public static class Route {
+        
+        /**
+         * Name used in metrics and Redis keys
+         */
+        private String name;
+        
+        /**
+         * Path pattern, e.g. /api/auth/login or /api/**
+         */
+        private String path;
+        
+        /**
+         * HTTP methods the route applies to; empty for all
+         */
+        private List<String> methods = new ArrayList<>();
+        
+        /**
+         * What a bucket is kept for: user (falling back to the client address when anonymous) or ip
+         */
+        private String key = "user";
+        
+        /**
+         * Requests a client may make in a burst
+         */
+        private int capacity = 100;
+        
+        /**
+         * Sustained requests per second per client
+         */
+        private double refillPerSecond = 50;
+        
+        /**
+         * Requests per client per global window across all nodes; 0 for no global limit
+         */
+        private long globalLimit;
+        
+        private Duration globalWindow = Duration.ofMinutes(1);
+        
+        public String getName() {
+            return name;
+        }
+        
+        public void setName(String name) {
+            this.name = name;
+        }
+        
+        public String getPath() {
+            return path;
+        }
+        
+        public void setPath(String path) {
+            this.path = path;
+        }
+        
+        public List<String> getMethods() {
+            return methods;
+        }
+        
+        public void setMethods(List<String> methods) {
+            this.methods = methods;
+        }
+        
+        public String getKey() {
+            return key;
+        }
+        
+        public void setKey(String key) {
+            this.key = key;
+        }
+        
+        public int getCapacity() {
+            return capacity;
+        }
+        
+        public void setCapacity(int capacity) {
+            this.capacity = capacity;
+        }
+        
+        public double getRefillPerSecond() {
+            return refillPerSecond;
+        }
+        
+        public void setRefillPerSecond(double refillPerSecond) {
+            this.refillPerSecond = refillPerSecond;
+        }
+        
+        public long getGlobalLimit() {
+            return globalLimit;
+        }
+        
+        public void setGlobalLimit(long globalLimit) {
+            this.globalLimit = globalLimit;
+        }
+        
+        public Duration getGlobalWindow() {
+            return globalWindow;
+        }
+        
+        public void setGlobalWindow(Duration globalWindow) {
+            this.globalWindow = globalWindow;
+        }
+    }
+}
@@ -0,0 +1,165 @@
+package com.taskmanager.config;
+
+import com.taskmanager.ratelimit.RateLimiter;
+import com.taskmanager.security.ActuatorAuthenticationProvider;
+import com.taskmanager.security.JwtAuthenticationWebFilter;
+import com.taskmanager.security.JwtUtil;
+import com.taskmanager.security.PasswordHashingService;
+import com.taskmanager.security.RateLimitWebFilter;
+import com.taskmanager.security.RehashingBCryptPasswordEncoder;
+import com.taskmanager.security.TimedPasswordEncoder;
+import com.taskmanager.security.TokenRevocationService;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.authentication.ProviderManager;
+import org.springframework.security.authentication.ReactiveAuthenticationManager;
+import org.springframework.security.authentication.ReactiveAuthenticationManagerAdapter;
+import org.springframework.security.authentication.UserDetailsRepositoryReactiveAuthenticationManager;
+import org.springframework.security.config.Customizer;
+import org.springframework.security.config.annotation.web.reactive.EnableWebFluxSecurity;
+import org.springframework.security.config.web.server.SecurityWebFiltersOrder;
+import org.springframework.security.config.web.server.ServerHttpSecurity;
+import org.springframework.security.core.userdetails.ReactiveUserDetailsPasswordService;
+import org.springframework.security.core.userdetails.ReactiveUserDetailsService;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.web.server.SecurityWebFilterChain;
+import org.springframework.security.web.server.authentication.HttpStatusServerEntryPoint;
+import org.springframework.security.web.server.context.NoOpServerSecurityContextRepository;
+import org.springframework.security.web.server.util.matcher.ServerWebExchangeMatchers;
+import org.springframework.web.cors.CorsConfiguration;
+import org.springframework.web.cors.reactive.CorsConfigurationSource;
+import org.springframework.web.cors.reactive.UrlBasedCorsConfigurationSource;
+
+import java.util.Arrays;
+
+/**
+ * Security configuration for the reactive stack
+ * Mirrors SecurityConfig: stateless JWT authentication with the same access rules and CORS settings,
+ * and the static actuator credential over HTTP basic for the actuator endpoints other than health
+ */
+@Configuration
+@EnableWebFluxSecurity
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveSecurityConfig {
+    
+    @Autowired
+    private JwtUtil jwtUtil;
+    
+    @Autowired
+    private ReactiveUserDetailsService userDetailsService;
+    
+    @Autowired
+    private PasswordHashingService passwordHashingService;
+    
+    @Autowired
+    private TokenRevocationService tokenRevocationService;
+    
+    @Autowired
+    private RateLimiter rateLimiter;
+    
+    @Value("${actuator.username:prometheus}")
+    private String actuatorUsername;
+    
+    @Value("${actuator.password:}")
+    private String actuatorPassword;
+    
+    @Value("${password-hashing.bcrypt-strength:10}")
+    private int bcryptStrength;
+    
+    /**
+     * Security filter chain of the actuator endpoints, checked before the application chain
+     * Health stays public for container checks; caches, metrics and prometheus need the ACTUATOR role,
+     * which no JWT carries
+     */
+    @Bean
+    @Order(1)
+    public SecurityWebFilterChain actuatorWebFilterChain(ServerHttpSecurity http) {
+        http.securityMatcher(ServerWebExchangeMatchers.pathMatchers("/actuator/**"))
+            .csrf(csrf -> csrf.disable())
+            .formLogin(formLogin -> formLogin.disable())
+            .securityContextRepository(NoOpServerSecurityContextRepository.getInstance())
+            .authenticationManager(new ReactiveAuthenticationManagerAdapter(
+                new ProviderManager(new ActuatorAuthenticationProvider(actuatorUsername, actuatorPassword))))
+            .httpBasic(Customizer.withDefaults())
+            .authorizeExchange(exchanges -> exchanges
+                .pathMatchers("/actuator/health", "/actuator/health/**").permitAll()
+                .anyExchange().hasRole(ActuatorAuthenticationProvider.ROLE)
+            );
+        
+        return http.build();
+    }
+    
+    /**
+     * Configure security filter chain
+     */
+    @Bean
+    public SecurityWebFilterChain securityWebFilterChain(ServerHttpSecurity http) {
+        http.csrf(csrf -> csrf.disable())
+            .cors(cors -> cors.configurationSource(corsConfigurationSource()))
+            .httpBasic(httpBasic -> httpBasic.disable())
+            .formLogin(formLogin -> formLogin.disable())
+            .securityContextRepository(NoOpServerSecurityContextRepository.getInstance())
+            .exceptionHandling(exceptions -> exceptions
+                .authenticationEntryPoint(new HttpStatusServerEntryPoint(HttpStatus.FORBIDDEN)))
+            .authorizeExchange(exchanges -> exchanges
+                .pathMatchers("/api/auth/**").permitAll()
+                .pathMatchers("/").permitAll()
+                .pathMatchers("/api/**").authenticated()
+                .anyExchange().permitAll()
+            )
+            .addFilterAt(new JwtAuthenticationWebFilter(jwtUtil, userDetailsService, tokenRevocationService),
+                SecurityWebFiltersOrder.AUTHENTICATION)
+            // Limits per user once the token is verified, per client address otherwise
+            .addFilterAfter(new RateLimitWebFilter(rateLimiter), SecurityWebFiltersOrder.AUTHENTICATION);
+        
+        return http.build();
+    }
+    
+    /**
+     * Password encoder bean, timed so BCrypt cost shows up in the metrics
+     * Hashes made with a different cost are rehashed on the user's next login
+     */
+    @Bean
+    public PasswordEncoder passwordEncoder(MeterRegistry meterRegistry) {
+        return new TimedPasswordEncoder(new RehashingBCryptPasswordEncoder(bcryptStrength), meterRegistry);
+    }
+    
+    /**
+     * Authentication manager bean
+     * Password checks run on the bounded password hashing pool, off the event loop
+     */
+    @Bean
+    public ReactiveAuthenticationManager reactiveAuthenticationManager(PasswordEncoder passwordEncoder,
+            ReactiveUserDetailsPasswordService userDetailsPasswordService) {
+        UserDetailsRepositoryReactiveAuthenticationManager authenticationManager =
+            new UserDetailsRepositoryReactiveAuthenticationManager(userDetailsService);
+        authenticationManager.setPasswordEncoder(passwordEncoder);
+        authenticationManager.setScheduler(passwordHashingService.scheduler());
+        authenticationManager.setUserDetailsPasswordService(userDetailsPasswordService);
+        return authenticationManager;
+    }
+    
+    /**
+     * CORS configuration
+     */
+    @Bean
+    public CorsConfigurationSource corsConfigurationSource() {
+        CorsConfiguration configuration = new CorsConfiguration();
+        configuration.setAllowedOriginPatterns(Arrays.asList("*"));
+        configuration.setAllowedMethods(Arrays.asList("GET", "POST", "PUT", "PATCH", "DELETE", "OPTIONS"));
+        configuration.setAllowedHeaders(Arrays.asList("*"));
+        // Lets browser clients read task versions for If-Match
+        configuration.setExposedHeaders(Arrays.asList("ETag"));
+        configuration.setAllowCredentials(true);
+        
+        UrlBasedCorsConfigurationSource source = new UrlBasedCorsConfigurationSource();
+        source.registerCorsConfiguration("/**", configuration);
+        return source;
+    }
+}
@@ -0,0 +1,24 @@
+package com.taskmanager.config;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.web.embedded.netty.NettyReactiveWebServerFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Web server configuration for the reactive stack
+ * Selected with spring.main.web-application-type=reactive; the servlet stack stays the default
+ */
+@Configuration
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveWebConfig {
+    
+    /**
+     * Serve requests from Reactor Netty's fixed set of event-loop threads
+     * Tomcat is on the classpath for the servlet stack and would be picked otherwise
+     */
+    @Bean
+    public NettyReactiveWebServerFactory nettyReactiveWebServerFactory() {
+        return new NettyReactiveWebServerFactory();
+    }
+}
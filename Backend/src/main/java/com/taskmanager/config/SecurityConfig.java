@@ -1,16 +1,25 @@
 package com.taskmanager.config;
 
+import com.taskmanager.security.ActuatorAuthenticationProvider;
 import com.taskmanager.security.JwtAuthenticationFilter;
+import com.taskmanager.security.RateLimitFilter;
+import com.taskmanager.security.RehashingBCryptPasswordEncoder;
+import com.taskmanager.security.TimedPasswordEncoder;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.DispatcherType;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.annotation.Order;
 import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.ProviderManager;
+import org.springframework.security.config.Customizer;
 import org.springframework.security.config.annotation.authentication.configuration.AuthenticationConfiguration;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.http.SessionCreationPolicy;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
@@ -22,18 +31,54 @@ import java.util.Arrays;
 
 /**
  * Security configuration for the application
- * Configures JWT authentication and CORS settings
+ * Configures JWT authentication, rate limiting and CORS settings
+ * The actuator endpoints other than health take the static actuator credential over HTTP basic
  */
 @Configuration
 @EnableWebSecurity
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 public class SecurityConfig {
     
     @Autowired
     private JwtAuthenticationFilter jwtAuthenticationFilter;
     
+    @Autowired
+    private RateLimitFilter rateLimitFilter;
+    
+    @Value("${actuator.username:prometheus}")
+    private String actuatorUsername;
+    
+    @Value("${actuator.password:}")
+    private String actuatorPassword;
+    
     @Value("${cors.allowed-origins}")
     private String allowedOrigins;
     
+    @Value("${password-hashing.bcrypt-strength:10}")
+    private int bcryptStrength;
+    
+    /**
+     * Security filter chain of the actuator endpoints, checked before the application chain
+     * Health stays public for container checks; caches, metrics and prometheus need the ACTUATOR role,
+     * which no JWT carries
+     */
+    @Bean
+    @Order(1)
+    public SecurityFilterChain actuatorFilterChain(HttpSecurity http) throws Exception {
+        http.securityMatcher("/actuator/**")
+            .csrf(csrf -> csrf.disable())
+            .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
+            .authorizeHttpRequests(authz -> authz
+                .requestMatchers("/actuator/health", "/actuator/health/**").permitAll()
+                .anyRequest().hasRole(ActuatorAuthenticationProvider.ROLE)
+            )
+            .authenticationManager(new ProviderManager(
+                new ActuatorAuthenticationProvider(actuatorUsername, actuatorPassword)))
+            .httpBasic(Customizer.withDefaults());
+        
+        return http.build();
+    }
+    
     /**
      * Configure security filter chain
      */
@@ -43,23 +88,27 @@ public class SecurityConfig {
             .cors(cors -> cors.configurationSource(corsConfigurationSource()))
             .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
             .authorizeHttpRequests(authz -> authz
+                // Streamed responses complete on an async dispatch after the request was authorized
+                .dispatcherTypeMatchers(DispatcherType.ASYNC, DispatcherType.ERROR).permitAll()
                 .requestMatchers("/api/auth/**").permitAll()
-                .requestMatchers("/actuator/**").permitAll()
                 .requestMatchers("/").permitAll()
                 .requestMatchers("/api/**").authenticated()
                 .anyRequest().permitAll()
             )
-            .addFilterBefore(jwtAuthenticationFilter, UsernamePasswordAuthenticationFilter.class);
+            .addFilterBefore(jwtAuthenticationFilter, UsernamePasswordAuthenticationFilter.class)
+            // Limits per user once the token is verified, per client address otherwise
+            .addFilterAfter(rateLimitFilter, JwtAuthenticationFilter.class);
         
         return http.build();
     }
     
     /**
-     * Password encoder bean
+     * Password encoder bean, timed so BCrypt cost shows up in the metrics
+     * Hashes made with a different cost are rehashed on the user's next login
      */
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public PasswordEncoder passwordEncoder(MeterRegistry meterRegistry) {
+        return new TimedPasswordEncoder(new RehashingBCryptPasswordEncoder(bcryptStrength), meterRegistry);
     }
     
     /**
@@ -78,8 +127,10 @@ public class SecurityConfig {
         CorsConfiguration configuration = new CorsConfiguration();
         // Allow all origins temporarily for debugging
         configuration.setAllowedOriginPatterns(Arrays.asList("*"));
-        configuration.setAllowedMethods(Arrays.asList("GET", "POST", "PUT", "DELETE", "OPTIONS"));
+        configuration.setAllowedMethods(Arrays.asList("GET", "POST", "PUT", "PATCH", "DELETE", "OPTIONS"));
         configuration.setAllowedHeaders(Arrays.asList("*"));
+        // Lets browser clients read task versions for If-Match
+        configuration.setExposedHeaders(Arrays.asList("ETag"));
         configuration.setAllowCredentials(true);
         
         UrlBasedCorsConfigurationSource source = new UrlBasedCorsConfigurationSource();
@@ -0,0 +1,30 @@
+package com.taskmanager.config;
+
+import com.taskmanager.repository.TaskKeys;
+import com.taskmanager.search.TaskSearchIndex;
+import com.taskmanager.service.TaskChangeFeed;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+/**
+ * Task change feed configuration
+ * Subscribes the feed and the search index to the channel on which writers announce new
+ * stream entries, so feeds and search on every replica follow changes made anywhere
+ */
+@Configuration
+public class TaskEventConfig {
+    
+    @Bean
+    public RedisMessageListenerContainer taskEventListenerContainer(RedisConnectionFactory connectionFactory,
+                                                                    TaskChangeFeed taskChangeFeed,
+                                                                    TaskSearchIndex taskSearchIndex) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        container.addMessageListener(taskChangeFeed, new ChannelTopic(TaskKeys.eventsChannel()));
+        container.addMessageListener(taskSearchIndex, new ChannelTopic(TaskKeys.eventsChannel()));
+        return container;
+    }
+}
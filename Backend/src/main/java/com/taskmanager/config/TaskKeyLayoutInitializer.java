@@ -0,0 +1,37 @@
+package com.taskmanager.config;
+
+import com.taskmanager.repository.TaskKeys;
+import com.taskmanager.repository.TaskStore;
+import org.springframework.context.ApplicationContextInitializer;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.env.Environment;
+
+/**
+ * Chooses the task key layout before any bean builds a key
+ * The sharded storage mode switches TaskKeys to hash-tagged keys. A Redis Cluster needs that
+ * layout, since the task scripts touch many keys of one user at once, and it needs the near-cache
+ * off, since keyspace notifications are only published on the node that owns the key
+ */
+public class TaskKeyLayoutInitializer implements ApplicationContextInitializer<ConfigurableApplicationContext> {
+    
+    static final String CLUSTER_NODES_PROPERTY = "spring.data.redis.cluster.nodes";
+    
+    @Override
+    public void initialize(ConfigurableApplicationContext context) {
+        Environment environment = context.getEnvironment();
+        boolean sharded = TaskStore.SHARDED_MODE.equals(environment.getProperty(TaskStore.MODE_PROPERTY));
+        TaskKeys.setHashTagged(sharded);
+        
+        if (!environment.containsProperty(CLUSTER_NODES_PROPERTY)) {
+            return;
+        }
+        if (!sharded) {
+            throw new IllegalStateException("Redis Cluster needs " + TaskStore.MODE_PROPERTY + "="
+                + TaskStore.SHARDED_MODE + ", so that each user's task keys share a slot");
+        }
+        if (environment.getProperty("near-cache.enabled", Boolean.class, true)) {
+            throw new IllegalStateException("Redis Cluster needs near-cache.enabled=false, since keyspace "
+                + "notifications from other nodes do not reach the near-cache");
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package com.taskmanager.config;
+
+import com.taskmanager.repository.AuthKeys;
+import com.taskmanager.security.TokenRevocationService;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+/**
+ * Token revocation configuration
+ * Subscribes the revoked session filter to the revocation channel,
+ * so a logout on any replica is enforced on every replica at once
+ */
+@Configuration
+public class TokenRevocationConfig {
+    
+    @Bean
+    public RedisMessageListenerContainer tokenRevocationListenerContainer(RedisConnectionFactory connectionFactory,
+                                                                          TokenRevocationService tokenRevocationService) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        container.addMessageListener(tokenRevocationService, new ChannelTopic(AuthKeys.revokedSessionsChannel()));
+        return container;
+    }
+}
@@ -0,0 +1,27 @@
+package com.taskmanager.config;
+
+import com.taskmanager.repository.UserKeys;
+import com.taskmanager.security.UserRegistrationService;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+/**
+ * User registration configuration
+ * Subscribes the registered username filter to the registrations channel,
+ * so a username taken on any replica is known to every replica at once
+ */
+@Configuration
+public class UserRegistrationConfig {
+    
+    @Bean
+    public RedisMessageListenerContainer userRegistrationListenerContainer(
+            RedisConnectionFactory connectionFactory, UserRegistrationService userRegistrationService) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        container.addMessageListener(userRegistrationService, new ChannelTopic(UserKeys.registrationsChannel()));
+        return container;
+    }
+}
@@ -2,38 +2,56 @@ package com.taskmanager.controller;
 
 import com.taskmanager.dto.AuthResponse;
 import com.taskmanager.dto.LoginRequest;
+import com.taskmanager.dto.RefreshRequest;
 import com.taskmanager.dto.RegisterRequest;
-import com.taskmanager.model.User;
-import com.taskmanager.repository.UserRepository;
+import com.taskmanager.repository.RefreshTokenRepository;
+import com.taskmanager.security.AuthenticatedUser;
+import com.taskmanager.security.CustomUserDetailsService;
 import com.taskmanager.security.JwtUtil;
+import com.taskmanager.security.PasswordHashingService;
+import com.taskmanager.security.TokenRevocationService;
+import com.taskmanager.security.UserRegistrationService;
+import jakarta.annotation.PostConstruct;
 import jakarta.validation.Valid;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.core.task.AsyncTaskExecutor;
 import org.springframework.security.authentication.BadCredentialsException;
-import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
 /**
  * Authentication controller
- * Handles user registration and login
+ * Handles user registration, login, token refresh and logout
+ * Password hashing runs on a bounded pool; when it is saturated requests get a 503 at once.
+ * Only the BCrypt call itself goes to that pool: user lookups and Redis writes run on the request
+ * thread or on the application task executor, so they never hold a hashing worker
  */
 @RestController
 @RequestMapping("/api/auth")
 @CrossOrigin(origins = "*")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 public class AuthController {
     
     private static final Logger logger = LoggerFactory.getLogger(AuthController.class);
     
+    private static final String RETRY_AFTER_SECONDS = "1";
+    
     @Autowired
-    private AuthenticationManager authenticationManager;
+    private CustomUserDetailsService userDetailsService;
     
     @Autowired
-    private UserRepository userRepository;
+    private UserRegistrationService userRegistrationService;
     
     @Autowired
     private PasswordEncoder passwordEncoder;
@@ -41,62 +59,221 @@ public class AuthController {
     @Autowired
     private JwtUtil jwtUtil;
     
+    @Autowired
+    private PasswordHashingService passwordHashingService;
+    
+    @Autowired
+    private RefreshTokenRepository refreshTokenRepository;
+    
+    @Autowired
+    private TokenRevocationService tokenRevocationService;
+    
+    /**
+     * Spring's application task executor, which continues requests once their hash is done
+     */
+    @Autowired
+    private AsyncTaskExecutor applicationTaskExecutor;
+    
+    /**
+     * Hash checked when the username is unknown, so such logins take as long as a wrong password
+     */
+    private String unknownUserPassword;
+    
+    @PostConstruct
+    void init() {
+        unknownUserPassword = passwordEncoder.encode(UUID.randomUUID().toString());
+    }
+    
     /**
      * Register a new user
+     * The password is hashed on the bounded hashing pool, so the request thread is released meanwhile
      */
     @PostMapping("/register")
-    public ResponseEntity<?> register(@Valid @RequestBody RegisterRequest request) {
+    public CompletableFuture<ResponseEntity<AuthResponse>> register(@Valid @RequestBody RegisterRequest request) {
         try {
-            // Check if username already exists
-            if (userRepository.existsByUsername(request.getUsername())) {
+            // Answered from the local username filter for new usernames, saving a hash for taken ones
+            if (userRegistrationService.isTaken(request.getUsername())) {
                 logger.warn("Registration attempt with existing username: {}", request.getUsername());
-                return ResponseEntity.badRequest()
-                    .body(new AuthResponse("Username already exists"));
+                return CompletableFuture.completedFuture(usernameTaken());
             }
-            
-            // Create new user
-            User user = new User();
-            user.setUsername(request.getUsername());
-            user.setPassword(passwordEncoder.encode(request.getPassword()));
-            
-            userRepository.save(user);
-            
-            logger.info("User registered successfully: {}", request.getUsername());
-            return ResponseEntity.ok(new AuthResponse("User registered successfully"));
-            
         } catch (Exception e) {
             logger.error("Error during user registration: ", e);
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
-                .body(new AuthResponse("Registration failed"));
+            return CompletableFuture.completedFuture(ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                .body(new AuthResponse("Registration failed")));
         }
+        
+        return passwordHashingService.submit(() -> passwordEncoder.encode(request.getPassword()))
+            .thenApplyAsync(encodedPassword -> {
+                // Reserves the username and writes the user in one step, so only one concurrent registration wins
+                if (userRegistrationService.register(request.getUsername(), encodedPassword) == null) {
+                    logger.warn("Registration lost the race for username: {}", request.getUsername());
+                    return usernameTaken();
+                }
+                
+                logger.info("User registered successfully: {}", request.getUsername());
+                return ResponseEntity.ok(new AuthResponse("User registered successfully"));
+            }, applicationTaskExecutor)
+            .exceptionally(e -> {
+                Throwable cause = unwrap(e);
+                if (PasswordHashingService.isRejection(cause)) {
+                    logger.warn("Password hashing saturated, rejecting registration for: {}", request.getUsername());
+                    return busy();
+                }
+                logger.error("Error during user registration: ", cause);
+                return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(new AuthResponse("Registration failed"));
+            });
     }
     
     /**
-     * Authenticate user and return JWT token
+     * Authenticate user and return a short-lived JWT token with a refresh token
+     * The user is looked up on the request thread and only the BCrypt check runs on the bounded hashing pool
      */
     @PostMapping("/login")
-    public ResponseEntity<?> login(@Valid @RequestBody LoginRequest request) {
+    public CompletableFuture<ResponseEntity<AuthResponse>> login(@Valid @RequestBody LoginRequest request) {
+        AuthenticatedUser found;
         try {
-            // Authenticate user
-            authenticationManager.authenticate(
-                new UsernamePasswordAuthenticationToken(request.getUsername(), request.getPassword())
-            );
-            
-            // Generate JWT token
-            String token = jwtUtil.generateToken(request.getUsername());
-            
-            logger.info("User logged in successfully: {}", request.getUsername());
-            return ResponseEntity.ok(new AuthResponse(token, request.getUsername(), "Login successful"));
-            
-        } catch (BadCredentialsException e) {
-            logger.warn("Invalid login attempt for username: {}", request.getUsername());
-            return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
-                .body(new AuthResponse("Invalid username or password"));
+            found = findUser(request.getUsername());
         } catch (Exception e) {
             logger.error("Error during user login: ", e);
+            return CompletableFuture.completedFuture(ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                .body(new AuthResponse("Login failed")));
+        }
+        String encodedPassword = found != null ? found.getPassword() : unknownUserPassword;
+        
+        return passwordHashingService.submit(() -> passwordEncoder.matches(request.getPassword(), encodedPassword))
+            .thenApplyAsync(matches -> {
+                if (found == null || !matches) {
+                    throw new BadCredentialsException("Bad credentials");
+                }
+                rehashIfNeeded(found, request.getPassword());
+                
+                // Each login starts a session, which its refresh tokens keep and a logout revokes
+                AuthResponse response = issueTokens(found.getId(), found.getUsername(), UUID.randomUUID().toString(),
+                    "Login successful");
+                
+                logger.info("User logged in successfully: {}", request.getUsername());
+                return ResponseEntity.ok(response);
+            }, applicationTaskExecutor)
+            .exceptionally(e -> {
+                Throwable cause = unwrap(e);
+                if (cause instanceof BadCredentialsException) {
+                    logger.warn("Invalid login attempt for username: {}", request.getUsername());
+                    return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
+                        .body(new AuthResponse("Invalid username or password"));
+                }
+                if (PasswordHashingService.isRejection(cause)) {
+                    logger.warn("Password hashing saturated, rejecting login for: {}", request.getUsername());
+                    return busy();
+                }
+                logger.error("Error during user login: ", cause);
+                return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(new AuthResponse("Login failed"));
+            });
+    }
+    
+    /**
+     * Exchange a refresh token for a new access token and refresh token
+     * The old refresh token is used up, so a stolen copy stops working once either party refreshes
+     */
+    @PostMapping("/refresh")
+    public ResponseEntity<AuthResponse> refresh(@Valid @RequestBody RefreshRequest request) {
+        try {
+            RefreshTokenRepository.Session session = refreshTokenRepository.consume(request.getRefreshToken());
+            if (session == null || tokenRevocationService.isRevoked(session.getSessionId())) {
+                logger.warn("Refresh attempt with an invalid, used or revoked refresh token");
+                return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
+                    .body(new AuthResponse("Invalid refresh token"));
+            }
+            return ResponseEntity.ok(issueTokens(session.getUserId(), session.getUsername(), session.getSessionId(),
+                "Token refreshed"));
+        } catch (Exception e) {
+            logger.error("Error during token refresh: ", e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                .body(new AuthResponse("Token refresh failed"));
+        }
+    }
+    
+    /**
+     * Log out, revoking the session of the bearer token or of the refresh token on every node
+     * Either one identifies the session, so an expired access token is enough together with the refresh token
+     */
+    @PostMapping("/logout")
+    public ResponseEntity<AuthResponse> logout(
+            @RequestHeader(value = HttpHeaders.AUTHORIZATION, required = false) String authorization,
+            @RequestBody(required = false) RefreshRequest request) {
+        try {
+            String sessionId = authorization != null && authorization.startsWith("Bearer ")
+                ? jwtUtil.extractSessionIdIgnoringExpiry(authorization.substring(7))
+                : null;
+            if (request != null && request.getRefreshToken() != null) {
+                RefreshTokenRepository.Session session = refreshTokenRepository.consume(request.getRefreshToken());
+                if (sessionId == null && session != null) {
+                    sessionId = session.getSessionId();
+                }
+            }
+            if (sessionId != null) {
+                tokenRevocationService.revoke(sessionId);
+            }
+            return ResponseEntity.ok(new AuthResponse("Logged out"));
+        } catch (Exception e) {
+            logger.error("Error during logout: ", e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
-                .body(new AuthResponse("Login failed"));
+                .body(new AuthResponse("Logout failed"));
+        }
+    }
+    
+    /**
+     * The user with this username, or null if there is none
+     */
+    private AuthenticatedUser findUser(String username) {
+        try {
+            return (AuthenticatedUser) userDetailsService.loadUserByUsername(username);
+        } catch (UsernameNotFoundException e) {
+            return null;
+        }
+    }
+    
+    /**
+     * Rehash a password stored with a different BCrypt cost, in the background
+     * If the hashing pool is saturated the rehash is left for a later login
+     */
+    private void rehashIfNeeded(AuthenticatedUser user, String rawPassword) {
+        if (!passwordEncoder.upgradeEncoding(user.getPassword())) {
+            return;
         }
+        passwordHashingService.submit(() -> passwordEncoder.encode(rawPassword))
+            .thenAcceptAsync(encoded -> userDetailsService.updatePassword(user, encoded), applicationTaskExecutor)
+            .exceptionally(e -> {
+                logger.warn("Could not rehash password of user: {}", user.getUsername(), unwrap(e));
+                return null;
+            });
+    }
+    
+    /**
+     * Mint an access token carrying the user and session ids, so later requests need no user lookup,
+     * together with a refresh token for the same session
+     */
+    private AuthResponse issueTokens(String userId, String username, String sessionId, String message) {
+        String token = jwtUtil.generateToken(userId, username, sessionId);
+        String refreshToken = refreshTokenRepository.create(userId, username, sessionId);
+        return new AuthResponse(token, refreshToken, jwtUtil.getExpiration() / 1000, username, message);
+    }
+    
+    private static ResponseEntity<AuthResponse> usernameTaken() {
+        return ResponseEntity.badRequest().body(new AuthResponse("Username already exists"));
+    }
+    
+    /**
+     * Fast rejection while the hashing pool is saturated; clients should retry shortly
+     */
+    private static ResponseEntity<AuthResponse> busy() {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+            .header(HttpHeaders.RETRY_AFTER, RETRY_AFTER_SECONDS)
+            .body(new AuthResponse("Server is busy, please try again"));
+    }
+    
+    private static Throwable unwrap(Throwable e) {
+        return e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
     }
 }
-
@@ -0,0 +1,213 @@
+package com.taskmanager.controller;
+
+import com.taskmanager.dto.AuthResponse;
+import com.taskmanager.dto.LoginRequest;
+import com.taskmanager.dto.RefreshRequest;
+import com.taskmanager.dto.RegisterRequest;
+import com.taskmanager.repository.RefreshTokenRepository;
+import com.taskmanager.security.AuthenticatedUser;
+import com.taskmanager.security.JwtUtil;
+import com.taskmanager.security.PasswordHashingService;
+import com.taskmanager.security.TokenRevocationService;
+import com.taskmanager.security.UserRegistrationService;
+import jakarta.validation.Valid;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.ReactiveAuthenticationManager;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Mono;
+
+import java.util.UUID;
+
+/**
+ * Authentication controller for the reactive stack
+ * Handles user registration, login, token refresh and logout without blocking the event loop
+ * Password hashing runs on a bounded pool; when it is saturated requests get a 503 at once
+ */
+@RestController
+@RequestMapping("/api/auth")
+@CrossOrigin(origins = "*")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveAuthController {
+    
+    private static final Logger logger = LoggerFactory.getLogger(ReactiveAuthController.class);
+    
+    private static final String RETRY_AFTER_SECONDS = "1";
+    
+    @Autowired
+    private ReactiveAuthenticationManager authenticationManager;
+    
+    @Autowired
+    private UserRegistrationService userRegistrationService;
+    
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+    
+    @Autowired
+    private JwtUtil jwtUtil;
+    
+    @Autowired
+    private PasswordHashingService passwordHashingService;
+    
+    @Autowired
+    private RefreshTokenRepository refreshTokenRepository;
+    
+    @Autowired
+    private TokenRevocationService tokenRevocationService;
+    
+    /**
+     * Register a new user
+     */
+    @PostMapping("/register")
+    public Mono<ResponseEntity<AuthResponse>> register(@Valid @RequestBody RegisterRequest request) {
+        // Answered from the local username filter for new usernames, saving a hash for taken ones
+        return userRegistrationService.isTakenReactive(request.getUsername())
+            .flatMap(taken -> {
+                if (taken) {
+                    logger.warn("Registration attempt with existing username: {}", request.getUsername());
+                    return Mono.just(usernameTaken());
+                }
+                
+                // BCrypt is deliberately slow, so hash on the bounded hashing pool rather than the event loop
+                return Mono.fromCallable(() -> passwordEncoder.encode(request.getPassword()))
+                    .subscribeOn(passwordHashingService.scheduler())
+                    // Reserves the username and writes the user in one step, so only one concurrent registration wins
+                    .flatMap(encodedPassword -> userRegistrationService.registerReactive(request.getUsername(),
+                        encodedPassword))
+                    .map(user -> {
+                        logger.info("User registered successfully: {}", request.getUsername());
+                        return ResponseEntity.ok(new AuthResponse("User registered successfully"));
+                    })
+                    .switchIfEmpty(Mono.fromSupplier(() -> {
+                        logger.warn("Registration lost the race for username: {}", request.getUsername());
+                        return usernameTaken();
+                    }));
+            })
+            .onErrorResume(PasswordHashingService::isRejection, e -> {
+                logger.warn("Password hashing saturated, rejecting registration for: {}", request.getUsername());
+                return Mono.just(busy());
+            })
+            .onErrorResume(e -> {
+                logger.error("Error during user registration: ", e);
+                return Mono.just(ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(new AuthResponse("Registration failed")));
+            });
+    }
+    
+    /**
+     * Authenticate user and return a short-lived JWT token with a refresh token
+     */
+    @PostMapping("/login")
+    public Mono<ResponseEntity<AuthResponse>> login(@Valid @RequestBody LoginRequest request) {
+        return authenticationManager.authenticate(
+                new UsernamePasswordAuthenticationToken(request.getUsername(), request.getPassword()))
+            .flatMap(authentication -> {
+                AuthenticatedUser user = (AuthenticatedUser) authentication.getPrincipal();
+                
+                // Each login starts a session, which its refresh tokens keep and a logout revokes
+                return issueTokens(user.getId(), user.getUsername(), UUID.randomUUID().toString(), "Login successful");
+            })
+            .map(response -> {
+                logger.info("User logged in successfully: {}", request.getUsername());
+                return ResponseEntity.ok(response);
+            })
+            .onErrorResume(BadCredentialsException.class, e -> {
+                logger.warn("Invalid login attempt for username: {}", request.getUsername());
+                return Mono.just(ResponseEntity.status(HttpStatus.UNAUTHORIZED)
+                    .body(new AuthResponse("Invalid username or password")));
+            })
+            .onErrorResume(PasswordHashingService::isRejection, e -> {
+                logger.warn("Password hashing saturated, rejecting login for: {}", request.getUsername());
+                return Mono.just(busy());
+            })
+            .onErrorResume(e -> {
+                logger.error("Error during user login: ", e);
+                return Mono.just(ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(new AuthResponse("Login failed")));
+            });
+    }
+    
+    /**
+     * Exchange a refresh token for a new access token and refresh token
+     * The old refresh token is used up, so a stolen copy stops working once either party refreshes
+     */
+    @PostMapping("/refresh")
+    public Mono<ResponseEntity<AuthResponse>> refresh(@Valid @RequestBody RefreshRequest request) {
+        return refreshTokenRepository.consumeReactive(request.getRefreshToken())
+            .filterWhen(session -> tokenRevocationService.isRevokedReactive(session.getSessionId())
+                .map(revoked -> !revoked))
+            .flatMap(session -> issueTokens(session.getUserId(), session.getUsername(), session.getSessionId(),
+                "Token refreshed"))
+            .map(ResponseEntity::ok)
+            .switchIfEmpty(Mono.fromSupplier(() -> {
+                logger.warn("Refresh attempt with an invalid, used or revoked refresh token");
+                return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
+                    .body(new AuthResponse("Invalid refresh token"));
+            }))
+            .onErrorResume(e -> {
+                logger.error("Error during token refresh: ", e);
+                return Mono.just(ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(new AuthResponse("Token refresh failed")));
+            });
+    }
+    
+    /**
+     * Log out, revoking the session of the bearer token or of the refresh token on every node
+     * Either one identifies the session, so an expired access token is enough together with the refresh token
+     */
+    @PostMapping("/logout")
+    public Mono<ResponseEntity<AuthResponse>> logout(
+            @RequestHeader(value = HttpHeaders.AUTHORIZATION, required = false) String authorization,
+            @RequestBody(required = false) RefreshRequest request) {
+        String bearerSessionId = authorization != null && authorization.startsWith("Bearer ")
+            ? jwtUtil.extractSessionIdIgnoringExpiry(authorization.substring(7))
+            : null;
+        Mono<String> refreshSessionId = request != null && request.getRefreshToken() != null
+            ? refreshTokenRepository.consumeReactive(request.getRefreshToken())
+                .map(RefreshTokenRepository.Session::getSessionId)
+            : Mono.empty();
+        
+        return refreshSessionId
+            .map(sessionId -> bearerSessionId != null ? bearerSessionId : sessionId)
+            .switchIfEmpty(Mono.justOrEmpty(bearerSessionId))
+            .flatMap(tokenRevocationService::revokeReactive)
+            .thenReturn(ResponseEntity.ok(new AuthResponse("Logged out")))
+            .onErrorResume(e -> {
+                logger.error("Error during logout: ", e);
+                return Mono.just(ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(new AuthResponse("Logout failed")));
+            });
+    }
+    
+    /**
+     * Mint an access token carrying the user and session ids, so later requests need no user lookup,
+     * together with a refresh token for the same session
+     */
+    private Mono<AuthResponse> issueTokens(String userId, String username, String sessionId, String message) {
+        String token = jwtUtil.generateToken(userId, username, sessionId);
+        return refreshTokenRepository.createReactive(userId, username, sessionId)
+            .map(refreshToken -> new AuthResponse(token, refreshToken, jwtUtil.getExpiration() / 1000, username,
+                message));
+    }
+    
+    private static ResponseEntity<AuthResponse> usernameTaken() {
+        return ResponseEntity.badRequest().body(new AuthResponse("Username already exists"));
+    }
+    
+    /**
+     * Fast rejection while the hashing pool is saturated; clients should retry shortly
+     */
+    private static ResponseEntity<AuthResponse> busy() {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+            .header(HttpHeaders.RETRY_AFTER, RETRY_AFTER_SECONDS)
+            .body(new AuthResponse("Server is busy, please try again"));
+    }
+}
@@ -0,0 +1,556 @@
+package com.taskmanager.controller;
+
+import com.taskmanager.dto.BulkDeleteRequest;
+import com.taskmanager.dto.BulkItemResult;
+import com.taskmanager.dto.BulkStatusRequest;
+import com.taskmanager.dto.BulkTaskResponse;
+import com.taskmanager.dto.TaskEvent;
+import com.taskmanager.dto.TaskPatchRequest;
+import com.taskmanager.dto.TaskRequest;
+import com.taskmanager.logging.LogSampler;
+import com.taskmanager.model.Task;
+import com.taskmanager.model.TaskStatus;
+import com.taskmanager.security.AuthenticatedUser;
+import com.taskmanager.service.ReactiveTaskService;
+import com.taskmanager.service.TaskChangeFeed;
+import com.taskmanager.service.TaskService;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Valid;
+import jakarta.validation.Validator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.security.core.context.ReactiveSecurityContextHolder;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * Task controller for the reactive stack
+ * Serves the same endpoints as TaskController; task lists are written to the
+ * client as they are read from Redis, at the pace the client consumes them.
+ * ETags, If-None-Match and If-Match work as in TaskController
+ */
+@RestController
+@RequestMapping("/api/tasks")
+@CrossOrigin(origins = "http://localhost:4200")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveTaskController {
+    
+    private static final Logger logger = LoggerFactory.getLogger(ReactiveTaskController.class);
+    
+    private static final int STREAM_BATCH_SIZE = 500;
+    
+    /**
+     * Let clients keep tagged responses but revalidate them on every use
+     */
+    private static final CacheControl REVALIDATE = CacheControl.noCache().cachePrivate();
+    
+    @Autowired
+    private ReactiveTaskService taskService;
+    
+    @Autowired
+    private Validator validator;
+    
+    @Autowired
+    private TaskChangeFeed taskChangeFeed;
+    
+    /**
+     * Task reads are logged for a sample of requests only, as they happen on every page load
+     */
+    @Autowired
+    private LogSampler taskReadLogSampler;
+    
+    @Value("${task-events.heartbeat-interval:15s}")
+    private Duration heartbeatInterval;
+    
+    /**
+     * Get current authenticated user
+     * Resolved from the reactive security context, which the JWT filter populates from token claims
+     */
+    private Mono<AuthenticatedUser> getCurrentUser() {
+        return ReactiveSecurityContextHolder.getContext()
+            .flatMap(context -> Mono.justOrEmpty(context.getAuthentication()))
+            .filter(authentication -> authentication.getPrincipal() instanceof AuthenticatedUser)
+            .map(authentication -> (AuthenticatedUser) authentication.getPrincipal())
+            .switchIfEmpty(Mono.error(() -> new RuntimeException("User not found")));
+    }
+    
+    /**
+     * Create a new task
+     */
+    @PostMapping
+    public Mono<ResponseEntity<?>> createTask(@Valid @RequestBody TaskRequest request) {
+        return getCurrentUser()
+            .flatMap(currentUser -> {
+                Task task = new Task();
+                task.setTitle(request.getTitle());
+                task.setDescription(request.getDescription());
+                task.setStatus(request.getStatus() != null ? request.getStatus() : TaskStatus.PENDING);
+                task.setUserId(currentUser.getId());
+                
+                return taskService.createTask(task).<ResponseEntity<?>>map(savedTask -> {
+                    logger.info("Task created successfully: {} for user: {}", savedTask.getId(), currentUser.getUsername());
+                    return ResponseEntity.status(HttpStatus.CREATED).eTag(TaskETags.forTask(savedTask)).body(savedTask);
+                });
+            })
+            .onErrorResume(e -> {
+                logger.error("Error creating task: ", e);
+                return Mono.just(ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body("Failed to create task"));
+            });
+    }
+    
+    /**
+     * Get all tasks for the current user
+     * When a status, sort, order, cursor or limit is given, returns one page of tasks,
+     * filtered and sorted server-side (sort=createdAt|updatedAt, order=asc|desc);
+     * otherwise the tasks are written out as a JSON array while they are being read.
+     * Tagged with the user's version, which changes with every task write
+     */
+    @GetMapping
+    public Mono<ResponseEntity<?>> getAllTasks(@RequestParam(required = false) TaskStatus status,
+                                               @RequestParam(required = false) String sort,
+                                               @RequestParam(required = false) String order,
+                                               @RequestParam(required = false) String cursor,
+                                               @RequestParam(required = false) Integer limit,
+                                               @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false)
+                                               String ifNoneMatch) {
+        return getCurrentUser()
+            // Read before the tasks, so a concurrent write leaves the tag older than the body, never newer
+            .flatMap(currentUser -> taskService.getUserVersion(currentUser.getId()).flatMap(userVersion -> {
+                String etag = TaskETags.forList(userVersion);
+                if (TaskETags.noneMatchSatisfied(ifNoneMatch, etag)) {
+                    return Mono.<ResponseEntity<?>>just(ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                        .eTag(etag).cacheControl(REVALIDATE).build());
+                }
+                if (status != null || sort != null || order != null || cursor != null || limit != null) {
+                    return taskService.getTaskPage(currentUser.getId(), status, sort, order, cursor,
+                            limit != null ? limit : TaskService.DEFAULT_PAGE_SIZE)
+                        .<ResponseEntity<?>>map(page -> {
+                            if (taskReadLogSampler.sample()) {
+                                logger.info("Retrieved page of {} tasks for user: {}", page.getItems().size(),
+                                    currentUser.getUsername());
+                            }
+                            return ResponseEntity.ok().eTag(etag).cacheControl(REVALIDATE).body(page);
+                        });
+                }
+                
+                Flux<Task> tasks = taskService.getAllTasks(currentUser.getId())
+                    .doOnComplete(() -> {
+                        if (taskReadLogSampler.sample()) {
+                            logger.info("Retrieved tasks for user: {}", currentUser.getUsername());
+                        }
+                    });
+                return Mono.<ResponseEntity<?>>just(ResponseEntity.ok().eTag(etag).cacheControl(REVALIDATE).body(tasks));
+            }))
+            .onErrorResume(IllegalArgumentException.class, e -> {
+                logger.warn("Invalid task page request: {}", e.getMessage());
+                return Mono.just(ResponseEntity.badRequest().body(e.getMessage()));
+            })
+            .onErrorResume(e -> {
+                logger.error("Error retrieving tasks: ", e);
+                return Mono.just(ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body("Failed to retrieve tasks"));
+            });
+    }
+    
+    /**
+     * Stream all tasks for the current user as newline-delimited JSON
+     * Tasks are read in batches as the client consumes them, so memory use stays flat
+     */
+    @GetMapping(produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<Task> streamAllTasks() {
+        return getCurrentUser()
+            .flatMapMany(currentUser -> {
+                AtomicLong count = new AtomicLong();
+                return taskService.streamTasks(currentUser.getId(), STREAM_BATCH_SIZE)
+                    .doOnNext(task -> count.incrementAndGet())
+                    .doOnComplete(() -> logger.info("Streamed {} tasks for user: {}", count.get(),
+                        currentUser.getUsername()));
+            });
+    }
+    
+    /**
+     * Follow the current user's task changes as Server-Sent Events
+     * Each event's id is its position in the user's change stream; browsers send it back
+     * as Last-Event-ID when they reconnect, and other clients can pass it as since,
+     * to resume without missing a change. Without either the feed starts with the next change
+     */
+    @GetMapping(value = "/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Mono<ResponseEntity<Flux<ServerSentEvent<TaskEvent>>>> streamTaskEvents(
+            @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId,
+            @RequestParam(required = false) String since) {
+        String resumeFrom = lastEventId != null ? lastEventId : since;
+        if (resumeFrom != null && !TaskChangeFeed.isValidEventId(resumeFrom)) {
+            logger.warn("Invalid task event id: {}", resumeFrom);
+            return Mono.just(ResponseEntity.badRequest().build());
+        }
+        return getCurrentUser()
+            .map(currentUser -> {
+                Flux<ServerSentEvent<TaskEvent>> events = taskChangeFeed.follow(currentUser.getId(), resumeFrom)
+                    .map(event -> ServerSentEvent.builder(event)
+                        .id(event.getId())
+                        .event(event.getType().name())
+                        .build());
+                // Comments keep proxies from closing an idle connection
+                Flux<ServerSentEvent<TaskEvent>> heartbeats = Flux.interval(heartbeatInterval)
+                    .map(tick -> ServerSentEvent.<TaskEvent>builder().comment("keepalive").build());
+                
+                logger.info("Streaming task events for user: {}", currentUser.getUsername());
+                return ResponseEntity.ok(Flux.merge(events, heartbeats));
+            });
+    }
+    
+    /**
+     * Search the current user's task titles and descriptions
+     * Returns tasks containing every word of the query, best match first, one page at a time
+     */
+    @GetMapping("/search")
+    public Mono<ResponseEntity<?>> searchTasks(@RequestParam("q") String query,
+                                               @RequestParam(required = false) String cursor,
+                                               @RequestParam(required = false) Integer limit) {
+        return getCurrentUser()
+            .flatMap(currentUser -> taskService.searchTasks(currentUser.getId(), query, cursor,
+                    limit != null ? limit : TaskService.DEFAULT_PAGE_SIZE)
+                .<ResponseEntity<?>>map(page -> {
+                    logger.info("Found {} tasks matching search for user: {}", page.getItems().size(),
+                        currentUser.getUsername());
+                    return ResponseEntity.ok(page);
+                }))
+            .onErrorResume(IllegalArgumentException.class, e -> {
+                logger.warn("Invalid task search request: {}", e.getMessage());
+                return Mono.just(ResponseEntity.badRequest().body(e.getMessage()));
+            })
+            .onErrorResume(e -> {
+                logger.error("Error searching tasks: ", e);
+                return Mono.just(ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body("Failed to search tasks"));
+            });
+    }
+    
+    /**
+     * Get the current user's task changes since their last sync
+     * Returns the tasks written and deleted since the token, oldest first, so a reconnecting
+     * client downloads its changes rather than every task
+     */
+    @GetMapping("/sync")
+    public Mono<ResponseEntity<?>> syncTasks(@RequestParam(required = false) String token,
+                                             @RequestParam(required = false) Integer limit) {
+        return getCurrentUser()
+            .flatMap(currentUser -> taskService.syncTasks(currentUser.getId(), token,
+                    limit != null ? limit : TaskService.MAX_PAGE_SIZE)
+                .<ResponseEntity<?>>map(sync -> {
+                    logger.info("Synced {} changed and {} deleted tasks for user: {}", sync.getItems().size(),
+                        sync.getDeletedIds().size(), currentUser.getUsername());
+                    return ResponseEntity.ok().cacheControl(CacheControl.noStore()).body(sync);
+                }))
+            .onErrorResume(IllegalArgumentException.class, e -> {
+                logger.warn("Invalid task sync request: {}", e.getMessage());
+                return Mono.just(ResponseEntity.badRequest().body(e.getMessage()));
+            })
+            .onErrorResume(e -> {
+                logger.error("Error syncing tasks: ", e);
+                return Mono.just(ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body("Failed to sync tasks"));
+            });
+    }
+    
+    /**
+     * Get the current user's task counts per status
+     * Read from counters kept up to date on every write, so no task is loaded
+     */
+    @GetMapping("/stats")
+    public Mono<ResponseEntity<?>> getTaskStats() {
+        return getCurrentUser()
+            .flatMap(currentUser -> taskService.getStats(currentUser.getId())
+                .<ResponseEntity<?>>map(stats -> {
+                    logger.info("Retrieved task stats for user: {}", currentUser.getUsername());
+                    return ResponseEntity.ok(stats);
+                }))
+            .onErrorResume(e -> {
+                logger.error("Error retrieving task stats: ", e);
+                return Mono.just(ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body("Failed to retrieve task stats"));
+            });
+    }
+    
+    /**
+     * Get a specific task by ID
+     * A matching If-None-Match is answered from the task's version alone
+     */
+    @GetMapping("/{id}")
+    public Mono<ResponseEntity<?>> getTaskById(@PathVariable String id,
+                                               @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false)
+                                               String ifNoneMatch) {
+        return getCurrentUser()
+            .flatMap(currentUser -> notModifiedTask(currentUser.getId(), id, ifNoneMatch)
+                .switchIfEmpty(taskService.getTask(currentUser.getId(), id)
+                    .<ResponseEntity<?>>map(task -> {
+                        if (taskReadLogSampler.sample()) {
+                            logger.info("Task retrieved: {} for user: {}", id, currentUser.getUsername());
+                        }
+                        return ResponseEntity.ok().eTag(TaskETags.forTask(task)).cacheControl(REVALIDATE).body(task);
+                    }))
+                .switchIfEmpty(Mono.fromSupplier(() -> {
+                    logger.warn("Task not found or access denied: {} for user: {}", id, currentUser.getUsername());
+                    return ResponseEntity.notFound().build();
+                })))
+            .onErrorResume(e -> {
+                logger.error("Error retrieving task: ", e);
+                return Mono.just(ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body("Failed to retrieve task"));
+            });
+    }
+    
+    /**
+     * 304 response for a task whose version matches If-None-Match, read without loading the task
+     * @return the response, or empty if the header is absent or does not match
+     */
+    private Mono<ResponseEntity<?>> notModifiedTask(String userId, String id, String ifNoneMatch) {
+        if (ifNoneMatch == null) {
+            return Mono.empty();
+        }
+        return taskService.getTaskVersion(userId, id)
+            .map(TaskETags::forTask)
+            .filter(etag -> TaskETags.noneMatchSatisfied(ifNoneMatch, etag))
+            .map(etag -> ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).cacheControl(REVALIDATE).build());
+    }
+    
+    /**
+     * Update an existing task
+     * With If-Match, only if the task is still at one of the given versions
+     */
+    @PutMapping("/{id}")
+    public Mono<ResponseEntity<?>> updateTask(@PathVariable String id, @Valid @RequestBody TaskRequest request,
+                                              @RequestHeader(value = HttpHeaders.IF_MATCH, required = false)
+                                              String ifMatch) {
+        return getCurrentUser()
+            // Ownership check, version check and write happen atomically in one Redis round trip
+            .flatMap(currentUser -> taskService.updateTask(currentUser.getId(), id,
+                    request.getTitle(), request.getDescription(), request.getStatus(),
+                    TaskETags.expectedVersions(ifMatch))
+                .<ResponseEntity<?>>map(task -> {
+                    logger.info("Task updated successfully: {} for user: {}", id, currentUser.getUsername());
+                    return ResponseEntity.ok().eTag(TaskETags.forTask(task)).body(task);
+                })
+                .switchIfEmpty(Mono.fromSupplier(() -> {
+                    logger.warn("Task not found or access denied for update: {} for user: {}", id, currentUser.getUsername());
+                    return ResponseEntity.notFound().build();
+                })))
+            .onErrorResume(OptimisticLockingFailureException.class, e -> {
+                logger.warn("Task changed since the given version, not updated: {}", id);
+                return Mono.just(ResponseEntity.status(HttpStatus.PRECONDITION_FAILED).build());
+            })
+            .onErrorResume(e -> {
+                logger.error("Error updating task: ", e);
+                return Mono.just(ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body("Failed to update task"));
+            });
+    }
+    
+    /**
+     * Partially update an existing task
+     * Only the fields present in the request are changed
+     */
+    @PatchMapping("/{id}")
+    public Mono<ResponseEntity<?>> patchTask(@PathVariable String id, @Valid @RequestBody TaskPatchRequest request,
+                                             @RequestHeader(value = HttpHeaders.IF_MATCH, required = false)
+                                             String ifMatch) {
+        return getCurrentUser()
+            .flatMap(currentUser -> taskService.patchTask(currentUser.getId(), id,
+                    request.getTitle(), request.getDescription(), request.getStatus(),
+                    TaskETags.expectedVersions(ifMatch))
+                .<ResponseEntity<?>>map(task -> {
+                    logger.info("Task patched successfully: {} for user: {}", id, currentUser.getUsername());
+                    return ResponseEntity.ok().eTag(TaskETags.forTask(task)).body(task);
+                })
+                .switchIfEmpty(Mono.fromSupplier(() -> {
+                    logger.warn("Task not found or access denied for patch: {} for user: {}", id, currentUser.getUsername());
+                    return ResponseEntity.notFound().build();
+                })))
+            .onErrorResume(OptimisticLockingFailureException.class, e -> {
+                logger.warn("Task changed since the given version, not patched: {}", id);
+                return Mono.just(ResponseEntity.status(HttpStatus.PRECONDITION_FAILED).build());
+            })
+            .onErrorResume(e -> {
+                logger.error("Error patching task: ", e);
+                return Mono.just(ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body("Failed to update task"));
+            });
+    }
+    
+    /**
+     * Delete a task
+     * With If-Match, only if the task is still at one of the given versions
+     */
+    @DeleteMapping("/{id}")
+    public Mono<ResponseEntity<?>> deleteTask(@PathVariable String id,
+                                              @RequestHeader(value = HttpHeaders.IF_MATCH, required = false)
+                                              String ifMatch) {
+        return getCurrentUser()
+            .flatMap(currentUser -> taskService.deleteTask(currentUser.getId(), id, TaskETags.expectedVersions(ifMatch))
+                .<ResponseEntity<?>>map(deleted -> {
+                    if (deleted) {
+                        logger.info("Task deleted successfully: {} for user: {}", id, currentUser.getUsername());
+                        return ResponseEntity.ok().build();
+                    }
+                    logger.warn("Task not found or access denied for deletion: {} for user: {}", id, currentUser.getUsername());
+                    return ResponseEntity.notFound().build();
+                }))
+            .onErrorResume(OptimisticLockingFailureException.class, e -> {
+                logger.warn("Task changed since the given version, not deleted: {}", id);
+                return Mono.just(ResponseEntity.status(HttpStatus.PRECONDITION_FAILED).build());
+            })
+            .onErrorResume(e -> {
+                logger.error("Error deleting task: ", e);
+                return Mono.just(ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body("Failed to delete task"));
+            });
+    }
+    
+    /**
+     * Create several tasks in one request
+     * Valid items are written with their Redis commands pipelined; results are reported per item
+     */
+    @PostMapping("/bulk")
+    public Mono<ResponseEntity<?>> createTasks(@RequestBody List<TaskRequest> requests) {
+        return getCurrentUser()
+            .flatMap(currentUser -> {
+                // Filled by request position, so results come back in request order
+                BulkItemResult[] results = new BulkItemResult[requests.size()];
+                List<Task> tasks = new ArrayList<>(requests.size());
+                List<Integer> positions = new ArrayList<>(requests.size());
+                for (int i = 0; i < requests.size(); i++) {
+                    TaskRequest request = requests.get(i);
+                    String error = validationError(request);
+                    if (error != null) {
+                        results[i] = BulkItemResult.invalid(i, error);
+                        continue;
+                    }
+                    Task task = new Task();
+                    task.setTitle(request.getTitle());
+                    task.setDescription(request.getDescription());
+                    task.setStatus(request.getStatus() != null ? request.getStatus() : TaskStatus.PENDING);
+                    task.setUserId(currentUser.getId());
+                    tasks.add(task);
+                    positions.add(i);
+                }
+                
+                return taskService.createTasks(currentUser.getId(), tasks).<ResponseEntity<?>>map(savedTasks -> {
+                    for (int i = 0; i < savedTasks.size(); i++) {
+                        results[positions.get(i)] = BulkItemResult.ok(positions.get(i), savedTasks.get(i).getId());
+                    }
+                    logger.info("Bulk created {} of {} tasks for user: {}", savedTasks.size(), requests.size(),
+                        currentUser.getUsername());
+                    return ResponseEntity.ok(new BulkTaskResponse(Arrays.asList(results)));
+                });
+            })
+            .onErrorResume(IllegalArgumentException.class, e -> {
+                logger.warn("Invalid bulk create request: {}", e.getMessage());
+                return Mono.just(ResponseEntity.badRequest().body(e.getMessage()));
+            })
+            .onErrorResume(e -> {
+                logger.error("Error bulk creating tasks: ", e);
+                return Mono.just(ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body("Failed to create tasks"));
+            });
+    }
+    
+    /**
+     * Set the status of several tasks in one request
+     */
+    @PutMapping("/bulk/status")
+    public Mono<ResponseEntity<?>> updateTaskStatuses(@Valid @RequestBody BulkStatusRequest request) {
+        return getCurrentUser()
+            .flatMap(currentUser -> taskService.updateStatus(currentUser.getId(), request.getIds(), request.getStatus())
+                .<ResponseEntity<?>>map(updatedIds -> {
+                    logger.info("Bulk updated {} of {} tasks to {} for user: {}", updatedIds.size(),
+                        request.getIds().size(), request.getStatus(), currentUser.getUsername());
+                    return ResponseEntity.ok(new BulkTaskResponse(toResults(request.getIds(), updatedIds)));
+                }))
+            .onErrorResume(IllegalArgumentException.class, e -> {
+                logger.warn("Invalid bulk status request: {}", e.getMessage());
+                return Mono.just(ResponseEntity.badRequest().body(e.getMessage()));
+            })
+            .onErrorResume(e -> {
+                logger.error("Error bulk updating tasks: ", e);
+                return Mono.just(ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body("Failed to update tasks"));
+            });
+    }
+    
+    /**
+     * Delete several tasks in one request
+     */
+    @PostMapping("/bulk/delete")
+    public Mono<ResponseEntity<?>> deleteTasks(@Valid @RequestBody BulkDeleteRequest request) {
+        return getCurrentUser()
+            .flatMap(currentUser -> taskService.deleteTasks(currentUser.getId(), request.getIds())
+                .<ResponseEntity<?>>map(deletedIds -> {
+                    logger.info("Bulk deleted {} of {} tasks for user: {}", deletedIds.size(), request.getIds().size(),
+                        currentUser.getUsername());
+                    return ResponseEntity.ok(new BulkTaskResponse(toResults(request.getIds(), deletedIds)));
+                }))
+            .onErrorResume(IllegalArgumentException.class, e -> {
+                logger.warn("Invalid bulk delete request: {}", e.getMessage());
+                return Mono.just(ResponseEntity.badRequest().body(e.getMessage()));
+            })
+            .onErrorResume(e -> {
+                logger.error("Error bulk deleting tasks: ", e);
+                return Mono.just(ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body("Failed to delete tasks"));
+            });
+    }
+    
+    /**
+     * Constraint violations of one bulk item, joined into a message, or null if it is valid
+     * Each item is checked like the body of a single create, which @Valid does not reach inside a list
+     */
+    private String validationError(TaskRequest request) {
+        if (request == null) {
+            return "Title is required";
+        }
+        Set<ConstraintViolation<TaskRequest>> violations = validator.validate(request);
+        if (violations.isEmpty()) {
+            return null;
+        }
+        return violations.stream()
+            .map(ConstraintViolation::getMessage)
+            .sorted()
+            .collect(Collectors.joining("; "));
+    }
+    
+    /**
+     * Per-item results for a bulk request by task id
+     */
+    private List<BulkItemResult> toResults(List<String> requestedIds, List<String> succeededIds) {
+        Set<String> succeeded = new HashSet<>(succeededIds);
+        Set<String> reported = new HashSet<>();
+        List<BulkItemResult> results = new ArrayList<>(requestedIds.size());
+        for (String id : requestedIds) {
+            if (reported.add(id)) {
+                results.add(succeeded.contains(id) ? BulkItemResult.ok(null, id) : BulkItemResult.notFound(id));
+            }
+        }
+        return results;
+    }
+}
@@ -1,49 +1,131 @@
 package com.taskmanager.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.taskmanager.dto.BulkDeleteRequest;
+import com.taskmanager.dto.BulkItemResult;
+import com.taskmanager.dto.BulkStatusRequest;
+import com.taskmanager.dto.BulkTaskResponse;
+import com.taskmanager.dto.TaskEvent;
+import com.taskmanager.dto.TaskPageResponse;
+import com.taskmanager.dto.TaskPatchRequest;
+import com.taskmanager.dto.TaskStatsResponse;
+import com.taskmanager.dto.TaskSyncResponse;
 import com.taskmanager.dto.TaskRequest;
+import com.taskmanager.logging.LogSampler;
 import com.taskmanager.model.Task;
 import com.taskmanager.model.TaskStatus;
-import com.taskmanager.model.User;
-import com.taskmanager.repository.TaskRepository;
-import com.taskmanager.repository.UserRepository;
+import com.taskmanager.security.AuthenticatedUser;
+import com.taskmanager.service.TaskChangeFeed;
+import com.taskmanager.service.TaskService;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.validation.ConstraintViolation;
 import jakarta.validation.Valid;
+import jakarta.validation.Validator;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 /**
  * Task controller
  * Handles CRUD operations for tasks
+ * Tasks and JSON listings carry strong ETags from the task and user versions, so
+ * If-None-Match is answered with 304 before any task is read, and If-Match makes
+ * updates and deletes conditional on the task's version
  */
 @RestController
 @RequestMapping("/api/tasks")
 @CrossOrigin(origins = "http://localhost:4200")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 public class TaskController {
     
     private static final Logger logger = LoggerFactory.getLogger(TaskController.class);
     
+    private static final String APPLICATION_NDJSON_VALUE = "application/x-ndjson";
+    
+    private static final int STREAM_BATCH_SIZE = 500;
+    
+    /**
+     * Let clients keep tagged responses but revalidate them on every use
+     */
+    private static final CacheControl REVALIDATE = CacheControl.noCache().cachePrivate();
+    
+    @Autowired
+    private TaskService taskService;
+    
+    @Autowired
+    private Validator validator;
+    
     @Autowired
-    private TaskRepository taskRepository;
+    private ObjectMapper objectMapper;
     
     @Autowired
-    private UserRepository userRepository;
+    private MeterRegistry meterRegistry;
+    
+    @Autowired
+    private TaskChangeFeed taskChangeFeed;
+    
+    /**
+     * Task reads are logged for a sample of requests only, as they happen on every page load
+     */
+    @Autowired
+    private LogSampler taskReadLogSampler;
+    
+    @Value("${task-events.heartbeat-interval:15s}")
+    private Duration heartbeatInterval;
+    
+    @Value("${task-events.sse-timeout:30m}")
+    private Duration sseTimeout;
     
     /**
      * Get current authenticated user
+     * Resolved from the security context, which the JWT filter populates from token claims
      */
-    private User getCurrentUser() {
+    private AuthenticatedUser getCurrentUser() {
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        String username = authentication.getName();
-        return userRepository.findByUsername(username)
-            .orElseThrow(() -> new RuntimeException("User not found"));
+        if (authentication == null || !(authentication.getPrincipal() instanceof AuthenticatedUser)) {
+            throw new RuntimeException("User not found");
+        }
+        return (AuthenticatedUser) authentication.getPrincipal();
+    }
+    
+    /**
+     * Record how many tasks a list response carried
+     * @param mode all, page, search or stream
+     */
+    private void recordListSize(String mode, int taskCount) {
+        DistributionSummary.builder("taskmanager.tasks.list.size")
+            .description("Number of tasks returned per list response")
+            .baseUnit("tasks")
+            .tag("mode", mode)
+            .register(meterRegistry)
+            .record(taskCount);
     }
     
     /**
@@ -52,7 +134,7 @@ public class TaskController {
     @PostMapping
     public ResponseEntity<?> createTask(@Valid @RequestBody TaskRequest request) {
         try {
-            User currentUser = getCurrentUser();
+            AuthenticatedUser currentUser = getCurrentUser();
             
             Task task = new Task();
             task.setTitle(request.getTitle());
@@ -60,10 +142,10 @@ public class TaskController {
             task.setStatus(request.getStatus() != null ? request.getStatus() : TaskStatus.PENDING);
             task.setUserId(currentUser.getId());
             
-            Task savedTask = taskRepository.save(task);
+            Task savedTask = taskService.createTask(task);
             
             logger.info("Task created successfully: {} for user: {}", savedTask.getId(), currentUser.getUsername());
-            return ResponseEntity.status(HttpStatus.CREATED).body(savedTask);
+            return ResponseEntity.status(HttpStatus.CREATED).eTag(TaskETags.forTask(savedTask)).body(savedTask);
             
         } catch (Exception e) {
             logger.error("Error creating task: ", e);
@@ -74,16 +156,48 @@ public class TaskController {
     
     /**
      * Get all tasks for the current user
+     * When a status, sort, order, cursor or limit is given, returns one page of tasks,
+     * filtered and sorted server-side (sort=createdAt|updatedAt, order=asc|desc)
+     * Tagged with the user's version, which changes with every task write
      */
     @GetMapping
-    public ResponseEntity<?> getAllTasks() {
+    public ResponseEntity<?> getAllTasks(@RequestParam(required = false) TaskStatus status,
+                                         @RequestParam(required = false) String sort,
+                                         @RequestParam(required = false) String order,
+                                         @RequestParam(required = false) String cursor,
+                                         @RequestParam(required = false) Integer limit,
+                                         @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false)
+                                         String ifNoneMatch) {
         try {
-            User currentUser = getCurrentUser();
-            List<Task> tasks = taskRepository.findByUserId(currentUser.getId());
+            AuthenticatedUser currentUser = getCurrentUser();
+            // Read before the tasks, so a concurrent write leaves the tag older than the body, never newer
+            String etag = TaskETags.forList(taskService.getUserVersion(currentUser.getId()));
+            if (TaskETags.noneMatchSatisfied(ifNoneMatch, etag)) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).cacheControl(REVALIDATE).build();
+            }
+            
+            if (status != null || sort != null || order != null || cursor != null || limit != null) {
+                TaskPageResponse page = taskService.getTaskPage(currentUser.getId(), status, sort, order, cursor,
+                    limit != null ? limit : TaskService.DEFAULT_PAGE_SIZE);
+                recordListSize("page", page.getItems().size());
+                
+                if (taskReadLogSampler.sample()) {
+                    logger.info("Retrieved page of {} tasks for user: {}", page.getItems().size(), currentUser.getUsername());
+                }
+                return ResponseEntity.ok().eTag(etag).cacheControl(REVALIDATE).body(page);
+            }
             
-            logger.info("Retrieved {} tasks for user: {}", tasks.size(), currentUser.getUsername());
-            return ResponseEntity.ok(tasks);
+            List<Task> tasks = taskService.getAllTasks(currentUser.getId());
+            recordListSize("all", tasks.size());
             
+            if (taskReadLogSampler.sample()) {
+                logger.info("Retrieved {} tasks for user: {}", tasks.size(), currentUser.getUsername());
+            }
+            return ResponseEntity.ok().eTag(etag).cacheControl(REVALIDATE).body(tasks);
+            
+        } catch (IllegalArgumentException e) {
+            logger.warn("Invalid task page request: {}", e.getMessage());
+            return ResponseEntity.badRequest().body(e.getMessage());
         } catch (Exception e) {
             logger.error("Error retrieving tasks: ", e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
@@ -91,18 +205,182 @@ public class TaskController {
         }
     }
     
+    /**
+     * Stream all tasks for the current user as newline-delimited JSON
+     * Tasks are written in batches as they are read, so memory use stays flat
+     */
+    @GetMapping(produces = APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamAllTasks() {
+        AuthenticatedUser currentUser = getCurrentUser();
+        String userId = currentUser.getId();
+        
+        StreamingResponseBody body = outputStream -> {
+            int[] count = {0};
+            taskService.forEachTask(userId, STREAM_BATCH_SIZE, task -> {
+                try {
+                    outputStream.write(objectMapper.writeValueAsBytes(task));
+                    outputStream.write('\n');
+                    count[0]++;
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            outputStream.flush();
+            recordListSize("stream", count[0]);
+            logger.info("Streamed {} tasks for user: {}", count[0], currentUser.getUsername());
+        };
+        
+        return ResponseEntity.ok()
+            .contentType(MediaType.parseMediaType(APPLICATION_NDJSON_VALUE))
+            .body(body);
+    }
+    
+    /**
+     * Follow the current user's task changes as Server-Sent Events
+     * Each event's id is its position in the user's change stream; browsers send it back
+     * as Last-Event-ID when they reconnect, and other clients can pass it as since,
+     * to resume without missing a change. Without either the feed starts with the next change
+     */
+    @GetMapping(value = "/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> streamTaskEvents(
+            @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId,
+            @RequestParam(required = false) String since) {
+        String resumeFrom = lastEventId != null ? lastEventId : since;
+        if (resumeFrom != null && !TaskChangeFeed.isValidEventId(resumeFrom)) {
+            logger.warn("Invalid task event id: {}", resumeFrom);
+            return ResponseEntity.badRequest().build();
+        }
+        AuthenticatedUser currentUser = getCurrentUser();
+        
+        // On timeout the client reconnects with Last-Event-ID, so no change is lost
+        SseEmitter emitter = new SseEmitter(sseTimeout.toMillis());
+        Flux<SseEmitter.SseEventBuilder> events = taskChangeFeed.follow(currentUser.getId(), resumeFrom)
+            .map(event -> SseEmitter.event()
+                .id(event.getId())
+                .name(event.getType().name())
+                .data(event, MediaType.APPLICATION_JSON));
+        // Comments keep proxies from closing an idle connection and reveal clients that have gone away
+        Flux<SseEmitter.SseEventBuilder> heartbeats = Flux.interval(heartbeatInterval)
+            .map(tick -> SseEmitter.event().comment("keepalive"));
+        Disposable subscription = Flux.merge(events, heartbeats)
+            .subscribe(event -> {
+                try {
+                    emitter.send(event);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }, emitter::completeWithError, emitter::complete);
+        emitter.onCompletion(subscription::dispose);
+        emitter.onTimeout(subscription::dispose);
+        emitter.onError(error -> subscription.dispose());
+        
+        logger.info("Streaming task events for user: {}", currentUser.getUsername());
+        return ResponseEntity.ok(emitter);
+    }
+    
+    /**
+     * Search the current user's task titles and descriptions
+     * Returns tasks containing every word of the query, best match first, one page at a time
+     */
+    @GetMapping("/search")
+    public ResponseEntity<?> searchTasks(@RequestParam("q") String query,
+                                         @RequestParam(required = false) String cursor,
+                                         @RequestParam(required = false) Integer limit) {
+        try {
+            AuthenticatedUser currentUser = getCurrentUser();
+            
+            TaskPageResponse page = taskService.searchTasks(currentUser.getId(), query, cursor,
+                limit != null ? limit : TaskService.DEFAULT_PAGE_SIZE);
+            recordListSize("search", page.getItems().size());
+            
+            logger.info("Found {} tasks matching search for user: {}", page.getItems().size(), currentUser.getUsername());
+            return ResponseEntity.ok(page);
+            
+        } catch (IllegalArgumentException e) {
+            logger.warn("Invalid task search request: {}", e.getMessage());
+            return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (Exception e) {
+            logger.error("Error searching tasks: ", e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                .body("Failed to search tasks");
+        }
+    }
+    
+    /**
+     * Get the current user's task changes since their last sync
+     * Returns the tasks written and deleted since the token, oldest first, so a reconnecting
+     * client downloads its changes rather than every task
+     */
+    @GetMapping("/sync")
+    public ResponseEntity<?> syncTasks(@RequestParam(required = false) String token,
+                                       @RequestParam(required = false) Integer limit) {
+        try {
+            AuthenticatedUser currentUser = getCurrentUser();
+            
+            TaskSyncResponse sync = taskService.syncTasks(currentUser.getId(), token,
+                limit != null ? limit : TaskService.MAX_PAGE_SIZE);
+            recordListSize("sync", sync.getItems().size());
+            
+            logger.info("Synced {} changed and {} deleted tasks for user: {}", sync.getItems().size(),
+                sync.getDeletedIds().size(), currentUser.getUsername());
+            return ResponseEntity.ok().cacheControl(CacheControl.noStore()).body(sync);
+            
+        } catch (IllegalArgumentException e) {
+            logger.warn("Invalid task sync request: {}", e.getMessage());
+            return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (Exception e) {
+            logger.error("Error syncing tasks: ", e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                .body("Failed to sync tasks");
+        }
+    }
+    
+    /**
+     * Get the current user's task counts per status
+     * Read from counters kept up to date on every write, so no task is loaded
+     */
+    @GetMapping("/stats")
+    public ResponseEntity<?> getTaskStats() {
+        try {
+            AuthenticatedUser currentUser = getCurrentUser();
+            
+            TaskStatsResponse stats = taskService.getStats(currentUser.getId());
+            
+            logger.info("Retrieved task stats for user: {}", currentUser.getUsername());
+            return ResponseEntity.ok(stats);
+            
+        } catch (Exception e) {
+            logger.error("Error retrieving task stats: ", e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                .body("Failed to retrieve task stats");
+        }
+    }
+    
     /**
      * Get a specific task by ID
+     * A matching If-None-Match is answered from the task's version alone
      */
     @GetMapping("/{id}")
-    public ResponseEntity<?> getTaskById(@PathVariable String id) {
+    public ResponseEntity<?> getTaskById(@PathVariable String id,
+                                         @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false)
+                                         String ifNoneMatch) {
         try {
-            User currentUser = getCurrentUser();
-            Optional<Task> taskOpt = taskRepository.findById(id);
+            AuthenticatedUser currentUser = getCurrentUser();
+            if (ifNoneMatch != null) {
+                Optional<Long> version = taskService.getTaskVersion(currentUser.getId(), id);
+                if (version.isPresent() && TaskETags.noneMatchSatisfied(ifNoneMatch, TaskETags.forTask(version.get()))) {
+                    return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                        .eTag(TaskETags.forTask(version.get())).cacheControl(REVALIDATE).build();
+                }
+            }
+            Optional<Task> taskOpt = taskService.getTask(currentUser.getId(), id);
             
-            if (taskOpt.isPresent() && taskOpt.get().getUserId().equals(currentUser.getId())) {
-                logger.info("Task retrieved: {} for user: {}", id, currentUser.getUsername());
-                return ResponseEntity.ok(taskOpt.get());
+            if (taskOpt.isPresent()) {
+                if (taskReadLogSampler.sample()) {
+                    logger.info("Task retrieved: {} for user: {}", id, currentUser.getUsername());
+                }
+                return ResponseEntity.ok().eTag(TaskETags.forTask(taskOpt.get())).cacheControl(REVALIDATE)
+                    .body(taskOpt.get());
             } else {
                 logger.warn("Task not found or access denied: {} for user: {}", id, currentUser.getUsername());
                 return ResponseEntity.notFound().build();
@@ -117,30 +395,28 @@ public class TaskController {
     
     /**
      * Update an existing task
+     * With If-Match, only if the task is still at one of the given versions
      */
     @PutMapping("/{id}")
-    public ResponseEntity<?> updateTask(@PathVariable String id, @Valid @RequestBody TaskRequest request) {
+    public ResponseEntity<?> updateTask(@PathVariable String id, @Valid @RequestBody TaskRequest request,
+                                        @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
         try {
-            User currentUser = getCurrentUser();
-            Optional<Task> taskOpt = taskRepository.findById(id);
+            AuthenticatedUser currentUser = getCurrentUser();
+            // Ownership check, version check and write happen atomically in one Redis round trip
+            Optional<Task> taskOpt = taskService.updateTask(currentUser.getId(), id,
+                request.getTitle(), request.getDescription(), request.getStatus(), TaskETags.expectedVersions(ifMatch));
             
-            if (taskOpt.isPresent() && taskOpt.get().getUserId().equals(currentUser.getId())) {
-                Task task = taskOpt.get();
-                task.setTitle(request.getTitle());
-                task.setDescription(request.getDescription());
-                if (request.getStatus() != null) {
-                    task.setStatus(request.getStatus());
-                }
-                
-                Task updatedTask = taskRepository.save(task);
-                
+            if (taskOpt.isPresent()) {
                 logger.info("Task updated successfully: {} for user: {}", id, currentUser.getUsername());
-                return ResponseEntity.ok(updatedTask);
+                return ResponseEntity.ok().eTag(TaskETags.forTask(taskOpt.get())).body(taskOpt.get());
             } else {
                 logger.warn("Task not found or access denied for update: {} for user: {}", id, currentUser.getUsername());
                 return ResponseEntity.notFound().build();
             }
             
+        } catch (OptimisticLockingFailureException e) {
+            logger.warn("Task changed since the given version, not updated: {}", id);
+            return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED).build();
         } catch (Exception e) {
             logger.error("Error updating task: ", e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
@@ -148,18 +424,47 @@ public class TaskController {
         }
     }
     
+    /**
+     * Partially update an existing task
+     * Only the fields present in the request are changed
+     */
+    @PatchMapping("/{id}")
+    public ResponseEntity<?> patchTask(@PathVariable String id, @Valid @RequestBody TaskPatchRequest request,
+                                       @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        try {
+            AuthenticatedUser currentUser = getCurrentUser();
+            Optional<Task> taskOpt = taskService.patchTask(currentUser.getId(), id,
+                request.getTitle(), request.getDescription(), request.getStatus(), TaskETags.expectedVersions(ifMatch));
+            
+            if (taskOpt.isPresent()) {
+                logger.info("Task patched successfully: {} for user: {}", id, currentUser.getUsername());
+                return ResponseEntity.ok().eTag(TaskETags.forTask(taskOpt.get())).body(taskOpt.get());
+            } else {
+                logger.warn("Task not found or access denied for patch: {} for user: {}", id, currentUser.getUsername());
+                return ResponseEntity.notFound().build();
+            }
+        
+        } catch (OptimisticLockingFailureException e) {
+            logger.warn("Task changed since the given version, not patched: {}", id);
+            return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED).build();
+        } catch (Exception e) {
+            logger.error("Error patching task: ", e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                .body("Failed to update task");
+        }
+    }
+    
     /**
      * Delete a task
+     * With If-Match, only if the task is still at one of the given versions
      */
     @DeleteMapping("/{id}")
-    public ResponseEntity<?> deleteTask(@PathVariable String id) {
+    public ResponseEntity<?> deleteTask(@PathVariable String id,
+                                        @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
         try {
-            User currentUser = getCurrentUser();
-            Optional<Task> taskOpt = taskRepository.findById(id);
+            AuthenticatedUser currentUser = getCurrentUser();
             
-            if (taskOpt.isPresent() && taskOpt.get().getUserId().equals(currentUser.getId())) {
-                taskRepository.delete(taskOpt.get());
-                
+            if (taskService.deleteTask(currentUser.getId(), id, TaskETags.expectedVersions(ifMatch))) {
                 logger.info("Task deleted successfully: {} for user: {}", id, currentUser.getUsername());
                 return ResponseEntity.ok().build();
             } else {
@@ -167,10 +472,139 @@ public class TaskController {
                 return ResponseEntity.notFound().build();
             }
             
+        } catch (OptimisticLockingFailureException e) {
+            logger.warn("Task changed since the given version, not deleted: {}", id);
+            return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED).build();
         } catch (Exception e) {
             logger.error("Error deleting task: ", e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                 .body("Failed to delete task");
         }
     }
+    
+    /**
+     * Create several tasks in one request
+     * Valid items are written in a single pipelined batch; results are reported per item
+     */
+    @PostMapping("/bulk")
+    public ResponseEntity<?> createTasks(@RequestBody List<TaskRequest> requests) {
+        try {
+            AuthenticatedUser currentUser = getCurrentUser();
+            
+            // Filled by request position, so results come back in request order
+            BulkItemResult[] results = new BulkItemResult[requests.size()];
+            List<Task> tasks = new ArrayList<>(requests.size());
+            List<Integer> positions = new ArrayList<>(requests.size());
+            for (int i = 0; i < requests.size(); i++) {
+                TaskRequest request = requests.get(i);
+                String error = validationError(request);
+                if (error != null) {
+                    results[i] = BulkItemResult.invalid(i, error);
+                    continue;
+                }
+                Task task = new Task();
+                task.setTitle(request.getTitle());
+                task.setDescription(request.getDescription());
+                task.setStatus(request.getStatus() != null ? request.getStatus() : TaskStatus.PENDING);
+                task.setUserId(currentUser.getId());
+                tasks.add(task);
+                positions.add(i);
+            }
+            
+            List<Task> savedTasks = taskService.createTasks(currentUser.getId(), tasks);
+            for (int i = 0; i < savedTasks.size(); i++) {
+                results[positions.get(i)] = BulkItemResult.ok(positions.get(i), savedTasks.get(i).getId());
+            }
+            
+            logger.info("Bulk created {} of {} tasks for user: {}", savedTasks.size(), requests.size(), currentUser.getUsername());
+            return ResponseEntity.ok(new BulkTaskResponse(Arrays.asList(results)));
+        
+        } catch (IllegalArgumentException e) {
+            logger.warn("Invalid bulk create request: {}", e.getMessage());
+            return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (Exception e) {
+            logger.error("Error bulk creating tasks: ", e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                .body("Failed to create tasks");
+        }
+    }
+    
+    /**
+     * Set the status of several tasks in one request
+     */
+    @PutMapping("/bulk/status")
+    public ResponseEntity<?> updateTaskStatuses(@Valid @RequestBody BulkStatusRequest request) {
+        try {
+            AuthenticatedUser currentUser = getCurrentUser();
+            List<String> updatedIds = taskService.updateStatus(currentUser.getId(), request.getIds(), request.getStatus());
+            
+            logger.info("Bulk updated {} of {} tasks to {} for user: {}", updatedIds.size(), request.getIds().size(),
+                request.getStatus(), currentUser.getUsername());
+            return ResponseEntity.ok(new BulkTaskResponse(toResults(request.getIds(), updatedIds)));
+        
+        } catch (IllegalArgumentException e) {
+            logger.warn("Invalid bulk status request: {}", e.getMessage());
+            return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (Exception e) {
+            logger.error("Error bulk updating tasks: ", e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                .body("Failed to update tasks");
+        }
+    }
+    
+    /**
+     * Delete several tasks in one request
+     */
+    @PostMapping("/bulk/delete")
+    public ResponseEntity<?> deleteTasks(@Valid @RequestBody BulkDeleteRequest request) {
+        try {
+            AuthenticatedUser currentUser = getCurrentUser();
+            List<String> deletedIds = taskService.deleteTasks(currentUser.getId(), request.getIds());
+            
+            logger.info("Bulk deleted {} of {} tasks for user: {}", deletedIds.size(), request.getIds().size(),
+                currentUser.getUsername());
+            return ResponseEntity.ok(new BulkTaskResponse(toResults(request.getIds(), deletedIds)));
+        
+        } catch (IllegalArgumentException e) {
+            logger.warn("Invalid bulk delete request: {}", e.getMessage());
+            return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (Exception e) {
+            logger.error("Error bulk deleting tasks: ", e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                .body("Failed to delete tasks");
+        }
+    }
+    
+    /**
+     * Constraint violations of one bulk item, joined into a message, or null if it is valid
+     * Each item is checked like the body of a single create, which @Valid does not reach inside a list
+     */
+    private String validationError(TaskRequest request) {
+        if (request == null) {
+            return "Title is required";
+        }
+        Set<ConstraintViolation<TaskRequest>> violations = validator.validate(request);
+        if (violations.isEmpty()) {
+            return null;
+        }
+        return violations.stream()
+            .map(ConstraintViolation::getMessage)
+            .sorted()
+            .collect(Collectors.joining("; "));
+    }
+    
+    /**
+     * Per-item results for a bulk request by task id
+     */
+    private List<BulkItemResult> toResults(List<String> requestedIds, List<String> succeededIds) {
+        Set<String> succeeded = new HashSet<>(succeededIds);
+        Set<String> reported = new HashSet<>();
+        List<BulkItemResult> results = new ArrayList<>(requestedIds.size());
+        for (String id : requestedIds) {
+            if (reported.add(id)) {
+                results.add(succeeded.contains(id) ? BulkItemResult.ok(null, id) : BulkItemResult.notFound(id));
+            }
+        }
+        return results;
+    }
 }
@@ -0,0 +1,74 @@
+package com.taskmanager.controller;
+
+import com.taskmanager.model.Task;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Entity tags for tasks and task listings, shared by both web stacks
+ * A task's tag is its version and a listing's tag is its owner's version, so
+ * both can be compared without loading or serializing a single task
+ */
+final class TaskETags {
+    
+    private static final String LIST_PREFIX = "tasks-";
+    
+    private TaskETags() {}
+    
+    static String forTask(Task task) {
+        return forTask(task.getVersion() != null ? task.getVersion() : 0L);
+    }
+    
+    static String forTask(long version) {
+        return "\"" + version + "\"";
+    }
+    
+    static String forList(long userVersion) {
+        return "\"" + LIST_PREFIX + userVersion + "\"";
+    }
+    
+    /**
+     * Whether an If-None-Match header matches the current tag, comparing weakly as the header requires
+     */
+    static boolean noneMatchSatisfied(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String tag : ifNoneMatch.split(",")) {
+            String trimmed = tag.trim();
+            if (trimmed.equals("*") || stripWeak(trimmed).equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    /**
+     * Task versions an If-Match header accepts
+     * Only strong tags of task versions can match; weak or unknown tags never do
+     * @return the versions, possibly none, or null if the header is absent or * and any version is accepted
+     */
+    static List<Long> expectedVersions(String ifMatch) {
+        if (ifMatch == null || ifMatch.trim().equals("*")) {
+            return null;
+        }
+        List<Long> versions = new ArrayList<>();
+        for (String tag : ifMatch.split(",")) {
+            String trimmed = tag.trim();
+            if (trimmed.length() < 3 || !trimmed.startsWith("\"") || !trimmed.endsWith("\"")) {
+                continue;
+            }
+            try {
+                versions.add(Long.parseLong(trimmed.substring(1, trimmed.length() - 1)));
+            } catch (NumberFormatException e) {
+                // Not a task version, so it cannot match
+            }
+        }
+        return versions;
+    }
+    
+    private static String stripWeak(String tag) {
+        return tag.startsWith("W/") ? tag.substring(2) : tag;
+    }
+}
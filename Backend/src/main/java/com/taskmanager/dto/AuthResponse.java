@@ -8,6 +8,8 @@ public class AuthResponse {
     private String token;
     private String username;
     private String message;
+    private String refreshToken;
+    private Long expiresIn;
     
     // Constructors
     public AuthResponse() {}
@@ -27,6 +29,14 @@ public class AuthResponse {
         this.message = message;
     }
     
+    public AuthResponse(String token, String refreshToken, long expiresIn, String username, String message) {
+        this.token = token;
+        this.refreshToken = refreshToken;
+        this.expiresIn = expiresIn;
+        this.username = username;
+        this.message = message;
+    }
+    
     // Getters and Setters
     public String getToken() {
         return token;
@@ -51,5 +61,23 @@ public class AuthResponse {
     public void setMessage(String message) {
         this.message = message;
     }
+    
+    public String getRefreshToken() {
+        return refreshToken;
+    }
+    
+    public void setRefreshToken(String refreshToken) {
+        this.refreshToken = refreshToken;
+    }
+    
+    /**
+     * Seconds until the access token expires
+     */
+    public Long getExpiresIn() {
+        return expiresIn;
+    }
+    
+    public void setExpiresIn(Long expiresIn) {
+        this.expiresIn = expiresIn;
+    }
 }
-
@@ -0,0 +1,30 @@
+package com.taskmanager.dto;
+
+import jakarta.validation.constraints.NotEmpty;
+
+import java.util.List;
+
+/**
+ * Data Transfer Object for bulk task delete requests
+ */
+public class BulkDeleteRequest {
+    
+    @NotEmpty(message = "Task ids are required")
+    private List<String> ids;
+    
+    // Constructors
+    public BulkDeleteRequest() {}
+    
+    public BulkDeleteRequest(List<String> ids) {
+        this.ids = ids;
+    }
+    
+    // Getters and Setters
+    public List<String> getIds() {
+        return ids;
+    }
+    
+    public void setIds(List<String> ids) {
+        this.ids = ids;
+    }
+}
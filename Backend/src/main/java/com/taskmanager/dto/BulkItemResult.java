@@ -0,0 +1,72 @@
+package com.taskmanager.dto;
+
+/**
+ * Data Transfer Object for the outcome of one item in a bulk request
+ * For bulk creates, index is the item's position in the request
+ */
+public class BulkItemResult {
+    
+    public static final String OK = "OK";
+    public static final String NOT_FOUND = "NOT_FOUND";
+    public static final String INVALID = "INVALID";
+    
+    private Integer index;
+    private String id;
+    private String result;
+    private String message;
+    
+    // Constructors
+    public BulkItemResult() {}
+    
+    public BulkItemResult(Integer index, String id, String result, String message) {
+        this.index = index;
+        this.id = id;
+        this.result = result;
+        this.message = message;
+    }
+    
+    public static BulkItemResult ok(Integer index, String id) {
+        return new BulkItemResult(index, id, OK, null);
+    }
+    
+    public static BulkItemResult notFound(String id) {
+        return new BulkItemResult(null, id, NOT_FOUND, "Task not found");
+    }
+    
+    public static BulkItemResult invalid(Integer index, String message) {
+        return new BulkItemResult(index, null, INVALID, message);
+    }
+    
+    // Getters and Setters
+    public Integer getIndex() {
+        return index;
+    }
+    
+    public void setIndex(Integer index) {
+        this.index = index;
+    }
+    
+    public String getId() {
+        return id;
+    }
+    
+    public void setId(String id) {
+        this.id = id;
+    }
+    
+    public String getResult() {
+        return result;
+    }
+    
+    public void setResult(String result) {
+        this.result = result;
+    }
+    
+    public String getMessage() {
+        return message;
+    }
+    
+    public void setMessage(String message) {
+        this.message = message;
+    }
+}
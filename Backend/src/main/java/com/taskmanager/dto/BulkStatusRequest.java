@@ -0,0 +1,44 @@
+package com.taskmanager.dto;
+
+import com.taskmanager.model.TaskStatus;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+
+import java.util.List;
+
+/**
+ * Data Transfer Object for bulk task status update requests
+ */
+public class BulkStatusRequest {
+    
+    @NotEmpty(message = "Task ids are required")
+    private List<String> ids;
+    
+    @NotNull(message = "Status is required")
+    private TaskStatus status;
+    
+    // Constructors
+    public BulkStatusRequest() {}
+    
+    public BulkStatusRequest(List<String> ids, TaskStatus status) {
+        this.ids = ids;
+        this.status = status;
+    }
+    
+    // Getters and Setters
+    public List<String> getIds() {
+        return ids;
+    }
+    
+    public void setIds(List<String> ids) {
+        this.ids = ids;
+    }
+    
+    public TaskStatus getStatus() {
+        return status;
+    }
+    
+    public void setStatus(TaskStatus status) {
+        this.status = status;
+    }
+}
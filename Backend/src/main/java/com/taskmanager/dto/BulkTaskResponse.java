@@ -0,0 +1,52 @@
+package com.taskmanager.dto;
+
+import java.util.List;
+
+/**
+ * Data Transfer Object for bulk task responses
+ */
+public class BulkTaskResponse {
+    
+    private int succeeded;
+    private int failed;
+    private List<BulkItemResult> results;
+    
+    // Constructors
+    public BulkTaskResponse() {}
+    
+    public BulkTaskResponse(List<BulkItemResult> results) {
+        this.results = results;
+        for (BulkItemResult result : results) {
+            if (BulkItemResult.OK.equals(result.getResult())) {
+                succeeded++;
+            } else {
+                failed++;
+            }
+        }
+    }
+    
+    // Getters and Setters
+    public int getSucceeded() {
+        return succeeded;
+    }
+    
+    public void setSucceeded(int succeeded) {
+        this.succeeded = succeeded;
+    }
+    
+    public int getFailed() {
+        return failed;
+    }
+    
+    public void setFailed(int failed) {
+        this.failed = failed;
+    }
+    
+    public List<BulkItemResult> getResults() {
+        return results;
+    }
+    
+    public void setResults(List<BulkItemResult> results) {
+        this.results = results;
+    }
+}
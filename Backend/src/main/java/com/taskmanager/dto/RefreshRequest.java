@@ -0,0 +1,28 @@
+package com.taskmanager.dto;
+
+import jakarta.validation.constraints.NotBlank;
+
+/**
+ * Data Transfer Object for refresh and logout requests
+ */
+public class RefreshRequest {
+    
+    @NotBlank(message = "Refresh token is required")
+    private String refreshToken;
+    
+    // Constructors
+    public RefreshRequest() {}
+    
+    public RefreshRequest(String refreshToken) {
+        this.refreshToken = refreshToken;
+    }
+    
+    // Getters and Setters
+    public String getRefreshToken() {
+        return refreshToken;
+    }
+    
+    public void setRefreshToken(String refreshToken) {
+        this.refreshToken = refreshToken;
+    }
+}
@@ -0,0 +1,103 @@
+package com.taskmanager.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.taskmanager.model.Task;
+import com.taskmanager.model.TaskStatus;
+
+/**
+ * Data Transfer Object for one entry of a user's task change feed
+ * id is the Redis Stream entry id, which clients send back to resume.
+ * CREATED and UPDATED carry the whole task, STATUS_CHANGED only the new status
+ * and DELETED only the task id. RESET means events were missed and the client
+ * should reload its task list
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class TaskEvent {
+    
+    public enum Type {
+        CREATED,
+        UPDATED,
+        STATUS_CHANGED,
+        DELETED,
+        RESET
+    }
+    
+    private String id;
+    private Type type;
+    private String taskId;
+    private Task task;
+    private TaskStatus status;
+    
+    // Constructors
+    public TaskEvent() {}
+    
+    public TaskEvent(Type type, String taskId, Task task, TaskStatus status) {
+        this.type = type;
+        this.taskId = taskId;
+        this.task = task;
+        this.status = status;
+    }
+    
+    public static TaskEvent created(Task task) {
+        return new TaskEvent(Type.CREATED, task.getId(), task, null);
+    }
+    
+    public static TaskEvent updated(Task task) {
+        return new TaskEvent(Type.UPDATED, task.getId(), task, null);
+    }
+    
+    public static TaskEvent statusChanged(String taskId, TaskStatus status) {
+        return new TaskEvent(Type.STATUS_CHANGED, taskId, null, status);
+    }
+    
+    public static TaskEvent deleted(String taskId) {
+        return new TaskEvent(Type.DELETED, taskId, null, null);
+    }
+    
+    public static TaskEvent reset(String id) {
+        TaskEvent event = new TaskEvent(Type.RESET, null, null, null);
+        event.setId(id);
+        return event;
+    }
+    
+    // Getters and Setters
+    public String getId() {
+        return id;
+    }
+    
+    public void setId(String id) {
+        this.id = id;
+    }
+    
+    public Type getType() {
+        return type;
+    }
+    
+    public void setType(Type type) {
+        this.type = type;
+    }
+    
+    public String getTaskId() {
+        return taskId;
+    }
+    
+    public void setTaskId(String taskId) {
+        this.taskId = taskId;
+    }
+    
+    public Task getTask() {
+        return task;
+    }
+    
+    public void setTask(Task task) {
+        this.task = task;
+    }
+    
+    public TaskStatus getStatus() {
+        return status;
+    }
+    
+    public void setStatus(TaskStatus status) {
+        this.status = status;
+    }
+}
@@ -0,0 +1,40 @@
+package com.taskmanager.dto;
+
+import com.taskmanager.model.Task;
+
+import java.util.List;
+
+/**
+ * Data Transfer Object for a page of tasks
+ * nextCursor is null when there are no further pages
+ */
+public class TaskPageResponse {
+    
+    private List<Task> items;
+    private String nextCursor;
+    
+    // Constructors
+    public TaskPageResponse() {}
+    
+    public TaskPageResponse(List<Task> items, String nextCursor) {
+        this.items = items;
+        this.nextCursor = nextCursor;
+    }
+    
+    // Getters and Setters
+    public List<Task> getItems() {
+        return items;
+    }
+    
+    public void setItems(List<Task> items) {
+        this.items = items;
+    }
+    
+    public String getNextCursor() {
+        return nextCursor;
+    }
+    
+    public void setNextCursor(String nextCursor) {
+        this.nextCursor = nextCursor;
+    }
+}
@@ -0,0 +1,51 @@
+package com.taskmanager.dto;
+
+import com.taskmanager.model.TaskStatus;
+import jakarta.validation.constraints.Pattern;
+
+/**
+ * Data Transfer Object for partial task updates
+ * Fields left out of the request are not changed
+ */
+public class TaskPatchRequest {
+    
+    @Pattern(regexp = "(?s).*\\S.*", message = "Title must not be blank")
+    private String title;
+    
+    private String description;
+    private TaskStatus status;
+    
+    // Constructors
+    public TaskPatchRequest() {}
+    
+    public TaskPatchRequest(String title, String description, TaskStatus status) {
+        this.title = title;
+        this.description = description;
+        this.status = status;
+    }
+    
+    // Getters and Setters
+    public String getTitle() {
+        return title;
+    }
+    
+    public void setTitle(String title) {
+        this.title = title;
+    }
+    
+    public String getDescription() {
+        return description;
+    }
+    
+    public void setDescription(String description) {
+        this.description = description;
+    }
+    
+    public TaskStatus getStatus() {
+        return status;
+    }
+    
+    public void setStatus(TaskStatus status) {
+        this.status = status;
+    }
+}
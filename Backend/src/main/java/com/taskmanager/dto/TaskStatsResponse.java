@@ -0,0 +1,40 @@
+package com.taskmanager.dto;
+
+import com.taskmanager.model.TaskStatus;
+
+import java.util.Map;
+
+/**
+ * Data Transfer Object for a user's task counts
+ * Every status is listed, with zero when the user has no such tasks
+ */
+public class TaskStatsResponse {
+    
+    private long total;
+    private Map<TaskStatus, Long> byStatus;
+    
+    // Constructors
+    public TaskStatsResponse() {}
+    
+    public TaskStatsResponse(Map<TaskStatus, Long> byStatus) {
+        this.byStatus = byStatus;
+        this.total = byStatus.values().stream().mapToLong(Long::longValue).sum();
+    }
+    
+    // Getters and Setters
+    public long getTotal() {
+        return total;
+    }
+    
+    public void setTotal(long total) {
+        this.total = total;
+    }
+    
+    public Map<TaskStatus, Long> getByStatus() {
+        return byStatus;
+    }
+    
+    public void setByStatus(Map<TaskStatus, Long> byStatus) {
+        this.byStatus = byStatus;
+    }
+}
@@ -0,0 +1,74 @@
+package com.taskmanager.dto;
+
+import com.taskmanager.model.Task;
+
+import java.util.List;
+
+/**
+ * Data Transfer Object for one page of delta sync
+ * items holds the tasks created or written since the sync token and deletedIds the tasks
+ * deleted since then. When reset is true the token could not be answered with changes:
+ * the client drops its local tasks and takes items, over as many pages as hasMore asks for,
+ * as the full set. syncToken is sent with the next sync, or at once while hasMore is true
+ */
+public class TaskSyncResponse {
+    
+    private List<Task> items;
+    private List<String> deletedIds;
+    private String syncToken;
+    private boolean hasMore;
+    private boolean reset;
+    
+    // Constructors
+    public TaskSyncResponse() {}
+    
+    public TaskSyncResponse(List<Task> items, List<String> deletedIds, String syncToken, boolean hasMore,
+                            boolean reset) {
+        this.items = items;
+        this.deletedIds = deletedIds;
+        this.syncToken = syncToken;
+        this.hasMore = hasMore;
+        this.reset = reset;
+    }
+    
+    // Getters and Setters
+    public List<Task> getItems() {
+        return items;
+    }
+    
+    public void setItems(List<Task> items) {
+        this.items = items;
+    }
+    
+    public List<String> getDeletedIds() {
+        return deletedIds;
+    }
+    
+    public void setDeletedIds(List<String> deletedIds) {
+        this.deletedIds = deletedIds;
+    }
+    
+    public String getSyncToken() {
+        return syncToken;
+    }
+    
+    public void setSyncToken(String syncToken) {
+        this.syncToken = syncToken;
+    }
+    
+    public boolean isHasMore() {
+        return hasMore;
+    }
+    
+    public void setHasMore(boolean hasMore) {
+        this.hasMore = hasMore;
+    }
+    
+    public boolean isReset() {
+        return reset;
+    }
+    
+    public void setReset(boolean reset) {
+        this.reset = reset;
+    }
+}
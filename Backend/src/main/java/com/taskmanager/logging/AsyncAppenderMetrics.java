@@ -0,0 +1,43 @@
+package com.taskmanager.logging;
+
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.Appender;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.slf4j.LoggerFactory;
+
+import java.util.Iterator;
+
+/**
+ * Queue depth and dropped event metrics for every MeteredAsyncAppender on the root logger
+ */
+public class AsyncAppenderMetrics implements MeterBinder {
+    
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        if (!(LoggerFactory.getILoggerFactory() instanceof LoggerContext context)) {
+            return;
+        }
+        Iterator<Appender<ILoggingEvent>> appenders = context.getLogger(Logger.ROOT_LOGGER_NAME).iteratorForAppenders();
+        while (appenders.hasNext()) {
+            if (appenders.next() instanceof MeteredAsyncAppender appender) {
+                Gauge.builder("taskmanager.logging.queue.size", appender, MeteredAsyncAppender::getNumberOfElementsInQueue)
+                    .description("Log events waiting to be written")
+                    .tag("appender", appender.getName())
+                    .register(registry);
+                Gauge.builder("taskmanager.logging.queue.capacity", appender, MeteredAsyncAppender::getQueueSize)
+                    .description("Log events the queue can hold")
+                    .tag("appender", appender.getName())
+                    .register(registry);
+                FunctionCounter.builder("taskmanager.logging.dropped", appender, MeteredAsyncAppender::getDroppedCount)
+                    .description("Log events dropped because the queue was full")
+                    .tag("appender", appender.getName())
+                    .register(registry);
+            }
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package com.taskmanager.logging;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Lets one in every {@code rate} calls through, picked at random, for log lines written on every request
+ * Deciding costs one thread-local random number, with no shared state to contend on
+ */
+public final class LogSampler {
+    
+    private final int rate;
+    
+    /**
+     * @param rate one in how many calls is logged; 1 or less logs every call
+     */
+    public LogSampler(int rate) {
+        this.rate = Math.max(1, rate);
+    }
+    
+    /**
+     * Whether this call should be logged
+     */
+    public boolean sample() {
+        return rate == 1 || ThreadLocalRandom.current().nextInt(rate) == 0;
+    }
+    
+    public int getRate() {
+        return rate;
+    }
+}
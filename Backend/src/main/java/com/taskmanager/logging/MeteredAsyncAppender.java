@@ -0,0 +1,62 @@
+package com.taskmanager.logging;
+
+import ch.qos.logback.classic.AsyncAppender;
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.Appender;
+import ch.qos.logback.core.spi.AppenderAttachableImpl;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Logback AsyncAppender that counts the events it drops
+ * Events go into a bounded array queue and a worker thread writes them out, so request threads
+ * never wait on disk or console I/O. Once the queue is nearly full, INFO and lower events are
+ * dropped; with neverBlock set, every event is dropped while it is full, otherwise WARN and ERROR
+ * wait for room. With async turned off, events are written on the calling thread as before
+ */
+public class MeteredAsyncAppender extends AsyncAppender {
+    
+    private final LongAdder dropped = new LongAdder();
+    
+    private final AppenderAttachableImpl<ILoggingEvent> delegates = new AppenderAttachableImpl<>();
+    
+    private boolean async = true;
+    
+    public void setAsync(boolean async) {
+        this.async = async;
+    }
+    
+    public boolean isAsync() {
+        return async;
+    }
+    
+    @Override
+    public void addAppender(Appender<ILoggingEvent> appender) {
+        super.addAppender(appender);
+        delegates.addAppender(appender);
+    }
+    
+    @Override
+    protected void append(ILoggingEvent event) {
+        if (!async) {
+            delegates.appendLoopOnAppenders(event);
+            return;
+        }
+        // Same checks the base class makes before queueing, so drops can be counted
+        int remaining = getRemainingCapacity();
+        if ((remaining < getDiscardingThreshold() && event.getLevel().toInt() <= Level.INFO_INT)
+                || (remaining == 0 && isNeverBlock())) {
+            dropped.increment();
+            return;
+        }
+        super.append(event);
+    }
+    
+    /**
+     * Events dropped because the queue was full or nearly full
+     */
+    public long getDroppedCount() {
+        return dropped.sum();
+    }
+}
@@ -6,6 +6,8 @@ import org.springframework.data.redis.core.index.Indexed;
 
 /**
  * Task entity for Redis storage
+ * Creation and last update times are epoch milliseconds; the version starts at 1
+ * and is bumped by every update
  */
 @RedisHash("Task")
 public class Task {
@@ -22,6 +24,12 @@ public class Task {
     @Indexed
     private String userId;
     
+    private Long createdAt;
+    
+    private Long updatedAt;
+    
+    private Long version;
+    
     // Default constructor
     public Task() {}
     
@@ -74,6 +82,30 @@ public class Task {
         this.userId = userId;
     }
     
+    public Long getCreatedAt() {
+        return createdAt;
+    }
+    
+    public void setCreatedAt(Long createdAt) {
+        this.createdAt = createdAt;
+    }
+    
+    public Long getUpdatedAt() {
+        return updatedAt;
+    }
+    
+    public void setUpdatedAt(Long updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+    
+    public Long getVersion() {
+        return version;
+    }
+    
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+    
     @Override
     public String toString() {
         return "Task{" +
@@ -82,6 +114,9 @@ public class Task {
                 ", description='" + description + '\'' +
                 ", status=" + status +
                 ", userId='" + userId + '\'' +
+                ", createdAt=" + createdAt +
+                ", updatedAt=" + updatedAt +
+                ", version=" + version +
                 '}';
     }
 }
@@ -0,0 +1,237 @@
+package com.taskmanager.ratelimit;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.taskmanager.config.RateLimitProperties;
+import com.taskmanager.repository.RateLimitRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.server.PathContainer;
+import org.springframework.stereotype.Component;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Per-client request rate limits, shared by both web stacks
+ * Every route keeps a token bucket per client in a bounded Caffeine cache, whose
+ * striped map and lock-free buckets let any number of request threads take tokens
+ * without contending. Routes with a global limit also count admitted requests locally
+ * and add them to a shared Redis counter in batches from a background thread; a client
+ * over its global limit is blocked locally until the window ends. Deciding a request
+ * never touches Redis and a rejection allocates nothing
+ */
+@Component
+public class RateLimiter {
+    
+    private static final Logger logger = LoggerFactory.getLogger(RateLimiter.class);
+    
+    /**
+     * Returned for requests that may proceed
+     */
+    public static final long ADMITTED = 0;
+    
+    @Autowired
+    private RateLimitProperties properties;
+    
+    @Autowired
+    private RateLimitRepository rateLimitRepository;
+    
+    @Autowired
+    private MeterRegistry meterRegistry;
+    
+    private List<Route> routes = List.of();
+    
+    @PostConstruct
+    void init() {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        PathPatternParser parser = new PathPatternParser();
+        List<Route> compiled = new ArrayList<>();
+        for (RateLimitProperties.Route route : properties.getRoutes()) {
+            compiled.add(new Route(route, parser.parse(route.getPath())));
+        }
+        routes = List.copyOf(compiled);
+    }
+    
+    /**
+     * Send global counts to Redis in the background, if any route has a global limit
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void startGlobalSync() {
+        if (routes.stream().noneMatch(route -> route.globalLimit > 0)) {
+            return;
+        }
+        Thread sync = new Thread(this::syncLoop, "rate-limit-sync");
+        sync.setDaemon(true);
+        sync.start();
+    }
+    
+    /**
+     * Take a token for a request
+     * @param userId authenticated user, or null for anonymous requests
+     * @param clientAddress remote address of the client
+     * @return {@link #ADMITTED}, or milliseconds until the client may retry
+     */
+    public long tryAcquire(String method, PathContainer path, String userId, String clientAddress) {
+        Route route = match(method, path);
+        if (route == null) {
+            return ADMITTED;
+        }
+        String client = route.byUser && userId != null ? userId : clientAddress;
+        if (client == null) {
+            return ADMITTED;
+        }
+        
+        long nowNanos = System.nanoTime();
+        if (route.globalLimit > 0) {
+            Long blockedUntil = route.blockedUntil.get(client);
+            if (blockedUntil != null && blockedUntil - nowNanos > 0) {
+                route.rejectedGlobal.increment();
+                return TimeUnit.NANOSECONDS.toMillis(blockedUntil - nowNanos) + 1;
+            }
+        }
+        long wait = route.buckets.get(client, key -> new TokenBucket())
+            .tryAcquire(nowNanos, route.intervalNanos, route.burstNanos);
+        if (wait > 0) {
+            route.rejected.increment();
+            return TimeUnit.NANOSECONDS.toMillis(wait) + 1;
+        }
+        if (route.globalLimit > 0) {
+            route.pending.computeIfAbsent(client, key -> new LongAdder()).increment();
+        }
+        route.admitted.increment();
+        return ADMITTED;
+    }
+    
+    private Route match(String method, PathContainer path) {
+        for (Route route : routes) {
+            if ((route.methods.isEmpty() || route.methods.contains(method)) && route.pattern.matches(path)) {
+                return route;
+            }
+        }
+        return null;
+    }
+    
+    private void syncLoop() {
+        long intervalMillis = properties.getGlobalSyncInterval().toMillis();
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                Thread.sleep(intervalMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            for (Route route : routes) {
+                if (route.globalLimit > 0) {
+                    try {
+                        sync(route);
+                    } catch (Exception e) {
+                        // Local buckets keep limiting meanwhile; counts not sent are dropped
+                        logger.warn("Rate limit sync for route {} failed: {}", route.name, e.getMessage());
+                    }
+                }
+            }
+        }
+    }
+    
+    /**
+     * Add the requests admitted since the last sync to the global counters, and block
+     * clients whose total has reached the limit until their window ends
+     */
+    void sync(Route route) {
+        long nowNanos = System.nanoTime();
+        route.blockedUntil.values().removeIf(until -> until - nowNanos <= 0);
+        
+        Map<String, Long> counts = new LinkedHashMap<>();
+        for (Map.Entry<String, LongAdder> entry : route.pending.entrySet()) {
+            long count = entry.getValue().sumThenReset();
+            if (count > 0) {
+                counts.put(entry.getKey(), count);
+            } else {
+                route.pending.remove(entry.getKey(), entry.getValue());
+            }
+        }
+        if (counts.isEmpty()) {
+            return;
+        }
+        
+        long windowMillis = route.globalWindow.toMillis();
+        long nowMillis = System.currentTimeMillis();
+        long window = nowMillis / windowMillis;
+        long windowEndNanos = nowNanos + TimeUnit.MILLISECONDS.toNanos((window + 1) * windowMillis - nowMillis);
+        List<Long> totals = rateLimitRepository.addAll(route.name, counts, window, route.globalWindow);
+        int i = 0;
+        for (String client : counts.keySet()) {
+            if (totals.get(i++) >= route.globalLimit) {
+                route.blockedUntil.put(client, windowEndNanos);
+            }
+        }
+    }
+    
+    /**
+     * A configured route with its buckets, pending global counts and metrics
+     */
+    private final class Route {
+        
+        final String name;
+        final PathPattern pattern;
+        final Set<String> methods = new HashSet<>();
+        final boolean byUser;
+        final long intervalNanos;
+        final long burstNanos;
+        final long globalLimit;
+        final Duration globalWindow;
+        final Cache<String, TokenBucket> buckets;
+        final ConcurrentHashMap<String, LongAdder> pending = new ConcurrentHashMap<>();
+        final ConcurrentHashMap<String, Long> blockedUntil = new ConcurrentHashMap<>();
+        final Counter admitted;
+        final Counter rejected;
+        final Counter rejectedGlobal;
+        
+        Route(RateLimitProperties.Route route, PathPattern pattern) {
+            this.name = route.getName() != null ? route.getName() : route.getPath();
+            this.pattern = pattern;
+            route.getMethods().forEach(method -> methods.add(method.toUpperCase(Locale.ROOT)));
+            this.byUser = !"ip".equalsIgnoreCase(route.getKey());
+            this.intervalNanos = Math.max(1, Math.round(TimeUnit.SECONDS.toNanos(1) / route.getRefillPerSecond()));
+            this.burstNanos = intervalNanos * route.getCapacity();
+            this.globalLimit = route.getGlobalLimit();
+            this.globalWindow = route.getGlobalWindow();
+            // A bucket idle long enough to be full again is no different from a new one
+            this.buckets = Caffeine.newBuilder()
+                .maximumSize(properties.getMaxClients())
+                .expireAfterAccess(Duration.ofNanos(Math.max(burstNanos, TimeUnit.SECONDS.toNanos(1))))
+                .build();
+            this.admitted = counter("admitted");
+            this.rejected = counter("rejected");
+            this.rejectedGlobal = counter("rejected_global");
+        }
+        
+        private Counter counter(String outcome) {
+            return Counter.builder("taskmanager.rate_limit.requests")
+                .description("Requests checked against a rate limit")
+                .tag("route", name)
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+        }
+    }
+}
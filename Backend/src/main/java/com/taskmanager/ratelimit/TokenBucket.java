@@ -0,0 +1,34 @@
+package com.taskmanager.ratelimit;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lock-free token bucket
+ * Kept as the time at which the bucket would be full again (the generic cell rate algorithm),
+ * so the whole state is one long and taking a token is a single compare-and-set
+ */
+final class TokenBucket {
+    
+    private final AtomicLong fullAt = new AtomicLong(Long.MIN_VALUE);
+    
+    /**
+     * Take a token
+     * @param nowNanos current System.nanoTime()
+     * @param intervalNanos time to refill one token
+     * @param burstNanos time to refill the whole bucket, capacity times the interval
+     * @return 0 if a token was taken, otherwise nanoseconds until one is available
+     */
+    long tryAcquire(long nowNanos, long intervalNanos, long burstNanos) {
+        while (true) {
+            long current = fullAt.get();
+            long next = (current == Long.MIN_VALUE || current - nowNanos < 0 ? nowNanos : current) + intervalNanos;
+            long wait = next - nowNanos - burstNanos;
+            if (wait > 0) {
+                return wait;
+            }
+            if (fullAt.compareAndSet(current, next)) {
+                return 0;
+            }
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package com.taskmanager.repository;
+
+/**
+ * Redis key layout for refresh tokens and revoked login sessions
+ */
+public final class AuthKeys {
+    
+    private AuthKeys() {}
+    
+    /**
+     * Hash holding the user and session a refresh token was issued for, keyed by the token's digest
+     */
+    public static String refreshToken(String digest) {
+        return "RefreshToken:" + digest;
+    }
+    
+    /**
+     * Sorted set of revoked session ids, scored by the time until which they stay revoked
+     */
+    public static String revokedSessions() {
+        return "RevokedSessions";
+    }
+    
+    /**
+     * Pub/sub channel on which each revoked session id is announced
+     */
+    public static String revokedSessionsChannel() {
+        return "RevokedSessions:channel";
+    }
+}
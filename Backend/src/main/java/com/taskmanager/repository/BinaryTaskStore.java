@@ -0,0 +1,386 @@
+package com.taskmanager.repository;
+
+import com.taskmanager.config.CacheConfig;
+import com.taskmanager.model.Task;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.context.annotation.Condition;
+import org.springframework.context.annotation.ConditionContext;
+import org.springframework.context.annotation.Conditional;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.type.AnnotatedTypeMetadata;
+import org.springframework.data.redis.connection.ReturnType;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.convert.RedisConverter;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.stereotype.Repository;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+/**
+ * Task storage as one packed value per task, see TaskBinaryCodec
+ * A read is a single GET and a create or write a single script call that also keeps
+ * the indexes, with no per-property fields, type hints, keyspace set or Spring Data
+ * index sets. Tasks still stored as hashes are read as they are and converted on
+ * their next write or by TaskStorageMigration, so the switch can be made online.
+ * Also serves the sharded mode, whose hash-tagged keys come from TaskKeys
+ */
+@Repository
+@Conditional(BinaryTaskStore.OnPackedStorage.class)
+public class BinaryTaskStore implements TaskStore {
+    
+    static final RedisScript<Long> INSERT_SCRIPT =
+        RedisScript.of(new ClassPathResource("scripts/task-bin-insert.lua"), Long.class);
+    
+    static final RedisScript<List> UPDATE_SCRIPT =
+        RedisScript.of(new ClassPathResource("scripts/task-bin-update.lua"), List.class);
+    
+    static final RedisScript<Long> DELETE_SCRIPT =
+        RedisScript.of(new ClassPathResource("scripts/task-bin-delete.lua"), Long.class);
+    
+    static final RedisScript<Long> MIGRATE_SCRIPT =
+        RedisScript.of(new ClassPathResource("scripts/task-bin-migrate.lua"), Long.class);
+    
+    /**
+     * Leaves each element of a script reply as raw bytes
+     */
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    private static final RedisSerializer<List> RAW_REPLY = (RedisSerializer) RedisSerializer.byteArray();
+    
+    private static final int READ_BATCH_SIZE = 500;
+    
+    @Autowired
+    private StringRedisTemplate redisTemplate;
+    
+    @Autowired
+    private RedisConverter redisConverter;
+    
+    @Autowired
+    private TaskScriptRepository taskScriptRepository;
+    
+    @Autowired
+    private TaskVersionRepository taskVersionRepository;
+    
+    @Autowired
+    private RedisOperationTimers redisTimers;
+    
+    @Override
+    @Cacheable(cacheNames = CacheConfig.TASKS_CACHE, key = "#p1", unless = "#result == null")
+    public Optional<Task> findById(String userId, String id) {
+        byte[] packed = redisTimers.record("task.find",
+            () -> redisTemplate.execute((RedisCallback<byte[]>) connection ->
+                connection.stringCommands().get(bytes(TaskKeys.binary(userId, id)))));
+        return packed != null ? Optional.of(TaskBinaryCodec.decode(id, packed)) : findLegacy(userId, id);
+    }
+    
+    @Override
+    public List<Task> findByUserId(String userId) {
+        List<Task> tasks = new ArrayList<>();
+        forEachTask(userId, READ_BATCH_SIZE, tasks::add);
+        return tasks;
+    }
+    
+    @Override
+    public Task insert(Task task) {
+        insertAll(task.getUserId(), List.of(task));
+        return task;
+    }
+    
+    /**
+     * Tasks that already have an id keep it, and are skipped if they are stored already
+     */
+    @Override
+    public List<Task> insertAll(String userId, List<Task> tasks) {
+        if (tasks.isEmpty()) {
+            return tasks;
+        }
+        for (Task task : tasks) {
+            if (task.getId() == null) {
+                task.setId(UUID.randomUUID().toString());
+            }
+        }
+        // Packed tasks are not valid strings, so every argument goes out as raw bytes
+        redisTimers.record("task.insert_all", () -> redisTemplate.execute(INSERT_SCRIPT, RedisSerializer.byteArray(),
+            null, insertKeys(userId, tasks), insertArgs(tasks).toArray()));
+        return tasks;
+    }
+    
+    @Override
+    public Optional<Task> update(String userId, String id, Map<String, String> fieldsToSet,
+                                 List<String> fieldsToRemove, Collection<Long> expectedVersions) {
+        // Read back as raw bytes, since the reply holds the packed task
+        List<?> reply = redisTimers.record("task.update", () -> redisTemplate.execute(UPDATE_SCRIPT,
+            RedisSerializer.string(), RAW_REPLY, keys(userId, id),
+            TaskScriptRepository.updateArgs(userId, id, expectedVersions, fieldsToSet, fieldsToRemove).toArray()));
+        if (TaskScriptRepository.isMissing(reply)) {
+            return Optional.empty();
+        }
+        if (isVersionMismatch(reply)) {
+            throw TaskScriptRepository.versionMismatch(id);
+        }
+        return Optional.of(TaskBinaryCodec.decode(id, (byte[]) reply.get(0)));
+    }
+    
+    @Override
+    public boolean delete(String userId, String id, Collection<Long> expectedVersions) {
+        Long deleted = redisTimers.record("task.delete", () -> redisTemplate.execute(DELETE_SCRIPT, keys(userId, id),
+            taskScriptRepository.deleteArgs(userId, id, expectedVersions).toArray()));
+        if (deleted != null && deleted == TaskScriptRepository.DELETE_VERSION_MISMATCH) {
+            throw TaskScriptRepository.versionMismatch(id);
+        }
+        return deleted != null && deleted == 1L;
+    }
+    
+    @Override
+    public List<String> updateAll(String userId, List<String> ids, Map<String, String> fieldsToSet) {
+        List<Object> results = redisTimers.record("task.update_all", () -> taskScriptRepository.evalPipelined(
+            UPDATE_SCRIPT, ReturnType.MULTI, ids, id -> keys(userId, id),
+            id -> TaskScriptRepository.updateArgs(userId, id, null, fieldsToSet, List.of())));
+        
+        List<String> updatedIds = new ArrayList<>();
+        for (int i = 0; i < ids.size(); i++) {
+            if (results.get(i) instanceof List<?> reply && !TaskScriptRepository.isMissing(reply)) {
+                updatedIds.add(ids.get(i));
+            }
+        }
+        return updatedIds;
+    }
+    
+    @Override
+    public List<String> deleteAll(String userId, List<String> ids) {
+        List<Object> results = redisTimers.record("task.delete_all", () -> taskScriptRepository.evalPipelined(
+            DELETE_SCRIPT, ReturnType.INTEGER, ids, id -> keys(userId, id),
+            id -> taskScriptRepository.deleteArgs(userId, id, null)));
+        
+        List<String> deletedIds = new ArrayList<>();
+        for (int i = 0; i < ids.size(); i++) {
+            if (Long.valueOf(1L).equals(results.get(i))) {
+                deletedIds.add(ids.get(i));
+            }
+        }
+        return deletedIds;
+    }
+    
+    /**
+     * Overwrite several tasks, of any users, with the given states in one pipelined round trip, each only
+     * if its stored version is still the expected one and it still belongs to the task's user; each
+     * task's stored version becomes its own
+     * @return ids of the tasks now stored at their given version, including any that already were
+     */
+    public List<String> replaceAll(List<Task> tasks, List<Long> expectedVersions) {
+        Map<String, Task> byId = new LinkedHashMap<>();
+        Map<String, Long> expected = new HashMap<>();
+        for (int i = 0; i < tasks.size(); i++) {
+            byId.put(tasks.get(i).getId(), tasks.get(i));
+            expected.put(tasks.get(i).getId(), expectedVersions.get(i));
+        }
+        List<String> ids = new ArrayList<>(byId.keySet());
+        List<Object> results = taskScriptRepository.evalPipelined(UPDATE_SCRIPT, ReturnType.MULTI, ids,
+            id -> keys(byId.get(id).getUserId(), id), id -> replaceArgs(byId.get(id), expected.get(id)));
+        
+        List<String> replacedIds = new ArrayList<>();
+        for (int i = 0; i < ids.size(); i++) {
+            if (results.get(i) instanceof List<?> reply && !TaskScriptRepository.isMissing(reply)
+                    && (!isVersionMismatch(reply)
+                        || String.valueOf(byId.get(ids.get(i)).getVersion()).equals(string(reply.get(1))))) {
+                replacedIds.add(ids.get(i));
+            }
+        }
+        return replacedIds;
+    }
+    
+    /**
+     * Update script arguments that set every field to the task's, the version one short of it
+     * since the script counts the write itself
+     */
+    private static List<String> replaceArgs(Task task, long expectedVersion) {
+        Map<String, String> fieldsToSet = new LinkedHashMap<>();
+        List<String> fieldsToRemove = new ArrayList<>();
+        fieldsToSet.put("title", task.getTitle());
+        if (task.getDescription() != null) {
+            fieldsToSet.put("description", task.getDescription());
+        } else {
+            fieldsToRemove.add("description");
+        }
+        if (task.getStatus() != null) {
+            fieldsToSet.put("status", task.getStatus().name());
+        } else {
+            fieldsToRemove.add("status");
+        }
+        fieldsToSet.put("updatedAt", Long.toString(task.getUpdatedAt()));
+        fieldsToSet.put(TaskVersionRepository.VERSION_FIELD, Long.toString(task.getVersion() - 1));
+        return TaskScriptRepository.updateArgs(task.getUserId(), task.getId(), List.of(expectedVersion), fieldsToSet,
+            fieldsToRemove);
+    }
+    
+    @Override
+    public Optional<Long> findVersion(String userId, String id) {
+        byte[] packed = redisTimers.record("task.find_version",
+            () -> redisTemplate.execute((RedisCallback<byte[]>) connection ->
+                connection.stringCommands().get(bytes(TaskKeys.binary(userId, id)))));
+        if (packed == null) {
+            return taskVersionRepository.findTaskVersion(userId, id);
+        }
+        Task task = TaskBinaryCodec.decode(id, packed);
+        return userId.equals(task.getUserId())
+            ? Optional.of(task.getVersion() != null ? task.getVersion() : 0L)
+            : Optional.empty();
+    }
+    
+    /**
+     * Owners of the sorted indexes, plus those of tasks not converted yet
+     */
+    @Override
+    public List<String> findUserIds() {
+        Set<String> userIds = new LinkedHashSet<>();
+        scanOwners(TaskKeys.byUser("*"), userIds);
+        scanOwners(TaskKeys.userIdIndex("*"), userIds);
+        return new ArrayList<>(userIds);
+    }
+    
+    /**
+     * Reads the whole of each task, with one MGET per batch
+     */
+    @Override
+    public void forEachTask(String userId, int batchSize, Consumer<Task> consumer) {
+        Set<String> ids = new LinkedHashSet<>();
+        Set<String> indexed = redisTemplate.opsForZSet().range(TaskKeys.byUser(userId), 0, -1);
+        Set<String> legacy = redisTemplate.opsForSet().members(TaskKeys.userIdIndex(userId));
+        if (indexed != null) {
+            ids.addAll(indexed);
+        }
+        if (legacy != null) {
+            ids.addAll(legacy);
+        }
+        
+        List<String> allIds = new ArrayList<>(ids);
+        for (int from = 0; from < allIds.size(); from += batchSize) {
+            for (Task task : findAllById(userId, allIds.subList(from, Math.min(from + batchSize, allIds.size())))) {
+                // Skip index entries whose task has changed hands
+                if (userId.equals(task.getUserId())) {
+                    consumer.accept(task);
+                }
+            }
+        }
+    }
+    
+    /**
+     * Read several tasks with a single MGET, skipping ids with no task
+     * Ids without a packed value are looked up as hashes one at a time, which only
+     * happens for tasks that have not been converted yet
+     */
+    @Override
+    public List<Task> findAllById(String userId, List<String> ids) {
+        if (ids.isEmpty()) {
+            return new ArrayList<>();
+        }
+        byte[][] keys = new byte[ids.size()][];
+        for (int i = 0; i < ids.size(); i++) {
+            keys[i] = bytes(TaskKeys.binary(userId, ids.get(i)));
+        }
+        List<byte[]> values = redisTimers.record("task.find_all",
+            () -> redisTemplate.execute((RedisCallback<List<byte[]>>) connection ->
+                connection.stringCommands().mGet(keys)));
+        
+        List<Task> tasks = new ArrayList<>(ids.size());
+        for (int i = 0; i < ids.size(); i++) {
+            byte[] packed = values != null ? values.get(i) : null;
+            if (packed != null) {
+                tasks.add(TaskBinaryCodec.decode(ids.get(i), packed));
+            } else {
+                findLegacy(userId, ids.get(i)).ifPresent(tasks::add);
+            }
+        }
+        return tasks;
+    }
+    
+    /**
+     * Read a task still stored as a Spring Data hash
+     */
+    private Optional<Task> findLegacy(String userId, String id) {
+        Map<String, String> fields = redisTemplate.<String, String>opsForHash().entries(TaskKeys.task(userId, id));
+        if (fields.isEmpty()) {
+            return Optional.empty();
+        }
+        return Optional.of(ReactiveEntityOperations.read(redisConverter, Task.class, TaskKeys.KEYSPACE, id, fields));
+    }
+    
+    /**
+     * Collect the owner of each key matching a per-user key pattern, on every node of a cluster
+     */
+    private void scanOwners(String pattern, Set<String> userIds) {
+        ClusterSupport.scanWildcard(redisTemplate.getConnectionFactory(), pattern, userIds::add);
+    }
+    
+    /**
+     * Keys of the binary update and delete scripts: the packed task, then the keys of the hash delete script
+     */
+    static List<String> keys(String userId, String id) {
+        List<String> keys = new ArrayList<>();
+        keys.add(TaskKeys.binary(userId, id));
+        keys.addAll(TaskScriptRepository.deleteKeys(userId, id));
+        return keys;
+    }
+    
+    static List<String> insertKeys(String userId, List<Task> tasks) {
+        List<String> keys = TaskIndexRepository.indexKeys(userId);
+        for (Task task : tasks) {
+            keys.add(TaskKeys.binary(userId, task.getId()));
+        }
+        return keys;
+    }
+    
+    static List<byte[]> insertArgs(List<Task> tasks) {
+        List<byte[]> args = new ArrayList<>(1 + 3 * tasks.size());
+        args.add(bytes(Integer.toString(tasks.size())));
+        for (Task task : tasks) {
+            args.add(bytes(task.getId()));
+            args.add(bytes(task.getStatus().name()));
+            args.add(TaskBinaryCodec.encode(task));
+        }
+        return args;
+    }
+    
+    /**
+     * Whether an update script reply is a version conflict rather than the packed task
+     */
+    static boolean isVersionMismatch(List<?> reply) {
+        return reply.size() == 2;
+    }
+    
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+    
+    private static String string(Object reply) {
+        return reply instanceof byte[] raw ? new String(raw, StandardCharsets.UTF_8) : String.valueOf(reply);
+    }
+    
+    /**
+     * Matches the storage modes that keep tasks packed: binary and sharded
+     */
+    static class OnPackedStorage implements Condition {
+        
+        @Override
+        public boolean matches(ConditionContext context, AnnotatedTypeMetadata metadata) {
+            return isPacked(context.getEnvironment().getProperty(MODE_PROPERTY));
+        }
+    }
+    
+    static boolean isPacked(String mode) {
+        return BINARY_MODE.equals(mode) || SHARDED_MODE.equals(mode);
+    }
+}
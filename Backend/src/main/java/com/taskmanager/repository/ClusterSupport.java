@@ -0,0 +1,76 @@
+package com.taskmanager.repository;
+
+import org.springframework.data.redis.connection.ReactiveRedisConnectionFactory;
+import org.springframework.data.redis.connection.RedisClusterConnection;
+import org.springframework.data.redis.connection.RedisClusterNode;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.ScanOptions;
+
+import java.nio.charset.StandardCharsets;
+import java.util.function.Consumer;
+
+/**
+ * Operations that differ between a single Redis and a Redis Cluster
+ * Commands on one key are routed to the node owning its slot by the Lettuce cluster client, which also
+ * follows slots as they move; only whole-keyspace operations such as SCAN have to visit each node
+ */
+public final class ClusterSupport {
+    
+    private static final int SCAN_COUNT = 1000;
+    
+    private ClusterSupport() {}
+    
+    /**
+     * Whether the connection factory talks to a Redis Cluster
+     */
+    public static boolean isCluster(RedisConnectionFactory connectionFactory) {
+        return connectionFactory instanceof LettuceConnectionFactory lettuce && lettuce.isClusterAware();
+    }
+    
+    /**
+     * Whether the reactive connection factory talks to a Redis Cluster
+     */
+    public static boolean isCluster(ReactiveRedisConnectionFactory connectionFactory) {
+        return connectionFactory instanceof LettuceConnectionFactory lettuce && lettuce.isClusterAware();
+    }
+    
+    /**
+     * Visit every key matching a pattern, scanning each master in turn on a cluster
+     */
+    public static void scan(RedisConnectionFactory connectionFactory, String pattern, Consumer<String> consumer) {
+        ScanOptions options = ScanOptions.scanOptions().match(pattern).count(SCAN_COUNT).build();
+        if (isCluster(connectionFactory)) {
+            try (RedisClusterConnection cluster = connectionFactory.getClusterConnection()) {
+                for (RedisClusterNode node : cluster.clusterGetNodes()) {
+                    if (node.isMaster()) {
+                        visit(cluster.scan(node, options), consumer);
+                    }
+                }
+            }
+        } else {
+            try (RedisConnection connection = connectionFactory.getConnection()) {
+                visit(connection.keyCommands().scan(options), consumer);
+            }
+        }
+    }
+    
+    /**
+     * Visit what the single '*' of the pattern matched in each matching key
+     */
+    public static void scanWildcard(RedisConnectionFactory connectionFactory, String pattern,
+                                    Consumer<String> consumer) {
+        int prefixLength = pattern.indexOf('*');
+        int suffixLength = pattern.length() - prefixLength - 1;
+        scan(connectionFactory, pattern,
+            key -> consumer.accept(key.substring(prefixLength, key.length() - suffixLength)));
+    }
+    
+    private static void visit(Cursor<byte[]> keys, Consumer<String> consumer) {
+        try (keys) {
+            keys.forEachRemaining(key -> consumer.accept(new String(key, StandardCharsets.UTF_8)));
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package com.taskmanager.repository;
+
+import com.taskmanager.model.Task;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+/**
+ * Task storage as Spring Data Redis hashes, one field per property
+ * Delegates to the repositories that read and write that layout
+ */
+@Repository
+@ConditionalOnProperty(name = TaskStore.MODE_PROPERTY, havingValue = TaskStore.HASH_MODE, matchIfMissing = true)
+public class HashTaskStore implements TaskStore {
+    
+    @Autowired
+    private TaskRepository taskRepository;
+    
+    @Autowired
+    private TaskBulkRepository taskBulkRepository;
+    
+    @Autowired
+    private TaskScriptRepository taskScriptRepository;
+    
+    @Autowired
+    private TaskIndexRepository taskIndexRepository;
+    
+    @Autowired
+    private TaskVersionRepository taskVersionRepository;
+    
+    @Autowired
+    private TaskSearchRepository taskSearchRepository;
+    
+    @Override
+    public Optional<Task> findById(String userId, String id) {
+        return taskRepository.findById(id);
+    }
+    
+    @Override
+    public List<Task> findAllById(String userId, List<String> ids) {
+        return taskBulkRepository.findAll(userId, ids);
+    }
+    
+    @Override
+    public List<Task> findByUserId(String userId) {
+        return taskRepository.findByUserId(userId);
+    }
+    
+    @Override
+    public Task insert(Task task) {
+        Task savedTask = taskRepository.save(task);
+        taskIndexRepository.add(savedTask.getUserId(), savedTask.getId(), savedTask.getStatus());
+        return savedTask;
+    }
+    
+    @Override
+    public List<Task> insertAll(String userId, List<Task> tasks) {
+        List<Task> savedTasks = taskBulkRepository.insertAll(tasks);
+        taskIndexRepository.addAll(userId, savedTasks);
+        return savedTasks;
+    }
+    
+    @Override
+    public Optional<Task> update(String userId, String id, Map<String, String> fieldsToSet,
+                                 List<String> fieldsToRemove, Collection<Long> expectedVersions) {
+        return taskScriptRepository.update(userId, id, fieldsToSet, fieldsToRemove, expectedVersions);
+    }
+    
+    @Override
+    public boolean delete(String userId, String id, Collection<Long> expectedVersions) {
+        return taskScriptRepository.delete(userId, id, expectedVersions);
+    }
+    
+    @Override
+    public List<String> updateAll(String userId, List<String> ids, Map<String, String> fieldsToSet) {
+        return taskScriptRepository.updateAll(userId, ids, fieldsToSet);
+    }
+    
+    @Override
+    public List<String> deleteAll(String userId, List<String> ids) {
+        return taskScriptRepository.deleteAll(userId, ids);
+    }
+    
+    @Override
+    public Optional<Long> findVersion(String userId, String id) {
+        return taskVersionRepository.findTaskVersion(userId, id);
+    }
+    
+    @Override
+    public List<String> findUserIds() {
+        return taskSearchRepository.findUserIds();
+    }
+    
+    @Override
+    public void forEachTask(String userId, int batchSize, Consumer<Task> consumer) {
+        taskSearchRepository.forEachTask(userId, batchSize, consumer);
+    }
+}
@@ -0,0 +1,62 @@
+package com.taskmanager.repository;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Repository for the global rate limit counters
+ * Each client gets one counter per route and fixed window, shared by every node and
+ * expiring with its window, so nodes only need to add what they admitted since their last sync
+ */
+@Repository
+public class RateLimitRepository {
+    
+    @Autowired
+    private StringRedisTemplate redisTemplate;
+    
+    /**
+     * Counter for a client's requests to a route in one window
+     */
+    static String counter(String route, String client, long window) {
+        return "RateLimit:" + route + ":" + client + ":" + window;
+    }
+    
+    /**
+     * Add locally admitted requests to the clients' counters in one pipelined round trip
+     * @param counts requests admitted per client since the last sync
+     * @param window index of the current window
+     * @return each counter's total across all nodes, in the iteration order of {@code counts}
+     */
+    public List<Long> addAll(String route, Map<String, Long> counts, long window, Duration windowLength) {
+        List<byte[]> keys = new ArrayList<>(counts.size());
+        counts.keySet().forEach(client -> keys.add(bytes(counter(route, client, window))));
+        // Kept one extra window, so a counter never expires while nodes still add to it
+        long ttlMillis = windowLength.toMillis() * 2;
+        List<Object> replies = redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            int i = 0;
+            for (long count : counts.values()) {
+                byte[] key = keys.get(i++);
+                connection.stringCommands().incrBy(key, count);
+                connection.keyCommands().pExpire(key, ttlMillis);
+            }
+            return null;
+        });
+        List<Long> totals = new ArrayList<>(counts.size());
+        for (int i = 0; i < replies.size(); i += 2) {
+            totals.add((Long) replies.get(i));
+        }
+        return totals;
+    }
+    
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+}
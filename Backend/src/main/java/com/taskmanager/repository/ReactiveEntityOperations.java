@@ -0,0 +1,69 @@
+package com.taskmanager.repository;
+
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.data.redis.core.convert.Bucket;
+import org.springframework.data.redis.core.convert.IndexedData;
+import org.springframework.data.redis.core.convert.RedisConverter;
+import org.springframework.data.redis.core.convert.RedisData;
+import org.springframework.data.redis.core.convert.SimpleIndexedPropertyValue;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reactive reads and writes of {@code @RedisHash} entities
+ * Writes the entity hash, keyspace set and simple secondary indexes exactly as
+ * the Spring Data Redis repositories do, so both stacks share the same data
+ */
+final class ReactiveEntityOperations {
+    
+    private ReactiveEntityOperations() {}
+    
+    /**
+     * Write a new entity converted by the repository converter together with its index entries
+     * The commands are issued without waiting on each other and share one round trip
+     */
+    static Mono<Void> insert(ReactiveStringRedisTemplate redisTemplate, RedisData data) {
+        String keyspace = data.getKeyspace();
+        String id = data.getId();
+        String entityKey = keyspace + ":" + id;
+        
+        Map<String, String> fields = fields(data);
+        
+        List<Mono<?>> writes = new ArrayList<>();
+        writes.add(redisTemplate.opsForHash().putAll(entityKey, fields));
+        writes.add(redisTemplate.opsForSet().add(keyspace, id));
+        for (IndexedData index : data.getIndexedData()) {
+            if (index instanceof SimpleIndexedPropertyValue value && value.getValue() != null) {
+                String indexKey = keyspace + ":" + value.getIndexName() + ":" + value.getValue();
+                writes.add(redisTemplate.opsForSet().add(indexKey, id));
+                writes.add(redisTemplate.opsForSet().add(entityKey + ":idx", indexKey));
+            }
+        }
+        return Mono.when(writes);
+    }
+    
+    /**
+     * Hash fields of an entity converted by the repository converter
+     */
+    static Map<String, String> fields(RedisData data) {
+        Map<String, String> fields = new LinkedHashMap<>();
+        data.getBucket().asMap().forEach((field, value) -> fields.put(field, new String(value, StandardCharsets.UTF_8)));
+        return fields;
+    }
+    
+    /**
+     * Map the fields of an entity hash onto an entity using the repository converter
+     */
+    static <T> T read(RedisConverter redisConverter, Class<T> type, String keyspace, String id,
+                      Map<String, String> fields) {
+        RedisData data = new RedisData(Bucket.newBucketFromStringMap(fields));
+        data.setId(id);
+        data.setKeyspace(keyspace);
+        return redisConverter.read(type, data);
+    }
+}
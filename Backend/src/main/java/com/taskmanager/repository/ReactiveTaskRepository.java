@@ -0,0 +1,364 @@
+package com.taskmanager.repository;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.taskmanager.dto.TaskEvent;
+import com.taskmanager.model.Task;
+import com.taskmanager.model.TaskStatus;
+import com.taskmanager.repository.TaskIndexRepository.IndexEntry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.data.domain.Range;
+import org.springframework.data.redis.connection.Limit;
+import org.springframework.data.redis.connection.stream.StreamRecords;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.data.redis.core.ZSetOperations.TypedTuple;
+import org.springframework.data.redis.core.convert.RedisConverter;
+import org.springframework.data.redis.core.convert.RedisData;
+import org.springframework.data.redis.serializer.RedisElementReader;
+import org.springframework.data.redis.serializer.RedisElementWriter;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Non-blocking repository for tasks, used by the reactive stack
+ * Reads and writes the same keys as TaskRepository, TaskIndexRepository,
+ * TaskScriptRepository, TaskSyncRepository and TaskEventRepository and runs the same Lua scripts,
+ * over Lettuce's reactive API, in either task storage mode
+ */
+@Repository
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveTaskRepository {
+    
+    /**
+     * Tasks read or saved in parallel when resolving or saving a set of tasks
+     */
+    private static final int CONCURRENCY = 64;
+    
+    private static final String USER_ID_FIELD = "userId";
+    
+    /**
+     * Writers for script arguments, raw bytes for those holding packed tasks
+     */
+    private static final RedisElementWriter<byte[]> BYTES_WRITER = RedisElementWriter.from(RedisSerializer.byteArray());
+    private static final RedisElementWriter<String> STRING_WRITER = RedisElementWriter.from(RedisSerializer.string());
+    
+    @Autowired
+    private ReactiveStringRedisTemplate redisTemplate;
+    
+    @Autowired
+    private RedisConverter redisConverter;
+    
+    @Autowired
+    private ObjectMapper objectMapper;
+    
+    @Autowired
+    private TaskScriptRepository taskScriptRepository;
+    
+    @Value("${task-events.max-length:1000}")
+    private long eventsMaxLength;
+    
+    @Value("${" + TaskStore.MODE_PROPERTY + ":" + TaskStore.HASH_MODE + "}")
+    private String storageMode;
+    
+    /**
+     * Find a task by ID
+     * In binary storage, tasks not converted yet are read from their hash. The owner locates
+     * the task in the sharded layout; the result may still belong to another user
+     */
+    public Mono<Task> findById(String userId, String id) {
+        return isBinary()
+            ? findBinary(userId, id).switchIfEmpty(Mono.defer(() -> findHash(userId, id)))
+            : findHash(userId, id);
+    }
+    
+    private Mono<Task> findBinary(String userId, String id) {
+        return redisTemplate.execute(connection ->
+                connection.stringCommands().get(buffer(TaskKeys.binary(userId, id))))
+            .next()
+            .map(packed -> TaskBinaryCodec.decode(id, bytes(packed)));
+    }
+    
+    private Mono<Task> findHash(String userId, String id) {
+        return redisTemplate.<String, String>opsForHash().entries(TaskKeys.task(userId, id))
+            .collectMap(Map.Entry::getKey, Map.Entry::getValue)
+            .filter(fields -> !fields.isEmpty())
+            .map(fields -> ReactiveEntityOperations.read(redisConverter, Task.class, TaskKeys.KEYSPACE, id, fields));
+    }
+    
+    /**
+     * Find all tasks belonging to a specific user, in no particular order
+     */
+    public Flux<Task> findByUserId(String userId) {
+        Flux<String> ids = redisTemplate.opsForSet().members(TaskKeys.userIdIndex(userId));
+        if (isBinary()) {
+            ids = redisTemplate.opsForZSet().range(TaskKeys.byUser(userId), Range.unbounded())
+                .concatWith(ids)
+                .distinct();
+        }
+        return ids
+            .flatMap(id -> findById(userId, id), CONCURRENCY)
+            .filter(task -> userId.equals(task.getUserId()));
+    }
+    
+    /**
+     * Save a new task, assigning it an id, and append it to its owner's indexes
+     */
+    public Mono<Task> create(Task task) {
+        if (isBinary()) {
+            return createAll(task.getUserId(), List.of(task)).thenReturn(task);
+        }
+        return insert(task)
+            .flatMap(savedTask -> addToIndex(savedTask.getUserId(), savedTask.getId(), savedTask.getStatus())
+                .thenReturn(savedTask));
+    }
+    
+    /**
+     * Save several new tasks of one user, assigning each an id, and append them to the indexes in list order
+     * @return the tasks with their ids set, in the given order
+     */
+    public Mono<List<Task>> createAll(String userId, List<Task> tasks) {
+        if (tasks.isEmpty()) {
+            return Mono.just(tasks);
+        }
+        if (isBinary()) {
+            return Mono.defer(() -> {
+                for (Task task : tasks) {
+                    task.setId(UUID.randomUUID().toString());
+                }
+                return redisTemplate.execute(BinaryTaskStore.INSERT_SCRIPT, BinaryTaskStore.insertKeys(userId, tasks),
+                        BinaryTaskStore.insertArgs(tasks), BYTES_WRITER, bytesReader())
+                    .then(Mono.just(tasks));
+            });
+        }
+        return Flux.fromIterable(tasks)
+            .flatMapSequential(this::insert, CONCURRENCY)
+            .collectList()
+            .flatMap(savedTasks -> addAllToIndex(userId, savedTasks).thenReturn(savedTasks));
+    }
+    
+    private Mono<Task> insert(Task task) {
+        task.setId(UUID.randomUUID().toString());
+        RedisData data = new RedisData();
+        redisConverter.write(task, data);
+        return ReactiveEntityOperations.insert(redisTemplate, data).thenReturn(task);
+    }
+    
+    /**
+     * Set and remove fields of a task owned by the user
+     * @param expectedVersions only update the task if its version is one of these, or null for any version
+     * @return the updated task, or empty if it does not exist or belongs to another user; fails with
+     *         OptimisticLockingFailureException if the task's version is not one of the expected versions
+     */
+    public Mono<Task> update(String userId, String id, Map<String, String> fieldsToSet, List<String> fieldsToRemove,
+                             Collection<Long> expectedVersions) {
+        if (isBinary()) {
+            List<String> args = TaskScriptRepository.updateArgs(userId, id, expectedVersions, fieldsToSet, fieldsToRemove);
+            return redisTemplate.execute(BinaryTaskStore.UPDATE_SCRIPT, BinaryTaskStore.keys(userId, id), args,
+                    STRING_WRITER, bytesReader())
+                .next()
+                .filter(reply -> !TaskScriptRepository.isMissing(reply))
+                .flatMap(reply -> BinaryTaskStore.isVersionMismatch(reply)
+                    ? Mono.error(TaskScriptRepository.versionMismatch(id))
+                    : Mono.just(TaskBinaryCodec.decode(id, (byte[]) reply.get(0))));
+        }
+        return redisTemplate.execute(TaskScriptRepository.UPDATE_SCRIPT, TaskScriptRepository.updateKeys(userId, id),
+                TaskScriptRepository.updateArgs(userId, id, expectedVersions, fieldsToSet, fieldsToRemove))
+            .next()
+            .filter(hash -> !TaskScriptRepository.isMissing(hash))
+            .flatMap(hash -> TaskScriptRepository.isVersionMismatch(hash)
+                ? Mono.error(TaskScriptRepository.versionMismatch(id))
+                : Mono.just(toTask(id, hash)));
+    }
+    
+    /**
+     * Delete a task owned by the user together with all of its index entries and its status count
+     * @param expectedVersions only delete the task if its version is one of these, or null for any version
+     * @return true if the task was deleted, false if it does not exist or belongs to another user; fails with
+     *         OptimisticLockingFailureException if the task's version is not one of the expected versions
+     */
+    public Mono<Boolean> delete(String userId, String id, Collection<Long> expectedVersions) {
+        List<String> args = taskScriptRepository.deleteArgs(userId, id, expectedVersions);
+        Flux<Long> deletes = isBinary()
+            ? redisTemplate.execute(BinaryTaskStore.DELETE_SCRIPT, BinaryTaskStore.keys(userId, id), args)
+            : redisTemplate.execute(TaskScriptRepository.DELETE_SCRIPT, TaskScriptRepository.deleteKeys(userId, id), args);
+        return deletes
+            .next()
+            .flatMap(deleted -> deleted == TaskScriptRepository.DELETE_VERSION_MISMATCH
+                ? Mono.<Boolean>error(TaskScriptRepository.versionMismatch(id))
+                : Mono.just(deleted == 1L))
+            .defaultIfEmpty(false);
+    }
+    
+    /**
+     * Current version of a user's tasks as a whole, 0 before their first task
+     */
+    public Mono<Long> findUserVersion(String userId) {
+        return redisTemplate.opsForValue().get(TaskKeys.sequence(userId))
+            .map(TaskVersionRepository::parseVersion)
+            .defaultIfEmpty(0L);
+    }
+    
+    /**
+     * Current version of a task owned by the user
+     * @return the version, or empty if the task does not exist or belongs to another user
+     */
+    public Mono<Long> findTaskVersion(String userId, String id) {
+        if (isBinary()) {
+            // A packed task is a single small value, so there is nothing to gain from a partial read
+            return findById(userId, id)
+                .filter(task -> userId.equals(task.getUserId()))
+                .map(task -> task.getVersion() != null ? task.getVersion() : 0L);
+        }
+        return redisTemplate.<String, String>opsForHash()
+            .multiGet(TaskKeys.task(userId, id), List.of(USER_ID_FIELD, TaskVersionRepository.VERSION_FIELD))
+            .filter(fields -> userId.equals(fields.get(0)))
+            .map(fields -> TaskVersionRepository.parseVersion(fields.get(1)));
+    }
+    
+    /**
+     * Add a task to the end of the user's indexes and count it under its status
+     * @return the sequence number assigned to the task
+     */
+    private Mono<Long> addToIndex(String userId, String taskId, TaskStatus status) {
+        return redisTemplate.execute(TaskIndexRepository.ADD_SCRIPT,
+                TaskIndexRepository.indexKeys(userId), List.of(taskId, status.name()))
+            .next();
+    }
+    
+    /**
+     * Add several tasks to the end of the user's indexes in a single round trip, keeping list order
+     */
+    private Mono<Void> addAllToIndex(String userId, List<Task> tasks) {
+        if (tasks.isEmpty()) {
+            return Mono.empty();
+        }
+        return redisTemplate.execute(TaskIndexRepository.ADD_ALL_SCRIPT,
+                TaskIndexRepository.indexKeys(userId), TaskIndexRepository.addAllArgs(tasks))
+            .then();
+    }
+    
+    /**
+     * Remove several tasks from all of the user's indexes
+     */
+    public Mono<Void> removeAllFromIndex(String userId, Collection<String> taskIds) {
+        return Flux.fromIterable(TaskIndexRepository.sortedIndexKeys(userId))
+            .flatMap(key -> redisTemplate.opsForZSet().remove(key, taskIds.toArray()))
+            .then();
+    }
+    
+    /**
+     * Find up to {@code limit} index entries after the given sequence number, in sequence order
+     */
+    public Flux<IndexEntry> findAfter(String userId, long afterSequence, int limit) {
+        return find(TaskKeys.byUser(userId), afterSequence, false, limit);
+    }
+    
+    /**
+     * Find up to {@code limit} entries of an index, starting after the cursor
+     * @param cursor sequence number of the last entry already read, or 0 to start at the beginning
+     * @param descending whether to read from the highest sequence number down
+     */
+    public Flux<IndexEntry> find(String indexKey, long cursor, boolean descending, int limit) {
+        Flux<TypedTuple<String>> tuples = descending
+            ? redisTemplate.opsForZSet().reverseRangeByScoreWithScores(indexKey,
+                cursor == 0 ? Range.unbounded() : Range.leftUnbounded(Range.Bound.exclusive((double) cursor)),
+                Limit.limit().count(limit))
+            : redisTemplate.opsForZSet().rangeByScoreWithScores(indexKey,
+                Range.rightUnbounded(Range.Bound.exclusive((double) cursor)),
+                Limit.limit().count(limit));
+        return tuples.map(tuple -> new IndexEntry(tuple.getValue(), tuple.getScore().longValue()));
+    }
+    
+    /**
+     * Read up to {@code limit} written and up to {@code limit} deleted tasks after a sync token, in one snapshot
+     * @param afterSequence sequence number the client is up to date with, or 0 for none
+     */
+    public Mono<TaskSyncRepository.Changes> findChanges(String userId, long afterSequence, int limit) {
+        return redisTemplate.execute(TaskSyncRepository.SYNC_SCRIPT, TaskSyncRepository.syncKeys(userId),
+                List.of(Long.toString(afterSequence), Integer.toString(limit)))
+            .next()
+            .map(TaskSyncRepository::toChanges);
+    }
+    
+    /**
+     * Append events to a user's change stream, trim it and notify open feeds
+     */
+    public Mono<Void> publishEvents(String userId, List<TaskEvent> events) {
+        if (events.isEmpty()) {
+            return Mono.empty();
+        }
+        String key = TaskKeys.events(userId);
+        return Flux.fromIterable(events)
+            .concatMap(event -> redisTemplate.opsForStream()
+                .add(StreamRecords.newRecord().in(key).ofMap(TaskEventRepository.toFields(objectMapper, event))))
+            .then(redisTemplate.opsForStream().trim(key, eventsMaxLength, true))
+            .then(redisTemplate.convertAndSend(TaskKeys.eventsChannel(), userId))
+            .then();
+    }
+    
+    /**
+     * Count a user's tasks per status from the maintained counters
+     */
+    public Mono<Map<TaskStatus, Long>> countByStatus(String userId) {
+        return redisTemplate.<String, String>opsForHash().entries(TaskKeys.stats(userId))
+            .collectMap(Map.Entry::getKey, Map.Entry::getValue)
+            .map(TaskIndexRepository::toCounts);
+    }
+    
+    /**
+     * Index tasks that predate the sorted, status and last-write indexes
+     * @return the number of tasks indexed
+     */
+    public Mono<Long> backfill(String userId) {
+        return redisTemplate.opsForSet().members(TaskKeys.userIdIndex(userId))
+            .collectList()
+            .flatMap(ids -> redisTemplate.execute(TaskIndexRepository.BACKFILL_SCRIPT,
+                    TaskIndexRepository.backfillKeys(userId, ids), TaskIndexRepository.backfillArgs(ids))
+                .next())
+            .defaultIfEmpty(0L);
+    }
+    
+    /**
+     * Map a flat HGETALL reply onto a Task
+     */
+    private Task toTask(String id, List<?> hash) {
+        Map<String, String> fields = new HashMap<>();
+        for (int i = 0; i + 1 < hash.size(); i += 2) {
+            fields.put((String) hash.get(i), (String) hash.get(i + 1));
+        }
+        return ReactiveEntityOperations.read(redisConverter, Task.class, TaskKeys.KEYSPACE, id, fields);
+    }
+    
+    private boolean isBinary() {
+        return BinaryTaskStore.isPacked(storageMode);
+    }
+    
+    /**
+     * Reader leaving bulk replies as byte arrays, for scripts whose replies hold packed tasks
+     */
+    @SuppressWarnings("unchecked")
+    private static <T> RedisElementReader<T> bytesReader() {
+        return (RedisElementReader<T>) (RedisElementReader<?>) RedisElementReader.from(RedisSerializer.byteArray());
+    }
+    
+    private static ByteBuffer buffer(String value) {
+        return ByteBuffer.wrap(value.getBytes(StandardCharsets.UTF_8));
+    }
+    
+    private static byte[] bytes(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.remaining()];
+        buffer.get(bytes);
+        return bytes;
+    }
+}
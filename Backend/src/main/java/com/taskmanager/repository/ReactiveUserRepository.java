@@ -0,0 +1,60 @@
+package com.taskmanager.repository;
+
+import com.taskmanager.model.User;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.data.redis.core.convert.RedisConverter;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Mono;
+
+import java.util.Map;
+
+/**
+ * Non-blocking repository for users, used by the reactive stack
+ * Reads and writes the same keys as UserRepository; new users are created by UserRegistrationRepository
+ */
+@Repository
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveUserRepository {
+    
+    @Autowired
+    private ReactiveStringRedisTemplate redisTemplate;
+    
+    @Autowired
+    private RedisConverter redisConverter;
+    
+    /**
+     * Find user by username
+     */
+    public Mono<User> findByUsername(String username) {
+        return redisTemplate.opsForSet().members(UserKeys.usernameIndex(username))
+            .next()
+            .flatMap(this::findById);
+    }
+    
+    /**
+     * Check if username exists
+     */
+    public Mono<Boolean> existsByUsername(String username) {
+        return redisTemplate.opsForSet().size(UserKeys.usernameIndex(username))
+            .map(size -> size > 0);
+    }
+    
+    /**
+     * Find user by ID
+     */
+    public Mono<User> findById(String id) {
+        return redisTemplate.<String, String>opsForHash().entries(UserKeys.user(id))
+            .collectMap(Map.Entry::getKey, Map.Entry::getValue)
+            .filter(fields -> !fields.isEmpty())
+            .map(fields -> ReactiveEntityOperations.read(redisConverter, User.class, UserKeys.KEYSPACE, id, fields));
+    }
+    
+    /**
+     * Replace a user's password hash
+     */
+    public Mono<Boolean> updatePassword(String id, String encodedPassword) {
+        return redisTemplate.<String, String>opsForHash().put(UserKeys.user(id), "password", encodedPassword);
+    }
+}
@@ -0,0 +1,48 @@
+package com.taskmanager.repository;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Timers for the Redis round trips on the task hot paths
+ * Published as taskmanager.redis.operations tagged by operation, which names the same
+ * work alike in every storage mode, so script and pipeline latency can be told apart
+ * from the rest of a request and compared between modes. Failed calls are timed too
+ */
+@Component
+public class RedisOperationTimers {
+    
+    public static final String METRIC = "taskmanager.redis.operations";
+    
+    @Autowired
+    private MeterRegistry meterRegistry;
+    
+    private final Map<String, Timer> timers = new ConcurrentHashMap<>();
+    
+    /**
+     * Run a Redis call under the named operation's timer
+     */
+    public <T> T record(String operation, Supplier<T> call) {
+        return timer(operation).record(call);
+    }
+    
+    /**
+     * Run a Redis call with no result under the named operation's timer
+     */
+    public void run(String operation, Runnable call) {
+        timer(operation).record(call);
+    }
+    
+    private Timer timer(String operation) {
+        return timers.computeIfAbsent(operation, name -> Timer.builder(METRIC)
+            .description("Redis round trips of task reads and writes")
+            .tag("operation", name)
+            .register(meterRegistry));
+    }
+}
@@ -0,0 +1,158 @@
+package com.taskmanager.repository;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Repository for refresh tokens
+ * A refresh token is an opaque random string; only its SHA-256 digest is stored, with the
+ * user and login session it was issued for, and it expires after jwt.refresh-expiration.
+ * Exchanging a token deletes it, so each one is good for a single refresh
+ */
+@Repository
+public class RefreshTokenRepository {
+    
+    static final RedisScript<List> CONSUME_SCRIPT =
+        RedisScript.of(new ClassPathResource("scripts/refresh-token-consume.lua"), List.class);
+    
+    static final String USER_ID_FIELD = "userId";
+    static final String USERNAME_FIELD = "username";
+    static final String SESSION_ID_FIELD = "sessionId";
+    
+    private static final int TOKEN_BYTES = 32;
+    
+    private static final SecureRandom RANDOM = new SecureRandom();
+    
+    @Autowired
+    private StringRedisTemplate redisTemplate;
+    
+    @Autowired
+    private ReactiveStringRedisTemplate reactiveRedisTemplate;
+    
+    @Value("${jwt.refresh-expiration:14d}")
+    private Duration refreshExpiration;
+    
+    /**
+     * Issue a refresh token for a login session
+     * @return the token to hand to the client
+     */
+    public String create(String userId, String username, String sessionId) {
+        String token = newToken();
+        String key = AuthKeys.refreshToken(digest(token));
+        redisTemplate.opsForHash().putAll(key, fields(userId, username, sessionId));
+        redisTemplate.expire(key, refreshExpiration);
+        return token;
+    }
+    
+    /**
+     * Non-blocking {@link #create}
+     */
+    public Mono<String> createReactive(String userId, String username, String sessionId) {
+        String token = newToken();
+        String key = AuthKeys.refreshToken(digest(token));
+        return reactiveRedisTemplate.<String, String>opsForHash().putAll(key, fields(userId, username, sessionId))
+            .then(reactiveRedisTemplate.expire(key, refreshExpiration))
+            .thenReturn(token);
+    }
+    
+    /**
+     * Exchange a refresh token, deleting it
+     * @return the session it was issued for, or null if the token is unknown, expired or already used
+     */
+    public Session consume(String token) {
+        return toSession(redisTemplate.execute(CONSUME_SCRIPT, List.of(AuthKeys.refreshToken(digest(token)))));
+    }
+    
+    /**
+     * Non-blocking {@link #consume}, empty if the token is unknown, expired or already used
+     */
+    public Mono<Session> consumeReactive(String token) {
+        return reactiveRedisTemplate.execute(CONSUME_SCRIPT, List.of(AuthKeys.refreshToken(digest(token))))
+            .next()
+            .flatMap(reply -> Mono.justOrEmpty(toSession(reply)));
+    }
+    
+    private static Map<String, String> fields(String userId, String username, String sessionId) {
+        return Map.of(USER_ID_FIELD, userId, USERNAME_FIELD, username, SESSION_ID_FIELD, sessionId);
+    }
+    
+    static Session toSession(List<?> reply) {
+        if (reply == null || reply.isEmpty()) {
+            return null;
+        }
+        String userId = null;
+        String username = null;
+        String sessionId = null;
+        for (int i = 0; i + 1 < reply.size(); i += 2) {
+            String value = (String) reply.get(i + 1);
+            switch ((String) reply.get(i)) {
+                case USER_ID_FIELD -> userId = value;
+                case USERNAME_FIELD -> username = value;
+                case SESSION_ID_FIELD -> sessionId = value;
+                default -> { }
+            }
+        }
+        return new Session(userId, username, sessionId);
+    }
+    
+    private static String newToken() {
+        byte[] bytes = new byte[TOKEN_BYTES];
+        RANDOM.nextBytes(bytes);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+    
+    /**
+     * Storage key part for a token; the raw token is never written to Redis
+     */
+    private static String digest(String token) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+    
+    /**
+     * User and login session a refresh token was issued for
+     */
+    public static class Session {
+        
+        private final String userId;
+        private final String username;
+        private final String sessionId;
+        
+        public Session(String userId, String username, String sessionId) {
+            this.userId = userId;
+            this.username = username;
+            this.sessionId = sessionId;
+        }
+        
+        public String getUserId() {
+            return userId;
+        }
+        
+        public String getUsername() {
+            return username;
+        }
+        
+        public String getSessionId() {
+            return sessionId;
+        }
+    }
+}
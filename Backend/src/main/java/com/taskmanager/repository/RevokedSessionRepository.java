@@ -0,0 +1,79 @@
+package com.taskmanager.repository;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+
+/**
+ * Repository for revoked login sessions
+ * Every revoked session id is kept in one sorted set, scored by the time until which it
+ * stays revoked, and announced on a pub/sub channel so every node adds it to its denylist
+ * at once. Entries are pruned once no token of their session can still be valid
+ */
+@Repository
+public class RevokedSessionRepository {
+    
+    @Autowired
+    private StringRedisTemplate redisTemplate;
+    
+    @Autowired
+    private ReactiveStringRedisTemplate reactiveRedisTemplate;
+    
+    /**
+     * Revoke a session and announce it, in one pipelined round trip
+     * @param untilMillis epoch millis after which no token of the session can be valid anyway
+     */
+    public void revoke(String sessionId, long untilMillis) {
+        byte[] member = bytes(sessionId);
+        redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            connection.zSetCommands().zAdd(bytes(AuthKeys.revokedSessions()), untilMillis, member);
+            connection.publish(bytes(AuthKeys.revokedSessionsChannel()), member);
+            return null;
+        });
+    }
+    
+    /**
+     * Non-blocking {@link #revoke}
+     */
+    public Mono<Void> revokeReactive(String sessionId, long untilMillis) {
+        return reactiveRedisTemplate.opsForZSet().add(AuthKeys.revokedSessions(), sessionId, untilMillis)
+            .then(reactiveRedisTemplate.convertAndSend(AuthKeys.revokedSessionsChannel(), sessionId))
+            .then();
+    }
+    
+    /**
+     * Whether a session is revoked
+     */
+    public boolean isRevoked(String sessionId) {
+        Double until = redisTemplate.opsForZSet().score(AuthKeys.revokedSessions(), sessionId);
+        return until != null && until > System.currentTimeMillis();
+    }
+    
+    /**
+     * Non-blocking {@link #isRevoked}
+     */
+    public Mono<Boolean> isRevokedReactive(String sessionId) {
+        return reactiveRedisTemplate.opsForZSet().score(AuthKeys.revokedSessions(), sessionId)
+            .map(until -> until > System.currentTimeMillis())
+            .defaultIfEmpty(false);
+    }
+    
+    /**
+     * Drop expired entries and return the ids of every session still revoked
+     */
+    public Set<String> findRevoked() {
+        long now = System.currentTimeMillis();
+        redisTemplate.opsForZSet().removeRangeByScore(AuthKeys.revokedSessions(), Double.NEGATIVE_INFINITY, now);
+        return redisTemplate.opsForZSet().rangeByScore(AuthKeys.revokedSessions(), now, Double.POSITIVE_INFINITY);
+    }
+    
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+}
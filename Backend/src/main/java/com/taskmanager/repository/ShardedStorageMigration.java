@@ -0,0 +1,220 @@
+package com.taskmanager.repository;
+
+import com.taskmanager.model.Task;
+import com.taskmanager.model.TaskStatus;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.connection.DataType;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.RedisStringCommands.SetOption;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.convert.RedisConverter;
+import org.springframework.data.redis.core.types.Expiration;
+import org.springframework.stereotype.Component;
+
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Copies a single Redis deployment into the Redis Cluster this application runs on in sharded mode
+ * Set task-storage.migrate-from to the old server's redis:// URI and every key is copied in the
+ * background once the application is up: packed tasks and the per-user task keys move to their
+ * hash-tagged names, tasks still stored as hashes are packed on the way, and every other key keeps
+ * its name. Keys already on the cluster are left as they are, so a run can be repeated to resume.
+ * Copy from a binary deployment whose TaskStorageMigration has finished, with writes stopped, so
+ * no task needs an index backfill afterwards and nothing written during the copy is missed
+ */
+@Component
+@ConditionalOnProperty(name = TaskStore.MODE_PROPERTY, havingValue = TaskStore.SHARDED_MODE)
+public class ShardedStorageMigration {
+    
+    private static final String TASK_PREFIX = TaskKeys.KEYSPACE + ":";
+    private static final String BINARY_PREFIX = TASK_PREFIX + "bin:";
+    
+    /**
+     * Per-user task keys by the kind that follows the keyspace, each mapped to its hash-tagged name
+     */
+    private static final Map<String, Function<String, String>> PER_USER_KEYS = Map.of(
+        "userId", TaskKeys::userIdIndex,
+        "byUser", TaskKeys::byUser,
+        "byUpdate", TaskKeys::byUpdate,
+        "stats", TaskKeys::stats,
+        "tombstones", TaskKeys::tombstones,
+        "syncFloor", TaskKeys::syncFloor,
+        "events", TaskKeys::events,
+        "seq", TaskKeys::sequence);
+    
+    private static final Logger logger = LoggerFactory.getLogger(ShardedStorageMigration.class);
+    
+    @Autowired
+    private StringRedisTemplate redisTemplate;
+    
+    @Autowired
+    private RedisConverter redisConverter;
+    
+    @Value("${task-storage.migrate-from:}")
+    private String migrateFrom;
+    
+    enum Outcome { COPIED, EXISTING, SKIPPED }
+    
+    @EventListener(ApplicationReadyEvent.class)
+    public void migrateOnStartup() {
+        if (migrateFrom.isBlank()) {
+            return;
+        }
+        Thread migration = new Thread(() -> migrateFrom(migrateFrom), "sharded-storage-migration");
+        migration.setDaemon(true);
+        migration.start();
+    }
+    
+    /**
+     * Copy every key of a single Redis server into the cluster
+     * @param uri the server, as redis://[[user]:password@]host[:port][/database]
+     * @return the number of keys of each outcome
+     */
+    public Map<Outcome, Long> migrateFrom(String uri) {
+        long start = System.nanoTime();
+        Map<Outcome, Long> counts = new EnumMap<>(Outcome.class);
+        LettuceConnectionFactory sourceFactory = new LettuceConnectionFactory(sourceConfiguration(uri));
+        sourceFactory.afterPropertiesSet();
+        try {
+            StringRedisTemplate source = new StringRedisTemplate(sourceFactory);
+            ClusterSupport.scan(sourceFactory, "*", key -> counts.merge(migrate(source, key), 1L, Long::sum));
+            logger.info("Copied {} keys to the cluster in {} ms, {} already there, {} skipped",
+                counts.getOrDefault(Outcome.COPIED, 0L), (System.nanoTime() - start) / 1_000_000,
+                counts.getOrDefault(Outcome.EXISTING, 0L), counts.getOrDefault(Outcome.SKIPPED, 0L));
+        } catch (Exception e) {
+            logger.warn("Sharded storage migration stopped after {} keys, run it again to resume: {}",
+                counts.values().stream().mapToLong(Long::longValue).sum(), e.getMessage());
+        } finally {
+            sourceFactory.destroy();
+        }
+        return counts;
+    }
+    
+    private Outcome migrate(StringRedisTemplate source, String key) {
+        if (key.equals(TaskKeys.KEYSPACE)) {
+            // Spring Data set of every task id, which packed tasks do without
+            return Outcome.SKIPPED;
+        }
+        if (!key.startsWith(TASK_PREFIX)) {
+            return copy(source, key, key);
+        }
+        String[] parts = key.substring(TASK_PREFIX.length()).split(":");
+        if (key.startsWith(BINARY_PREFIX) && parts.length == 2) {
+            return copyPacked(source, key, parts[1]);
+        }
+        if (parts.length == 1 && !parts[0].startsWith("{")) {
+            return copyHash(source, key, parts[0]);
+        }
+        if (parts.length == 2 && PER_USER_KEYS.containsKey(parts[0])) {
+            return copy(source, key, PER_USER_KEYS.get(parts[0]).apply(parts[1]));
+        }
+        if (parts.length == 3 && parts[0].equals("byStatus")) {
+            return copy(source, key, TaskKeys.byStatus(parts[1], TaskStatus.valueOf(parts[2])));
+        }
+        if (parts.length == 3 && parts[0].equals("byStatusUpdate")) {
+            return copy(source, key, TaskKeys.byStatusUpdate(parts[1], TaskStatus.valueOf(parts[2])));
+        }
+        if (parts.length == 2 && parts[1].equals("idx")) {
+            // Spring Data index helper of a hash task, which packed tasks do without
+            return Outcome.SKIPPED;
+        }
+        return copy(source, key, key);
+    }
+    
+    /**
+     * Move a packed task under its owner's hash tag
+     */
+    private Outcome copyPacked(StringRedisTemplate source, String key, String id) {
+        byte[] packed = source.execute((RedisCallback<byte[]>) connection ->
+            connection.stringCommands().get(bytes(key)));
+        if (packed == null) {
+            return Outcome.SKIPPED;
+        }
+        String userId = TaskBinaryCodec.decode(id, packed).getUserId();
+        return setIfAbsent(TaskKeys.binary(userId, id), packed);
+    }
+    
+    /**
+     * Pack a task still stored as a hash, unless a packed copy supersedes it
+     */
+    private Outcome copyHash(StringRedisTemplate source, String key, String id) {
+        if (source.type(key) != DataType.HASH || Boolean.TRUE.equals(source.hasKey(BINARY_PREFIX + id))) {
+            return Outcome.SKIPPED;
+        }
+        Map<String, String> fields = source.<String, String>opsForHash().entries(key);
+        if (fields.isEmpty()) {
+            return Outcome.SKIPPED;
+        }
+        Task task = ReactiveEntityOperations.read(redisConverter, Task.class, TaskKeys.KEYSPACE, id, fields);
+        return setIfAbsent(TaskKeys.binary(task.getUserId(), id), TaskBinaryCodec.encode(task));
+    }
+    
+    private Outcome setIfAbsent(String targetKey, byte[] packed) {
+        Boolean set = redisTemplate.execute((RedisCallback<Boolean>) connection ->
+            connection.stringCommands().set(bytes(targetKey), packed, Expiration.persistent(), SetOption.ifAbsent()));
+        return Boolean.TRUE.equals(set) ? Outcome.COPIED : Outcome.EXISTING;
+    }
+    
+    /**
+     * Copy a key of any type with DUMP and RESTORE, keeping its time to live
+     */
+    private Outcome copy(StringRedisTemplate source, String sourceKey, String targetKey) {
+        byte[] from = bytes(sourceKey);
+        byte[] dump = source.execute((RedisCallback<byte[]>) connection -> connection.keyCommands().dump(from));
+        Long pttl = source.execute((RedisCallback<Long>) connection -> connection.keyCommands().pTtl(from));
+        if (dump == null || pttl == null || pttl == -2) {
+            // Expired or deleted since the scan
+            return Outcome.SKIPPED;
+        }
+        long ttl = Math.max(pttl, 0);
+        try {
+            redisTemplate.execute((RedisCallback<Void>) connection -> {
+                connection.keyCommands().restore(bytes(targetKey), ttl, dump);
+                return null;
+            });
+            return Outcome.COPIED;
+        } catch (DataAccessException e) {
+            String message = e.getMostSpecificCause().getMessage();
+            if (message != null && message.startsWith("BUSYKEY")) {
+                return Outcome.EXISTING;
+            }
+            throw e;
+        }
+    }
+    
+    static RedisStandaloneConfiguration sourceConfiguration(String uri) {
+        URI parsed = URI.create(uri);
+        RedisStandaloneConfiguration configuration =
+            new RedisStandaloneConfiguration(parsed.getHost(), parsed.getPort() > 0 ? parsed.getPort() : 6379);
+        String userInfo = parsed.getUserInfo();
+        if (userInfo != null) {
+            int colon = userInfo.indexOf(':');
+            if (colon > 0) {
+                configuration.setUsername(userInfo.substring(0, colon));
+            }
+            configuration.setPassword(userInfo.substring(colon + 1));
+        }
+        String path = parsed.getPath();
+        if (path != null && path.length() > 1) {
+            configuration.setDatabase(Integer.parseInt(path.substring(1)));
+        }
+        return configuration;
+    }
+    
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+}
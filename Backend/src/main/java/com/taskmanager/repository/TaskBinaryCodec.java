@@ -0,0 +1,178 @@
+package com.taskmanager.repository;
+
+import com.taskmanager.model.Task;
+import com.taskmanager.model.TaskStatus;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Packs a task into a single compact value for binary task storage
+ * The value is a MessagePack array with one element per field, in schema order:
+ * {schema version, userId, title, description, status, createdAt, updatedAt, version}.
+ * Field names are implied by position, absent values are stored as false, and the
+ * task id is the key itself. MessagePack is what Redis Lua's cmsgpack reads and
+ * writes, so the binary task scripts can change a field in place. Only the types
+ * the schema uses are supported, which keeps this free of a serialization library
+ */
+final class TaskBinaryCodec {
+    
+    static final int SCHEMA_VERSION = 1;
+    
+    private static final int FIELD_COUNT = 8;
+    
+    private TaskBinaryCodec() {}
+    
+    static byte[] encode(Task task) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(64 + length(task.getTitle()) + length(task.getDescription()));
+        out.write(0x90 | FIELD_COUNT);
+        writeLong(out, SCHEMA_VERSION);
+        writeString(out, task.getUserId());
+        writeString(out, task.getTitle());
+        writeString(out, task.getDescription());
+        writeString(out, task.getStatus() != null ? task.getStatus().name() : null);
+        writeOptionalLong(out, task.getCreatedAt());
+        writeOptionalLong(out, task.getUpdatedAt());
+        writeLong(out, task.getVersion() != null ? task.getVersion() : 0L);
+        return out.toByteArray();
+    }
+    
+    /**
+     * @throws IllegalArgumentException if the value is not a packed task of a known schema version
+     */
+    static Task decode(String id, byte[] value) {
+        ByteBuffer in = ByteBuffer.wrap(value);
+        int size = readArrayHeader(in);
+        Long schema = readLong(in);
+        if (size < FIELD_COUNT || schema == null || schema != SCHEMA_VERSION) {
+            throw new IllegalArgumentException("Unsupported packed task " + id + ", schema " + schema);
+        }
+        Task task = new Task();
+        task.setId(id);
+        task.setUserId(readString(in));
+        task.setTitle(readString(in));
+        task.setDescription(readString(in));
+        String status = readString(in);
+        task.setStatus(status != null ? TaskStatus.valueOf(status) : null);
+        task.setCreatedAt(readLong(in));
+        task.setUpdatedAt(readLong(in));
+        task.setVersion(readLong(in));
+        return task;
+    }
+    
+    private static void writeString(ByteArrayOutputStream out, String value) {
+        if (value == null) {
+            out.write(0xc2);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length < 32) {
+            out.write(0xa0 | bytes.length);
+        } else if (bytes.length < 0x100) {
+            out.write(0xd9);
+            out.write(bytes.length);
+        } else if (bytes.length < 0x10000) {
+            out.write(0xda);
+            writeBigEndian(out, bytes.length, 2);
+        } else {
+            out.write(0xdb);
+            writeBigEndian(out, bytes.length, 4);
+        }
+        out.write(bytes, 0, bytes.length);
+    }
+    
+    /**
+     * Write a number, or false for an absent one
+     */
+    private static void writeOptionalLong(ByteArrayOutputStream out, Long value) {
+        if (value == null) {
+            out.write(0xc2);
+        } else {
+            writeLong(out, value);
+        }
+    }
+    
+    private static void writeLong(ByteArrayOutputStream out, long value) {
+        if (value >= 0 && value < 0x80) {
+            out.write((int) value);
+        } else if (value >= 0 && value < 0x100000000L) {
+            out.write(0xce);
+            writeBigEndian(out, value, 4);
+        } else {
+            out.write(0xd3);
+            writeBigEndian(out, value, 8);
+        }
+    }
+    
+    private static void writeBigEndian(ByteArrayOutputStream out, long value, int bytes) {
+        for (int shift = 8 * (bytes - 1); shift >= 0; shift -= 8) {
+            out.write((int) (value >>> shift) & 0xff);
+        }
+    }
+    
+    private static int readArrayHeader(ByteBuffer in) {
+        int type = in.get() & 0xff;
+        if ((type & 0xf0) == 0x90) {
+            return type & 0x0f;
+        }
+        if (type == 0xdc) {
+            return in.getShort() & 0xffff;
+        }
+        if (type == 0xdd) {
+            return in.getInt();
+        }
+        throw new IllegalArgumentException("Packed task is not an array");
+    }
+    
+    private static String readString(ByteBuffer in) {
+        int type = in.get() & 0xff;
+        int length;
+        if ((type & 0xe0) == 0xa0) {
+            length = type & 0x1f;
+        } else if (type == 0xd9 || type == 0xc4) {
+            length = in.get() & 0xff;
+        } else if (type == 0xda || type == 0xc5) {
+            length = in.getShort() & 0xffff;
+        } else if (type == 0xdb || type == 0xc6) {
+            length = in.getInt();
+        } else if (type == 0xc0 || type == 0xc2) {
+            return null;
+        } else {
+            throw new IllegalArgumentException("Expected a string in packed task, found type " + type);
+        }
+        String value = new String(in.array(), in.position(), length, StandardCharsets.UTF_8);
+        in.position(in.position() + length);
+        return value;
+    }
+    
+    /**
+     * Read an integer in any of its encodings; cmsgpack also writes whole numbers as doubles past 2^53
+     */
+    private static Long readLong(ByteBuffer in) {
+        int type = in.get() & 0xff;
+        if (type < 0x80) {
+            return (long) type;
+        }
+        if (type >= 0xe0) {
+            return (long) (byte) type;
+        }
+        return switch (type) {
+            case 0xc0, 0xc2 -> null;
+            case 0xcc -> (long) (in.get() & 0xff);
+            case 0xcd -> (long) (in.getShort() & 0xffff);
+            case 0xce -> in.getInt() & 0xffffffffL;
+            case 0xcf, 0xd3 -> in.getLong();
+            case 0xd0 -> (long) in.get();
+            case 0xd1 -> (long) in.getShort();
+            case 0xd2 -> (long) in.getInt();
+            case 0xca -> (long) in.getFloat();
+            case 0xcb -> (long) in.getDouble();
+            default -> throw new IllegalArgumentException("Expected a number in packed task, found type " + type);
+        };
+    }
+    
+    private static int length(String value) {
+        return value != null ? value.length() : 0;
+    }
+}
@@ -0,0 +1,110 @@
+package com.taskmanager.repository;
+
+import com.taskmanager.model.Task;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.convert.IndexedData;
+import org.springframework.data.redis.core.convert.RedisConverter;
+import org.springframework.data.redis.core.convert.RedisData;
+import org.springframework.data.redis.core.convert.SimpleIndexedPropertyValue;
+import org.springframework.stereotype.Repository;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Repository for batched task inserts and reads
+ * Issues the same commands as the Spring Data Redis repository (entity hash,
+ * keyspace set and userId index) but pipelines them, so a whole batch costs
+ * one network round trip instead of several per task
+ */
+@Repository
+public class TaskBulkRepository {
+    
+    @Autowired
+    private StringRedisTemplate redisTemplate;
+    
+    @Autowired
+    private RedisConverter redisConverter;
+    
+    @Autowired
+    private RedisOperationTimers redisTimers;
+    
+    /**
+     * Insert new tasks, assigning each an id
+     * @return the tasks with their ids set, in the given order
+     */
+    public List<Task> insertAll(List<Task> tasks) {
+        List<RedisData> records = new ArrayList<>(tasks.size());
+        for (Task task : tasks) {
+            task.setId(UUID.randomUUID().toString());
+            RedisData data = new RedisData();
+            redisConverter.write(task, data);
+            records.add(data);
+        }
+        
+        redisTimers.record("task.insert_all",
+            () -> redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                for (int i = 0; i < records.size(); i++) {
+                    RedisData data = records.get(i);
+                    String userId = tasks.get(i).getUserId();
+                    connection.hashCommands().hMSet(bytes(TaskKeys.task(userId, data.getId())),
+                        data.getBucket().rawMap());
+                    connection.setCommands().sAdd(bytes(TaskKeys.keyspace(userId)), bytes(data.getId()));
+                    writeIndexes(connection, TaskKeys.indexHelper(userId, data.getId()), data);
+                }
+                return null;
+            }));
+        return tasks;
+    }
+    
+    /**
+     * Read several tasks with pipelined HGETALLs, skipping ids with no task
+     */
+    public List<Task> findAll(String userId, List<String> ids) {
+        if (ids.isEmpty()) {
+            return new ArrayList<>();
+        }
+        List<Object> replies = redisTimers.record("task.find_all",
+            () -> redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                for (String id : ids) {
+                    connection.hashCommands().hGetAll(bytes(TaskKeys.task(userId, id)));
+                }
+                return null;
+            }));
+        
+        List<Task> tasks = new ArrayList<>(ids.size());
+        for (int i = 0; i < ids.size(); i++) {
+            if (replies.get(i) instanceof Map<?, ?> reply && !reply.isEmpty()) {
+                @SuppressWarnings("unchecked")
+                Map<String, String> fields = (Map<String, String>) reply;
+                tasks.add(ReactiveEntityOperations.read(redisConverter, Task.class, TaskKeys.KEYSPACE, ids.get(i),
+                    fields));
+            }
+        }
+        return tasks;
+    }
+    
+    /**
+     * Add the task to each of its simple secondary indexes and record the index keys in its
+     * helper set, as the Spring Data Redis repository does
+     */
+    private static void writeIndexes(RedisConnection connection, String helperKey, RedisData data) {
+        for (IndexedData index : data.getIndexedData()) {
+            if (index instanceof SimpleIndexedPropertyValue value && value.getValue() != null) {
+                byte[] indexKey = bytes(TaskKeys.KEYSPACE + ":" + value.getIndexName() + ":" + value.getValue());
+                connection.setCommands().sAdd(indexKey, bytes(data.getId()));
+                connection.setCommands().sAdd(bytes(helperKey), indexKey);
+            }
+        }
+    }
+    
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,152 @@
+package com.taskmanager.repository;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.taskmanager.dto.TaskEvent;
+import com.taskmanager.model.Task;
+import com.taskmanager.model.TaskStatus;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Range;
+import org.springframework.data.redis.connection.Limit;
+import org.springframework.data.redis.connection.RedisStreamCommands.XAddOptions;
+import org.springframework.data.redis.connection.stream.MapRecord;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Repository for the per-user task change streams
+ * Each write appends to the user's Redis Stream, trimmed to roughly
+ * task-events.max-length entries, and announces the user id on a pub/sub
+ * channel so open feeds read the new entries at once. Reads are non-blocking,
+ * so one change feed implementation serves both web stacks
+ */
+@Repository
+public class TaskEventRepository {
+    
+    static final String TYPE_FIELD = "type";
+    static final String TASK_ID_FIELD = "taskId";
+    static final String TASK_FIELD = "task";
+    static final String STATUS_FIELD = "status";
+    
+    @Autowired
+    private StringRedisTemplate redisTemplate;
+    
+    @Autowired
+    private ReactiveStringRedisTemplate reactiveRedisTemplate;
+    
+    @Autowired
+    private ObjectMapper objectMapper;
+    
+    @Value("${task-events.max-length:1000}")
+    private long maxLength;
+    
+    /**
+     * Append events to a user's stream and notify open feeds, in one pipelined round trip
+     */
+    public void publish(String userId, List<TaskEvent> events) {
+        if (events.isEmpty()) {
+            return;
+        }
+        List<Map<byte[], byte[]>> entries = new ArrayList<>(events.size());
+        for (TaskEvent event : events) {
+            Map<byte[], byte[]> fields = new LinkedHashMap<>();
+            toFields(objectMapper, event).forEach((field, value) -> fields.put(bytes(field), bytes(value)));
+            entries.add(fields);
+        }
+        
+        byte[] key = bytes(TaskKeys.events(userId));
+        XAddOptions options = XAddOptions.maxlen(maxLength).approximateTrimming(true);
+        redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            for (Map<byte[], byte[]> fields : entries) {
+                connection.streamCommands().xAdd(MapRecord.create(key, fields), options);
+            }
+            connection.publish(bytes(TaskKeys.eventsChannel()), bytes(userId));
+            return null;
+        });
+    }
+    
+    /**
+     * Find up to {@code count} events after the given entry id, oldest first
+     */
+    public Flux<TaskEvent> findAfter(String userId, String afterId, int count) {
+        return reactiveRedisTemplate.<String, String>opsForStream()
+            .range(TaskKeys.events(userId), Range.rightUnbounded(Range.Bound.exclusive(afterId)),
+                Limit.limit().count(count))
+            .map(record -> toEvent(objectMapper, record.getId().getValue(), record.getValue()));
+    }
+    
+    /**
+     * Id of the oldest event still in a user's stream, empty if the stream has no entries
+     */
+    public Mono<String> findFirstId(String userId) {
+        return reactiveRedisTemplate.<String, String>opsForStream()
+            .range(TaskKeys.events(userId), Range.unbounded(), Limit.limit().count(1))
+            .next()
+            .map(record -> record.getId().getValue());
+    }
+    
+    /**
+     * Id of the newest event in a user's stream, empty if the stream has no entries
+     */
+    public Mono<String> findLatestId(String userId) {
+        return reactiveRedisTemplate.<String, String>opsForStream()
+            .reverseRange(TaskKeys.events(userId), Range.unbounded(), Limit.limit().count(1))
+            .next()
+            .map(record -> record.getId().getValue());
+    }
+    
+    /**
+     * Stream entry fields for an event
+     */
+    static Map<String, String> toFields(ObjectMapper objectMapper, TaskEvent event) {
+        Map<String, String> fields = new LinkedHashMap<>();
+        fields.put(TYPE_FIELD, event.getType().name());
+        if (event.getTaskId() != null) {
+            fields.put(TASK_ID_FIELD, event.getTaskId());
+        }
+        if (event.getTask() != null) {
+            try {
+                fields.put(TASK_FIELD, objectMapper.writeValueAsString(event.getTask()));
+            } catch (JsonProcessingException e) {
+                throw new IllegalStateException("Could not serialize task " + event.getTaskId(), e);
+            }
+        }
+        if (event.getStatus() != null) {
+            fields.put(STATUS_FIELD, event.getStatus().name());
+        }
+        return fields;
+    }
+    
+    static TaskEvent toEvent(ObjectMapper objectMapper, String id, Map<String, String> fields) {
+        TaskEvent event = new TaskEvent();
+        event.setId(id);
+        event.setType(TaskEvent.Type.valueOf(fields.get(TYPE_FIELD)));
+        event.setTaskId(fields.get(TASK_ID_FIELD));
+        if (fields.get(TASK_FIELD) != null) {
+            try {
+                event.setTask(objectMapper.readValue(fields.get(TASK_FIELD), Task.class));
+            } catch (JsonProcessingException e) {
+                throw new IllegalStateException("Could not read task event " + id, e);
+            }
+        }
+        if (fields.get(STATUS_FIELD) != null) {
+            event.setStatus(TaskStatus.valueOf(fields.get(STATUS_FIELD)));
+        }
+        return event;
+    }
+    
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,228 @@
+package com.taskmanager.repository;
+
+import com.taskmanager.model.Task;
+import com.taskmanager.model.TaskStatus;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ZSetOperations.TypedTuple;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Repository;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Repository for the per-user sorted task indexes
+ * Keeps task ids in Redis sorted sets scored by a per-user sequence number, one
+ * ordered by creation and one by last write, each also split by status, plus
+ * per-status counters; tasks can be filtered, sorted and paged, and counted,
+ * without loading the whole set
+ */
+@Repository
+public class TaskIndexRepository {
+    
+    static final RedisScript<Long> ADD_SCRIPT =
+        RedisScript.of(new ClassPathResource("scripts/task-index-add.lua"), Long.class);
+    
+    static final RedisScript<Long> ADD_ALL_SCRIPT =
+        RedisScript.of(new ClassPathResource("scripts/task-index-add-all.lua"), Long.class);
+    
+    static final RedisScript<Long> BACKFILL_SCRIPT =
+        RedisScript.of(new ClassPathResource("scripts/task-index-backfill.lua"), Long.class);
+    
+    @Autowired
+    private StringRedisTemplate redisTemplate;
+    
+    @Autowired
+    private RedisOperationTimers redisTimers;
+    
+    /**
+     * Add a task to the end of the user's indexes and count it under its status
+     * @return the sequence number assigned to the task
+     */
+    public long add(String userId, String taskId, TaskStatus status) {
+        return redisTimers.record("index.add",
+            () -> redisTemplate.execute(ADD_SCRIPT, indexKeys(userId), taskId, status.name()));
+    }
+    
+    /**
+     * Add several tasks to the end of the user's indexes in a single round trip, keeping list order
+     */
+    public void addAll(String userId, List<Task> tasks) {
+        if (!tasks.isEmpty()) {
+            redisTimers.record("index.add_all",
+                () -> redisTemplate.execute(ADD_ALL_SCRIPT, indexKeys(userId), addAllArgs(tasks).toArray()));
+        }
+    }
+    
+    /**
+     * Remove several tasks from all of the user's indexes
+     */
+    public void removeAll(String userId, List<String> taskIds) {
+        if (!taskIds.isEmpty()) {
+            redisTimers.run("index.remove_all", () -> {
+                for (String key : sortedIndexKeys(userId)) {
+                    redisTemplate.opsForZSet().remove(key, taskIds.toArray());
+                }
+            });
+        }
+    }
+    
+    /**
+     * Read up to {@code limit} index entries with a sequence number greater than {@code afterSequence}
+     */
+    public List<IndexEntry> findAfter(String userId, long afterSequence, int limit) {
+        return find(TaskKeys.byUser(userId), afterSequence, false, limit);
+    }
+    
+    /**
+     * Read up to {@code limit} entries of an index, starting after the cursor
+     * @param cursor sequence number of the last entry already read, or 0 to start at the beginning
+     * @param descending whether to read from the highest sequence number down
+     */
+    public List<IndexEntry> find(String indexKey, long cursor, boolean descending, int limit) {
+        Set<TypedTuple<String>> tuples = redisTimers.record("index.find", () -> descending
+            ? redisTemplate.opsForZSet().reverseRangeByScoreWithScores(indexKey, Double.NEGATIVE_INFINITY,
+                cursor == 0 ? Double.POSITIVE_INFINITY : cursor - 1, 0, limit)
+            : redisTemplate.opsForZSet().rangeByScoreWithScores(indexKey, cursor + 1, Double.POSITIVE_INFINITY, 0,
+                limit));
+        
+        List<IndexEntry> entries = new ArrayList<>();
+        if (tuples != null) {
+            for (TypedTuple<String> tuple : tuples) {
+                entries.add(new IndexEntry(tuple.getValue(), tuple.getScore().longValue()));
+            }
+        }
+        return entries;
+    }
+    
+    /**
+     * Count a user's tasks per status from the maintained counters
+     */
+    public Map<TaskStatus, Long> countByStatus(String userId) {
+        return toCounts(redisTimers.record("index.count_by_status",
+            () -> redisTemplate.<String, String>opsForHash().entries(TaskKeys.stats(userId))));
+    }
+    
+    /**
+     * Index tasks created before the sorted, status and last-write indexes existed
+     * @return the number of tasks indexed
+     */
+    public long backfill(String userId) {
+        List<String> ids = new ArrayList<>(redisTemplate.opsForSet().members(TaskKeys.userIdIndex(userId)));
+        return redisTemplate.execute(BACKFILL_SCRIPT, backfillKeys(userId, ids), backfillArgs(ids).toArray());
+    }
+    
+    /**
+     * Index to read for a listing
+     * @param status only tasks with this status, or null for all
+     * @param byLastWrite order by last write rather than by creation
+     */
+    public static String indexKey(String userId, TaskStatus status, boolean byLastWrite) {
+        if (status == null) {
+            return byLastWrite ? TaskKeys.byUpdate(userId) : TaskKeys.byUser(userId);
+        }
+        return byLastWrite ? TaskKeys.byStatusUpdate(userId, status) : TaskKeys.byStatus(userId, status);
+    }
+    
+    /**
+     * Keys shared by the index scripts, in the order they expect them: sequence counter,
+     * creation index, last-write index, status counters, userId index set, then the
+     * creation and last-write index of each status
+     */
+    static List<String> indexKeys(String userId) {
+        List<String> keys = new ArrayList<>(5 + 2 * TaskStatus.values().length);
+        keys.add(TaskKeys.sequence(userId));
+        keys.add(TaskKeys.byUser(userId));
+        keys.add(TaskKeys.byUpdate(userId));
+        keys.add(TaskKeys.stats(userId));
+        keys.add(TaskKeys.userIdIndex(userId));
+        for (TaskStatus status : TaskStatus.values()) {
+            keys.add(TaskKeys.byStatus(userId, status));
+            keys.add(TaskKeys.byStatusUpdate(userId, status));
+        }
+        return keys;
+    }
+    
+    /**
+     * Keys of the backfill script: the index keys, then the hash key of each task
+     */
+    static List<String> backfillKeys(String userId, List<String> ids) {
+        List<String> keys = indexKeys(userId);
+        for (String id : ids) {
+            keys.add(TaskKeys.task(userId, id));
+        }
+        return keys;
+    }
+    
+    /**
+     * Arguments of the backfill script: the number of tasks, then their ids
+     */
+    static List<String> backfillArgs(List<String> ids) {
+        List<String> args = new ArrayList<>(ids.size() + 1);
+        args.add(String.valueOf(ids.size()));
+        args.addAll(ids);
+        return args;
+    }
+    
+    /**
+     * Every sorted index a user's task can be listed in
+     */
+    static List<String> sortedIndexKeys(String userId) {
+        List<String> keys = new ArrayList<>();
+        keys.add(TaskKeys.byUser(userId));
+        keys.add(TaskKeys.byUpdate(userId));
+        for (TaskStatus status : TaskStatus.values()) {
+            keys.add(TaskKeys.byStatus(userId, status));
+            keys.add(TaskKeys.byStatusUpdate(userId, status));
+        }
+        return keys;
+    }
+    
+    static List<String> addAllArgs(List<Task> tasks) {
+        List<String> args = new ArrayList<>(2 * tasks.size());
+        for (Task task : tasks) {
+            args.add(task.getId());
+            args.add(task.getStatus().name());
+        }
+        return args;
+    }
+    
+    /**
+     * Map the counters hash onto per-status counts, reporting every status
+     */
+    static Map<TaskStatus, Long> toCounts(Map<String, String> counters) {
+        Map<TaskStatus, Long> counts = new EnumMap<>(TaskStatus.class);
+        for (TaskStatus status : TaskStatus.values()) {
+            String value = counters.get(status.name());
+            counts.put(status, value == null ? 0L : Math.max(0L, Long.parseLong(value)));
+        }
+        return counts;
+    }
+    
+    /**
+     * A task id together with its position in the user's index
+     */
+    public static class IndexEntry {
+        
+        private final String taskId;
+        private final long sequence;
+        
+        public IndexEntry(String taskId, long sequence) {
+            this.taskId = taskId;
+            this.sequence = sequence;
+        }
+        
+        public String getTaskId() {
+            return taskId;
+        }
+        
+        public long getSequence() {
+            return sequence;
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package com.taskmanager.repository;
+
+import com.taskmanager.model.TaskStatus;
+
+/**
+ * Redis key layout for tasks
+ * The entity hash, keyspace set, index helper set and userId index set follow
+ * the layout Spring Data Redis uses for {@code @RedisHash("Task")}, so keys
+ * written by scripts and pipelines stay readable through TaskRepository.
+ * Binary task storage keeps each task under its own prefix and shares the rest.
+ * Sharded storage switches to a hash-tagged layout, where every key of a user's tasks
+ * carries the user id in braces, so Redis Cluster keeps all of them in one slot and
+ * per-user scripts never span nodes
+ */
+public final class TaskKeys {
+    
+    public static final String KEYSPACE = "Task";
+    
+    private static volatile boolean hashTagged;
+    
+    private TaskKeys() {}
+    
+    /**
+     * Switch to or from the hash-tagged layout; set once at startup, before any key is built
+     */
+    public static void setHashTagged(boolean tagged) {
+        hashTagged = tagged;
+    }
+    
+    public static boolean isHashTagged() {
+        return hashTagged;
+    }
+    
+    /**
+     * The user part of a per-user key, the user's hash tag in the hash-tagged layout
+     */
+    private static String owner(String userId) {
+        return hashTagged ? "{" + userId + "}" : userId;
+    }
+    
+    /**
+     * Hash holding the task's fields
+     * The owner only appears in the hash-tagged layout, where tasks are never stored as hashes
+     * and the key only fills its place in the binary scripts
+     */
+    public static String task(String userId, String id) {
+        return hashTagged ? KEYSPACE + ":" + owner(userId) + ":" + id : KEYSPACE + ":" + id;
+    }
+    
+    /**
+     * Packed value holding the whole task, when tasks are kept in binary storage
+     */
+    public static String binary(String userId, String id) {
+        return hashTagged ? KEYSPACE + ":bin:" + owner(userId) + ":" + id : KEYSPACE + ":bin:" + id;
+    }
+    
+    /**
+     * Set of the secondary index keys the task is listed in
+     * Only Spring Data reads it; the task scripts delete it and remove the task from its userId index directly
+     */
+    public static String indexHelper(String userId, String id) {
+        return task(userId, id) + ":idx";
+    }
+    
+    /**
+     * Spring Data set of every task id; one set per user in the hash-tagged layout, which nothing reads
+     */
+    public static String keyspace(String userId) {
+        return hashTagged ? KEYSPACE + ":" + owner(userId) : KEYSPACE;
+    }
+    
+    /**
+     * Spring Data index set of a user's task ids
+     */
+    public static String userIdIndex(String userId) {
+        return KEYSPACE + ":userId:" + owner(userId);
+    }
+    
+    /**
+     * Sorted set of a user's task ids scored by creation sequence
+     */
+    public static String byUser(String userId) {
+        return KEYSPACE + ":byUser:" + owner(userId);
+    }
+    
+    /**
+     * Sorted set of a user's task ids scored by the sequence number of their last write
+     */
+    public static String byUpdate(String userId) {
+        return KEYSPACE + ":byUpdate:" + owner(userId);
+    }
+    
+    /**
+     * Sorted set of a user's task ids with the given status, scored by creation sequence
+     */
+    public static String byStatus(String userId, TaskStatus status) {
+        return KEYSPACE + ":byStatus:" + owner(userId) + ":" + status.name();
+    }
+    
+    /**
+     * Sorted set of a user's task ids with the given status, scored by the sequence number of their last write
+     */
+    public static String byStatusUpdate(String userId, TaskStatus status) {
+        return KEYSPACE + ":byStatusUpdate:" + owner(userId) + ":" + status.name();
+    }
+    
+    /**
+     * Hash of a user's task counts per status
+     */
+    public static String stats(String userId) {
+        return KEYSPACE + ":stats:" + owner(userId);
+    }
+    
+    /**
+     * Sorted set of a user's deleted task ids, as '<deleted at>:<id>' scored by the sequence number of the deletion
+     */
+    public static String tombstones(String userId) {
+        return KEYSPACE + ":tombstones:" + owner(userId);
+    }
+    
+    /**
+     * Lowest sync token that can still be answered with changes, raised as tombstones expire
+     */
+    public static String syncFloor(String userId) {
+        return KEYSPACE + ":syncFloor:" + owner(userId);
+    }
+    
+    /**
+     * Stream of a user's task changes, trimmed to a bounded length
+     */
+    public static String events(String userId) {
+        return KEYSPACE + ":events:" + owner(userId);
+    }
+    
+    /**
+     * Pub/sub channel announcing, by user id, that a user's change stream has new entries
+     */
+    public static String eventsChannel() {
+        return KEYSPACE + ":events";
+    }
+    
+    /**
+     * Counter handing out a user's sequence numbers, drawn on every task creation and write
+     */
+    public static String sequence(String userId) {
+        return KEYSPACE + ":seq:" + owner(userId);
+    }
+}
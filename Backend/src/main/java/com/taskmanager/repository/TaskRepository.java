@@ -1,6 +1,9 @@
 package com.taskmanager.repository;
 
+import com.taskmanager.config.CacheConfig;
 import com.taskmanager.model.Task;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.data.repository.CrudRepository;
 import org.springframework.stereotype.Repository;
 
@@ -10,10 +13,39 @@ import java.util.Optional;
 /**
  * Repository interface for Task entity
  * Provides CRUD operations for tasks in Redis
+ * Lookups by id are served from the near-cache when it is enabled
  */
 @Repository
 public interface TaskRepository extends CrudRepository<Task, String> {
     
+    /**
+     * Find a task by ID, reading through the near-cache
+     */
+    @Override
+    @Cacheable(cacheNames = CacheConfig.TASKS_CACHE, key = "#p0", unless = "#result == null")
+    Optional<Task> findById(String id);
+    
+    /**
+     * Save a task and evict it from the near-cache
+     */
+    @Override
+    @CacheEvict(cacheNames = CacheConfig.TASKS_CACHE, key = "#p0.id", condition = "#p0.id != null")
+    <S extends Task> S save(S task);
+    
+    /**
+     * Delete a task and evict it from the near-cache
+     */
+    @Override
+    @CacheEvict(cacheNames = CacheConfig.TASKS_CACHE, key = "#p0.id")
+    void delete(Task task);
+    
+    /**
+     * Delete a task by ID and evict it from the near-cache
+     */
+    @Override
+    @CacheEvict(cacheNames = CacheConfig.TASKS_CACHE, key = "#p0")
+    void deleteById(String id);
+    
     /**
      * Find all tasks belonging to a specific user
      * @param userId the user ID to search for
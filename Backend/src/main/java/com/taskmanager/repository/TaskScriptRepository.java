@@ -0,0 +1,285 @@
+package com.taskmanager.repository;
+
+import com.taskmanager.model.Task;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.ReturnType;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.convert.Bucket;
+import org.springframework.data.redis.core.convert.RedisConverter;
+import org.springframework.data.redis.core.convert.RedisData;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Repository;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+
+/**
+ * Repository for ownership-checked task writes
+ * Each write runs as a server-side Lua script that checks the task's owner and
+ * applies the change atomically in a single round trip, together with the
+ * matching status index and counter updates, so concurrent edits cannot
+ * interleave between the check and the write. Every update bumps the task's
+ * version, which a write can also be made conditional on. Deletes leave an
+ * expiring tombstone for delta sync
+ */
+@Repository
+public class TaskScriptRepository {
+    
+    static final RedisScript<List> UPDATE_SCRIPT =
+        RedisScript.of(new ClassPathResource("scripts/task-update.lua"), List.class);
+    
+    static final RedisScript<Long> DELETE_SCRIPT =
+        RedisScript.of(new ClassPathResource("scripts/task-delete.lua"), Long.class);
+    
+    /**
+     * Delete script reply for a task whose version matched none of the expected versions
+     */
+    static final long DELETE_VERSION_MISMATCH = -1L;
+    
+    @Autowired
+    private StringRedisTemplate redisTemplate;
+    
+    @Autowired
+    private RedisConverter redisConverter;
+    
+    @Autowired
+    private RedisOperationTimers redisTimers;
+    
+    @Value("${task-sync.tombstone-ttl:30d}")
+    private Duration tombstoneTtl;
+    
+    @Value("${task-sync.max-tombstones:10000}")
+    private long maxTombstones;
+    
+    /**
+     * Set and remove fields of a task owned by the user
+     * @param fieldsToSet field values to write
+     * @param fieldsToRemove fields to clear
+     * @param expectedVersions only update the task if its version is one of these, or null for any version
+     * @return the updated task, or empty if it does not exist or belongs to another user
+     * @throws OptimisticLockingFailureException if the task's version is not one of the expected versions
+     */
+    public Optional<Task> update(String userId, String id, Map<String, String> fieldsToSet,
+                                 List<String> fieldsToRemove, Collection<Long> expectedVersions) {
+        List<?> hash = redisTimers.record("task.update", () -> redisTemplate.execute(UPDATE_SCRIPT,
+            updateKeys(userId, id), updateArgs(userId, id, expectedVersions, fieldsToSet, fieldsToRemove).toArray()));
+        if (isMissing(hash)) {
+            return Optional.empty();
+        }
+        if (isVersionMismatch(hash)) {
+            throw versionMismatch(id);
+        }
+        return Optional.of(toTask(id, hash));
+    }
+    
+    /**
+     * Delete a task owned by the user together with all of its index entries and its status count
+     * @param expectedVersions only delete the task if its version is one of these, or null for any version
+     * @return true if the task was deleted, false if it does not exist or belongs to another user
+     * @throws OptimisticLockingFailureException if the task's version is not one of the expected versions
+     */
+    public boolean delete(String userId, String id, Collection<Long> expectedVersions) {
+        Long deleted = redisTimers.record("task.delete", () -> redisTemplate.execute(DELETE_SCRIPT,
+            deleteKeys(userId, id), deleteArgs(userId, id, expectedVersions).toArray()));
+        if (deleted != null && deleted == DELETE_VERSION_MISMATCH) {
+            throw versionMismatch(id);
+        }
+        return deleted != null && deleted == 1L;
+    }
+    
+    /**
+     * Set the same fields on several tasks owned by the user, pipelining one script call per task
+     * @return ids of the updated tasks
+     */
+    public List<String> updateAll(String userId, List<String> ids, Map<String, String> fieldsToSet) {
+        List<Object> results = redisTimers.record("task.update_all", () -> evalPipelined(UPDATE_SCRIPT,
+            ReturnType.MULTI, ids, id -> updateKeys(userId, id), id -> updateArgs(userId, id, null, fieldsToSet,
+                List.of())));
+        
+        List<String> updatedIds = new ArrayList<>();
+        for (int i = 0; i < ids.size(); i++) {
+            if (results.get(i) instanceof List<?> hash && !isMissing(hash)) {
+                updatedIds.add(ids.get(i));
+            }
+        }
+        return updatedIds;
+    }
+    
+    /**
+     * Delete several tasks owned by the user, pipelining one script call per task
+     * @return ids of the deleted tasks
+     */
+    public List<String> deleteAll(String userId, List<String> ids) {
+        List<Object> results = redisTimers.record("task.delete_all", () -> evalPipelined(DELETE_SCRIPT,
+            ReturnType.INTEGER, ids, id -> deleteKeys(userId, id), id -> deleteArgs(userId, id, null)));
+        
+        List<String> deletedIds = new ArrayList<>();
+        for (int i = 0; i < ids.size(); i++) {
+            if (Long.valueOf(1L).equals(results.get(i))) {
+                deletedIds.add(ids.get(i));
+            }
+        }
+        return deletedIds;
+    }
+    
+    static List<String> updateKeys(String userId, String id) {
+        List<String> keys = new ArrayList<>();
+        keys.add(TaskKeys.task(userId, id));
+        keys.addAll(TaskIndexRepository.indexKeys(userId));
+        return keys;
+    }
+    
+    static List<String> deleteKeys(String userId, String id) {
+        List<String> keys = new ArrayList<>();
+        keys.add(TaskKeys.task(userId, id));
+        keys.add(TaskKeys.indexHelper(userId, id));
+        keys.add(TaskKeys.keyspace(userId));
+        keys.add(TaskKeys.tombstones(userId));
+        keys.add(TaskKeys.syncFloor(userId));
+        keys.addAll(TaskIndexRepository.indexKeys(userId));
+        return keys;
+    }
+    
+    /**
+     * Arguments of the delete scripts, with the tombstone lifetime and cap
+     */
+    List<String> deleteArgs(String userId, String id, Collection<Long> expectedVersions) {
+        return List.of(userId, id, versionsArg(expectedVersions), Long.toString(System.currentTimeMillis()),
+            Long.toString(tombstoneTtl.toMillis()), Long.toString(maxTombstones));
+    }
+    
+    static List<String> updateArgs(String userId, String id, Collection<Long> expectedVersions,
+                                   Map<String, String> fieldsToSet, List<String> fieldsToRemove) {
+        List<String> args = new ArrayList<>(4 + 2 * fieldsToSet.size() + fieldsToRemove.size());
+        args.add(userId);
+        args.add(id);
+        args.add(versionsArg(expectedVersions));
+        args.add(Integer.toString(fieldsToSet.size()));
+        fieldsToSet.forEach((field, value) -> {
+            args.add(field);
+            args.add(value);
+        });
+        args.addAll(fieldsToRemove);
+        return args;
+    }
+    
+    /**
+     * Expected versions as the scripts take them, space-separated and empty for any version
+     */
+    static String versionsArg(Collection<Long> expectedVersions) {
+        if (expectedVersions == null) {
+            return "";
+        }
+        StringBuilder arg = new StringBuilder();
+        for (Long version : expectedVersions) {
+            if (arg.length() > 0) {
+                arg.append(' ');
+            }
+            arg.append(version);
+        }
+        // An empty set of versions can never match
+        return arg.length() > 0 ? arg.toString() : "-1";
+    }
+    
+    /**
+     * Whether an update script reply is the current version of a task that did not match,
+     * rather than the updated hash, which always has an even number of elements
+     */
+    static boolean isVersionMismatch(List<?> reply) {
+        return reply.size() == 1;
+    }
+    
+    /**
+     * Whether an update script reply means the task does not exist or belongs to another user
+     * The script's nil reaches the template as a list holding a single null, not as null
+     */
+    static boolean isMissing(List<?> reply) {
+        return reply == null || reply.isEmpty() || reply.size() == 1 && reply.get(0) == null;
+    }
+    
+    static OptimisticLockingFailureException versionMismatch(String id) {
+        return new OptimisticLockingFailureException("Task " + id + " has been changed since the given version");
+    }
+    
+    /**
+     * Run a script once per id in a single pipeline
+     * The script is loaded and the pipeline retried once if the server's script cache was flushed
+     */
+    List<Object> evalPipelined(RedisScript<?> script, ReturnType returnType, List<String> ids,
+                               Function<String, List<String>> keys,
+                               Function<String, List<String>> args) {
+        if (ids.isEmpty()) {
+            return new ArrayList<>();
+        }
+        RedisCallback<Object> pipeline = connection -> {
+            for (String id : ids) {
+                evalSha(connection, script, returnType, keys.apply(id), args.apply(id));
+            }
+            return null;
+        };
+        
+        try {
+            return redisTemplate.executePipelined(pipeline);
+        } catch (DataAccessException e) {
+            if (!isNoScriptError(e)) {
+                throw e;
+            }
+            redisTemplate.execute((RedisCallback<String>) connection ->
+                connection.scriptingCommands().scriptLoad(bytes(script.getScriptAsString())));
+            return redisTemplate.executePipelined(pipeline);
+        }
+    }
+    
+    private static void evalSha(RedisConnection connection, RedisScript<?> script, ReturnType returnType,
+                                List<String> keys, List<String> args) {
+        byte[][] keysAndArgs = new byte[keys.size() + args.size()][];
+        int i = 0;
+        for (String key : keys) {
+            keysAndArgs[i++] = bytes(key);
+        }
+        for (String arg : args) {
+            keysAndArgs[i++] = bytes(arg);
+        }
+        connection.scriptingCommands().evalSha(script.getSha1(), returnType, keys.size(), keysAndArgs);
+    }
+    
+    private static boolean isNoScriptError(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause.getMessage() != null && cause.getMessage().contains("NOSCRIPT")) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    /**
+     * Map a flat HGETALL reply onto a Task using the repository's converter
+     */
+    private Task toTask(String id, List<?> hash) {
+        Map<String, String> fields = new HashMap<>();
+        for (int i = 0; i + 1 < hash.size(); i += 2) {
+            fields.put((String) hash.get(i), (String) hash.get(i + 1));
+        }
+        RedisData data = new RedisData(Bucket.newBucketFromStringMap(fields));
+        data.setId(id);
+        data.setKeyspace(TaskKeys.KEYSPACE);
+        return redisConverter.read(Task.class, data);
+    }
+    
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,92 @@
+package com.taskmanager.repository;
+
+import com.taskmanager.model.Task;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * Reads the task fields the search index is built from
+ * Only the text fields are fetched, with pipelined HMGETs, so rebuilding
+ * the index costs one round trip per batch and no entity mapping
+ */
+@Repository
+public class TaskSearchRepository {
+    
+    private static final String USER_ID_INDEX_PATTERN = TaskKeys.userIdIndex("*");
+    
+    private static final byte[][] SEARCH_FIELDS = {
+        bytes("userId"), bytes("title"), bytes("description"), bytes("updatedAt")
+    };
+    
+    @Autowired
+    private StringRedisTemplate redisTemplate;
+    
+    /**
+     * Ids of every user that owns at least one task
+     */
+    public List<String> findUserIds() {
+        List<String> userIds = new ArrayList<>();
+        int prefixLength = TaskKeys.userIdIndex("").length();
+        ScanOptions options = ScanOptions.scanOptions().match(USER_ID_INDEX_PATTERN).count(1000).build();
+        try (Cursor<String> keys = redisTemplate.scan(options)) {
+            keys.forEachRemaining(key -> userIds.add(key.substring(prefixLength)));
+        }
+        return userIds;
+    }
+    
+    /**
+     * Visit the id, owner, title, description and update time of each of a user's tasks,
+     * reading {@code batchSize} tasks per round trip
+     */
+    public void forEachTask(String userId, int batchSize, Consumer<Task> consumer) {
+        Set<String> members = redisTemplate.opsForSet().members(TaskKeys.userIdIndex(userId));
+        if (members == null || members.isEmpty()) {
+            return;
+        }
+        
+        List<String> ids = new ArrayList<>(members);
+        for (int from = 0; from < ids.size(); from += batchSize) {
+            List<String> batch = ids.subList(from, Math.min(from + batchSize, ids.size()));
+            List<Object> rows = redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                for (String id : batch) {
+                    connection.hashCommands().hMGet(bytes(TaskKeys.task(userId, id)), SEARCH_FIELDS);
+                }
+                return null;
+            });
+            for (int i = 0; i < batch.size(); i++) {
+                Task task = toTask(batch.get(i), rows.get(i));
+                // Skip index entries whose task is gone or has changed hands
+                if (task != null && userId.equals(task.getUserId())) {
+                    consumer.accept(task);
+                }
+            }
+        }
+    }
+    
+    private static Task toTask(String id, Object row) {
+        if (!(row instanceof List<?> values) || values.get(0) == null) {
+            return null;
+        }
+        Task task = new Task();
+        task.setId(id);
+        task.setUserId((String) values.get(0));
+        task.setTitle((String) values.get(1));
+        task.setDescription((String) values.get(2));
+        task.setUpdatedAt(values.get(3) != null ? Long.valueOf((String) values.get(3)) : null);
+        return task;
+    }
+    
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+}
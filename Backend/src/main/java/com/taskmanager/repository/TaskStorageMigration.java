@@ -0,0 +1,109 @@
+package com.taskmanager.repository;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.redis.connection.ReturnType;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Converts tasks still stored as Spring Data hashes to binary storage, while the application serves traffic
+ * Runs in the background once the application is up, a user at a time: the user's sorted indexes
+ * are backfilled first, since converted tasks leave the userId index set, and then each of their
+ * tasks is converted by a script that skips tasks a write has already converted. Restarting
+ * picks up where the last run stopped
+ */
+@Component
+@ConditionalOnProperty(name = TaskStore.MODE_PROPERTY, havingValue = TaskStore.BINARY_MODE)
+public class TaskStorageMigration {
+    
+    private static final int BATCH_SIZE = 500;
+    
+    private static final Logger logger = LoggerFactory.getLogger(TaskStorageMigration.class);
+    
+    @Autowired
+    private StringRedisTemplate redisTemplate;
+    
+    @Autowired
+    private TaskScriptRepository taskScriptRepository;
+    
+    @Autowired
+    private TaskIndexRepository taskIndexRepository;
+    
+    @Autowired
+    private TaskSearchRepository taskSearchRepository;
+    
+    @Value("${task-storage.migrate-on-startup:true}")
+    private boolean migrateOnStartup;
+    
+    @EventListener(ApplicationReadyEvent.class)
+    public void migrateOnStartup() {
+        if (!migrateOnStartup) {
+            return;
+        }
+        Thread migration = new Thread(this::migrateAll, "task-storage-migration");
+        migration.setDaemon(true);
+        migration.start();
+    }
+    
+    /**
+     * Convert every user's remaining hash-stored tasks
+     * @return the number of tasks converted
+     */
+    public long migrateAll() {
+        long start = System.nanoTime();
+        long migrated = 0;
+        try {
+            for (String userId : taskSearchRepository.findUserIds()) {
+                migrated += migrate(userId);
+            }
+            Long remaining = redisTemplate.opsForSet().size(TaskKeys.KEYSPACE);
+            logger.info("Converted {} tasks to binary storage in {} ms, {} left as hashes", migrated,
+                (System.nanoTime() - start) / 1_000_000, remaining);
+        } catch (Exception e) {
+            logger.warn("Task storage migration stopped after {} tasks, it resumes on the next start: {}",
+                migrated, e.getMessage());
+        }
+        return migrated;
+    }
+    
+    /**
+     * Convert one user's remaining hash-stored tasks
+     * @return the number of tasks converted
+     */
+    public long migrate(String userId) {
+        Set<String> members = redisTemplate.opsForSet().members(TaskKeys.userIdIndex(userId));
+        if (members == null || members.isEmpty()) {
+            return 0;
+        }
+        taskIndexRepository.backfill(userId);
+        
+        List<String> ids = new ArrayList<>(members);
+        long migrated = 0;
+        for (int from = 0; from < ids.size(); from += BATCH_SIZE) {
+            List<Object> results = taskScriptRepository.evalPipelined(BinaryTaskStore.MIGRATE_SCRIPT,
+                ReturnType.INTEGER, ids.subList(from, Math.min(from + BATCH_SIZE, ids.size())),
+                id -> migrateKeys(userId, id), List::of);
+            for (Object result : results) {
+                if (Long.valueOf(1L).equals(result)) {
+                    migrated++;
+                }
+            }
+        }
+        return migrated;
+    }
+    
+    private static List<String> migrateKeys(String userId, String id) {
+        return List.of(TaskKeys.binary(userId, id), TaskKeys.task(userId, id), TaskKeys.indexHelper(userId, id),
+            TaskKeys.keyspace(userId), TaskKeys.userIdIndex(userId));
+    }
+}
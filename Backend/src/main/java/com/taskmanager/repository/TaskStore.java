@@ -0,0 +1,114 @@
+package com.taskmanager.repository;
+
+import com.taskmanager.model.Task;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+/**
+ * Storage of task records, selected by task-storage.mode
+ * hash (the default) keeps each task as a Spring Data Redis hash; binary keeps it as one
+ * packed value, see BinaryTaskStore; sharded is binary with every key of a user's tasks
+ * hash-tagged by user id, for Redis Cluster, see TaskKeys. All share the sorted, status and
+ * last-write indexes, counters and sequence, and all make writes ownership-checked and atomic
+ * with their index upkeep
+ */
+public interface TaskStore {
+    
+    String MODE_PROPERTY = "task-storage.mode";
+    String HASH_MODE = "hash";
+    String BINARY_MODE = "binary";
+    String SHARDED_MODE = "sharded";
+    
+    /**
+     * Find a task by ID, reading through the near-cache
+     * The owner locates the task in the sharded layout; the result may still belong to another user
+     */
+    Optional<Task> findById(String userId, String id);
+    
+    /**
+     * Find several tasks by id in a single round trip where the layout allows, bypassing the near-cache
+     * Ids with no task are skipped; the result may include tasks that belong to another user
+     */
+    List<Task> findAllById(String userId, List<String> ids);
+    
+    /**
+     * Find all tasks belonging to a user, in no particular order
+     */
+    List<Task> findByUserId(String userId);
+    
+    /**
+     * Save a new task, assigning it an id, and append it to its owner's indexes
+     */
+    Task insert(Task task);
+    
+    /**
+     * Save several new tasks of one user, assigning each an id, and append them to the indexes in list order
+     * @return the tasks with their ids set, in the given order
+     */
+    List<Task> insertAll(String userId, List<Task> tasks);
+    
+    /**
+     * Set and remove fields of a task owned by the user
+     * @param expectedVersions only update the task if its version is one of these, or null for any version
+     * @return the updated task, or empty if it does not exist or belongs to another user
+     * @throws org.springframework.dao.OptimisticLockingFailureException if the task's version is not expected
+     */
+    Optional<Task> update(String userId, String id, Map<String, String> fieldsToSet, List<String> fieldsToRemove,
+                          Collection<Long> expectedVersions);
+    
+    /**
+     * Delete a task owned by the user together with all of its index entries and its status count
+     * @param expectedVersions only delete the task if its version is one of these, or null for any version
+     * @return true if the task was deleted, false if it does not exist or belongs to another user
+     * @throws org.springframework.dao.OptimisticLockingFailureException if the task's version is not expected
+     */
+    boolean delete(String userId, String id, Collection<Long> expectedVersions);
+    
+    /**
+     * Set the same fields on several tasks owned by the user
+     * @return ids of the updated tasks
+     */
+    List<String> updateAll(String userId, List<String> ids, Map<String, String> fieldsToSet);
+    
+    /**
+     * Delete several tasks owned by the user
+     * @return ids of the deleted tasks
+     */
+    List<String> deleteAll(String userId, List<String> ids);
+    
+    /**
+     * Current version of a task owned by the user, read without mapping the whole task where the layout allows
+     * @return the version, or empty if the task does not exist or belongs to another user
+     */
+    Optional<Long> findVersion(String userId, String id);
+    
+    /**
+     * Ids of every user that owns at least one task
+     */
+    List<String> findUserIds();
+    
+    /**
+     * Visit each of a user's tasks with at least its id, owner, title, description and update time,
+     * reading {@code batchSize} tasks per round trip
+     */
+    void forEachTask(String userId, int batchSize, Consumer<Task> consumer);
+    
+    /**
+     * Run an action once every write made so far has reached Redis
+     * Stores that write straight through run it at once
+     */
+    default void afterWrites(Runnable action) {
+        action.run();
+    }
+    
+    /**
+     * Wait until every write of the user made so far has reached Redis, so reads of the indexes,
+     * counters, sync log and user version include them; stores that write straight through return at once
+     */
+    default void awaitWrites(String userId) {
+    }
+}
@@ -0,0 +1,103 @@
+package com.taskmanager.repository;
+
+import com.taskmanager.repository.TaskIndexRepository.IndexEntry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Repository;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Repository for delta sync reads
+ * A user's change log is their last-write index, which holds each live task once at the
+ * sequence number of its latest write and so compacts itself, plus the tombstones their
+ * deletes leave behind. A sync token is a sequence number, so a page of changes after it is
+ * two range reads whose cost follows the number of changes, not the number of tasks
+ */
+@Repository
+public class TaskSyncRepository {
+    
+    static final RedisScript<List> SYNC_SCRIPT =
+        RedisScript.of(new ClassPathResource("scripts/task-sync.lua"), List.class);
+    
+    @Autowired
+    private StringRedisTemplate redisTemplate;
+    
+    /**
+     * Read up to {@code limit} written and up to {@code limit} deleted tasks after a sync token, in one snapshot
+     * @param afterSequence sequence number the client is up to date with, or 0 for none
+     */
+    public Changes findChanges(String userId, long afterSequence, int limit) {
+        return toChanges(redisTemplate.execute(SYNC_SCRIPT, syncKeys(userId),
+            Long.toString(afterSequence), Integer.toString(limit)));
+    }
+    
+    static List<String> syncKeys(String userId) {
+        return List.of(TaskKeys.sequence(userId), TaskKeys.syncFloor(userId), TaskKeys.byUpdate(userId),
+            TaskKeys.tombstones(userId));
+    }
+    
+    /**
+     * Map a sync script reply, where tombstones carry their deletion time ahead of the task id
+     */
+    static Changes toChanges(List<?> reply) {
+        List<IndexEntry> written = toEntries((List<?>) reply.get(2));
+        List<IndexEntry> deleted = new ArrayList<>();
+        for (IndexEntry tombstone : toEntries((List<?>) reply.get(3))) {
+            String member = tombstone.getTaskId();
+            deleted.add(new IndexEntry(member.substring(member.indexOf(':') + 1), tombstone.getSequence()));
+        }
+        return new Changes((Long) reply.get(0), Long.valueOf(1L).equals(reply.get(1)), written, deleted);
+    }
+    
+    private static List<IndexEntry> toEntries(List<?> flat) {
+        List<IndexEntry> entries = new ArrayList<>(flat.size() / 2);
+        for (int i = 0; i + 1 < flat.size(); i += 2) {
+            entries.add(new IndexEntry((String) flat.get(i), (long) Double.parseDouble((String) flat.get(i + 1))));
+        }
+        return entries;
+    }
+    
+    /**
+     * One read of a user's change log
+     */
+    public static class Changes {
+        
+        private final long version;
+        private final boolean reset;
+        private final List<IndexEntry> written;
+        private final List<IndexEntry> deleted;
+        
+        public Changes(long version, boolean reset, List<IndexEntry> written, List<IndexEntry> deleted) {
+            this.version = version;
+            this.reset = reset;
+            this.written = written;
+            this.deleted = deleted;
+        }
+        
+        /**
+         * The user's version when the log was read; no entry is newer
+         */
+        public long getVersion() {
+            return version;
+        }
+        
+        /**
+         * Whether the token could not be answered with changes, so that written lists every live task
+         */
+        public boolean isReset() {
+            return reset;
+        }
+        
+        public List<IndexEntry> getWritten() {
+            return written;
+        }
+        
+        public List<IndexEntry> getDeleted() {
+            return deleted;
+        }
+    }
+}
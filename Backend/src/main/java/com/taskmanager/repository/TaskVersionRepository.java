@@ -0,0 +1,55 @@
+package com.taskmanager.repository;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Repository for task and user versions, read without loading any task
+ * A user's version is their sequence counter, which every task creation, write and
+ * delete advances; a task's version is a field of its hash that every update bumps
+ */
+@Repository
+public class TaskVersionRepository {
+    
+    static final String VERSION_FIELD = "version";
+    
+    private static final String USER_ID_FIELD = "userId";
+    
+    @Autowired
+    private StringRedisTemplate redisTemplate;
+    
+    @Autowired
+    private RedisOperationTimers redisTimers;
+    
+    /**
+     * Current version of a user's tasks as a whole, 0 before their first task
+     */
+    public long findUserVersion(String userId) {
+        return parseVersion(redisTimers.record("task.find_user_version",
+            () -> redisTemplate.opsForValue().get(TaskKeys.sequence(userId))));
+    }
+    
+    /**
+     * Current version of a task owned by the user
+     * @return the version, or empty if the task does not exist or belongs to another user
+     */
+    public Optional<Long> findTaskVersion(String userId, String id) {
+        List<Object> fields = redisTimers.record("task.find_version", () -> redisTemplate.opsForHash()
+            .multiGet(TaskKeys.task(userId, id), List.of(USER_ID_FIELD, VERSION_FIELD)));
+        if (!userId.equals(fields.get(0))) {
+            return Optional.empty();
+        }
+        return Optional.of(parseVersion((String) fields.get(1)));
+    }
+    
+    /**
+     * Versions are missing from keys written before they were kept, which counts as version 0
+     */
+    static long parseVersion(String value) {
+        return value != null ? Long.parseLong(value) : 0L;
+    }
+}
@@ -0,0 +1,41 @@
+package com.taskmanager.repository;
+
+/**
+ * Redis key layout for users
+ * Follows the layout Spring Data Redis uses for {@code @RedisHash("User")},
+ * so users written by the reactive repository stay readable through UserRepository
+ */
+public final class UserKeys {
+    
+    public static final String KEYSPACE = "User";
+    
+    private UserKeys() {}
+    
+    /**
+     * Hash holding the user's fields
+     */
+    public static String user(String id) {
+        return KEYSPACE + ":" + id;
+    }
+    
+    /**
+     * Spring Data index set holding the id of the user with this username
+     */
+    public static String usernameIndex(String username) {
+        return KEYSPACE + ":username:" + username;
+    }
+    
+    /**
+     * Spring Data set of the index keys a user is listed under
+     */
+    public static String userIndexes(String id) {
+        return KEYSPACE + ":" + id + ":idx";
+    }
+    
+    /**
+     * Pub/sub channel on which each newly registered username is announced
+     */
+    public static String registrationsChannel() {
+        return KEYSPACE + ":registrations:channel";
+    }
+}
@@ -0,0 +1,201 @@
+package com.taskmanager.repository;
+
+import com.taskmanager.model.User;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.convert.RedisConverter;
+import org.springframework.data.redis.core.convert.RedisData;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Repository for creating users
+ * A script checks the username and writes the user in one step, so a username can only
+ * be registered once however many requests race for it. The Spring Data username index
+ * serves as the reservation, and the user is written exactly as UserRepository would,
+ * so both repositories keep reading it. Each new username is announced on a pub/sub channel.
+ * On a Redis Cluster the user's keys live in different slots, so the user hash is written first,
+ * the script then reserves the username for it and the id sets are written last. A reservation
+ * therefore never points at a missing user; if a later step fails the reservation is released
+ * and the user removed again, and a crash in between leaves at most a hash nothing refers to
+ */
+@Repository
+public class UserRegistrationRepository {
+    
+    static final RedisScript<Long> REGISTER_SCRIPT =
+        RedisScript.of(new ClassPathResource("scripts/user-register.lua"), Long.class);
+    
+    static final RedisScript<Long> RESERVE_SCRIPT =
+        RedisScript.of(new ClassPathResource("scripts/user-reserve.lua"), Long.class);
+    
+    @Autowired
+    private StringRedisTemplate redisTemplate;
+    
+    @Autowired
+    private ReactiveStringRedisTemplate reactiveRedisTemplate;
+    
+    @Autowired
+    private RedisConverter redisConverter;
+    
+    /**
+     * Create a user unless its username is taken, assigning it an id
+     * @return whether the user was created
+     */
+    public boolean register(User user) {
+        user.setId(UUID.randomUUID().toString());
+        if (!ClusterSupport.isCluster(redisTemplate.getConnectionFactory())) {
+            Long created = redisTemplate.execute(REGISTER_SCRIPT, keys(user), args(user).toArray());
+            return created != null && created == 1;
+        }
+        redisTemplate.<String, String>opsForHash().putAll(UserKeys.user(user.getId()), fields(user));
+        try {
+            Long reserved = redisTemplate.execute(RESERVE_SCRIPT,
+                List.of(UserKeys.usernameIndex(user.getUsername())), user.getId());
+            if (reserved == null || reserved != 1) {
+                discard(user);
+                return false;
+            }
+            redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                connection.setCommands().sAdd(bytes(UserKeys.KEYSPACE), bytes(user.getId()));
+                connection.setCommands().sAdd(bytes(UserKeys.userIndexes(user.getId())),
+                    bytes(UserKeys.usernameIndex(user.getUsername())));
+                connection.publish(bytes(UserKeys.registrationsChannel()), bytes(user.getUsername()));
+                return null;
+            });
+            return true;
+        } catch (RuntimeException e) {
+            try {
+                discard(user);
+            } catch (RuntimeException cleanup) {
+                e.addSuppressed(cleanup);
+            }
+            throw e;
+        }
+    }
+    
+    /**
+     * Undo a cluster registration that did not complete: release the username if this user holds it,
+     * then remove the user; SREM only takes out this user's id, so a username reserved since by
+     * another registration is left alone
+     */
+    private void discard(User user) {
+        redisTemplate.opsForSet().remove(UserKeys.usernameIndex(user.getUsername()), user.getId());
+        redisTemplate.opsForSet().remove(UserKeys.KEYSPACE, user.getId());
+        redisTemplate.delete(List.of(UserKeys.user(user.getId()), UserKeys.userIndexes(user.getId())));
+    }
+    
+    /**
+     * Non-blocking {@link #register}
+     */
+    public Mono<Boolean> registerReactive(User user) {
+        user.setId(UUID.randomUUID().toString());
+        if (!ClusterSupport.isCluster(reactiveRedisTemplate.getConnectionFactory())) {
+            return reactiveRedisTemplate.execute(REGISTER_SCRIPT, keys(user), args(user))
+                .next()
+                .map(created -> created == 1)
+                .defaultIfEmpty(false);
+        }
+        return reactiveRedisTemplate.<String, String>opsForHash().putAll(UserKeys.user(user.getId()), fields(user))
+            .then(reactiveRedisTemplate.execute(RESERVE_SCRIPT, List.of(UserKeys.usernameIndex(user.getUsername())),
+                    List.of(user.getId()))
+                .next()
+                .map(reserved -> reserved == 1)
+                .defaultIfEmpty(false)
+                .flatMap(reserved -> reserved
+                    ? indexReactive(user).thenReturn(true)
+                    : discardReactive(user).thenReturn(false)))
+            .onErrorResume(e -> discardReactive(user)
+                .onErrorResume(cleanup -> {
+                    e.addSuppressed(cleanup);
+                    return Mono.empty();
+                })
+                .then(Mono.error(e)));
+    }
+    
+    /**
+     * Add a user whose hash is written and whose username is reserved to the id sets, and announce it
+     */
+    private Mono<Void> indexReactive(User user) {
+        return reactiveRedisTemplate.opsForSet().add(UserKeys.KEYSPACE, user.getId())
+            .then(reactiveRedisTemplate.opsForSet().add(UserKeys.userIndexes(user.getId()),
+                UserKeys.usernameIndex(user.getUsername())))
+            .then(reactiveRedisTemplate.convertAndSend(UserKeys.registrationsChannel(), user.getUsername()))
+            .then();
+    }
+    
+    /**
+     * Non-blocking {@link #discard}
+     */
+    private Mono<Void> discardReactive(User user) {
+        return reactiveRedisTemplate.opsForSet().remove(UserKeys.usernameIndex(user.getUsername()), user.getId())
+            .then(reactiveRedisTemplate.opsForSet().remove(UserKeys.KEYSPACE, user.getId()))
+            .then(reactiveRedisTemplate.delete(UserKeys.user(user.getId()), UserKeys.userIndexes(user.getId())))
+            .then();
+    }
+    
+    /**
+     * Whether a username is taken
+     */
+    public boolean exists(String username) {
+        return Boolean.TRUE.equals(redisTemplate.hasKey(UserKeys.usernameIndex(username)));
+    }
+    
+    /**
+     * Non-blocking {@link #exists}
+     */
+    public Mono<Boolean> existsReactive(String username) {
+        return reactiveRedisTemplate.hasKey(UserKeys.usernameIndex(username));
+    }
+    
+    /**
+     * Every registered username, read from the username index keys
+     */
+    public Set<String> findUsernames() {
+        Set<String> usernames = new HashSet<>();
+        ClusterSupport.scanWildcard(redisTemplate.getConnectionFactory(), UserKeys.usernameIndex("*"),
+            usernames::add);
+        return usernames;
+    }
+    
+    static List<String> keys(User user) {
+        return List.of(UserKeys.usernameIndex(user.getUsername()), UserKeys.user(user.getId()), UserKeys.KEYSPACE,
+            UserKeys.userIndexes(user.getId()));
+    }
+    
+    private List<String> args(User user) {
+        List<String> args = new ArrayList<>();
+        args.add(user.getId());
+        args.add(UserKeys.registrationsChannel());
+        args.add(user.getUsername());
+        fields(user).forEach((field, value) -> {
+            args.add(field);
+            args.add(value);
+        });
+        return args;
+    }
+    
+    /**
+     * The user's hash fields, as Spring Data writes them
+     */
+    private Map<String, String> fields(User user) {
+        RedisData data = new RedisData();
+        redisConverter.write(user, data);
+        return ReactiveEntityOperations.fields(data);
+    }
+    
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -1,6 +1,9 @@
 package com.taskmanager.repository;
 
+import com.taskmanager.config.CacheConfig;
 import com.taskmanager.model.User;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.data.repository.CrudRepository;
 import org.springframework.stereotype.Repository;
 
@@ -9,6 +12,8 @@ import java.util.Optional;
 /**
  * Repository interface for User entity
  * Provides CRUD operations for users in Redis
+ * Lookups by username are served from the near-cache when it is enabled;
+ * missing users are never cached, so new registrations are seen at once
  */
 @Repository
 public interface UserRepository extends CrudRepository<User, String> {
@@ -18,6 +23,7 @@ public interface UserRepository extends CrudRepository<User, String> {
      * @param username the username to search for
      * @return Optional containing the user if found
      */
+    @Cacheable(cacheNames = CacheConfig.USERS_CACHE, key = "#p0", unless = "#result == null")
     Optional<User> findByUsername(String username);
     
     /**
@@ -26,5 +32,12 @@ public interface UserRepository extends CrudRepository<User, String> {
      * @return true if username exists, false otherwise
      */
     boolean existsByUsername(String username);
+    
+    /**
+     * Save a user and evict it from the near-cache
+     */
+    @Override
+    @CacheEvict(cacheNames = CacheConfig.USERS_CACHE, key = "#p0.username")
+    <S extends User> S save(S user);
 }
 
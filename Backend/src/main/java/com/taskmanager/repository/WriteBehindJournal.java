@@ -0,0 +1,212 @@
+package com.taskmanager.repository;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only journal of write-behind task writes, kept in two memory-mapped files used in turn
+ * A record is copied straight into the mapping, then its length is set to commit it, so a process
+ * crash loses nothing once append returns; with forcing on, the record is also on disk by then.
+ * Rewriting copies only the records still needed into the other file under the next generation
+ * and switches to it once complete. Reading takes the file with the highest generation and stops
+ * at the first record that is missing or fails its checksum, so a torn write is never replayed.
+ * Not thread-safe; WriteBehindTaskStore serializes access
+ */
+final class WriteBehindJournal implements Closeable {
+    
+    private static final int MAGIC = 0x54574A31;
+    
+    /**
+     * Magic number and generation
+     */
+    private static final int HEADER_SIZE = 12;
+    
+    /**
+     * Payload length and CRC-32
+     */
+    private static final int RECORD_HEADER_SIZE = 8;
+    
+    private final FileChannel[] channels = new FileChannel[2];
+    
+    private final MappedByteBuffer[] buffers = new MappedByteBuffer[2];
+    
+    private final boolean force;
+    
+    private int active;
+    
+    private long generation;
+    
+    private volatile int position;
+    
+    /**
+     * @param size bytes mapped per file; an existing larger file is mapped whole
+     * @param force whether to flush every record to disk before append returns
+     */
+    WriteBehindJournal(Path directory, int size, boolean force) throws IOException {
+        this.force = force;
+        Files.createDirectories(directory);
+        for (int i = 0; i < 2; i++) {
+            channels[i] = FileChannel.open(directory.resolve("tasks-" + i + ".journal"),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            long mapped = Math.max(size, channels[i].size());
+            buffers[i] = channels[i].map(FileChannel.MapMode.READ_WRITE, 0, mapped);
+        }
+    }
+    
+    /**
+     * Read the records of the latest generation, after which new records are appended
+     */
+    List<byte[]> read() {
+        long first = generation(buffers[0]);
+        long second = generation(buffers[1]);
+        active = second > first ? 1 : 0;
+        MappedByteBuffer buffer = buffers[active];
+        if (Math.max(first, second) < 0) {
+            // Neither file has been written yet
+            generation = 0;
+            terminate(buffer, HEADER_SIZE);
+            writeHeader(buffer, generation);
+            position = HEADER_SIZE;
+            return new ArrayList<>();
+        }
+        generation = Math.max(first, second);
+        
+        List<byte[]> records = new ArrayList<>();
+        int offset = HEADER_SIZE;
+        while (offset + RECORD_HEADER_SIZE <= buffer.capacity()) {
+            int length = buffer.getInt(offset);
+            if (length <= 0 || length > buffer.capacity() - offset - RECORD_HEADER_SIZE) {
+                break;
+            }
+            byte[] payload = new byte[length];
+            buffer.get(offset + RECORD_HEADER_SIZE, payload);
+            if (checksum(payload) != buffer.getInt(offset + 4)) {
+                break;
+            }
+            records.add(payload);
+            offset += RECORD_HEADER_SIZE + length;
+        }
+        // Cut off a torn record, so it can never be taken for one written later
+        terminate(buffer, offset);
+        position = offset;
+        return records;
+    }
+    
+    /**
+     * Add a record
+     * @return false if it does not fit, leaving the journal as it was
+     */
+    boolean append(byte[] payload) {
+        MappedByteBuffer buffer = buffers[active];
+        int start = position;
+        int end = start + RECORD_HEADER_SIZE + payload.length;
+        if (end > buffer.capacity()) {
+            return false;
+        }
+        buffer.put(start + RECORD_HEADER_SIZE, payload);
+        buffer.putInt(start + 4, checksum(payload));
+        terminate(buffer, end);
+        buffer.putInt(start, payload.length);
+        if (force) {
+            buffer.force(start, Math.min(end + 4, buffer.capacity()) - start);
+        }
+        position = end;
+        return true;
+    }
+    
+    /**
+     * Replace every record with the given ones, written to the other file under the next generation
+     * @return false if they do not fit, leaving the journal as it was
+     */
+    boolean rewrite(List<byte[]> records) {
+        int next = 1 - active;
+        MappedByteBuffer buffer = buffers[next];
+        int end = HEADER_SIZE;
+        for (byte[] record : records) {
+            end += RECORD_HEADER_SIZE + record.length;
+        }
+        if (end > buffer.capacity()) {
+            return false;
+        }
+        
+        int offset = HEADER_SIZE;
+        for (byte[] record : records) {
+            buffer.putInt(offset, record.length);
+            buffer.putInt(offset + 4, checksum(record));
+            buffer.put(offset + RECORD_HEADER_SIZE, record);
+            offset += RECORD_HEADER_SIZE + record.length;
+        }
+        terminate(buffer, offset);
+        if (force) {
+            buffer.force(0, Math.min(offset + 4, buffer.capacity()));
+        }
+        // The header goes last: until it is written, reading still takes the current file
+        writeHeader(buffer, generation + 1);
+        
+        active = next;
+        generation++;
+        position = offset;
+        return true;
+    }
+    
+    /**
+     * Bytes in use, headers included
+     */
+    int size() {
+        return position;
+    }
+    
+    int capacity() {
+        return buffers[active].capacity();
+    }
+    
+    boolean isEmpty() {
+        return position == HEADER_SIZE;
+    }
+    
+    @Override
+    public void close() throws IOException {
+        for (int i = 0; i < 2; i++) {
+            buffers[i].force();
+            channels[i].close();
+        }
+    }
+    
+    private void writeHeader(MappedByteBuffer buffer, long headerGeneration) {
+        buffer.putInt(0, MAGIC);
+        buffer.putLong(4, headerGeneration);
+        if (force) {
+            buffer.force(0, HEADER_SIZE);
+        }
+    }
+    
+    /**
+     * Generation of a file, or -1 if it has never been written
+     */
+    private static long generation(MappedByteBuffer buffer) {
+        return buffer.capacity() >= HEADER_SIZE && buffer.getInt(0) == MAGIC ? buffer.getLong(4) : -1;
+    }
+    
+    /**
+     * Mark the end of the records, unless the file ends there anyway
+     */
+    private static void terminate(MappedByteBuffer buffer, int offset) {
+        if (offset + 4 <= buffer.capacity()) {
+            buffer.putInt(offset, 0);
+        }
+    }
+    
+    private static int checksum(byte[] payload) {
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+        return (int) crc.getValue();
+    }
+}
@@ -0,0 +1,689 @@
+package com.taskmanager.repository;
+
+import com.taskmanager.config.CacheConfig;
+import com.taskmanager.model.Task;
+import com.taskmanager.model.TaskStatus;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.annotation.Primary;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Repository;
+import org.springframework.util.unit.DataSize;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.function.UnaryOperator;
+
+/**
+ * Write-behind task storage in front of the packed task store
+ * Creates, updates and deletes are acknowledged once they are in the local journal, see
+ * WriteBehindJournal, and are kept in memory as each task's latest state, so repeated writes to a
+ * task coalesce into one. A background thread writes the pending tasks to Redis in pipelined
+ * batches: new tasks through the insert script, changed tasks as a replacement of the whole task
+ * guarded by the version Redis held before the first pending write, and deleted tasks through the
+ * delete script. Reads on this node see pending writes at once, other nodes once they are flushed;
+ * a pending write whose task was deleted, changed hands or was changed by another node meanwhile
+ * is dropped. Reads of the indexes, counters, sync log and user version flush the user's pending
+ * writes first, and bulk status updates and deletes flush the user's writes and then write through.
+ * The journal is compacted as soon as a flush is in Redis, so a restart replays only writes that
+ * were never flushed and cannot bring back a task deleted after its create was flushed
+ */
+@Repository
+@Primary
+@ConditionalOnProperty(name = WriteBehindTaskStore.ENABLED_PROPERTY, havingValue = "true")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class WriteBehindTaskStore implements TaskStore {
+    
+    static final String ENABLED_PROPERTY = "task-storage.write-behind.enabled";
+    
+    private static final int FLUSH_BATCH_SIZE = 500;
+    
+    private static final Duration MAX_RETRY_DELAY = Duration.ofSeconds(5);
+    
+    private static final Logger logger = LoggerFactory.getLogger(WriteBehindTaskStore.class);
+    
+    @Autowired(required = false)
+    private BinaryTaskStore binaryTaskStore;
+    
+    @Autowired
+    private CacheManager cacheManager;
+    
+    @Autowired
+    private MeterRegistry meterRegistry;
+    
+    @Value("${task-storage.write-behind.journal-dir:data/journal}")
+    private String journalDir;
+    
+    @Value("${task-storage.write-behind.journal-size:64MB}")
+    private DataSize journalSize;
+    
+    @Value("${task-storage.write-behind.fsync:true}")
+    private boolean fsync;
+    
+    @Value("${task-storage.write-behind.flush-interval:100ms}")
+    private Duration flushInterval;
+    
+    @Value("${task-storage.write-behind.max-pending:100000}")
+    private int maxPending;
+    
+    /**
+     * Latest unflushed state of each task, by task id
+     */
+    private final ConcurrentHashMap<String, Pending> pending = new ConcurrentHashMap<>();
+    
+    /**
+     * Number of pending tasks of each user with any; changed together with pending, under this
+     */
+    private final ConcurrentHashMap<String, Integer> pendingByUser = new ConcurrentHashMap<>();
+    
+    /**
+     * Actions waiting for the writes made before them to be flushed; guarded by this
+     */
+    private final List<Runnable> afterFlush = new ArrayList<>();
+    
+    /**
+     * Held for the whole of a flush, so flushes never overlap
+     */
+    private final Object flushLock = new Object();
+    
+    private WriteBehindJournal journal;
+    
+    private Counter coalescedCounter;
+    
+    private Counter writtenCounter;
+    
+    private Counter droppedCounter;
+    
+    private Timer flushTimer;
+    
+    /**
+     * Open the journal and take back the writes it holds that may not have been flushed
+     */
+    @PostConstruct
+    void open() throws IOException {
+        if (binaryTaskStore == null) {
+            throw new IllegalStateException(ENABLED_PROPERTY + " needs " + MODE_PROPERTY + "=" + BINARY_MODE
+                + " or " + SHARDED_MODE);
+        }
+        journal = new WriteBehindJournal(Path.of(journalDir), (int) journalSize.toBytes(), fsync);
+        for (byte[] record : journal.read()) {
+            putPending(Pending.decode(record));
+        }
+        if (!pending.isEmpty()) {
+            logger.info("Recovered {} task writes from the write-behind journal", pending.size());
+        }
+        registerMetrics();
+    }
+    
+    private void registerMetrics() {
+        Gauge.builder("taskmanager.write_behind.pending", pending, Map::size)
+            .description("Tasks with writes not yet flushed to Redis")
+            .register(meterRegistry);
+        Gauge.builder("taskmanager.write_behind.journal.bytes", this, store -> store.journal.size())
+            .description("Bytes in use in the write-behind journal")
+            .register(meterRegistry);
+        coalescedCounter = Counter.builder("taskmanager.write_behind.coalesced")
+            .description("Task writes merged into one already waiting to be flushed")
+            .register(meterRegistry);
+        writtenCounter = flushedCounter("written");
+        droppedCounter = flushedCounter("dropped");
+        flushTimer = Timer.builder("taskmanager.write_behind.flush")
+            .description("Time to flush pending task writes to Redis")
+            .register(meterRegistry);
+    }
+    
+    private Counter flushedCounter(String result) {
+        return Counter.builder("taskmanager.write_behind.flushed")
+            .description("Pending task writes flushed, or dropped because the task changed elsewhere")
+            .tag("result", result)
+            .register(meterRegistry);
+    }
+    
+    /**
+     * Start flushing in the background once the application is up
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void startFlushing() {
+        Thread flusher = new Thread(this::flushLoop, "task-write-behind");
+        flusher.setDaemon(true);
+        flusher.start();
+    }
+    
+    private void flushLoop() {
+        Duration delay = flushInterval;
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                Thread.sleep(delay.toMillis());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            try {
+                flush();
+                delay = flushInterval;
+            } catch (Exception e) {
+                delay = min(delay.multipliedBy(2), MAX_RETRY_DELAY);
+                logger.warn("Write-behind flush failed, {} task writes stay pending, retrying in {}: {}",
+                    pending.size(), delay, e.getMessage());
+            }
+        }
+    }
+    
+    /**
+     * Flush what is left on shutdown; anything that cannot be written stays in the journal for the next start
+     */
+    @PreDestroy
+    void close() throws IOException {
+        try {
+            flush();
+        } catch (Exception e) {
+            logger.warn("Could not flush {} task writes on shutdown, they are written after the next start: {}",
+                pending.size(), e.getMessage());
+        }
+        synchronized (this) {
+            journal.close();
+        }
+    }
+    
+    @Override
+    public Optional<Task> findById(String userId, String id) {
+        Pending entry = pending.get(id);
+        if (entry != null) {
+            return Optional.ofNullable(entry.task).map(WriteBehindTaskStore::copy);
+        }
+        return binaryTaskStore.findById(userId, id);
+    }
+    
+    @Override
+    public List<Task> findAllById(String userId, List<String> ids) {
+        List<Task> tasks = new ArrayList<>(ids.size());
+        List<String> stored = new ArrayList<>(ids.size());
+        for (String id : ids) {
+            Pending entry = pending.get(id);
+            if (entry == null) {
+                stored.add(id);
+            } else if (entry.task != null) {
+                tasks.add(copy(entry.task));
+            }
+        }
+        tasks.addAll(binaryTaskStore.findAllById(userId, stored));
+        return tasks;
+    }
+    
+    @Override
+    public List<Task> findByUserId(String userId) {
+        List<Task> tasks = new ArrayList<>();
+        forEachStored(userId, binaryTaskStore.findByUserId(userId), tasks::add);
+        return tasks;
+    }
+    
+    @Override
+    public Task insert(Task task) {
+        insertAll(task.getUserId(), List.of(task));
+        return task;
+    }
+    
+    @Override
+    public List<Task> insertAll(String userId, List<Task> tasks) {
+        if (tasks.isEmpty()) {
+            return tasks;
+        }
+        ensureCapacity();
+        synchronized (this) {
+            for (Task task : tasks) {
+                task.setId(UUID.randomUUID().toString());
+                record(new Pending(userId, task.getId(), copy(task), true, 0));
+            }
+        }
+        return tasks;
+    }
+    
+    @Override
+    public Optional<Task> update(String userId, String id, Map<String, String> fieldsToSet,
+                                 List<String> fieldsToRemove, Collection<Long> expectedVersions) {
+        return write(userId, id, expectedVersions, task -> {
+            Task updated = copy(task);
+            apply(updated, fieldsToSet, fieldsToRemove);
+            updated.setVersion(version(task) + 1);
+            return updated;
+        });
+    }
+    
+    @Override
+    public boolean delete(String userId, String id, Collection<Long> expectedVersions) {
+        return write(userId, id, expectedVersions, task -> null).isPresent();
+    }
+    
+    @Override
+    public List<String> updateAll(String userId, List<String> ids, Map<String, String> fieldsToSet) {
+        flush(userId);
+        return binaryTaskStore.updateAll(userId, ids, fieldsToSet);
+    }
+    
+    @Override
+    public List<String> deleteAll(String userId, List<String> ids) {
+        flush(userId);
+        return binaryTaskStore.deleteAll(userId, ids);
+    }
+    
+    @Override
+    public Optional<Long> findVersion(String userId, String id) {
+        Pending entry = pending.get(id);
+        if (entry != null) {
+            return entry.task != null && userId.equals(entry.task.getUserId())
+                ? Optional.of(version(entry.task))
+                : Optional.empty();
+        }
+        return binaryTaskStore.findVersion(userId, id);
+    }
+    
+    @Override
+    public List<String> findUserIds() {
+        Set<String> userIds = new LinkedHashSet<>(binaryTaskStore.findUserIds());
+        for (Pending entry : pending.values()) {
+            if (entry.task != null) {
+                userIds.add(entry.userId);
+            }
+        }
+        return new ArrayList<>(userIds);
+    }
+    
+    @Override
+    public void forEachTask(String userId, int batchSize, Consumer<Task> consumer) {
+        List<Task> stored = new ArrayList<>();
+        binaryTaskStore.forEachTask(userId, batchSize, stored::add);
+        forEachStored(userId, stored, consumer);
+    }
+    
+    /**
+     * Run the action after the next flush if any write is pending, otherwise at once
+     */
+    @Override
+    public void afterWrites(Runnable action) {
+        synchronized (this) {
+            if (!pending.isEmpty()) {
+                afterFlush.add(action);
+                return;
+            }
+        }
+        action.run();
+    }
+    
+    /**
+     * Flush the user's pending writes if there are any, so index reads such as listing pages, the
+     * user version and sync include the user's own writes without waiting on other users' writes
+     */
+    @Override
+    public void awaitWrites(String userId) {
+        if (pendingByUser.containsKey(userId)) {
+            flush(userId);
+        }
+    }
+    
+    /**
+     * Visit a user's stored tasks as changed by the pending writes, then the user's pending new tasks
+     */
+    private void forEachStored(String userId, List<Task> stored, Consumer<Task> consumer) {
+        Map<String, Pending> userPending = new LinkedHashMap<>();
+        for (Pending entry : pending.values()) {
+            if (entry.userId.equals(userId)) {
+                userPending.put(entry.id, entry);
+            }
+        }
+        for (Task task : stored) {
+            Pending entry = userPending.remove(task.getId());
+            if (entry == null) {
+                consumer.accept(task);
+            } else if (entry.task != null) {
+                consumer.accept(copy(entry.task));
+            }
+        }
+        for (Pending entry : userPending.values()) {
+            if (entry.task != null) {
+                consumer.accept(copy(entry.task));
+            }
+        }
+    }
+    
+    /**
+     * Change or delete a task owned by the user, starting from its pending state or, failing that, from Redis
+     * @param change new state of the task, or null to delete it
+     * @return the new state, or the deleted task; empty if it does not exist or belongs to another user
+     */
+    private Optional<Task> write(String userId, String id, Collection<Long> expectedVersions,
+                                 UnaryOperator<Task> change) {
+        ensureCapacity();
+        while (true) {
+            Pending seen = pending.get(id);
+            // Redis is read outside the lock; the state is used only if no write to the task came in meanwhile
+            Task stored = seen == null ? binaryTaskStore.findById(userId, id).orElse(null) : null;
+            synchronized (this) {
+                Pending current = pending.get(id);
+                if (current != seen) {
+                    continue;
+                }
+                Task task = current != null ? current.task : stored;
+                if (task == null || !userId.equals(task.getUserId())) {
+                    return Optional.empty();
+                }
+                if (expectedVersions != null && !expectedVersions.contains(version(task))) {
+                    throw TaskScriptRepository.versionMismatch(id);
+                }
+                Task changed = change.apply(task);
+                if (current != null) {
+                    record(new Pending(userId, id, changed, current.created, current.baseVersion));
+                    coalescedCounter.increment();
+                } else {
+                    record(new Pending(userId, id, changed, false, version(task)));
+                }
+                return Optional.of(changed != null ? copy(changed) : task);
+            }
+        }
+    }
+    
+    /**
+     * Journal a task's new pending state and make it the one reads see; the caller holds the lock
+     * @throws IllegalStateException if the journal is full even after dropping flushed records
+     */
+    private void record(Pending entry) {
+        byte[] encoded = entry.encode();
+        if (!journal.append(encoded)) {
+            compact();
+            if (!journal.append(encoded)) {
+                throw new IllegalStateException("Write-behind journal is full with " + pending.size()
+                    + " task writes waiting for Redis");
+            }
+        }
+        putPending(entry);
+    }
+    
+    private void putPending(Pending entry) {
+        if (pending.put(entry.id, entry) == null) {
+            pendingByUser.merge(entry.userId, 1, Integer::sum);
+        }
+    }
+    
+    /**
+     * Flush first when too many writes are pending or the journal is filling up, so a slow or
+     * unavailable Redis holds writers back instead of exhausting memory or the journal
+     */
+    private void ensureCapacity() {
+        if (pending.size() >= maxPending || journal.size() > journal.capacity() / 4 * 3) {
+            flush();
+        }
+    }
+    
+    /**
+     * Write every pending task to Redis, then run the actions waiting for it
+     * Pending states stay readable until written; writes made during the flush stay pending
+     * and are flushed on top of what this flush wrote
+     */
+    public void flush() {
+        flush(null);
+    }
+    
+    /**
+     * Write the pending tasks of one user, or of every user if null, to Redis
+     * Actions waiting for every earlier write run only after a flush of every user
+     */
+    private void flush(String userId) {
+        synchronized (flushLock) {
+            List<Pending> batch = new ArrayList<>();
+            List<Runnable> actions = new ArrayList<>();
+            synchronized (this) {
+                for (Pending entry : pending.values()) {
+                    if (userId == null || userId.equals(entry.userId)) {
+                        batch.add(entry);
+                    }
+                }
+                if (userId == null) {
+                    actions.addAll(afterFlush);
+                    afterFlush.clear();
+                }
+                if (batch.isEmpty() && actions.isEmpty()) {
+                    return;
+                }
+            }
+            
+            Timer.Sample sample = Timer.start(meterRegistry);
+            try {
+                writeToRedis(batch);
+            } catch (RuntimeException e) {
+                synchronized (this) {
+                    afterFlush.addAll(0, actions);
+                }
+                throw e;
+            } finally {
+                sample.stop(flushTimer);
+            }
+            
+            // Evict before retiring the pending states, so no read falls back to a cached state older than the flush
+            Cache cache = cacheManager.getCache(CacheConfig.TASKS_CACHE);
+            if (cache != null) {
+                batch.forEach(flushed -> cache.evict(flushed.id));
+            }
+            synchronized (this) {
+                for (Pending flushed : batch) {
+                    settle(flushed);
+                }
+                // Drop the flushed records now rather than when the journal fills up: replayed after a
+                // restart, a flushed create would bring back a task deleted since by a bulk delete or
+                // another node, neither of which is journaled
+                if (!batch.isEmpty()) {
+                    compact();
+                }
+            }
+            actions.forEach(Runnable::run);
+        }
+    }
+    
+    /**
+     * Write a batch of pending states: creates per user, replacements across users, deletes per user
+     */
+    private void writeToRedis(List<Pending> batch) {
+        Map<String, List<Task>> creates = new LinkedHashMap<>();
+        Map<String, List<String>> deletes = new LinkedHashMap<>();
+        List<Task> replacements = new ArrayList<>();
+        List<Long> expectedVersions = new ArrayList<>();
+        for (Pending entry : batch) {
+            if (entry.created && entry.task != null) {
+                creates.computeIfAbsent(entry.userId, userId -> new ArrayList<>()).add(copy(entry.task));
+            } else if (!entry.created && entry.task != null) {
+                replacements.add(entry.task);
+                expectedVersions.add(entry.baseVersion);
+            } else if (!entry.created) {
+                deletes.computeIfAbsent(entry.userId, userId -> new ArrayList<>()).add(entry.id);
+            }
+        }
+        
+        long written = batch.size() - replacements.size();
+        creates.forEach((userId, tasks) -> {
+            for (int from = 0; from < tasks.size(); from += FLUSH_BATCH_SIZE) {
+                binaryTaskStore.insertAll(userId,
+                    tasks.subList(from, Math.min(from + FLUSH_BATCH_SIZE, tasks.size())));
+            }
+        });
+        for (int from = 0; from < replacements.size(); from += FLUSH_BATCH_SIZE) {
+            int to = Math.min(from + FLUSH_BATCH_SIZE, replacements.size());
+            List<Task> chunk = replacements.subList(from, to);
+            List<String> replaced = binaryTaskStore.replaceAll(chunk, expectedVersions.subList(from, to));
+            written += replaced.size();
+            if (replaced.size() < chunk.size()) {
+                logger.warn("Dropped {} pending task writes, their tasks were deleted or changed on another node",
+                    chunk.size() - replaced.size());
+            }
+        }
+        deletes.forEach((userId, ids) -> {
+            for (int from = 0; from < ids.size(); from += FLUSH_BATCH_SIZE) {
+                binaryTaskStore.deleteAll(userId,
+                    ids.subList(from, Math.min(from + FLUSH_BATCH_SIZE, ids.size())));
+            }
+        });
+        writtenCounter.increment(written);
+        droppedCounter.increment(batch.size() - written);
+    }
+    
+    /**
+     * Retire a flushed state, or rebase a newer one on what the flush stored; the caller holds the lock
+     */
+    private void settle(Pending flushed) {
+        Pending current = pending.get(flushed.id);
+        if (current == flushed) {
+            pending.remove(flushed.id);
+            pendingByUser.computeIfPresent(flushed.userId, (userId, count) -> count > 1 ? count - 1 : null);
+        } else if (current != null && flushed.task != null) {
+            record(new Pending(current.userId, current.id, current.task, false, version(flushed.task)));
+        }
+    }
+    
+    /**
+     * Rewrite the journal with only the pending states; the caller holds the lock
+     */
+    private void compact() {
+        List<byte[]> records = new ArrayList<>(pending.size());
+        for (Pending entry : pending.values()) {
+            records.add(entry.encode());
+        }
+        if (!journal.rewrite(records)) {
+            logger.warn("Write-behind journal cannot be compacted, {} task writes are pending", pending.size());
+        }
+    }
+    
+    /**
+     * Set and remove task fields by the names the update scripts use
+     */
+    static void apply(Task task, Map<String, String> fieldsToSet, List<String> fieldsToRemove) {
+        fieldsToSet.forEach((field, value) -> setField(task, field, value));
+        fieldsToRemove.forEach(field -> setField(task, field, null));
+    }
+    
+    private static void setField(Task task, String field, String value) {
+        switch (field) {
+            case "title" -> task.setTitle(value);
+            case "description" -> task.setDescription(value);
+            case "status" -> task.setStatus(value != null ? TaskStatus.valueOf(value) : null);
+            case "updatedAt" -> task.setUpdatedAt(value != null ? Long.parseLong(value) : null);
+            default -> throw new IllegalArgumentException("Unknown task field: " + field);
+        }
+    }
+    
+    /**
+     * Copy of a task, so pending states are never shared with callers or the near-cache
+     */
+    static Task copy(Task task) {
+        Task copy = new Task(task.getTitle(), task.getDescription(), task.getStatus(), task.getUserId());
+        copy.setId(task.getId());
+        copy.setCreatedAt(task.getCreatedAt());
+        copy.setUpdatedAt(task.getUpdatedAt());
+        copy.setVersion(task.getVersion());
+        return copy;
+    }
+    
+    private static long version(Task task) {
+        return task.getVersion() != null ? task.getVersion() : 0L;
+    }
+    
+    private static Duration min(Duration a, Duration b) {
+        return a.compareTo(b) <= 0 ? a : b;
+    }
+    
+    /**
+     * Latest unflushed state of a task; replaced, never changed, on every write
+     */
+    static final class Pending {
+        
+        final String userId;
+        final String id;
+        
+        /**
+         * The task as it is to be stored, or null if it is to be deleted
+         */
+        final Task task;
+        
+        /**
+         * Whether the task is not in Redis yet
+         */
+        final boolean created;
+        
+        /**
+         * Version in Redis the pending state replaces; unused for created tasks
+         */
+        final long baseVersion;
+        
+        Pending(String userId, String id, Task task, boolean created, long baseVersion) {
+            this.userId = userId;
+            this.id = id;
+            this.task = task;
+            this.created = created;
+            this.baseVersion = baseVersion;
+        }
+        
+        byte[] encode() {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(128);
+            try (DataOutputStream out = new DataOutputStream(bytes)) {
+                out.writeUTF(userId);
+                out.writeUTF(id);
+                out.writeBoolean(created);
+                out.writeLong(baseVersion);
+                if (task != null) {
+                    byte[] packed = TaskBinaryCodec.encode(task);
+                    out.writeInt(packed.length);
+                    out.write(packed);
+                } else {
+                    out.writeInt(-1);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return bytes.toByteArray();
+        }
+        
+        static Pending decode(byte[] record) {
+            try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(record))) {
+                String userId = in.readUTF();
+                String id = in.readUTF();
+                boolean created = in.readBoolean();
+                long baseVersion = in.readLong();
+                int length = in.readInt();
+                Task task = null;
+                if (length >= 0) {
+                    byte[] packed = in.readNBytes(length);
+                    task = TaskBinaryCodec.decode(id, packed);
+                }
+                return new Pending(userId, id, task, created, baseVersion);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+}
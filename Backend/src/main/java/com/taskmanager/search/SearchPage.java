@@ -0,0 +1,30 @@
+package com.taskmanager.search;
+
+import java.util.List;
+
+/**
+ * One page of task search results, best match first
+ */
+public class SearchPage {
+    
+    static final SearchPage EMPTY = new SearchPage(List.of(), false);
+    
+    private final List<String> taskIds;
+    private final boolean hasMore;
+    
+    public SearchPage(List<String> taskIds, boolean hasMore) {
+        this.taskIds = taskIds;
+        this.hasMore = hasMore;
+    }
+    
+    public List<String> getTaskIds() {
+        return taskIds;
+    }
+    
+    /**
+     * Whether more matches follow this page
+     */
+    public boolean hasMore() {
+        return hasMore;
+    }
+}
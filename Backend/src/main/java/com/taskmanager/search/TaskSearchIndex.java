@@ -0,0 +1,237 @@
+package com.taskmanager.search;
+
+import com.taskmanager.dto.TaskEvent;
+import com.taskmanager.model.Task;
+import com.taskmanager.repository.TaskEventRepository;
+import com.taskmanager.repository.TaskStore;
+import com.taskmanager.service.TaskChangeFeed;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory full-text index over task titles and descriptions, one inverted index per user
+ * A user's index is built from Redis the first time it is searched, or for every user
+ * at startup, and then kept current by the task services on each create, update and delete.
+ * Writes made on other nodes reach it through the user's change stream: whenever a user id is
+ * announced on the events channel, the index applies the stream entries after the last one it
+ * applied, so a lost announcement only delays changes until the user's next one. An index that
+ * fell behind the stream's trimming is dropped and built again on the next search.
+ * Writes for users whose index is not built yet are skipped, since the build reads them from Redis
+ */
+@Component
+public class TaskSearchIndex implements MessageListener {
+    
+    private static final int LOAD_BATCH_SIZE = 500;
+    
+    private static final int EVENT_BATCH_SIZE = 100;
+    
+    private static final Logger logger = LoggerFactory.getLogger(TaskSearchIndex.class);
+    
+    @Autowired
+    private TaskStore taskStore;
+    
+    @Autowired
+    private TaskEventRepository taskEventRepository;
+    
+    @Autowired
+    private MeterRegistry meterRegistry;
+    
+    @Value("${search.rebuild-on-startup:true}")
+    private boolean rebuildOnStartup;
+    
+    private final ConcurrentHashMap<String, UserSearchIndex> indexes = new ConcurrentHashMap<>();
+    
+    @PostConstruct
+    void registerMetrics() {
+        Gauge.builder("taskmanager.search.users", indexes, ConcurrentHashMap::size)
+            .description("Users whose task search index is in memory")
+            .register(meterRegistry);
+    }
+    
+    /**
+     * Build every user's index in the background once the application is up
+     * Searches for a user not reached yet build that user's index on demand
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildOnStartup() {
+        if (!rebuildOnStartup) {
+            return;
+        }
+        Thread rebuild = new Thread(this::rebuildAll, "search-index-rebuild");
+        rebuild.setDaemon(true);
+        rebuild.start();
+    }
+    
+    private void rebuildAll() {
+        long start = System.nanoTime();
+        try {
+            List<String> userIds = taskStore.findUserIds();
+            long documents = 0;
+            for (String userId : userIds) {
+                documents += loadedIndex(userId).size();
+            }
+            logger.info("Built task search index for {} users and {} tasks in {} ms", userIds.size(), documents,
+                (System.nanoTime() - start) / 1_000_000);
+        } catch (Exception e) {
+            logger.warn("Task search index rebuild stopped, remaining users are indexed on first search: {}",
+                e.getMessage());
+        }
+    }
+    
+    /**
+     * Index a new or changed task
+     */
+    public void put(Task task) {
+        UserSearchIndex index = indexes.get(task.getUserId());
+        if (index == null) {
+            return;
+        }
+        synchronized (index) {
+            putTask(index, task);
+        }
+    }
+    
+    /**
+     * Index several new or changed tasks of one user
+     */
+    public void putAll(String userId, Collection<Task> tasks) {
+        UserSearchIndex index = indexes.get(userId);
+        if (index == null) {
+            return;
+        }
+        synchronized (index) {
+            tasks.forEach(task -> putTask(index, task));
+        }
+    }
+    
+    /**
+     * Drop deleted tasks from their owner's index
+     */
+    public void removeAll(String userId, Collection<String> taskIds) {
+        UserSearchIndex index = indexes.get(userId);
+        if (index == null) {
+            return;
+        }
+        synchronized (index) {
+            taskIds.forEach(index::remove);
+        }
+    }
+    
+    /**
+     * Apply the announced user's changes made on any node, if their index is built
+     */
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String userId = new String(message.getBody(), StandardCharsets.UTF_8);
+        try {
+            catchUp(userId);
+        } catch (Exception e) {
+            logger.warn("Could not apply task changes to search index of user: {}: {}", userId, e.getMessage());
+        }
+    }
+    
+    /**
+     * Apply the entries of a user's change stream after the last one the index has applied
+     */
+    void catchUp(String userId) {
+        UserSearchIndex index = indexes.get(userId);
+        if (index == null) {
+            return;
+        }
+        synchronized (index) {
+            if (!index.isLoaded()) {
+                return;
+            }
+            String cursor = index.getLastEventId();
+            String firstId = taskEventRepository.findFirstId(userId).block();
+            if (firstId != null && !TaskChangeFeed.STREAM_START.equals(cursor)
+                    && TaskChangeFeed.compareEventIds(cursor, firstId) < 0) {
+                // Entries after the cursor may have been trimmed unseen
+                indexes.remove(userId, index);
+                logger.info("Search index of user {} fell behind their change stream, rebuilding on next search",
+                    userId);
+                return;
+            }
+            List<TaskEvent> batch;
+            do {
+                batch = taskEventRepository.findAfter(userId, cursor, EVENT_BATCH_SIZE).collectList().block();
+                for (TaskEvent event : batch) {
+                    applyEvent(index, event);
+                    cursor = event.getId();
+                }
+            } while (batch.size() == EVENT_BATCH_SIZE);
+            index.setLastEventId(cursor);
+        }
+    }
+    
+    private static void applyEvent(UserSearchIndex index, TaskEvent event) {
+        switch (event.getType()) {
+            case CREATED, UPDATED -> {
+                if (event.getTask() != null) {
+                    putTask(index, event.getTask());
+                }
+            }
+            case DELETED -> index.remove(event.getTaskId());
+            default -> { }
+        }
+    }
+    
+    /**
+     * Find a user's tasks whose title or description contains every word of the query
+     * @param offset number of matches to skip
+     * @param limit maximum number of task ids to return
+     * @return matching task ids, best match first
+     * @throws IllegalArgumentException if the query has no words
+     */
+    public SearchPage search(String userId, String query, int offset, int limit) {
+        List<String> terms = TaskTokenizer.tokenize(query);
+        if (terms.isEmpty()) {
+            throw new IllegalArgumentException("Search query must contain at least one word");
+        }
+        UserSearchIndex index = loadedIndex(userId);
+        synchronized (index) {
+            return index.search(terms, offset, limit);
+        }
+    }
+    
+    /**
+     * Get a user's index, building it from Redis first if needed
+     * The index is registered before Redis is read, so writes made during the build
+     * wait for it and are applied on top; the change stream is then followed from where it
+     * stood before the read, so changes from other nodes during the build are applied too
+     */
+    private UserSearchIndex loadedIndex(String userId) {
+        UserSearchIndex index = indexes.computeIfAbsent(userId, id -> new UserSearchIndex());
+        synchronized (index) {
+            if (!index.isLoaded()) {
+                index.setLastEventId(taskEventRepository.findLatestId(userId)
+                    .defaultIfEmpty(TaskChangeFeed.STREAM_START)
+                    .block());
+                taskStore.forEachTask(userId, LOAD_BATCH_SIZE, task -> putTask(index, task));
+                index.trimToSize();
+                index.markLoaded();
+            }
+        }
+        return index;
+    }
+    
+    private static void putTask(UserSearchIndex index, Task task) {
+        index.put(task.getId(), task.getTitle(), task.getDescription(),
+            task.getUpdatedAt() != null ? task.getUpdatedAt() : 0L);
+    }
+}
@@ -0,0 +1,41 @@
+package com.taskmanager.search;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Splits task text into search terms
+ * A term is a run of letters or digits, lower-cased; longer runs are cut
+ * so a pasted blob cannot bloat the term dictionary
+ */
+public final class TaskTokenizer {
+    
+    static final int MAX_TERM_LENGTH = 32;
+    
+    private TaskTokenizer() {}
+    
+    /**
+     * Tokenize text into terms, in order of appearance and with repeats
+     * @return the terms, empty if the text is null or has no letters or digits
+     */
+    public static List<String> tokenize(String text) {
+        List<String> terms = new ArrayList<>();
+        if (text == null) {
+            return terms;
+        }
+        
+        int start = -1;
+        for (int i = 0; i <= text.length(); i++) {
+            boolean wordChar = i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+            if (wordChar && start < 0) {
+                start = i;
+            } else if (!wordChar && start >= 0) {
+                int end = Math.min(i, start + MAX_TERM_LENGTH);
+                terms.add(text.substring(start, end).toLowerCase(Locale.ROOT));
+                start = -1;
+            }
+        }
+        return terms;
+    }
+}
@@ -0,0 +1,397 @@
+package com.taskmanager.search;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Inverted index over one user's task titles and descriptions
+ * Every indexed task gets a dense document number, and every term maps to parallel
+ * int and short arrays of document numbers and term frequencies. Documents are only
+ * ever appended, so posting lists stay sorted without any work. An update or delete
+ * tombstones the old document; the arrays are compacted once tombstones outnumber
+ * live documents
+ * Not thread-safe, TaskSearchIndex locks around every call
+ */
+class UserSearchIndex {
+    
+    /**
+     * A title word counts as this many occurrences, so title matches rank first
+     */
+    private static final int TITLE_WEIGHT = 2;
+    
+    /**
+     * BM25 term frequency saturation and length normalization
+     */
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+    
+    private static final int MIN_TOMBSTONES_TO_COMPACT = 64;
+    
+    private final Map<String, Postings> postings = new HashMap<>();
+    
+    private final Map<String, Integer> documentsByTaskId = new HashMap<>();
+    
+    private String[] taskIds = new String[16];
+    
+    private int[] lengths = new int[16];
+    
+    /**
+     * Last update time of each document, breaking ties between equal scores
+     */
+    private long[] updatedAt = new long[16];
+    
+    private final BitSet deleted = new BitSet();
+    
+    private int documentCount;
+    
+    private int liveCount;
+    
+    private long liveLength;
+    
+    private boolean loaded;
+    
+    /**
+     * Id of the last entry of the user's change stream applied to this index
+     */
+    private String lastEventId;
+    
+    boolean isLoaded() {
+        return loaded;
+    }
+    
+    void markLoaded() {
+        loaded = true;
+    }
+    
+    String getLastEventId() {
+        return lastEventId;
+    }
+    
+    void setLastEventId(String lastEventId) {
+        this.lastEventId = lastEventId;
+    }
+    
+    /**
+     * Index a task, replacing any earlier version of it
+     */
+    void put(String taskId, String title, String description, long updatedAtMillis) {
+        remove(taskId);
+        
+        Map<String, int[]> frequencies = new HashMap<>();
+        int length = 0;
+        for (String term : TaskTokenizer.tokenize(title)) {
+            frequencies.computeIfAbsent(term, t -> new int[1])[0] += TITLE_WEIGHT;
+            length += TITLE_WEIGHT;
+        }
+        for (String term : TaskTokenizer.tokenize(description)) {
+            frequencies.computeIfAbsent(term, t -> new int[1])[0]++;
+            length++;
+        }
+        
+        int document = documentCount++;
+        if (document == taskIds.length) {
+            int capacity = taskIds.length * 2;
+            taskIds = Arrays.copyOf(taskIds, capacity);
+            lengths = Arrays.copyOf(lengths, capacity);
+            updatedAt = Arrays.copyOf(updatedAt, capacity);
+        }
+        taskIds[document] = taskId;
+        lengths[document] = length;
+        updatedAt[document] = updatedAtMillis;
+        documentsByTaskId.put(taskId, document);
+        liveCount++;
+        liveLength += length;
+        
+        for (Map.Entry<String, int[]> entry : frequencies.entrySet()) {
+            postings.computeIfAbsent(entry.getKey(), term -> new Postings()).add(document, entry.getValue()[0]);
+        }
+    }
+    
+    /**
+     * Drop a task from the index
+     */
+    void remove(String taskId) {
+        Integer document = documentsByTaskId.remove(taskId);
+        if (document == null) {
+            return;
+        }
+        deleted.set(document);
+        liveCount--;
+        liveLength -= lengths[document];
+        
+        int tombstones = documentCount - liveCount;
+        if (tombstones >= MIN_TOMBSTONES_TO_COMPACT && tombstones > liveCount) {
+            compact();
+        }
+    }
+    
+    /**
+     * Find the tasks containing every query term, best match first
+     * Scored with BM25; equal scores put the most recently updated task first
+     * @param terms query terms as produced by TaskTokenizer
+     * @param offset number of matches to skip
+     * @param limit maximum number of task ids to return
+     */
+    SearchPage search(List<String> terms, int offset, int limit) {
+        Set<String> uniqueTerms = new LinkedHashSet<>(terms);
+        if (uniqueTerms.isEmpty()) {
+            return SearchPage.EMPTY;
+        }
+        Postings[] lists = new Postings[uniqueTerms.size()];
+        int i = 0;
+        for (String term : uniqueTerms) {
+            Postings list = postings.get(term);
+            if (list == null) {
+                return SearchPage.EMPTY;
+            }
+            lists[i++] = list;
+        }
+        // Walk the rarest term's documents and look the others up from there
+        Arrays.sort(lists, (a, b) -> Integer.compare(a.size, b.size));
+        
+        double averageLength = liveCount > 0 ? Math.max(1.0, (double) liveLength / liveCount) : 1.0;
+        double[] idf = new double[lists.length];
+        for (int t = 0; t < lists.length; t++) {
+            idf[t] = Math.log(1 + (liveCount - lists[t].size + 0.5) / (lists[t].size + 0.5));
+        }
+        
+        TopMatches top = new TopMatches(offset + limit + 1);
+        int[] positions = new int[lists.length];
+        Postings rarest = lists[0];
+        candidates:
+        for (int p = 0; p < rarest.size; p++) {
+            int document = rarest.documents[p];
+            if (deleted.get(document)) {
+                continue;
+            }
+            double norm = K1 * (1 - B + B * lengths[document] / averageLength);
+            double score = idf[0] * termScore(rarest.frequencies[p], norm);
+            for (int t = 1; t < lists.length; t++) {
+                Postings list = lists[t];
+                int position = list.seek(document, positions[t]);
+                positions[t] = position;
+                if (position == list.size || list.documents[position] != document) {
+                    continue candidates;
+                }
+                score += idf[t] * termScore(list.frequencies[position], norm);
+            }
+            top.offer(document, score, updatedAt[document]);
+        }
+        
+        int[] ranked = top.drain();
+        int from = Math.min(offset, ranked.length);
+        int to = Math.min(offset + limit, ranked.length);
+        String[] ids = new String[to - from];
+        for (int r = from; r < to; r++) {
+            ids[r - from] = taskIds[ranked[r]];
+        }
+        return new SearchPage(List.of(ids), ranked.length > offset + limit);
+    }
+    
+    /**
+     * Shrink every array to its content, after a bulk load
+     */
+    void trimToSize() {
+        taskIds = Arrays.copyOf(taskIds, Math.max(16, documentCount));
+        lengths = Arrays.copyOf(lengths, taskIds.length);
+        updatedAt = Arrays.copyOf(updatedAt, taskIds.length);
+        for (Postings list : postings.values()) {
+            list.trimToSize();
+        }
+    }
+    
+    int size() {
+        return liveCount;
+    }
+    
+    private static double termScore(int frequency, double norm) {
+        return frequency * (K1 + 1) / (frequency + norm);
+    }
+    
+    /**
+     * Renumber the live documents densely and drop tombstones from every posting list
+     * Renumbering keeps document order, so the posting lists stay sorted
+     */
+    private void compact() {
+        int[] renumbered = new int[documentCount];
+        int next = 0;
+        for (int document = 0; document < documentCount; document++) {
+            if (deleted.get(document)) {
+                renumbered[document] = -1;
+                continue;
+            }
+            renumbered[document] = next;
+            taskIds[next] = taskIds[document];
+            lengths[next] = lengths[document];
+            updatedAt[next] = updatedAt[document];
+            documentsByTaskId.put(taskIds[next], next);
+            next++;
+        }
+        Arrays.fill(taskIds, next, documentCount, null);
+        documentCount = next;
+        deleted.clear();
+        
+        Iterator<Postings> lists = postings.values().iterator();
+        while (lists.hasNext()) {
+            Postings list = lists.next();
+            list.renumber(renumbered);
+            if (list.size == 0) {
+                lists.remove();
+            }
+        }
+    }
+    
+    /**
+     * Documents containing a term, in ascending order, with the term's frequency in each
+     */
+    private static final class Postings {
+        
+        private int[] documents = new int[2];
+        
+        private short[] frequencies = new short[2];
+        
+        private int size;
+        
+        void add(int document, int frequency) {
+            if (size == documents.length) {
+                documents = Arrays.copyOf(documents, size * 2);
+                frequencies = Arrays.copyOf(frequencies, size * 2);
+            }
+            documents[size] = document;
+            frequencies[size] = (short) Math.min(frequency, Short.MAX_VALUE);
+            size++;
+        }
+        
+        /**
+         * Position of the first document not below {@code document}, searching from {@code from}
+         * @return the position, or size if every remaining document is lower
+         */
+        int seek(int document, int from) {
+            int index = Arrays.binarySearch(documents, from, size, document);
+            return index >= 0 ? index : -index - 1;
+        }
+        
+        void renumber(int[] renumbered) {
+            int kept = 0;
+            for (int p = 0; p < size; p++) {
+                int document = renumbered[documents[p]];
+                if (document >= 0) {
+                    documents[kept] = document;
+                    frequencies[kept] = frequencies[p];
+                    kept++;
+                }
+            }
+            size = kept;
+            if (size < documents.length / 4) {
+                trimToSize();
+            }
+        }
+        
+        void trimToSize() {
+            documents = Arrays.copyOf(documents, Math.max(1, size));
+            frequencies = Arrays.copyOf(frequencies, documents.length);
+        }
+    }
+    
+    /**
+     * Bounded min-heap keeping the best {@code capacity} matches seen so far
+     */
+    private static final class TopMatches {
+        
+        private final int capacity;
+        
+        private int[] documents = new int[16];
+        
+        private double[] scores = new double[16];
+        
+        private long[] updatedAt = new long[16];
+        
+        private int size;
+        
+        TopMatches(int capacity) {
+            this.capacity = capacity;
+        }
+        
+        void offer(int document, double score, long updated) {
+            if (size < capacity) {
+                if (size == documents.length) {
+                    int grown = Math.min(capacity, size * 2);
+                    documents = Arrays.copyOf(documents, grown);
+                    scores = Arrays.copyOf(scores, grown);
+                    updatedAt = Arrays.copyOf(updatedAt, grown);
+                }
+                set(size, document, score, updated);
+                siftUp(size++);
+            } else if (worse(0, score, updated)) {
+                set(0, document, score, updated);
+                siftDown(0, size);
+            }
+        }
+        
+        /**
+         * Empty the heap
+         * @return the documents, best first
+         */
+        int[] drain() {
+            for (int end = size - 1; end > 0; end--) {
+                swap(0, end);
+                siftDown(0, end);
+            }
+            return Arrays.copyOf(documents, size);
+        }
+        
+        /**
+         * Whether the entry at {@code index} ranks below the given match
+         */
+        private boolean worse(int index, double score, long updated) {
+            return scores[index] < score || (scores[index] == score && updatedAt[index] < updated);
+        }
+        
+        private void siftUp(int index) {
+            while (index > 0) {
+                int parent = (index - 1) / 2;
+                if (!worse(index, scores[parent], updatedAt[parent])) {
+                    return;
+                }
+                swap(index, parent);
+                index = parent;
+            }
+        }
+        
+        private void siftDown(int index, int end) {
+            while (true) {
+                int smallest = index;
+                for (int child = 2 * index + 1; child <= 2 * index + 2 && child < end; child++) {
+                    if (worse(child, scores[smallest], updatedAt[smallest])) {
+                        smallest = child;
+                    }
+                }
+                if (smallest == index) {
+                    return;
+                }
+                swap(index, smallest);
+                index = smallest;
+            }
+        }
+        
+        private void set(int index, int document, double score, long updated) {
+            documents[index] = document;
+            scores[index] = score;
+            updatedAt[index] = updated;
+        }
+        
+        private void swap(int i, int j) {
+            int document = documents[i];
+            double score = scores[i];
+            long updated = updatedAt[i];
+            set(i, documents[j], scores[j], updatedAt[j]);
+            set(j, document, score, updated);
+        }
+    }
+}
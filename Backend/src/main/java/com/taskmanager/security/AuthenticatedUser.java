@@ -0,0 +1,42 @@
+package com.taskmanager.security;
+
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.userdetails.User;
+
+import java.util.Collection;
+import java.util.Collections;
+
+/**
+ * Security principal carrying the user id alongside the username
+ * Built straight from JWT claims on authenticated requests, so resolving
+ * the current user does not need a Redis lookup
+ */
+public class AuthenticatedUser extends User {
+    
+    private final String id;
+    
+    public AuthenticatedUser(String id, String username, String password,
+                             Collection<? extends GrantedAuthority> authorities) {
+        super(username, password, authorities);
+        this.id = id;
+    }
+    
+    /**
+     * Create a principal from verified token claims; no password is held
+     */
+    public static AuthenticatedUser fromToken(String id, String username) {
+        return new AuthenticatedUser(id, username, "", Collections.emptyList());
+    }
+    
+    public String getId() {
+        return id;
+    }
+    
+    @Override
+    public String toString() {
+        return "AuthenticatedUser{" +
+                "id='" + id + '\'' +
+                ", username='" + getUsername() + '\'' +
+                '}';
+    }
+}
@@ -2,34 +2,72 @@ package com.taskmanager.security;
 
 import com.taskmanager.model.User;
 import com.taskmanager.repository.UserRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
 
 import java.util.ArrayList;
+import java.util.Optional;
 
 /**
  * Custom UserDetailsService implementation
  * Loads user details from Redis for Spring Security
+ * Only used when logging in; authenticated requests build their principal from the token
+ * Lookup time is published as the taskmanager.user.resolve timer
+ * Also stores passwords Spring Security rehashes on login after the BCrypt cost changed
  */
 @Service
-public class CustomUserDetailsService implements UserDetailsService {
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class CustomUserDetailsService implements UserDetailsService, UserDetailsPasswordService {
     
     @Autowired
     private UserRepository userRepository;
     
+    @Autowired
+    private MeterRegistry meterRegistry;
+    
     @Override
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
-        User user = userRepository.findByUsername(username)
-            .orElseThrow(() -> new UsernameNotFoundException("User not found: " + username));
+        Timer.Sample sample = Timer.start(meterRegistry);
+        Optional<User> found = userRepository.findByUsername(username);
+        sample.stop(Timer.builder("taskmanager.user.resolve")
+            .description("Time to resolve a user by username when logging in")
+            .tag("outcome", found.isPresent() ? "found" : "not_found")
+            .register(meterRegistry));
         
-        return new org.springframework.security.core.userdetails.User(
+        User user = found.orElseThrow(() -> new UsernameNotFoundException("User not found: " + username));
+        
+        return new AuthenticatedUser(
+            user.getId(),
             user.getUsername(),
             user.getPassword(),
             new ArrayList<>() // Empty authorities list for simplicity
         );
     }
+    
+    /**
+     * Store a password rehashed at the configured cost
+     */
+    @Override
+    public UserDetails updatePassword(UserDetails userDetails, String newPassword) {
+        AuthenticatedUser authenticatedUser = (AuthenticatedUser) userDetails;
+        userRepository.findById(authenticatedUser.getId()).ifPresent(user -> {
+            user.setPassword(newPassword);
+            userRepository.save(user);
+        });
+        
+        return new AuthenticatedUser(
+            authenticatedUser.getId(),
+            authenticatedUser.getUsername(),
+            newPassword,
+            new ArrayList<>()
+        );
+    }
 }
 
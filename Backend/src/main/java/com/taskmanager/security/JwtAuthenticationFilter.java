@@ -1,10 +1,12 @@
 package com.taskmanager.security;
 
+import io.jsonwebtoken.Claims;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
@@ -18,8 +20,12 @@ import java.io.IOException;
 /**
  * JWT Authentication Filter
  * Intercepts requests and validates JWT tokens
+ * The principal is built from the signed user id and username claims;
+ * the user is only loaded from Redis for tokens that predate the user id claim
+ * Tokens of a revoked login session are ignored, so the request stays anonymous
  */
 @Component
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
     
     @Autowired
@@ -28,6 +34,9 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
     @Autowired
     private UserDetailsService userDetailsService;
     
+    @Autowired
+    private TokenRevocationService tokenRevocationService;
+    
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, 
                                   FilterChain filterChain) throws ServletException, IOException {
@@ -35,24 +44,36 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         final String requestTokenHeader = request.getHeader("Authorization");
         
         String username = null;
-        String jwtToken = null;
+        Claims claims = null;
         
         // JWT Token is in the form "Bearer token"
         if (requestTokenHeader != null && requestTokenHeader.startsWith("Bearer ")) {
-            jwtToken = requestTokenHeader.substring(7);
+            String jwtToken = requestTokenHeader.substring(7);
             try {
-                username = jwtUtil.extractUsername(jwtToken);
+                // Verified once per token lifetime; later requests hit the claims cache
+                claims = jwtUtil.extractAllClaims(jwtToken);
+                username = claims.getSubject();
             } catch (Exception e) {
                 logger.warn("Unable to get JWT Token or token has expired");
             }
+            
+            // A local filter lookup; Redis is only asked when the session might be revoked
+            String sessionId = claims != null ? jwtUtil.extractSessionId(claims) : null;
+            if (sessionId != null && tokenRevocationService.isRevoked(sessionId)) {
+                logger.warn("Rejected token of a revoked session");
+                username = null;
+            }
         }
         
         // Validate token and set authentication
         if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
             
-            UserDetails userDetails = this.userDetailsService.loadUserByUsername(username);
+            String userId = jwtUtil.extractUserId(claims);
+            UserDetails userDetails = userId != null
+                ? AuthenticatedUser.fromToken(userId, username)
+                : this.userDetailsService.loadUserByUsername(username);
             
-            if (jwtUtil.validateToken(jwtToken, userDetails.getUsername())) {
+            if (jwtUtil.isValid(claims, userDetails.getUsername())) {
                 UsernamePasswordAuthenticationToken authToken = 
                     new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities());
                 authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
@@ -0,0 +1,93 @@
+package com.taskmanager.security;
+
+import io.jsonwebtoken.Claims;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.ReactiveSecurityContextHolder;
+import org.springframework.security.core.userdetails.ReactiveUserDetailsService;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+import reactor.util.context.Context;
+
+/**
+ * Reactive JWT authentication filter
+ * Counterpart of JwtAuthenticationFilter for the reactive stack: validates the
+ * bearer token and puts the principal built from its claims into the reactive
+ * security context. Registered in the security filter chain only, so it is not a bean
+ * Tokens of a revoked login session are ignored, so the request stays anonymous
+ */
+public class JwtAuthenticationWebFilter implements WebFilter {
+    
+    private static final Logger logger = LoggerFactory.getLogger(JwtAuthenticationWebFilter.class);
+    
+    private final JwtUtil jwtUtil;
+    
+    private final ReactiveUserDetailsService userDetailsService;
+    
+    private final TokenRevocationService tokenRevocationService;
+    
+    public JwtAuthenticationWebFilter(JwtUtil jwtUtil, ReactiveUserDetailsService userDetailsService,
+                                      TokenRevocationService tokenRevocationService) {
+        this.jwtUtil = jwtUtil;
+        this.userDetailsService = userDetailsService;
+        this.tokenRevocationService = tokenRevocationService;
+    }
+    
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        final String requestTokenHeader = exchange.getRequest().getHeaders().getFirst(HttpHeaders.AUTHORIZATION);
+        
+        // JWT Token is in the form "Bearer token"
+        if (requestTokenHeader == null || !requestTokenHeader.startsWith("Bearer ")) {
+            return chain.filter(exchange);
+        }
+        
+        Claims claims;
+        try {
+            // Verified once per token lifetime; later requests hit the claims cache
+            claims = jwtUtil.extractAllClaims(requestTokenHeader.substring(7));
+        } catch (Exception e) {
+            logger.warn("Unable to get JWT Token or token has expired");
+            return chain.filter(exchange);
+        }
+        if (claims.getSubject() == null) {
+            return chain.filter(exchange);
+        }
+        
+        // A local filter lookup; Redis is only asked when the session might be revoked
+        String sessionId = jwtUtil.extractSessionId(claims);
+        Mono<Boolean> revoked = sessionId != null
+            ? tokenRevocationService.isRevokedReactive(sessionId)
+            : Mono.just(false);
+        
+        return revoked
+            .flatMap(isRevoked -> {
+                if (isRevoked) {
+                    logger.warn("Rejected token of a revoked session");
+                    return Mono.empty();
+                }
+                return loadUser(claims);
+            })
+            .filter(userDetails -> jwtUtil.isValid(claims, userDetails.getUsername()))
+            .map(userDetails -> ReactiveSecurityContextHolder.withAuthentication(
+                new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities())))
+            .defaultIfEmpty(Context.empty())
+            .flatMap(securityContext -> chain.filter(exchange).contextWrite(securityContext));
+    }
+    
+    /**
+     * Principal for the token; the user is only loaded for tokens that predate the user id claim
+     */
+    private Mono<UserDetails> loadUser(Claims claims) {
+        String userId = jwtUtil.extractUserId(claims);
+        if (userId != null) {
+            return Mono.just(AuthenticatedUser.fromToken(userId, claims.getSubject()));
+        }
+        return userDetailsService.findByUsername(claims.getSubject());
+    }
+}
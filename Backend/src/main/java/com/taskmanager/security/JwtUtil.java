@@ -1,41 +1,110 @@
 package com.taskmanager.security;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import javax.crypto.SecretKey;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
 import java.util.Date;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Function;
 
 /**
  * JWT utility class for token generation and validation
+ * Verified claims are cached by token digest until the token expires,
+ * so each token's signature is checked once rather than on every request
+ * Verification time and claims cache hit ratio are published as metrics
+ * Tokens are short-lived and carry the id of the login session they belong to,
+ * so a logout can revoke them before they expire
  */
 @Component
 public class JwtUtil {
     
+    /**
+     * Claim holding the user id, so requests can be authenticated without loading the user
+     */
+    public static final String USER_ID_CLAIM = "uid";
+    
+    /**
+     * Claim holding the login session id, shared by every token refreshed from the same login
+     */
+    public static final String SESSION_ID_CLAIM = "sid";
+    
     @Value("${jwt.secret}")
     private String secret;
     
     @Value("${jwt.expiration}")
     private Long expiration;
     
-    private SecretKey getSigningKey() {
-        return Keys.hmacShaKeyFor(secret.getBytes());
+    @Value("${jwt.claims-cache.max-size:10000}")
+    private long claimsCacheMaxSize;
+    
+    @Autowired
+    private MeterRegistry meterRegistry;
+    
+    private SecretKey signingKey;
+    
+    private JwtParser jwtParser;
+    
+    private Cache<String, Claims> verifiedClaims;
+    
+    private Timer verifySuccessTimer;
+    
+    private Timer verifyFailureTimer;
+    
+    @PostConstruct
+    void init() {
+        signingKey = Keys.hmacShaKeyFor(secret.getBytes());
+        jwtParser = Jwts.parser()
+                .verifyWith(signingKey)
+                .build();
+        verifiedClaims = Caffeine.newBuilder()
+                .maximumSize(claimsCacheMaxSize)
+                .expireAfter(new ClaimsExpiry())
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, verifiedClaims, "jwtClaims");
+        verifySuccessTimer = verifyTimer("valid");
+        verifyFailureTimer = verifyTimer("invalid");
+    }
+    
+    private Timer verifyTimer(String outcome) {
+        return Timer.builder("taskmanager.jwt.verify")
+                .description("Time to parse a token and verify its signature on a claims cache miss")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
     }
     
     /**
      * Generate JWT token for user
+     * @param sessionId login session the token belongs to
      */
-    public String generateToken(String username) {
+    public String generateToken(String userId, String username, String sessionId) {
         return Jwts.builder()
                 .setSubject(username)
+                .claim(USER_ID_CLAIM, userId)
+                .claim(SESSION_ID_CLAIM, sessionId)
                 .setIssuedAt(new Date())
                 .setExpiration(new Date(System.currentTimeMillis() + expiration))
-                .signWith(getSigningKey(), SignatureAlgorithm.HS256)
+                .signWith(signingKey, SignatureAlgorithm.HS256)
                 .compact();
     }
     
@@ -46,6 +115,43 @@ public class JwtUtil {
         return extractClaim(token, Claims::getSubject);
     }
     
+    /**
+     * Extract user id from claims
+     * @return the user id, or null for tokens minted without one
+     */
+    public String extractUserId(Claims claims) {
+        return claims.get(USER_ID_CLAIM, String.class);
+    }
+    
+    /**
+     * Extract login session id from claims
+     * @return the session id, or null for tokens minted without one
+     */
+    public String extractSessionId(Claims claims) {
+        return claims.get(SESSION_ID_CLAIM, String.class);
+    }
+    
+    /**
+     * Extract login session id from a token that may have expired; the signature is still verified
+     * @return the session id, or null if the token is invalid or has none
+     */
+    public String extractSessionIdIgnoringExpiry(String token) {
+        try {
+            return extractSessionId(extractAllClaims(token));
+        } catch (ExpiredJwtException e) {
+            return extractSessionId(e.getClaims());
+        } catch (JwtException | IllegalArgumentException e) {
+            return null;
+        }
+    }
+    
+    /**
+     * Lifetime of a new token in milliseconds
+     */
+    public long getExpiration() {
+        return expiration;
+    }
+    
     /**
      * Extract expiration date from token
      */
@@ -63,27 +169,85 @@ public class JwtUtil {
     
     /**
      * Extract all claims from token
+     * The signature is verified on first use; later calls for the same token are served from the cache
      */
-    private Claims extractAllClaims(String token) {
-        return Jwts.parser()
-                .verifyWith(getSigningKey())
-                .build()
-                .parseSignedClaims(token)
-                .getPayload();
+    public Claims extractAllClaims(String token) {
+        String digest = digest(token);
+        Claims claims = verifiedClaims.getIfPresent(digest);
+        if (claims == null) {
+            long start = System.nanoTime();
+            try {
+                claims = jwtParser.parseSignedClaims(token).getPayload();
+            } catch (RuntimeException e) {
+                verifyFailureTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                throw e;
+            }
+            verifySuccessTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            verifiedClaims.put(digest, claims);
+        }
+        return claims;
     }
     
     /**
      * Check if token is expired
      */
     public Boolean isTokenExpired(String token) {
-        return extractExpiration(token).before(new Date());
+        return isExpired(extractAllClaims(token));
     }
     
     /**
      * Validate token against username and expiration
      */
     public Boolean validateToken(String token, String username) {
-        final String tokenUsername = extractUsername(token);
-        return (tokenUsername.equals(username) && !isTokenExpired(token));
+        return isValid(extractAllClaims(token), username);
+    }
+    
+    /**
+     * Validate already extracted claims against username and expiration
+     */
+    public boolean isValid(Claims claims, String username) {
+        return claims.getSubject().equals(username) && !isExpired(claims);
+    }
+    
+    private boolean isExpired(Claims claims) {
+        return claims.getExpiration().before(new Date());
+    }
+    
+    /**
+     * Cache key for a token; the raw token is never kept in memory
+     */
+    private static String digest(String token) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().encodeToString(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+    
+    /**
+     * Expires cached claims together with the token they came from
+     */
+    private static class ClaimsExpiry implements Expiry<String, Claims> {
+        
+        @Override
+        public long expireAfterCreate(String key, Claims claims, long currentTime) {
+            Date expiresAt = claims.getExpiration();
+            if (expiresAt == null) {
+                return 0;
+            }
+            long remainingMillis = expiresAt.getTime() - System.currentTimeMillis();
+            return TimeUnit.MILLISECONDS.toNanos(Math.max(0, remainingMillis));
+        }
+        
+        @Override
+        public long expireAfterUpdate(String key, Claims claims, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+        
+        @Override
+        public long expireAfterRead(String key, Claims claims, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
     }
 }
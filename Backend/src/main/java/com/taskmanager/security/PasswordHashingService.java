@@ -0,0 +1,124 @@
+package com.taskmanager.security;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Bounded worker pool for password hashing and verification
+ * BCrypt is CPU bound and deliberately slow, so it runs on a fixed number of threads
+ * instead of the request threads; once the queue is full further work is rejected at once
+ * with a RejectedExecutionException, which the auth controllers turn into a 503
+ */
+@Service
+public class PasswordHashingService {
+    
+    @Value("${password-hashing.threads:0}")
+    private int threads;
+    
+    @Value("${password-hashing.queue-capacity:64}")
+    private int queueCapacity;
+    
+    @Autowired
+    private MeterRegistry meterRegistry;
+    
+    private ThreadPoolExecutor executor;
+    
+    private Scheduler scheduler;
+    
+    private Counter rejections;
+    
+    @PostConstruct
+    void init() {
+        rejections = Counter.builder("taskmanager.password.hashing.rejected")
+                .description("Password hashing requests rejected because the queue was full")
+                .register(meterRegistry);
+        
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        executor = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), new HashingThreadFactory(),
+                (task, pool) -> {
+                    rejections.increment();
+                    throw new RejectedExecutionException("Password hashing queue is full");
+                });
+        scheduler = Schedulers.fromExecutorService(executor, "password-hashing");
+        Gauge.builder("taskmanager.password.hashing.queued", executor, pool -> pool.getQueue().size())
+                .description("Password hashing requests waiting for a worker")
+                .register(meterRegistry);
+        Gauge.builder("taskmanager.password.hashing.active", executor, ThreadPoolExecutor::getActiveCount)
+                .description("Workers currently hashing")
+                .register(meterRegistry);
+    }
+    
+    @PreDestroy
+    void shutdown() {
+        scheduler.dispose();
+        executor.shutdown();
+    }
+    
+    /**
+     * Run hashing work on the pool
+     * @return a future completed with the result, or failed with RejectedExecutionException when saturated
+     */
+    public <T> CompletableFuture<T> submit(Supplier<T> work) {
+        try {
+            return CompletableFuture.supplyAsync(work, executor);
+        } catch (RejectedExecutionException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+    
+    /**
+     * Scheduler backed by the same pool, for the reactive stack
+     * Work scheduled while the pool is saturated fails with a RejectedExecutionException
+     */
+    public Scheduler scheduler() {
+        return scheduler;
+    }
+    
+    /**
+     * Unwrap the exception a hashing future or publisher failed with
+     * @return true if the work was rejected because the pool was saturated
+     */
+    public static boolean isRejection(Throwable error) {
+        Throwable cause = error;
+        while (cause != null) {
+            if (cause instanceof RejectedExecutionException) {
+                return true;
+            }
+            cause = cause.getCause();
+        }
+        return false;
+    }
+    
+    /**
+     * Names the worker threads so they are easy to spot in thread dumps
+     */
+    private static class HashingThreadFactory implements ThreadFactory {
+        
+        private final AtomicInteger count = new AtomicInteger();
+        
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "password-hashing-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
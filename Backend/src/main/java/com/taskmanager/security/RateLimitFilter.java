@@ -0,0 +1,67 @@
+package com.taskmanager.security;
+
+import com.taskmanager.ratelimit.RateLimiter;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.PathContainer;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Rate Limiting Filter
+ * Runs right after JwtAuthenticationFilter, so authenticated requests are limited per user
+ * and anonymous ones per client address. Rejected requests get a 429 with Retry-After,
+ * written here without throwing
+ */
+@Component
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class RateLimitFilter extends OncePerRequestFilter {
+    
+    static final byte[] REJECTED_BODY = "{\"message\":\"Too many requests\"}".getBytes(StandardCharsets.UTF_8);
+    
+    @Autowired
+    private RateLimiter rateLimiter;
+    
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                  FilterChain filterChain) throws ServletException, IOException {
+        
+        long retryAfterMillis = rateLimiter.tryAcquire(request.getMethod(),
+            PathContainer.parsePath(request.getRequestURI()), userId(), request.getRemoteAddr());
+        if (retryAfterMillis != RateLimiter.ADMITTED) {
+            response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+            response.setHeader(HttpHeaders.RETRY_AFTER, Long.toString(retryAfterSeconds(retryAfterMillis)));
+            response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+            response.getOutputStream().write(REJECTED_BODY);
+            return;
+        }
+        
+        filterChain.doFilter(request, response);
+    }
+    
+    private static String userId() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        return authentication != null && authentication.getPrincipal() instanceof AuthenticatedUser user
+            ? user.getId()
+            : null;
+    }
+    
+    /**
+     * Whole seconds for the Retry-After header, rounded up
+     */
+    static long retryAfterSeconds(long retryAfterMillis) {
+        return (retryAfterMillis + 999) / 1000;
+    }
+}
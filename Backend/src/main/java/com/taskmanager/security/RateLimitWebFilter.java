@@ -0,0 +1,58 @@
+package com.taskmanager.security;
+
+import com.taskmanager.ratelimit.RateLimiter;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.security.core.context.ReactiveSecurityContextHolder;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+
+import java.net.InetSocketAddress;
+
+/**
+ * Reactive rate limiting filter
+ * Counterpart of RateLimitFilter for the reactive stack, placed right after
+ * JwtAuthenticationWebFilter. Registered in the security filter chain only, so it is not a bean
+ */
+public class RateLimitWebFilter implements WebFilter {
+    
+    private final RateLimiter rateLimiter;
+    
+    public RateLimitWebFilter(RateLimiter rateLimiter) {
+        this.rateLimiter = rateLimiter;
+    }
+    
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        return ReactiveSecurityContextHolder.getContext()
+            .map(context -> context.getAuthentication() != null
+                && context.getAuthentication().getPrincipal() instanceof AuthenticatedUser user
+                ? user.getId()
+                : "")
+            .defaultIfEmpty("")
+            .flatMap(userId -> {
+                ServerHttpRequest request = exchange.getRequest();
+                InetSocketAddress remoteAddress = request.getRemoteAddress();
+                long retryAfterMillis = rateLimiter.tryAcquire(request.getMethod().name(),
+                    request.getPath().pathWithinApplication(), userId.isEmpty() ? null : userId,
+                    remoteAddress != null ? remoteAddress.getAddress().getHostAddress() : null);
+                if (retryAfterMillis != RateLimiter.ADMITTED) {
+                    return reject(exchange.getResponse(), retryAfterMillis);
+                }
+                return chain.filter(exchange);
+            });
+    }
+    
+    private static Mono<Void> reject(ServerHttpResponse response, long retryAfterMillis) {
+        response.setStatusCode(HttpStatus.TOO_MANY_REQUESTS);
+        response.getHeaders().set(HttpHeaders.RETRY_AFTER,
+            Long.toString(RateLimitFilter.retryAfterSeconds(retryAfterMillis)));
+        response.getHeaders().setContentType(MediaType.APPLICATION_JSON);
+        return response.writeWith(Mono.just(response.bufferFactory().wrap(RateLimitFilter.REJECTED_BODY)));
+    }
+}
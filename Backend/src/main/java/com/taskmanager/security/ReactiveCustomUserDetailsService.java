@@ -0,0 +1,52 @@
+package com.taskmanager.security;
+
+import com.taskmanager.repository.ReactiveUserRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.security.core.userdetails.ReactiveUserDetailsPasswordService;
+import org.springframework.security.core.userdetails.ReactiveUserDetailsService;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+
+/**
+ * Reactive UserDetailsService implementation
+ * Loads user details from Redis without blocking for the reactive stack
+ * Only used when logging in; authenticated requests build their principal from the token
+ * Also stores passwords rehashed on login after the BCrypt cost changed
+ */
+@Service
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveCustomUserDetailsService implements ReactiveUserDetailsService, ReactiveUserDetailsPasswordService {
+    
+    @Autowired
+    private ReactiveUserRepository userRepository;
+    
+    @Override
+    public Mono<UserDetails> findByUsername(String username) {
+        return userRepository.findByUsername(username)
+            .map(user -> new AuthenticatedUser(
+                user.getId(),
+                user.getUsername(),
+                user.getPassword(),
+                new ArrayList<>() // Empty authorities list for simplicity
+            ));
+    }
+    
+    /**
+     * Store a password rehashed at the configured cost
+     */
+    @Override
+    public Mono<UserDetails> updatePassword(UserDetails userDetails, String newPassword) {
+        AuthenticatedUser authenticatedUser = (AuthenticatedUser) userDetails;
+        return userRepository.updatePassword(authenticatedUser.getId(), newPassword)
+            .thenReturn(new AuthenticatedUser(
+                authenticatedUser.getId(),
+                authenticatedUser.getUsername(),
+                newPassword,
+                new ArrayList<>()
+            ));
+    }
+}
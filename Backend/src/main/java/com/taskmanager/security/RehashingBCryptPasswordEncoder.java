@@ -0,0 +1,32 @@
+package com.taskmanager.security;
+
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * BCryptPasswordEncoder that asks for a rehash whenever a stored hash was made with a different cost
+ * The stock encoder only upgrades weaker hashes; this one also applies a lowered cost,
+ * so every user ends up on the configured cost after their next login
+ */
+public class RehashingBCryptPasswordEncoder extends BCryptPasswordEncoder {
+    
+    private static final Pattern COST = Pattern.compile("^\\$2[aby]?\\$(\\d\\d)\\$");
+    
+    private final int strength;
+    
+    public RehashingBCryptPasswordEncoder(int strength) {
+        super(strength);
+        this.strength = strength;
+    }
+    
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        if (encodedPassword == null) {
+            return false;
+        }
+        Matcher matcher = COST.matcher(encodedPassword);
+        return matcher.find() && Integer.parseInt(matcher.group(1)) != strength;
+    }
+}
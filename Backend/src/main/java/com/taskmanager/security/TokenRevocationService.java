@@ -0,0 +1,143 @@
+package com.taskmanager.security;
+
+import com.taskmanager.repository.RevokedSessionRepository;
+import com.taskmanager.util.RebuildingBloomFilter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+
+/**
+ * Denylist of revoked login sessions, checked on every authenticated request
+ * Each node keeps the revoked session ids in a Bloom filter, filled from Redis and from the
+ * revocation channel, so the check for a token that was never revoked is a few memory reads.
+ * Only a possible match is confirmed against Redis, which turns false positives back into
+ * accepted requests. The filter is rebuilt from Redis on a slow timer, which drops sessions
+ * whose tokens have all expired and picks up any announcement this node missed
+ */
+@Service
+public class TokenRevocationService implements MessageListener {
+    
+    @Autowired
+    private RevokedSessionRepository revokedSessionRepository;
+    
+    @Autowired
+    private JwtUtil jwtUtil;
+    
+    @Autowired
+    private MeterRegistry meterRegistry;
+    
+    @Value("${jwt.refresh-expiration:14d}")
+    private Duration refreshExpiration;
+    
+    @Value("${token-revocation.expected-sessions:100000}")
+    private long expectedSessions;
+    
+    @Value("${token-revocation.false-positive-rate:0.001}")
+    private double falsePositiveRate;
+    
+    @Value("${token-revocation.rebuild-interval:5m}")
+    private Duration rebuildInterval;
+    
+    /**
+     * Filter checked on the request path; until first loaded, every check goes to Redis
+     */
+    private RebuildingBloomFilter revoked;
+    
+    private Counter confirmedCounter;
+    
+    private Counter falsePositiveCounter;
+    
+    @PostConstruct
+    void init() {
+        revoked = new RebuildingBloomFilter("Revoked session", revokedSessionRepository::findRevoked,
+            expectedSessions, falsePositiveRate, rebuildInterval);
+        confirmedCounter = lookupCounter("revoked");
+        falsePositiveCounter = lookupCounter("false_positive");
+        Gauge.builder("taskmanager.token_revocation.filter.bits", revoked, RebuildingBloomFilter::bitSize)
+            .description("Size of the revoked session filter")
+            .register(meterRegistry);
+    }
+    
+    private Counter lookupCounter(String result) {
+        return Counter.builder("taskmanager.token_revocation.lookups")
+            .description("Revoked session filter matches confirmed against Redis")
+            .tag("result", result)
+            .register(meterRegistry);
+    }
+    
+    /**
+     * Load the filter, then keep rebuilding it in the background
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void startRebuilding() {
+        revoked.start();
+    }
+    
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        revoked.put(new String(message.getBody(), StandardCharsets.UTF_8));
+    }
+    
+    /**
+     * Revoke a session on every node, rejecting its access and refresh tokens
+     * The entry is kept until every token the session could still hold has expired
+     */
+    public void revoke(String sessionId) {
+        revokedSessionRepository.revoke(sessionId, revokedUntil());
+        revoked.put(sessionId);
+    }
+    
+    /**
+     * Non-blocking {@link #revoke}
+     */
+    public Mono<Void> revokeReactive(String sessionId) {
+        return revokedSessionRepository.revokeReactive(sessionId, revokedUntil())
+            .doOnSuccess(done -> revoked.put(sessionId));
+    }
+    
+    private long revokedUntil() {
+        return System.currentTimeMillis() + Math.max(jwtUtil.getExpiration(), refreshExpiration.toMillis());
+    }
+    
+    /**
+     * Whether a session may be revoked, from the local filter alone
+     * False means certainly not revoked; true needs confirming
+     */
+    public boolean mightBeRevoked(String sessionId) {
+        return revoked.mightContain(sessionId);
+    }
+    
+    /**
+     * Whether a session is revoked, going to Redis only when the filter matches
+     */
+    public boolean isRevoked(String sessionId) {
+        return mightBeRevoked(sessionId) && count(revokedSessionRepository.isRevoked(sessionId));
+    }
+    
+    /**
+     * Non-blocking {@link #isRevoked}
+     */
+    public Mono<Boolean> isRevokedReactive(String sessionId) {
+        if (!mightBeRevoked(sessionId)) {
+            return Mono.just(false);
+        }
+        return revokedSessionRepository.isRevokedReactive(sessionId).map(this::count);
+    }
+    
+    private boolean count(boolean confirmed) {
+        (confirmed ? confirmedCounter : falsePositiveCounter).increment();
+        return confirmed;
+    }
+}
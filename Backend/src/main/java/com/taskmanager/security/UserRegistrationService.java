@@ -0,0 +1,151 @@
+package com.taskmanager.security;
+
+import com.taskmanager.model.User;
+import com.taskmanager.repository.UserRegistrationRepository;
+import com.taskmanager.util.RebuildingBloomFilter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+
+/**
+ * Registers users and checks whether usernames are taken
+ * Each node keeps every registered username in a Bloom filter, filled from Redis and from the
+ * registrations channel, so the check before hashing a new user's password answers "available"
+ * for a fresh username from memory alone. Only a possible match is confirmed against Redis.
+ * The check is an early answer, not a guarantee: registration itself reserves the username
+ * atomically in Redis, which settles any race between nodes
+ */
+@Service
+public class UserRegistrationService implements MessageListener {
+    
+    @Autowired
+    private UserRegistrationRepository userRegistrationRepository;
+    
+    @Autowired
+    private MeterRegistry meterRegistry;
+    
+    @Value("${user-registration.expected-users:1000000}")
+    private long expectedUsers;
+    
+    @Value("${user-registration.false-positive-rate:0.01}")
+    private double falsePositiveRate;
+    
+    @Value("${user-registration.rebuild-interval:1h}")
+    private Duration rebuildInterval;
+    
+    /**
+     * Filter checked before registering; until first loaded, every check goes to Redis
+     */
+    private RebuildingBloomFilter usernames;
+    
+    private Counter availableCounter;
+    
+    private Counter takenCounter;
+    
+    private Counter falsePositiveCounter;
+    
+    @PostConstruct
+    void init() {
+        usernames = new RebuildingBloomFilter("Username", userRegistrationRepository::findUsernames, expectedUsers,
+            falsePositiveRate, rebuildInterval);
+        availableCounter = checkCounter("available");
+        takenCounter = checkCounter("taken");
+        falsePositiveCounter = checkCounter("false_positive");
+        Gauge.builder("taskmanager.user_registration.filter.bits", usernames, RebuildingBloomFilter::bitSize)
+            .description("Size of the registered username filter")
+            .register(meterRegistry);
+    }
+    
+    private Counter checkCounter(String result) {
+        return Counter.builder("taskmanager.user_registration.checks")
+            .description("Username checks, answered from the local filter or confirmed against Redis")
+            .tag("result", result)
+            .register(meterRegistry);
+    }
+    
+    /**
+     * Load the filter, then keep rebuilding it in the background
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void startRebuilding() {
+        usernames.start();
+    }
+    
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        usernames.put(new String(message.getBody(), StandardCharsets.UTF_8));
+    }
+    
+    /**
+     * Whether a username may be taken, from the local filter alone
+     * False means certainly available as far as this node has heard; true needs confirming
+     */
+    public boolean mightBeTaken(String username) {
+        return usernames.mightContain(username);
+    }
+    
+    /**
+     * Whether a username is taken, going to Redis only when the filter matches
+     */
+    public boolean isTaken(String username) {
+        if (!mightBeTaken(username)) {
+            availableCounter.increment();
+            return false;
+        }
+        return count(userRegistrationRepository.exists(username));
+    }
+    
+    /**
+     * Non-blocking {@link #isTaken}
+     */
+    public Mono<Boolean> isTakenReactive(String username) {
+        if (!mightBeTaken(username)) {
+            availableCounter.increment();
+            return Mono.just(false);
+        }
+        return userRegistrationRepository.existsReactive(username).map(this::count);
+    }
+    
+    private boolean count(boolean taken) {
+        (taken ? takenCounter : falsePositiveCounter).increment();
+        return taken;
+    }
+    
+    /**
+     * Create a user in a single Redis round trip, unless the username is taken
+     * @return the new user, or null if the username is taken
+     */
+    public User register(String username, String encodedPassword) {
+        User user = new User(username, encodedPassword);
+        if (!userRegistrationRepository.register(user)) {
+            return null;
+        }
+        usernames.put(username);
+        return user;
+    }
+    
+    /**
+     * Non-blocking {@link #register}, empty if the username is taken
+     */
+    public Mono<User> registerReactive(String username, String encodedPassword) {
+        User user = new User(username, encodedPassword);
+        return userRegistrationRepository.registerReactive(user)
+            .filter(created -> created)
+            .map(created -> {
+                usernames.put(username);
+                return user;
+            });
+    }
+}
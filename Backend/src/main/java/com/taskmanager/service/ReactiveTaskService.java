@@ -0,0 +1,450 @@
+package com.taskmanager.service;
+
+import com.taskmanager.dto.TaskEvent;
+import com.taskmanager.dto.TaskPageResponse;
+import com.taskmanager.dto.TaskStatsResponse;
+import com.taskmanager.dto.TaskSyncResponse;
+import com.taskmanager.model.Task;
+import com.taskmanager.model.TaskStatus;
+import com.taskmanager.repository.ReactiveTaskRepository;
+import com.taskmanager.repository.TaskIndexRepository;
+import com.taskmanager.repository.TaskIndexRepository.IndexEntry;
+import com.taskmanager.search.TaskSearchIndex;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Non-blocking counterpart of TaskService for the reactive stack
+ * Same index upkeep, paging and ownership-checked scripts, returning
+ * publishers so no event-loop thread ever waits on Redis. Search index
+ * calls, which may build a user's index from Redis, run on boundedElastic
+ */
+@Service
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveTaskService {
+    
+    /**
+     * Redis commands in flight per request when reading or writing many tasks;
+     * Lettuce pipelines them on the shared connection
+     */
+    private static final int CONCURRENCY = 64;
+    
+    private static final Logger logger = LoggerFactory.getLogger(ReactiveTaskService.class);
+    
+    @Autowired
+    private ReactiveTaskRepository taskRepository;
+    
+    @Autowired
+    private TaskSearchIndex taskSearchIndex;
+    
+    @Value("${tasks.bulk.max-items:10000}")
+    private int bulkMaxItems;
+    
+    /**
+     * Users whose index has already been checked for tasks that predate it
+     */
+    private final Set<String> backfilledUsers = ConcurrentHashMap.newKeySet();
+    
+    /**
+     * Save a new task and append it to its owner's indexes
+     */
+    public Mono<Task> createTask(Task task) {
+        return ensureBackfilled(task.getUserId())
+            .then(Mono.defer(() -> {
+                long now = System.currentTimeMillis();
+                task.setCreatedAt(now);
+                task.setUpdatedAt(now);
+                task.setVersion(1L);
+                return taskRepository.create(task);
+            }))
+            .flatMap(savedTask -> updateSearchIndex(() -> taskSearchIndex.put(savedTask))
+                .then(publishEvents(savedTask.getUserId(), List.of(TaskEvent.created(savedTask))))
+                .thenReturn(savedTask));
+    }
+    
+    /**
+     * Get a task owned by the user
+     */
+    public Mono<Task> getTask(String userId, String id) {
+        return taskRepository.findById(userId, id).filter(task -> userId.equals(task.getUserId()));
+    }
+    
+    /**
+     * Get all tasks of a user, in no particular order
+     */
+    public Flux<Task> getAllTasks(String userId) {
+        return taskRepository.findByUserId(userId);
+    }
+    
+    /**
+     * Get the version of a task owned by the user without loading it
+     * @return the version, or empty if the task does not exist or belongs to another user
+     */
+    public Mono<Long> getTaskVersion(String userId, String id) {
+        return taskRepository.findTaskVersion(userId, id);
+    }
+    
+    /**
+     * Get the version of a user's tasks as a whole, which every task creation, write and delete advances
+     */
+    public Mono<Long> getUserVersion(String userId) {
+        return taskRepository.findUserVersion(userId);
+    }
+    
+    /**
+     * Replace a task's title and description, and its status when one is given
+     * @param expectedVersions only update the task if its version is one of these, or null for any version
+     * @return the updated task, or empty if it does not exist or belongs to another user; fails with
+     *         OptimisticLockingFailureException if the task's version is not expected
+     */
+    public Mono<Task> updateTask(String userId, String id, String title, String description, TaskStatus status,
+                                 Collection<Long> expectedVersions) {
+        Map<String, String> fieldsToSet = new LinkedHashMap<>();
+        List<String> fieldsToRemove = new ArrayList<>();
+        fieldsToSet.put(TaskService.TITLE_FIELD, title);
+        if (description != null) {
+            fieldsToSet.put(TaskService.DESCRIPTION_FIELD, description);
+        } else {
+            fieldsToRemove.add(TaskService.DESCRIPTION_FIELD);
+        }
+        if (status != null) {
+            fieldsToSet.put(TaskService.STATUS_FIELD, status.name());
+        }
+        return applyUpdate(userId, id, fieldsToSet, fieldsToRemove, expectedVersions);
+    }
+    
+    /**
+     * Change only the given fields of a task; null arguments leave the field as it is
+     * @param expectedVersions only update the task if its version is one of these, or null for any version
+     * @return the updated task, or empty if it does not exist or belongs to another user; fails with
+     *         OptimisticLockingFailureException if the task's version is not expected
+     */
+    public Mono<Task> patchTask(String userId, String id, String title, String description, TaskStatus status,
+                                Collection<Long> expectedVersions) {
+        Map<String, String> fieldsToSet = new LinkedHashMap<>();
+        if (title != null) {
+            fieldsToSet.put(TaskService.TITLE_FIELD, title);
+        }
+        if (description != null) {
+            fieldsToSet.put(TaskService.DESCRIPTION_FIELD, description);
+        }
+        if (status != null) {
+            fieldsToSet.put(TaskService.STATUS_FIELD, status.name());
+        }
+        return applyUpdate(userId, id, fieldsToSet, List.of(), expectedVersions);
+    }
+    
+    /**
+     * Delete a task owned by the user and drop it from every index
+     * @param expectedVersions only delete the task if its version is one of these, or null for any version
+     * @return true if the task was deleted, false if it does not exist or belongs to another user; fails with
+     *         OptimisticLockingFailureException if the task's version is not expected
+     */
+    public Mono<Boolean> deleteTask(String userId, String id, Collection<Long> expectedVersions) {
+        return ensureBackfilled(userId)
+            .then(taskRepository.delete(userId, id, expectedVersions))
+            .flatMap(deleted -> deleted
+                ? updateSearchIndex(() -> taskSearchIndex.removeAll(userId, List.of(id)))
+                    .then(publishEvents(userId, List.of(TaskEvent.deleted(id))))
+                    .thenReturn(true)
+                : Mono.just(false));
+    }
+    
+    /**
+     * Save several new tasks for a user and append them to the indexes in the given order
+     * @return the saved tasks, in the given order
+     * @throws IllegalArgumentException if the batch is larger than allowed
+     */
+    public Mono<List<Task>> createTasks(String userId, List<Task> tasks) {
+        return checkBulkSize(tasks.size())
+            .then(ensureBackfilled(userId))
+            .then(Mono.defer(() -> {
+                long now = System.currentTimeMillis();
+                for (Task task : tasks) {
+                    task.setCreatedAt(now);
+                    task.setUpdatedAt(now);
+                    task.setVersion(1L);
+                }
+                return taskRepository.createAll(userId, tasks);
+            }))
+            .flatMap(savedTasks -> updateSearchIndex(() -> taskSearchIndex.putAll(userId, savedTasks))
+                .then(publishEvents(userId, savedTasks.stream().map(TaskEvent::created).toList()))
+                .thenReturn(savedTasks));
+    }
+    
+    /**
+     * Set the status of several of a user's tasks
+     * @return ids of the updated tasks; the others do not exist or belong to another user
+     * @throws IllegalArgumentException if the batch is larger than allowed
+     */
+    public Mono<List<String>> updateStatus(String userId, Collection<String> taskIds, TaskStatus status) {
+        return uniqueIds(taskIds)
+            .collectList()
+            .flatMapMany(ids -> ensureBackfilled(userId).thenMany(Flux.fromIterable(ids)))
+            .flatMapSequential(id -> taskRepository.update(userId, id, statusFields(status), List.of(), null)
+                    .map(Task::getId),
+                CONCURRENCY)
+            .collectList()
+            .flatMap(updatedIds -> publishEvents(userId,
+                    updatedIds.stream().map(id -> TaskEvent.statusChanged(id, status)).toList())
+                .thenReturn(updatedIds));
+    }
+    
+    /**
+     * Delete several of a user's tasks and drop them from the index
+     * @return ids of the deleted tasks; the others do not exist or belong to another user
+     * @throws IllegalArgumentException if the batch is larger than allowed
+     */
+    public Mono<List<String>> deleteTasks(String userId, Collection<String> taskIds) {
+        return uniqueIds(taskIds)
+            .collectList()
+            .flatMapMany(ids -> ensureBackfilled(userId).thenMany(Flux.fromIterable(ids)))
+            .flatMapSequential(id -> taskRepository.delete(userId, id, null)
+                    .filter(Boolean::booleanValue).map(deleted -> id),
+                CONCURRENCY)
+            .collectList()
+            .flatMap(deletedIds -> updateSearchIndex(() -> taskSearchIndex.removeAll(userId, deletedIds))
+                .then(publishEvents(userId, deletedIds.stream().map(TaskEvent::deleted).toList()))
+                .thenReturn(deletedIds));
+    }
+    
+    /**
+     * Get one page of a user's tasks in creation order
+     * @param cursor opaque cursor from a previous page, or null for the first page
+     * @param limit maximum number of tasks to return
+     * @throws IllegalArgumentException if the cursor is malformed
+     */
+    public Mono<TaskPageResponse> getTaskPage(String userId, String cursor, int limit) {
+        return getTaskPage(userId, null, null, null, cursor, limit);
+    }
+    
+    /**
+     * Get one page of a user's tasks, optionally filtered by status
+     * @param status only return tasks with this status, or null for all
+     * @param sort createdAt (the default) or updatedAt
+     * @param order asc (the default) or desc
+     * @param cursor opaque cursor from a previous page of the same query, or null for the first page
+     * @param limit maximum number of tasks to return
+     * @throws IllegalArgumentException if the sort, order or cursor is invalid
+     */
+    public Mono<TaskPageResponse> getTaskPage(String userId, TaskStatus status, String sort, String order,
+                                              String cursor, int limit) {
+        int pageSize = Math.max(1, Math.min(limit, TaskService.MAX_PAGE_SIZE));
+        return Mono.defer(() -> {
+                String indexKey = TaskIndexRepository.indexKey(userId, status, TaskService.sortsByUpdate(sort));
+                boolean descending = TaskService.isDescending(order);
+                long afterSequence = TaskService.decodeCursor(cursor);
+                return ensureBackfilled(userId)
+                    .then(taskRepository.find(indexKey, afterSequence, descending, pageSize).collectList());
+            })
+            .flatMap(entries -> loadTasks(userId, entries).collectList()
+                .map(tasks -> new TaskPageResponse(tasks, entries.size() < pageSize
+                    ? null
+                    : TaskService.encodeCursor(entries.get(entries.size() - 1).getSequence()))));
+    }
+    
+    /**
+     * Stream every task of a user in creation order
+     * The next {@code batchSize} tasks are only read from Redis once the subscriber
+     * has requested them, so a slow client holds at most one batch in memory
+     */
+    public Flux<Task> streamTasks(String userId, int batchSize) {
+        return ensureBackfilled(userId)
+            .then(findEntries(userId, 0, batchSize))
+            .expand(entries -> entries.size() < batchSize
+                ? Mono.empty()
+                : findEntries(userId, entries.get(entries.size() - 1).getSequence(), batchSize))
+            .concatMap(entries -> loadTasks(userId, entries), 1);
+    }
+    
+    /**
+     * Count a user's tasks per status from the maintained counters, without reading any task
+     */
+    public Mono<TaskStatsResponse> getStats(String userId) {
+        return ensureBackfilled(userId)
+            .then(taskRepository.countByStatus(userId))
+            .map(TaskStatsResponse::new);
+    }
+    
+    /**
+     * Search a user's task titles and descriptions for every word of the query
+     * @param cursor opaque cursor from a previous page of the same search, or null for the first page
+     * @param limit maximum number of tasks to return
+     * @return one page of matching tasks, best match first
+     * @throws IllegalArgumentException if the query has no words or the cursor is malformed
+     */
+    public Mono<TaskPageResponse> searchTasks(String userId, String query, String cursor, int limit) {
+        int pageSize = Math.max(1, Math.min(limit, TaskService.MAX_PAGE_SIZE));
+        return Mono.fromCallable(() -> {
+                long offset = TaskService.decodeCursor(cursor);
+                if (offset > TaskService.MAX_SEARCH_OFFSET) {
+                    throw new IllegalArgumentException("Invalid cursor");
+                }
+                return offset;
+            })
+            .flatMap(offset -> Mono.fromCallable(() -> taskSearchIndex.search(userId, query, offset.intValue(), pageSize))
+                .subscribeOn(Schedulers.boundedElastic())
+                .flatMap(page -> Flux.fromIterable(page.getTaskIds())
+                    .flatMapSequential(id -> getTask(userId, id), CONCURRENCY)
+                    .collectList()
+                    .map(tasks -> new TaskPageResponse(tasks,
+                        page.hasMore() ? TaskService.encodeCursor(offset + pageSize) : null))));
+    }
+    
+    /**
+     * Get the tasks written and deleted since a sync token, oldest change first
+     * @param syncToken token from the previous sync, or null for a first sync, which lists every task
+     * @param limit maximum number of changes to return
+     * @throws IllegalArgumentException if the sync token is malformed
+     */
+    public Mono<TaskSyncResponse> syncTasks(String userId, String syncToken, int limit) {
+        int pageSize = Math.max(1, Math.min(limit, TaskService.MAX_PAGE_SIZE));
+        return Mono.fromCallable(() -> TaskService.decodeSyncToken(syncToken))
+            .flatMap(afterSequence -> ensureBackfilled(userId)
+                .then(taskRepository.findChanges(userId, afterSequence, pageSize)))
+            .flatMap(changes -> {
+                long upTo = TaskService.syncedUpTo(changes, pageSize);
+                List<String> deletedIds = new ArrayList<>();
+                for (IndexEntry entry : changes.getDeleted()) {
+                    if (entry.getSequence() <= upTo) {
+                        deletedIds.add(entry.getTaskId());
+                    }
+                }
+                // Tasks deleted since the log was read are skipped here and reported by the next sync
+                return Flux.fromIterable(changes.getWritten())
+                    .filter(entry -> entry.getSequence() <= upTo)
+                    .flatMapSequential(entry -> getTask(userId, entry.getTaskId()), CONCURRENCY)
+                    .collectList()
+                    .map(tasks -> new TaskSyncResponse(tasks, deletedIds, TaskService.encodeCursor(upTo),
+                        upTo < changes.getVersion(), changes.isReset()));
+            });
+    }
+    
+    private Mono<List<IndexEntry>> findEntries(String userId, long afterSequence, int limit) {
+        return taskRepository.findAfter(userId, afterSequence, limit).collectList();
+    }
+    
+    /**
+     * Load the tasks referenced by index entries, keeping index order
+     * Entries whose task no longer exists are removed from the index
+     */
+    private Flux<Task> loadTasks(String userId, List<IndexEntry> entries) {
+        if (entries.isEmpty()) {
+            return Flux.empty();
+        }
+        return Flux.fromIterable(entries)
+            .flatMapSequential(entry -> taskRepository.findById(userId, entry.getTaskId())
+                .filter(task -> userId.equals(task.getUserId()))
+                .map(Optional::of)
+                .defaultIfEmpty(Optional.empty()), CONCURRENCY)
+            .collectList()
+            .flatMapMany(loaded -> {
+                List<Task> tasks = new ArrayList<>(loaded.size());
+                List<String> staleIds = new ArrayList<>();
+                for (int i = 0; i < loaded.size(); i++) {
+                    if (loaded.get(i).isPresent()) {
+                        tasks.add(loaded.get(i).get());
+                    } else {
+                        staleIds.add(entries.get(i).getTaskId());
+                    }
+                }
+                if (staleIds.isEmpty()) {
+                    return Flux.fromIterable(tasks);
+                }
+                logger.warn("Removing {} stale entries from task index of user: {}", staleIds.size(), userId);
+                return taskRepository.removeAllFromIndex(userId, staleIds).thenMany(Flux.fromIterable(tasks));
+            });
+    }
+    
+    /**
+     * Run an ownership-checked update, stamping the task's last update time
+     */
+    private Mono<Task> applyUpdate(String userId, String id, Map<String, String> fieldsToSet,
+                                   List<String> fieldsToRemove, Collection<Long> expectedVersions) {
+        return ensureBackfilled(userId).then(Mono.defer(() -> {
+            fieldsToSet.put(TaskService.UPDATED_AT_FIELD, Long.toString(System.currentTimeMillis()));
+            return taskRepository.update(userId, id, fieldsToSet, fieldsToRemove, expectedVersions);
+        }))
+            .flatMap(task -> updateSearchIndex(() -> taskSearchIndex.put(task))
+                .then(publishEvents(userId, List.of(TaskEvent.updated(task))))
+                .thenReturn(task));
+    }
+    
+    /**
+     * Apply a change to the search index off the event loop, since it may wait for the index to be built
+     */
+    private Mono<Void> updateSearchIndex(Runnable change) {
+        return Mono.fromRunnable(change).subscribeOn(Schedulers.boundedElastic()).then();
+    }
+    
+    /**
+     * Append change events to the user's feed
+     * The write itself has already succeeded, so a failure here is logged rather than
+     * failing the request; clients following the feed miss the change until they reload
+     */
+    private Mono<Void> publishEvents(String userId, List<TaskEvent> events) {
+        return taskRepository.publishEvents(userId, events)
+            .onErrorResume(e -> {
+                logger.warn("Could not publish {} task events for user: {}", events.size(), userId, e);
+                return Mono.empty();
+            });
+    }
+    
+    /**
+     * Fields set by a bulk status change, stamped with the time of this write
+     */
+    private static Map<String, String> statusFields(TaskStatus status) {
+        return Map.of(TaskService.STATUS_FIELD, status.name(),
+            TaskService.UPDATED_AT_FIELD, Long.toString(System.currentTimeMillis()));
+    }
+    
+    /**
+     * Check the size of a bulk request and drop duplicate ids, keeping request order
+     */
+    private Flux<String> uniqueIds(Collection<String> taskIds) {
+        return checkBulkSize(taskIds.size())
+            .thenMany(Flux.defer(() -> Flux.fromIterable(new LinkedHashSet<>(taskIds))));
+    }
+    
+    private Mono<Void> checkBulkSize(int size) {
+        if (size > bulkMaxItems) {
+            return Mono.error(new IllegalArgumentException("Too many items in bulk request, maximum is " + bulkMaxItems));
+        }
+        return Mono.empty();
+    }
+    
+    /**
+     * Index tasks created before the sorted, status and last-write indexes existed, once per user per process
+     * Runs before any write so the status counters never miss a task
+     */
+    private Mono<Void> ensureBackfilled(String userId) {
+        if (backfilledUsers.contains(userId)) {
+            return Mono.empty();
+        }
+        return taskRepository.backfill(userId)
+            .doOnNext(added -> {
+                if (added > 0) {
+                    logger.info("Backfilled {} tasks into task index of user: {}", added, userId);
+                }
+                backfilledUsers.add(userId);
+            })
+            .then();
+    }
+}
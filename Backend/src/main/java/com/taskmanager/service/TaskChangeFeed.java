@@ -0,0 +1,131 @@
+package com.taskmanager.service;
+
+import com.taskmanager.dto.TaskEvent;
+import com.taskmanager.repository.TaskEventRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.regex.Pattern;
+
+/**
+ * Live feed of a user's task changes, read from their Redis Stream
+ * Each open feed reads the stream after the last entry it delivered whenever the
+ * user's id is announced on the events channel, and on a slow poll in case an
+ * announcement is lost, so clients get every change once and in order
+ */
+@Service
+public class TaskChangeFeed implements MessageListener {
+    
+    private static final int READ_BATCH_SIZE = 100;
+    
+    public static final String STREAM_START = "0-0";
+    
+    private static final Pattern EVENT_ID = Pattern.compile("\\d{1,19}(-\\d{1,19})?");
+    
+    @Autowired
+    private TaskEventRepository taskEventRepository;
+    
+    @Value("${task-events.poll-interval:30s}")
+    private Duration pollInterval;
+    
+    /**
+     * User ids announced on the events channel, shared by every open feed
+     */
+    private final Sinks.Many<String> announcements = Sinks.many().multicast().directBestEffort();
+    
+    @Override
+    public synchronized void onMessage(Message message, byte[] pattern) {
+        announcements.tryEmitNext(new String(message.getBody(), StandardCharsets.UTF_8));
+    }
+    
+    /**
+     * Follow a user's task changes
+     * @param lastEventId id of the last event the client has seen, or null to start with the next change.
+     *                    If events after it have already been trimmed, the feed starts with a RESET event
+     * @throws IllegalArgumentException if the event id is malformed
+     */
+    public Flux<TaskEvent> follow(String userId, String lastEventId) {
+        if (lastEventId != null && !isValidEventId(lastEventId)) {
+            return Flux.error(new IllegalArgumentException("Invalid event id"));
+        }
+        return Flux.defer(() -> {
+            AtomicReference<String> cursor = new AtomicReference<>();
+            // The first trigger catches up on anything written while the feed was starting
+            Flux<String> triggers = Flux.merge(
+                    Mono.just(userId),
+                    announcements.asFlux().filter(userId::equals),
+                    Flux.interval(pollInterval).map(tick -> userId))
+                .onBackpressureLatest();
+            return start(userId, lastEventId, cursor)
+                .concatWith(triggers.concatMap(trigger -> readAfterCursor(userId, cursor), 1));
+        });
+    }
+    
+    /**
+     * Position the cursor, replacing a resume point that has been trimmed away with a RESET event
+     */
+    private Flux<TaskEvent> start(String userId, String lastEventId, AtomicReference<String> cursor) {
+        if (lastEventId == null) {
+            return taskEventRepository.findLatestId(userId)
+                .defaultIfEmpty(STREAM_START)
+                .doOnNext(cursor::set)
+                .thenMany(Flux.empty());
+        }
+        return taskEventRepository.findFirstId(userId)
+            .filter(firstId -> compareEventIds(lastEventId, firstId) < 0)
+            .flatMap(firstId -> taskEventRepository.findLatestId(userId))
+            .map(latestId -> {
+                cursor.set(latestId);
+                return TaskEvent.reset(latestId);
+            })
+            .switchIfEmpty(Mono.fromRunnable(() -> cursor.set(lastEventId)))
+            .flux();
+    }
+    
+    /**
+     * Read every event after the cursor, a batch at a time, advancing the cursor as they are emitted
+     */
+    private Flux<TaskEvent> readAfterCursor(String userId, AtomicReference<String> cursor) {
+        return taskEventRepository.findAfter(userId, cursor.get(), READ_BATCH_SIZE).collectList()
+            .expand(batch -> batch.size() < READ_BATCH_SIZE
+                ? Mono.empty()
+                : taskEventRepository.findAfter(userId, batch.get(batch.size() - 1).getId(), READ_BATCH_SIZE)
+                    .collectList())
+            .concatMapIterable(batch -> batch)
+            .doOnNext(event -> cursor.set(event.getId()));
+    }
+    
+    /**
+     * Whether a client-supplied id has the form of a stream entry id
+     */
+    public static boolean isValidEventId(String id) {
+        return EVENT_ID.matcher(id).matches();
+    }
+    
+    /**
+     * Compare stream entry ids, which order by timestamp and then by sequence number
+     */
+    public static int compareEventIds(String a, String b) {
+        long[] first = parseEventId(a);
+        long[] second = parseEventId(b);
+        int byTime = Long.compareUnsigned(first[0], second[0]);
+        return byTime != 0 ? byTime : Long.compareUnsigned(first[1], second[1]);
+    }
+    
+    private static long[] parseEventId(String id) {
+        int dash = id.indexOf('-');
+        if (dash < 0) {
+            return new long[] {Long.parseUnsignedLong(id), 0};
+        }
+        return new long[] {Long.parseUnsignedLong(id.substring(0, dash)), Long.parseUnsignedLong(id.substring(dash + 1))};
+    }
+}
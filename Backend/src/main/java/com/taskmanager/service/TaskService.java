@@ -0,0 +1,613 @@
+package com.taskmanager.service;
+
+import com.taskmanager.config.CacheConfig;
+import com.taskmanager.dto.TaskEvent;
+import com.taskmanager.dto.TaskPageResponse;
+import com.taskmanager.dto.TaskStatsResponse;
+import com.taskmanager.dto.TaskSyncResponse;
+import com.taskmanager.model.Task;
+import com.taskmanager.model.TaskStatus;
+import com.taskmanager.repository.TaskEventRepository;
+import com.taskmanager.repository.TaskIndexRepository;
+import com.taskmanager.repository.TaskIndexRepository.IndexEntry;
+import com.taskmanager.repository.TaskStore;
+import com.taskmanager.repository.TaskSyncRepository;
+import com.taskmanager.repository.TaskSyncRepository.Changes;
+import com.taskmanager.repository.TaskVersionRepository;
+import com.taskmanager.search.SearchPage;
+import com.taskmanager.search.TaskSearchIndex;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * Task service
+ * Keeps the per-user sorted, status and last-write indexes and status counters
+ * in step with task writes, serves filtered and sorted cursor-based pages,
+ * streamed reads and counts from them, and runs updates and deletes through
+ * ownership-checked Redis scripts. Also keeps the in-memory search index
+ * current, serves ranked full-text search from it and publishes every change
+ * to the user's change feed and serves delta sync from the change log. Task and user versions are read on their own for
+ * conditional requests, and updates and deletes can be made conditional on them.
+ * Task records are read and written through the TaskStore of the configured storage mode
+ */
+@Service
+public class TaskService {
+    
+    public static final int DEFAULT_PAGE_SIZE = 50;
+    
+    public static final int MAX_PAGE_SIZE = 500;
+    
+    /**
+     * Deepest search result a cursor may point at
+     */
+    static final int MAX_SEARCH_OFFSET = 100_000;
+    
+    static final String TITLE_FIELD = "title";
+    static final String DESCRIPTION_FIELD = "description";
+    static final String STATUS_FIELD = "status";
+    static final String UPDATED_AT_FIELD = "updatedAt";
+    
+    static final String SORT_CREATED_AT = "createdAt";
+    static final String SORT_UPDATED_AT = "updatedAt";
+    
+    private static final Logger logger = LoggerFactory.getLogger(TaskService.class);
+    
+    @Autowired
+    private TaskStore taskStore;
+    
+    @Autowired
+    private TaskIndexRepository taskIndexRepository;
+    
+    @Autowired
+    private TaskSearchIndex taskSearchIndex;
+    
+    @Autowired
+    private TaskEventRepository taskEventRepository;
+    
+    @Autowired
+    private TaskVersionRepository taskVersionRepository;
+    
+    @Autowired
+    private TaskSyncRepository taskSyncRepository;
+    
+    @Autowired
+    private CacheManager cacheManager;
+    
+    @Value("${tasks.bulk.max-items:10000}")
+    private int bulkMaxItems;
+    
+    /**
+     * Users whose index has already been checked for tasks that predate it
+     */
+    private final Set<String> backfilledUsers = ConcurrentHashMap.newKeySet();
+    
+    /**
+     * Save a new task and append it to its owner's indexes
+     */
+    public Task createTask(Task task) {
+        ensureBackfilled(task.getUserId());
+        long now = System.currentTimeMillis();
+        task.setCreatedAt(now);
+        task.setUpdatedAt(now);
+        task.setVersion(1L);
+        Task savedTask = taskStore.insert(task);
+        taskSearchIndex.put(savedTask);
+        publishEvents(savedTask.getUserId(), List.of(TaskEvent.created(savedTask)));
+        return savedTask;
+    }
+    
+    /**
+     * Get a task owned by the user
+     * Served from the near-cache when possible; a miss costs a single read
+     */
+    public Optional<Task> getTask(String userId, String id) {
+        return taskStore.findById(userId, id).filter(task -> userId.equals(task.getUserId()));
+    }
+    
+    /**
+     * Get all tasks of a user, in no particular order
+     */
+    public List<Task> getAllTasks(String userId) {
+        ensureBackfilled(userId);
+        return taskStore.findByUserId(userId);
+    }
+    
+    /**
+     * Get the version of a task owned by the user without loading it
+     * Served from the near-cache when the task is there; a miss costs a single read
+     * @return the version, or empty if the task does not exist or belongs to another user
+     */
+    public Optional<Long> getTaskVersion(String userId, String id) {
+        Cache cache = cacheManager.getCache(CacheConfig.TASKS_CACHE);
+        Task cached = cache != null ? cache.get(id, Task.class) : null;
+        if (cached != null) {
+            return userId.equals(cached.getUserId())
+                ? Optional.of(cached.getVersion() != null ? cached.getVersion() : 0L)
+                : Optional.empty();
+        }
+        return taskStore.findVersion(userId, id);
+    }
+    
+    /**
+     * Get the version of a user's tasks as a whole, which every task creation, write and delete advances
+     * Read it before the tasks it describes, so a write in between only makes it older than the tasks
+     */
+    public long getUserVersion(String userId) {
+        taskStore.awaitWrites(userId);
+        return taskVersionRepository.findUserVersion(userId);
+    }
+    
+    /**
+     * Replace a task's title and description, and its status when one is given
+     * @param expectedVersions only update the task if its version is one of these, or null for any version
+     * @return the updated task, or empty if it does not exist or belongs to another user
+     * @throws org.springframework.dao.OptimisticLockingFailureException if the task's version is not expected
+     */
+    public Optional<Task> updateTask(String userId, String id, String title, String description, TaskStatus status,
+                                     Collection<Long> expectedVersions) {
+        Map<String, String> fieldsToSet = new LinkedHashMap<>();
+        List<String> fieldsToRemove = new ArrayList<>();
+        fieldsToSet.put(TITLE_FIELD, title);
+        if (description != null) {
+            fieldsToSet.put(DESCRIPTION_FIELD, description);
+        } else {
+            fieldsToRemove.add(DESCRIPTION_FIELD);
+        }
+        if (status != null) {
+            fieldsToSet.put(STATUS_FIELD, status.name());
+        }
+        return applyUpdate(userId, id, fieldsToSet, fieldsToRemove, expectedVersions);
+    }
+    
+    /**
+     * Change only the given fields of a task; null arguments leave the field as it is
+     * @param expectedVersions only update the task if its version is one of these, or null for any version
+     * @return the updated task, or empty if it does not exist or belongs to another user
+     * @throws org.springframework.dao.OptimisticLockingFailureException if the task's version is not expected
+     */
+    public Optional<Task> patchTask(String userId, String id, String title, String description, TaskStatus status,
+                                    Collection<Long> expectedVersions) {
+        Map<String, String> fieldsToSet = new LinkedHashMap<>();
+        if (title != null) {
+            fieldsToSet.put(TITLE_FIELD, title);
+        }
+        if (description != null) {
+            fieldsToSet.put(DESCRIPTION_FIELD, description);
+        }
+        if (status != null) {
+            fieldsToSet.put(STATUS_FIELD, status.name());
+        }
+        return applyUpdate(userId, id, fieldsToSet, List.of(), expectedVersions);
+    }
+    
+    /**
+     * Delete a task owned by the user and drop it from every index
+     * @param expectedVersions only delete the task if its version is one of these, or null for any version
+     * @return true if the task was deleted, false if it does not exist or belongs to another user
+     * @throws org.springframework.dao.OptimisticLockingFailureException if the task's version is not expected
+     */
+    public boolean deleteTask(String userId, String id, Collection<Long> expectedVersions) {
+        ensureBackfilled(userId);
+        boolean deleted = taskStore.delete(userId, id, expectedVersions);
+        if (deleted) {
+            evictFromCache(List.of(id));
+            taskSearchIndex.removeAll(userId, List.of(id));
+            publishEvents(userId, List.of(TaskEvent.deleted(id)));
+        }
+        return deleted;
+    }
+    
+    /**
+     * Save several new tasks for a user in one pipelined batch and append them to the index
+     * @return the saved tasks, in the given order
+     * @throws IllegalArgumentException if the batch is larger than allowed
+     */
+    public List<Task> createTasks(String userId, List<Task> tasks) {
+        checkBulkSize(tasks.size());
+        if (tasks.isEmpty()) {
+            return tasks;
+        }
+        
+        ensureBackfilled(userId);
+        long now = System.currentTimeMillis();
+        for (Task task : tasks) {
+            task.setCreatedAt(now);
+            task.setUpdatedAt(now);
+            task.setVersion(1L);
+        }
+        List<Task> savedTasks = taskStore.insertAll(userId, tasks);
+        taskSearchIndex.putAll(userId, savedTasks);
+        List<TaskEvent> events = new ArrayList<>(savedTasks.size());
+        for (Task task : savedTasks) {
+            events.add(TaskEvent.created(task));
+        }
+        publishEvents(userId, events);
+        return savedTasks;
+    }
+    
+    /**
+     * Set the status of several of a user's tasks
+     * @return ids of the updated tasks; the others do not exist or belong to another user
+     * @throws IllegalArgumentException if the batch is larger than allowed
+     */
+    public List<String> updateStatus(String userId, Collection<String> taskIds, TaskStatus status) {
+        List<String> ids = uniqueIds(taskIds);
+        ensureBackfilled(userId);
+        List<String> updatedIds = taskStore.updateAll(userId, ids,
+            Map.of(STATUS_FIELD, status.name(), UPDATED_AT_FIELD, Long.toString(System.currentTimeMillis())));
+        evictFromCache(updatedIds);
+        List<TaskEvent> events = new ArrayList<>(updatedIds.size());
+        for (String id : updatedIds) {
+            events.add(TaskEvent.statusChanged(id, status));
+        }
+        publishEvents(userId, events);
+        return updatedIds;
+    }
+    
+    /**
+     * Delete several of a user's tasks and drop them from the index
+     * @return ids of the deleted tasks; the others do not exist or belong to another user
+     * @throws IllegalArgumentException if the batch is larger than allowed
+     */
+    public List<String> deleteTasks(String userId, Collection<String> taskIds) {
+        List<String> ids = uniqueIds(taskIds);
+        ensureBackfilled(userId);
+        List<String> deletedIds = taskStore.deleteAll(userId, ids);
+        evictFromCache(deletedIds);
+        taskSearchIndex.removeAll(userId, deletedIds);
+        List<TaskEvent> events = new ArrayList<>(deletedIds.size());
+        for (String id : deletedIds) {
+            events.add(TaskEvent.deleted(id));
+        }
+        publishEvents(userId, events);
+        return deletedIds;
+    }
+    
+    /**
+     * Get one page of a user's tasks in creation order
+     * @param cursor opaque cursor from a previous page, or null for the first page
+     * @param limit maximum number of tasks to return
+     * @throws IllegalArgumentException if the cursor is malformed
+     */
+    public TaskPageResponse getTaskPage(String userId, String cursor, int limit) {
+        return getTaskPage(userId, null, null, null, cursor, limit);
+    }
+    
+    /**
+     * Get one page of a user's tasks, optionally filtered by status
+     * @param status only return tasks with this status, or null for all
+     * @param sort createdAt (the default) or updatedAt
+     * @param order asc (the default) or desc
+     * @param cursor opaque cursor from a previous page of the same query, or null for the first page
+     * @param limit maximum number of tasks to return
+     * @throws IllegalArgumentException if the sort, order or cursor is invalid
+     */
+    public TaskPageResponse getTaskPage(String userId, TaskStatus status, String sort, String order,
+                                        String cursor, int limit) {
+        int pageSize = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        String indexKey = TaskIndexRepository.indexKey(userId, status, sortsByUpdate(sort));
+        boolean descending = isDescending(order);
+        long afterSequence = decodeCursor(cursor);
+        
+        ensureBackfilled(userId);
+        taskStore.awaitWrites(userId);
+        List<IndexEntry> entries = taskIndexRepository.find(indexKey, afterSequence, descending, pageSize);
+        List<Task> tasks = loadTasks(userId, entries);
+        
+        String nextCursor = entries.size() < pageSize
+            ? null
+            : encodeCursor(entries.get(entries.size() - 1).getSequence());
+        return new TaskPageResponse(tasks, nextCursor);
+    }
+    
+    /**
+     * Count a user's tasks per status from the maintained counters, without reading any task
+     */
+    public TaskStatsResponse getStats(String userId) {
+        ensureBackfilled(userId);
+        taskStore.awaitWrites(userId);
+        return new TaskStatsResponse(taskIndexRepository.countByStatus(userId));
+    }
+    
+    /**
+     * Search a user's task titles and descriptions for every word of the query
+     * @param cursor opaque cursor from a previous page of the same search, or null for the first page
+     * @param limit maximum number of tasks to return
+     * @return one page of matching tasks, best match first
+     * @throws IllegalArgumentException if the query has no words or the cursor is malformed
+     */
+    public TaskPageResponse searchTasks(String userId, String query, String cursor, int limit) {
+        int pageSize = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        long offset = decodeCursor(cursor);
+        if (offset > MAX_SEARCH_OFFSET) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+        
+        SearchPage page = taskSearchIndex.search(userId, query, (int) offset, pageSize);
+        List<Task> tasks = new ArrayList<>(page.getTaskIds().size());
+        List<String> staleIds = new ArrayList<>();
+        for (String id : page.getTaskIds()) {
+            Optional<Task> task = getTask(userId, id);
+            if (task.isPresent()) {
+                tasks.add(task.get());
+            } else {
+                staleIds.add(id);
+            }
+        }
+        if (!staleIds.isEmpty()) {
+            taskSearchIndex.removeAll(userId, staleIds);
+        }
+        
+        String nextCursor = page.hasMore() ? encodeCursor(offset + pageSize) : null;
+        return new TaskPageResponse(tasks, nextCursor);
+    }
+    
+    /**
+     * Get the tasks written and deleted since a sync token, oldest change first
+     * @param syncToken token from the previous sync, or null for a first sync, which lists every task
+     * @param limit maximum number of changes to return
+     * @throws IllegalArgumentException if the sync token is malformed
+     */
+    public TaskSyncResponse syncTasks(String userId, String syncToken, int limit) {
+        int pageSize = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        long afterSequence = decodeSyncToken(syncToken);
+        
+        ensureBackfilled(userId);
+        taskStore.awaitWrites(userId);
+        Changes changes = taskSyncRepository.findChanges(userId, afterSequence, pageSize);
+        long upTo = syncedUpTo(changes, pageSize);
+        
+        List<Task> tasks = new ArrayList<>();
+        for (IndexEntry entry : changes.getWritten()) {
+            // Tasks deleted since the log was read are skipped here and reported by the next sync
+            if (entry.getSequence() <= upTo) {
+                getTask(userId, entry.getTaskId()).ifPresent(tasks::add);
+            }
+        }
+        List<String> deletedIds = new ArrayList<>();
+        for (IndexEntry entry : changes.getDeleted()) {
+            if (entry.getSequence() <= upTo) {
+                deletedIds.add(entry.getTaskId());
+            }
+        }
+        return new TaskSyncResponse(tasks, deletedIds, encodeCursor(upTo), upTo < changes.getVersion(),
+            changes.isReset());
+    }
+    
+    /**
+     * Visit every task of a user in creation order, reading {@code batchSize} tasks at a time
+     * so that memory use does not grow with the number of tasks
+     */
+    public void forEachTask(String userId, int batchSize, Consumer<Task> consumer) {
+        ensureBackfilled(userId);
+        taskStore.awaitWrites(userId);
+        
+        long afterSequence = 0;
+        List<IndexEntry> entries;
+        do {
+            entries = taskIndexRepository.findAfter(userId, afterSequence, batchSize);
+            loadTasks(userId, entries).forEach(consumer);
+            if (!entries.isEmpty()) {
+                afterSequence = entries.get(entries.size() - 1).getSequence();
+            }
+        } while (entries.size() == batchSize);
+    }
+    
+    /**
+     * Load the tasks referenced by index entries, keeping index order
+     * Entries whose task no longer exists are removed from the index
+     */
+    private List<Task> loadTasks(String userId, List<IndexEntry> entries) {
+        if (entries.isEmpty()) {
+            return new ArrayList<>();
+        }
+        
+        // Served from the near-cache where possible, with every miss read in one round trip and cached
+        Cache cache = cacheManager.getCache(CacheConfig.TASKS_CACHE);
+        Map<String, Task> tasksById = new HashMap<>();
+        List<String> missingIds = new ArrayList<>();
+        for (IndexEntry entry : entries) {
+            Task cached = cache != null ? cache.get(entry.getTaskId(), Task.class) : null;
+            if (cached != null) {
+                tasksById.put(cached.getId(), cached);
+            } else {
+                missingIds.add(entry.getTaskId());
+            }
+        }
+        for (Task task : taskStore.findAllById(userId, missingIds)) {
+            tasksById.put(task.getId(), task);
+            if (cache != null) {
+                cache.putIfAbsent(task.getId(), task);
+            }
+        }
+        
+        List<Task> tasks = new ArrayList<>(entries.size());
+        List<String> staleIds = new ArrayList<>();
+        for (IndexEntry entry : entries) {
+            String id = entry.getTaskId();
+            Task task = tasksById.get(id);
+            if (task != null && userId.equals(task.getUserId())) {
+                tasks.add(task);
+            } else {
+                staleIds.add(id);
+            }
+        }
+        
+        if (!staleIds.isEmpty()) {
+            logger.warn("Removing {} stale entries from task index of user: {}", staleIds.size(), userId);
+            taskIndexRepository.removeAll(userId, staleIds);
+        }
+        return tasks;
+    }
+    
+    /**
+     * Apply a field update through the ownership-checked script and evict the stale cache entry
+     */
+    private Optional<Task> applyUpdate(String userId, String id, Map<String, String> fieldsToSet,
+                                       List<String> fieldsToRemove, Collection<Long> expectedVersions) {
+        ensureBackfilled(userId);
+        fieldsToSet.put(UPDATED_AT_FIELD, Long.toString(System.currentTimeMillis()));
+        Optional<Task> updatedTask = taskStore.update(userId, id, fieldsToSet, fieldsToRemove, expectedVersions);
+        if (updatedTask.isPresent()) {
+            evictFromCache(List.of(id));
+            taskSearchIndex.put(updatedTask.get());
+            publishEvents(userId, List.of(TaskEvent.updated(updatedTask.get())));
+        }
+        return updatedTask;
+    }
+    
+    /**
+     * Append change events to the user's feed, once the writes they describe have reached Redis
+     * The write itself has already succeeded, so a failure here is logged rather than
+     * failing the request; clients following the feed miss the change until they reload
+     */
+    private void publishEvents(String userId, List<TaskEvent> events) {
+        taskStore.afterWrites(() -> {
+            try {
+                taskEventRepository.publish(userId, events);
+            } catch (Exception e) {
+                logger.warn("Could not publish {} task events for user: {}", events.size(), userId, e);
+            }
+        });
+    }
+    
+    /**
+     * Check the size of a bulk request and drop duplicate ids, keeping request order
+     */
+    private List<String> uniqueIds(Collection<String> taskIds) {
+        checkBulkSize(taskIds.size());
+        return new ArrayList<>(new LinkedHashSet<>(taskIds));
+    }
+    
+    /**
+     * Evict tasks written outside the repository from this node's near-cache
+     * Other nodes are notified by Redis keyspace events
+     */
+    private void evictFromCache(List<String> taskIds) {
+        Cache cache = cacheManager.getCache(CacheConfig.TASKS_CACHE);
+        if (cache != null) {
+            taskIds.forEach(cache::evict);
+        }
+    }
+    
+    private void checkBulkSize(int size) {
+        if (size > bulkMaxItems) {
+            throw new IllegalArgumentException("Too many items in bulk request, maximum is " + bulkMaxItems);
+        }
+    }
+    
+    /**
+     * Index tasks created before the sorted, status and last-write indexes existed, once per user per process
+     * Runs before any write so the status counters never miss a task
+     */
+    private void ensureBackfilled(String userId) {
+        if (backfilledUsers.contains(userId)) {
+            return;
+        }
+        long added = taskIndexRepository.backfill(userId);
+        if (added > 0) {
+            logger.info("Backfilled {} tasks into task index of user: {}", added, userId);
+        }
+        backfilledUsers.add(userId);
+    }
+    
+    /**
+     * Whether a listing is ordered by last update rather than by creation
+     */
+    static boolean sortsByUpdate(String sort) {
+        if (sort == null || sort.isEmpty() || SORT_CREATED_AT.equals(sort)) {
+            return false;
+        }
+        if (SORT_UPDATED_AT.equals(sort)) {
+            return true;
+        }
+        throw new IllegalArgumentException("Invalid sort, expected createdAt or updatedAt");
+    }
+    
+    static boolean isDescending(String order) {
+        if (order == null || order.isEmpty() || "asc".equalsIgnoreCase(order)) {
+            return false;
+        }
+        if ("desc".equalsIgnoreCase(order)) {
+            return true;
+        }
+        throw new IllegalArgumentException("Invalid order, expected asc or desc");
+    }
+    
+    static String encodeCursor(long sequence) {
+        return Base64.getUrlEncoder().withoutPadding()
+            .encodeToString(Long.toString(sequence).getBytes(StandardCharsets.US_ASCII));
+    }
+    
+    /**
+     * Sequence number up to which a read of the change log is complete and fits in one page
+     * A set that filled its page may hold more entries past its last one, and written and
+     * deleted entries never share a sequence number
+     */
+    static long syncedUpTo(Changes changes, int pageSize) {
+        long upTo = changes.getVersion();
+        for (List<IndexEntry> entries : List.of(changes.getWritten(), changes.getDeleted())) {
+            if (entries.size() >= pageSize) {
+                upTo = Math.min(upTo, entries.get(entries.size() - 1).getSequence());
+            }
+        }
+        List<Long> sequences = new ArrayList<>();
+        for (List<IndexEntry> entries : List.of(changes.getWritten(), changes.getDeleted())) {
+            for (IndexEntry entry : entries) {
+                if (entry.getSequence() <= upTo) {
+                    sequences.add(entry.getSequence());
+                }
+            }
+        }
+        if (sequences.size() > pageSize) {
+            Collections.sort(sequences);
+            upTo = sequences.get(pageSize - 1);
+        }
+        return upTo;
+    }
+    
+    static long decodeSyncToken(String syncToken) {
+        try {
+            return decodeCursor(syncToken);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid sync token", e);
+        }
+    }
+    
+    static long decodeCursor(String cursor) {
+        if (cursor == null || cursor.isEmpty()) {
+            return 0;
+        }
+        try {
+            String decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.US_ASCII);
+            long sequence = Long.parseLong(decoded);
+            if (sequence < 0) {
+                throw new IllegalArgumentException("Invalid cursor");
+            }
+            return sequence;
+        } catch (IllegalArgumentException e) {
+            // NumberFormatException is an IllegalArgumentException as well
+            throw new IllegalArgumentException("Invalid cursor", e);
+        }
+    }
+}
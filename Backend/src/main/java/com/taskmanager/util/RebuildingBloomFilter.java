@@ -0,0 +1,143 @@
+package com.taskmanager.util;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.Locale;
+import java.util.Set;
+import java.util.function.Supplier;
+
+/**
+ * Bloom filter over a set kept in an external store, rebuilt from it on a slow timer
+ * Values added through {@link #put} between rebuilds go into the live filter and into one
+ * being rebuilt, so nothing added while the store is read is lost. A rebuild drops values
+ * the store no longer holds and picks up any add this node missed. When the store outgrows
+ * the size the filter was made for, it is resized with headroom and the old one kept meanwhile
+ */
+public class RebuildingBloomFilter {
+    
+    private static final Logger logger = LoggerFactory.getLogger(RebuildingBloomFilter.class);
+    
+    private final String name;
+    
+    private final Supplier<Set<String>> source;
+    
+    private final double falsePositiveRate;
+    
+    private final Duration rebuildInterval;
+    
+    private long expectedInsertions;
+    
+    /**
+     * Filter read by lookups; null until first loaded
+     */
+    private volatile BloomFilter current;
+    
+    /**
+     * Filter being rebuilt, which also receives values added while the store is read
+     */
+    private BloomFilter rebuilding;
+    
+    /**
+     * @param name what the filter holds, for logs and the rebuild thread's name
+     * @param source reads every value from the store
+     */
+    public RebuildingBloomFilter(String name, Supplier<Set<String>> source, long expectedInsertions,
+                                 double falsePositiveRate, Duration rebuildInterval) {
+        this.name = name;
+        this.source = source;
+        this.expectedInsertions = expectedInsertions;
+        this.falsePositiveRate = falsePositiveRate;
+        this.rebuildInterval = rebuildInterval;
+    }
+    
+    /**
+     * Load the filter, then keep rebuilding it on a background thread
+     */
+    public void start() {
+        String threadName = name.toLowerCase(Locale.ROOT).replace(' ', '-') + "-filter-rebuild";
+        Thread rebuild = new Thread(this::rebuildLoop, threadName);
+        rebuild.setDaemon(true);
+        rebuild.start();
+    }
+    
+    private void rebuildLoop() {
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                rebuild();
+            } catch (Exception e) {
+                logger.warn("{} filter rebuild failed, retrying in {}: {}", name, rebuildInterval, e.getMessage());
+            }
+            try {
+                Thread.sleep(rebuildInterval.toMillis());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+    
+    /**
+     * Replace the filter with one built from the store
+     */
+    public void rebuild() {
+        Set<String> values;
+        BloomFilter filter;
+        synchronized (this) {
+            // Register the new filter before reading, so no add falls between the two
+            filter = new BloomFilter(expectedInsertions, falsePositiveRate);
+            rebuilding = filter;
+        }
+        try {
+            values = source.get();
+        } catch (RuntimeException e) {
+            synchronized (this) {
+                rebuilding = null;
+            }
+            throw e;
+        }
+        if (values.size() > expectedInsertions) {
+            // Outgrown: size for the current count with headroom, and keep the old filter meanwhile
+            synchronized (this) {
+                expectedInsertions = values.size() * 2L;
+                rebuilding = null;
+            }
+            logger.info("{} filter resized for {} values", name, expectedInsertions);
+            rebuild();
+            return;
+        }
+        values.forEach(filter::put);
+        synchronized (this) {
+            current = filter;
+            rebuilding = null;
+        }
+    }
+    
+    /**
+     * Add a value that has just been added to the store
+     */
+    public synchronized void put(String value) {
+        if (current != null) {
+            current.put(value);
+        }
+        if (rebuilding != null) {
+            rebuilding.put(value);
+        }
+    }
+    
+    /**
+     * Whether a value might be in the store; always true until the filter is first loaded
+     */
+    public boolean mightContain(String value) {
+        BloomFilter filter = current;
+        return filter == null || filter.mightContain(value);
+    }
+    
+    /**
+     * Size of the loaded filter in bits, 0 before it is loaded
+     */
+    public long bitSize() {
+        BloomFilter filter = current;
+        return filter != null ? filter.bitSize() : 0;
+    }
+}
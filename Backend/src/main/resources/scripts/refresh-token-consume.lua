@@ -0,0 +1,8 @@
+-- Reads and deletes a refresh token in one step, so each token can be exchanged only once
+-- KEYS[1] = refresh token hash
+-- Returns the token's fields as a flat field/value list, empty if the token is unknown or expired
+local fields = redis.call('HGETALL', KEYS[1])
+if #fields > 0 then
+    redis.call('DEL', KEYS[1])
+end
+return fields
@@ -0,0 +1,69 @@
+-- Binary storage counterpart of task-delete.lua, deleting the task whether it is stored
+-- packed or still as a legacy Spring Data hash
+-- KEYS as for task-bin-update.lua, ARGV and tombstones as for task-delete.lua
+-- Returns 1 if the task was deleted, 0 if it does not exist or belongs to another user,
+-- -1 if its version matches none of the expected versions
+local userId, status, version
+local packed = redis.call('GET', KEYS[1])
+if packed then
+    local task = cmsgpack.unpack(packed)
+    userId, status, version = task[2], task[5] or nil, task[8] or 0
+else
+    local fields = redis.call('HMGET', KEYS[2], 'userId', 'status', 'version')
+    userId, status, version = fields[1], fields[2] or nil, fields[3] or 0
+end
+if userId ~= ARGV[1] then
+    return 0
+end
+if ARGV[3] and ARGV[3] ~= '' then
+    local current = tostring(version)
+    local matched = false
+    for expected in string.gmatch(ARGV[3], '%S+') do
+        if expected == current then
+            matched = true
+        end
+    end
+    if not matched then
+        return -1
+    end
+end
+local statusKeys = {}
+for i = 12, #KEYS, 2 do
+    statusKeys[string.match(KEYS[i], ':([^:]+)$')] = {KEYS[i], KEYS[i + 1]}
+end
+redis.call('DEL', KEYS[1], KEYS[2], KEYS[3])
+redis.call('SREM', KEYS[4], ARGV[2])
+redis.call('SREM', KEYS[11], ARGV[2])
+redis.call('ZREM', KEYS[8], ARGV[2])
+redis.call('ZREM', KEYS[9], ARGV[2])
+local keys = status and statusKeys[status]
+if keys then
+    redis.call('ZREM', keys[1], ARGV[2])
+    redis.call('ZREM', keys[2], ARGV[2])
+    redis.call('HINCRBY', KEYS[10], status, -1)
+end
+-- Leave a tombstone for delta sync, then expire tombstones past their age or beyond the cap,
+-- raising the floor below which sync tokens can no longer be answered
+local seq = redis.call('INCR', KEYS[7])
+redis.call('ZADD', KEYS[5], seq, ARGV[4] .. ':' .. ARGV[2])
+local expireBefore = tonumber(ARGV[4]) - tonumber(ARGV[5])
+local floor = nil
+local oldest = redis.call('ZRANGE', KEYS[5], 0, 99, 'WITHSCORES')
+for i = 1, #oldest, 2 do
+    if tonumber(string.match(oldest[i], '^(%d+):')) >= expireBefore then
+        break
+    end
+    floor = tonumber(oldest[i + 1])
+end
+local excess = redis.call('ZCARD', KEYS[5]) - tonumber(ARGV[6])
+if excess > 0 then
+    local last = redis.call('ZRANGE', KEYS[5], excess - 1, excess - 1, 'WITHSCORES')
+    floor = math.max(floor or 0, tonumber(last[2]))
+end
+if floor then
+    redis.call('ZREMRANGEBYSCORE', KEYS[5], '-inf', floor)
+    if floor > tonumber(redis.call('GET', KEYS[6]) or '0') then
+        redis.call('SET', KEYS[6], floor)
+    end
+end
+return 1
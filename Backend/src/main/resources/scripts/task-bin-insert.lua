@@ -0,0 +1,57 @@
+-- Stores new tasks as packed binary values and appends them to a user's task indexes,
+-- keeping argument order, counting them under their status. Tasks already stored are
+-- skipped, so an insert repeated after its reply was lost does not index them twice
+-- KEYS[1] = per-user sequence counter, KEYS[2] = sorted index by creation,
+-- KEYS[3] = sorted index by last write, KEYS[4] = per-status counters,
+-- KEYS[5] = Spring Data userId index set (unused here),
+-- KEYS[6 .. #KEYS - n] = per-status sorted indexes by creation and by last write, in pairs, each ending in ':<status>',
+-- last n KEYS = binary task keys, in argument order
+-- ARGV[1] = number of tasks (n), then task id, status and packed task triples
+-- Returns the sequence number assigned to the last task
+local count = tonumber(ARGV[1])
+local firstTaskKey = #KEYS - count
+local statusKeys = {}
+for i = 6, firstTaskKey, 2 do
+    statusKeys[string.match(KEYS[i], ':([^:]+)$')] = {KEYS[i], KEYS[i + 1]}
+end
+
+-- ZADD in chunks to stay below the Lua unpack limit
+local function zaddAll(key, args)
+    for i = 1, #args, 2000 do
+        redis.call('ZADD', key, unpack(args, i, math.min(i + 1999, #args)))
+    end
+end
+
+local new = {}
+for i = 1, count do
+    if redis.call('EXISTS', KEYS[firstTaskKey + i]) == 0 then
+        new[#new + 1] = i
+    end
+end
+
+local last = redis.call('INCRBY', KEYS[1], #new)
+local first = last - #new
+local args = {}
+local statusArgs = {}
+local statusCounts = {}
+for n, i in ipairs(new) do
+    local seq = first + n
+    local id, status, packed = ARGV[3 * i - 1], ARGV[3 * i], ARGV[3 * i + 1]
+    redis.call('SET', KEYS[firstTaskKey + i], packed)
+    args[#args + 1] = seq
+    args[#args + 1] = id
+    if statusKeys[status] then
+        statusArgs[status] = statusArgs[status] or {}
+        statusArgs[status][#statusArgs[status] + 1] = seq
+        statusArgs[status][#statusArgs[status] + 1] = id
+        statusCounts[status] = (statusCounts[status] or 0) + 1
+    end
+end
+zaddAll(KEYS[2], args)
+zaddAll(KEYS[3], args)
+for status, entries in pairs(statusArgs) do
+    zaddAll(statusKeys[status][1], entries)
+    zaddAll(statusKeys[status][2], entries)
+    redis.call('HINCRBY', KEYS[4], status, statusCounts[status])
+end
+return last
@@ -0,0 +1,30 @@
+-- Converts one task from a Spring Data hash to a packed binary value, leaving its
+-- sorted indexes and counters as they are since they only hold the id
+-- KEYS[1] = binary task key, KEYS[2] = legacy task hash, KEYS[3] = legacy index helper set of the task,
+-- KEYS[4] = legacy keyspace set, KEYS[5] = legacy userId index set, the only Spring Data index
+-- a task is listed in, so the helper set is dropped unread
+-- ARGV[1] = task id
+-- Returns 1 if the task was converted, 0 if there was no legacy hash to convert
+local FIELDS = {userId = 2, title = 3, description = 4, status = 5, createdAt = 6, updatedAt = 7, version = 8}
+local NUMERIC = {createdAt = true, updatedAt = true, version = true}
+
+local hash = redis.call('HGETALL', KEYS[2])
+if #hash == 0 then
+    redis.call('SREM', KEYS[4], ARGV[1])
+    return 0
+end
+-- A packed value is always newer than a leftover hash
+if redis.call('EXISTS', KEYS[1]) == 0 then
+    local task = {1, false, false, false, false, false, false, 0}
+    for i = 1, #hash, 2 do
+        local position = FIELDS[hash[i]]
+        if position then
+            task[position] = NUMERIC[hash[i]] and tonumber(hash[i + 1]) or hash[i + 1]
+        end
+    end
+    redis.call('SET', KEYS[1], cmsgpack.pack(task))
+end
+redis.call('DEL', KEYS[2], KEYS[3])
+redis.call('SREM', KEYS[4], ARGV[1])
+redis.call('SREM', KEYS[5], ARGV[1])
+return 1
@@ -0,0 +1,106 @@
+-- Binary storage counterpart of task-update.lua
+-- A task is one MessagePack array {schema, userId, title, description, status, createdAt, updatedAt, version}
+-- with absent values stored as false. A task still stored as a Spring Data hash is converted on its first write
+-- KEYS[1] = binary task key, KEYS[2] = legacy task hash, KEYS[3] = legacy index helper set of the task,
+-- KEYS[4] = legacy keyspace set, KEYS[5] = per-user tombstones (used by task-bin-delete.lua only),
+-- KEYS[6] = per-user sync floor (likewise), KEYS[7] = per-user sequence counter, KEYS[8] = sorted index by creation,
+-- KEYS[9] = sorted index by last write, KEYS[10] = per-status counters,
+-- KEYS[11] = Spring Data userId index set, the only index a legacy task is listed in, so its helper set
+-- is dropped unread,
+-- KEYS[12 ..] = per-status sorted indexes by creation and by last write, in pairs, each ending in ':<status>'
+-- ARGV as for task-update.lua
+-- Returns a one-element list with the packed task, nil if the task does not exist or belongs to
+-- another user, or a two-element list with 'conflict' and the current version if it matches none
+-- of the expected versions
+local FIELDS = {userId = 2, title = 3, description = 4, status = 5, createdAt = 6, updatedAt = 7, version = 8}
+local NUMERIC = {createdAt = true, updatedAt = true, version = true}
+
+local function load()
+    local packed = redis.call('GET', KEYS[1])
+    if packed then
+        return cmsgpack.unpack(packed), false
+    end
+    local hash = redis.call('HGETALL', KEYS[2])
+    if #hash == 0 then
+        return nil, false
+    end
+    local task = {1, false, false, false, false, false, false, 0}
+    for i = 1, #hash, 2 do
+        local position = FIELDS[hash[i]]
+        if position then
+            task[position] = NUMERIC[hash[i]] and tonumber(hash[i + 1]) or hash[i + 1]
+        end
+    end
+    return task, true
+end
+
+local id = ARGV[2]
+local task, legacy = load()
+if not task or task[2] ~= ARGV[1] then
+    return nil
+end
+if ARGV[3] ~= '' then
+    local current = tostring(task[8] or 0)
+    local matched = false
+    for expected in string.gmatch(ARGV[3], '%S+') do
+        if expected == current then
+            matched = true
+        end
+    end
+    if not matched then
+        return {'conflict', current}
+    end
+end
+local statusKeys = {}
+for i = 12, #KEYS, 2 do
+    statusKeys[string.match(KEYS[i], ':([^:]+)$')] = {KEYS[i], KEYS[i + 1]}
+end
+local oldStatus = task[5] or nil
+
+local setCount = tonumber(ARGV[4])
+for i = 5, 4 + 2 * setCount, 2 do
+    local position = FIELDS[ARGV[i]]
+    if position then
+        task[position] = NUMERIC[ARGV[i]] and tonumber(ARGV[i + 1]) or ARGV[i + 1]
+    end
+end
+for i = 5 + 2 * setCount, #ARGV do
+    local position = FIELDS[ARGV[i]]
+    if position then
+        task[position] = false
+    end
+end
+task[8] = (task[8] or 0) + 1
+local newStatus = task[5] or nil
+
+local packed = cmsgpack.pack(task)
+redis.call('SET', KEYS[1], packed)
+if legacy then
+    redis.call('DEL', KEYS[2], KEYS[3])
+    redis.call('SREM', KEYS[4], id)
+    redis.call('SREM', KEYS[11], id)
+end
+
+local seq = redis.call('INCR', KEYS[7])
+local created = redis.call('ZSCORE', KEYS[8], id)
+if not created then
+    created = seq
+    redis.call('ZADD', KEYS[8], created, id)
+end
+redis.call('ZADD', KEYS[9], seq, id)
+if oldStatus ~= newStatus then
+    local oldKeys = oldStatus and statusKeys[oldStatus]
+    if oldKeys then
+        redis.call('ZREM', oldKeys[1], id)
+        redis.call('ZREM', oldKeys[2], id)
+        redis.call('HINCRBY', KEYS[10], oldStatus, -1)
+    end
+    if newStatus and statusKeys[newStatus] then
+        redis.call('ZADD', statusKeys[newStatus][1], created, id)
+        redis.call('HINCRBY', KEYS[10], newStatus, 1)
+    end
+end
+if newStatus and statusKeys[newStatus] then
+    redis.call('ZADD', statusKeys[newStatus][2], seq, id)
+end
+return {packed}
@@ -0,0 +1,72 @@
+-- Deletes a task and all of its index entries if it belongs to the given user and,
+-- when versions are given, its version is one of them; bumps the user's sequence
+-- so the deletion changes the user's version, and records the deletion for delta sync
+-- KEYS[1] = task hash, KEYS[2] = Spring Data index helper set of the task,
+-- KEYS[3] = keyspace set, KEYS[4] = per-user tombstones, KEYS[5] = per-user sync floor,
+-- KEYS[6] = per-user sequence counter, KEYS[7] = sorted index by creation, KEYS[8] = sorted index by last write,
+-- KEYS[9] = per-status counters, KEYS[10] = Spring Data userId index set,
+-- KEYS[11 ..] = per-status sorted indexes by creation and by last write, in pairs, each ending in ':<status>'
+-- ARGV[1] = user id, ARGV[2] = task id, ARGV[3] = space-separated expected versions, empty for any,
+-- ARGV[4] = current time in milliseconds, ARGV[5] = tombstone lifetime in milliseconds,
+-- ARGV[6] = maximum number of tombstones kept
+-- Tombstones are '<deleted at>:<task id>' scored by the sequence number of the deletion
+-- Returns 1 if the task was deleted, 0 if it does not exist or belongs to another user,
+-- -1 if its version matches none of the expected versions
+-- The task's only Spring Data index is its userId, so the index helper set is dropped unread
+-- and the task leaves the userId index set given in KEYS, keeping every key the script uses declared
+if redis.call('HGET', KEYS[1], 'userId') ~= ARGV[1] then
+    return 0
+end
+if ARGV[3] and ARGV[3] ~= '' then
+    local current = redis.call('HGET', KEYS[1], 'version') or '0'
+    local matched = false
+    for expected in string.gmatch(ARGV[3], '%S+') do
+        if expected == current then
+            matched = true
+        end
+    end
+    if not matched then
+        return -1
+    end
+end
+local statusKeys = {}
+for i = 11, #KEYS, 2 do
+    statusKeys[string.match(KEYS[i], ':([^:]+)$')] = {KEYS[i], KEYS[i + 1]}
+end
+local status = redis.call('HGET', KEYS[1], 'status')
+redis.call('DEL', KEYS[1], KEYS[2])
+redis.call('SREM', KEYS[3], ARGV[2])
+redis.call('SREM', KEYS[10], ARGV[2])
+redis.call('ZREM', KEYS[7], ARGV[2])
+redis.call('ZREM', KEYS[8], ARGV[2])
+local keys = status and statusKeys[status]
+if keys then
+    redis.call('ZREM', keys[1], ARGV[2])
+    redis.call('ZREM', keys[2], ARGV[2])
+    redis.call('HINCRBY', KEYS[9], status, -1)
+end
+-- Leave a tombstone for delta sync, then expire tombstones past their age or beyond the cap,
+-- raising the floor below which sync tokens can no longer be answered
+local seq = redis.call('INCR', KEYS[6])
+redis.call('ZADD', KEYS[4], seq, ARGV[4] .. ':' .. ARGV[2])
+local expireBefore = tonumber(ARGV[4]) - tonumber(ARGV[5])
+local floor = nil
+local oldest = redis.call('ZRANGE', KEYS[4], 0, 99, 'WITHSCORES')
+for i = 1, #oldest, 2 do
+    if tonumber(string.match(oldest[i], '^(%d+):')) >= expireBefore then
+        break
+    end
+    floor = tonumber(oldest[i + 1])
+end
+local excess = redis.call('ZCARD', KEYS[4]) - tonumber(ARGV[6])
+if excess > 0 then
+    local last = redis.call('ZRANGE', KEYS[4], excess - 1, excess - 1, 'WITHSCORES')
+    floor = math.max(floor or 0, tonumber(last[2]))
+end
+if floor then
+    redis.call('ZREMRANGEBYSCORE', KEYS[4], '-inf', floor)
+    if floor > tonumber(redis.call('GET', KEYS[5]) or '0') then
+        redis.call('SET', KEYS[5], floor)
+    end
+end
+return 1
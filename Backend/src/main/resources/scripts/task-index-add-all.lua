@@ -0,0 +1,45 @@
+-- Appends several tasks to a user's task indexes, keeping argument order, and counts them under their status
+-- KEYS[1] = per-user sequence counter, KEYS[2] = sorted index by creation,
+-- KEYS[3] = sorted index by last write, KEYS[4] = per-status counters,
+-- KEYS[5] = Spring Data userId index set (unused here),
+-- KEYS[6 ..] = per-status sorted indexes by creation and by last write, in pairs, each ending in ':<status>'
+-- ARGV = task id and status pairs
+-- Returns the sequence number assigned to the last task
+local statusKeys = {}
+for i = 6, #KEYS, 2 do
+    statusKeys[string.match(KEYS[i], ':([^:]+)$')] = {KEYS[i], KEYS[i + 1]}
+end
+
+-- ZADD in chunks to stay below the Lua unpack limit
+local function zaddAll(key, args)
+    for i = 1, #args, 2000 do
+        redis.call('ZADD', key, unpack(args, i, math.min(i + 1999, #args)))
+    end
+end
+
+local count = #ARGV / 2
+local last = redis.call('INCRBY', KEYS[1], count)
+local first = last - count
+local args = {}
+local statusArgs = {}
+local statusCounts = {}
+for i = 1, count do
+    local seq = first + i
+    local id, status = ARGV[2 * i - 1], ARGV[2 * i]
+    args[#args + 1] = seq
+    args[#args + 1] = id
+    if statusKeys[status] then
+        statusArgs[status] = statusArgs[status] or {}
+        statusArgs[status][#statusArgs[status] + 1] = seq
+        statusArgs[status][#statusArgs[status] + 1] = id
+        statusCounts[status] = (statusCounts[status] or 0) + 1
+    end
+end
+zaddAll(KEYS[2], args)
+zaddAll(KEYS[3], args)
+for status, entries in pairs(statusArgs) do
+    zaddAll(statusKeys[status][1], entries)
+    zaddAll(statusKeys[status][2], entries)
+    redis.call('HINCRBY', KEYS[4], status, statusCounts[status])
+end
+return last
@@ -0,0 +1,21 @@
+-- Appends a task to a user's task indexes and counts it under its status
+-- KEYS[1] = per-user sequence counter, KEYS[2] = sorted index by creation,
+-- KEYS[3] = sorted index by last write, KEYS[4] = per-status counters,
+-- KEYS[5] = Spring Data userId index set (unused here),
+-- KEYS[6 ..] = per-status sorted indexes by creation and by last write, in pairs, each ending in ':<status>'
+-- ARGV[1] = task id, ARGV[2] = task status
+-- Returns the sequence number assigned to the task
+local statusKeys = {}
+for i = 6, #KEYS, 2 do
+    statusKeys[string.match(KEYS[i], ':([^:]+)$')] = {KEYS[i], KEYS[i + 1]}
+end
+local seq = redis.call('INCR', KEYS[1])
+redis.call('ZADD', KEYS[2], seq, ARGV[1])
+redis.call('ZADD', KEYS[3], seq, ARGV[1])
+local keys = statusKeys[ARGV[2]]
+if keys then
+    redis.call('ZADD', keys[1], seq, ARGV[1])
+    redis.call('ZADD', keys[2], seq, ARGV[1])
+    redis.call('HINCRBY', KEYS[4], ARGV[2], 1)
+end
+return seq
@@ -0,0 +1,47 @@
+-- Indexes tasks that predate a user's sorted, status and last-write indexes and status counters
+-- KEYS[1] = per-user sequence counter, KEYS[2] = sorted index by creation,
+-- KEYS[3] = sorted index by last write, KEYS[4] = per-status counters,
+-- KEYS[5] = Spring Data userId index set,
+-- KEYS[6 .. #KEYS - n] = per-status sorted indexes by creation and by last write, in pairs, each ending in ':<status>',
+-- last n KEYS = task hash keys, in argument order
+-- ARGV[1] = number of tasks (n), then the ids of the tasks in the userId index set as read by the caller
+-- Every key is declared, so the script runs in a cluster; ids the set no longer holds are skipped
+-- The counters hash doubles as the marker that the status indexes were built
+-- Returns the number of tasks indexed
+local count = tonumber(ARGV[1])
+local firstTaskKey = #KEYS - count
+local statusKeys = {}
+for i = 6, firstTaskKey, 2 do
+    statusKeys[string.match(KEYS[i], ':([^:]+)$')] = {KEYS[i], KEYS[i + 1]}
+end
+local indexed = redis.call('EXISTS', KEYS[4]) == 1
+if indexed and redis.call('ZCARD', KEYS[2]) >= redis.call('SCARD', KEYS[5]) then
+    return 0
+end
+local added = 0
+for i = 1, count do
+    local id = ARGV[i + 1]
+    if redis.call('SISMEMBER', KEYS[5], id) == 1 then
+        local seq = redis.call('ZSCORE', KEYS[2], id)
+        local missing = not seq
+        if missing then
+            seq = redis.call('INCR', KEYS[1])
+            redis.call('ZADD', KEYS[2], seq, id)
+        end
+        if missing or not indexed then
+            redis.call('ZADD', KEYS[3], 'NX', seq, id)
+            local status = redis.call('HGET', KEYS[firstTaskKey + i], 'status')
+            local keys = status and statusKeys[status]
+            if keys then
+                redis.call('ZADD', keys[1], 'NX', seq, id)
+                redis.call('ZADD', keys[2], 'NX', seq, id)
+                redis.call('HINCRBY', KEYS[4], status, 1)
+            end
+            added = added + 1
+        end
+    end
+end
+for status in pairs(statusKeys) do
+    redis.call('HINCRBY', KEYS[4], status, 0)
+end
+return added
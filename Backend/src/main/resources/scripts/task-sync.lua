@@ -0,0 +1,23 @@
+-- Reads one page of a user's task changes after a sync token, as a consistent snapshot
+-- KEYS[1] = per-user sequence counter, KEYS[2] = per-user sync floor,
+-- KEYS[3] = sorted index by last write, KEYS[4] = per-user tombstones
+-- ARGV[1] = sync token, the sequence number the client is up to date with, 0 for none
+-- ARGV[2] = maximum number of entries to read from each set
+-- A token of 0, below the floor or ahead of the sequence cannot be answered with changes,
+-- so every live task is listed from the start instead and no tombstones are read
+-- Returns {current sequence, 1 if the client must reset or else 0,
+--          {task id, sequence, ...} of written tasks, {'<deleted at>:<task id>', sequence, ...} of tombstones}
+local version = tonumber(redis.call('GET', KEYS[1]) or '0')
+local floor = tonumber(redis.call('GET', KEYS[2]) or '0')
+local after = tonumber(ARGV[1])
+local reset = 0
+if after == 0 or after < floor or after > version then
+    after = 0
+    reset = 1
+end
+local written = redis.call('ZRANGEBYSCORE', KEYS[3], '(' .. after, version, 'WITHSCORES', 'LIMIT', 0, ARGV[2])
+local deleted = {}
+if reset == 0 then
+    deleted = redis.call('ZRANGEBYSCORE', KEYS[4], '(' .. after, version, 'WITHSCORES', 'LIMIT', 0, ARGV[2])
+end
+return {version, reset, written, deleted}
@@ -0,0 +1,68 @@
+-- Updates fields of a task if it belongs to the given user and, when versions are
+-- given, its version is one of them; bumps the task's version and moves it between
+-- status indexes and counters when its status changes
+-- KEYS[1] = task hash, KEYS[2] = per-user sequence counter, KEYS[3] = sorted index by creation,
+-- KEYS[4] = sorted index by last write, KEYS[5] = per-status counters,
+-- KEYS[6] = Spring Data userId index set (unused here),
+-- KEYS[7 ..] = per-status sorted indexes by creation and by last write, in pairs, each ending in ':<status>'
+-- ARGV[1] = user id, ARGV[2] = task id, ARGV[3] = space-separated expected versions, empty for any,
+-- ARGV[4] = number of fields to set (n), ARGV[5 .. 4 + 2n] = field/value pairs to set,
+-- remaining ARGV = fields to remove
+-- Returns the updated hash as a flat field/value list, nil if the task does not exist
+-- or belongs to another user, or a one-element list with the current version if it
+-- matches none of the expected versions
+if redis.call('HGET', KEYS[1], 'userId') ~= ARGV[1] then
+    return nil
+end
+if ARGV[3] ~= '' then
+    local current = redis.call('HGET', KEYS[1], 'version') or '0'
+    local matched = false
+    for expected in string.gmatch(ARGV[3], '%S+') do
+        if expected == current then
+            matched = true
+        end
+    end
+    if not matched then
+        return {current}
+    end
+end
+local statusKeys = {}
+for i = 7, #KEYS, 2 do
+    statusKeys[string.match(KEYS[i], ':([^:]+)$')] = {KEYS[i], KEYS[i + 1]}
+end
+local id = ARGV[2]
+local oldStatus = redis.call('HGET', KEYS[1], 'status')
+
+local setCount = tonumber(ARGV[4])
+if setCount > 0 then
+    redis.call('HSET', KEYS[1], unpack(ARGV, 5, 4 + 2 * setCount))
+end
+if #ARGV > 4 + 2 * setCount then
+    redis.call('HDEL', KEYS[1], unpack(ARGV, 5 + 2 * setCount))
+end
+redis.call('HINCRBY', KEYS[1], 'version', 1)
+local newStatus = redis.call('HGET', KEYS[1], 'status')
+
+local seq = redis.call('INCR', KEYS[2])
+local created = redis.call('ZSCORE', KEYS[3], id)
+if not created then
+    created = seq
+    redis.call('ZADD', KEYS[3], created, id)
+end
+redis.call('ZADD', KEYS[4], seq, id)
+if oldStatus ~= newStatus then
+    local oldKeys = oldStatus and statusKeys[oldStatus]
+    if oldKeys then
+        redis.call('ZREM', oldKeys[1], id)
+        redis.call('ZREM', oldKeys[2], id)
+        redis.call('HINCRBY', KEYS[5], oldStatus, -1)
+    end
+    if newStatus and statusKeys[newStatus] then
+        redis.call('ZADD', statusKeys[newStatus][1], created, id)
+        redis.call('HINCRBY', KEYS[5], newStatus, 1)
+    end
+end
+if newStatus and statusKeys[newStatus] then
+    redis.call('ZADD', statusKeys[newStatus][2], seq, id)
+end
+return redis.call('HGETALL', KEYS[1])
@@ -0,0 +1,16 @@
+-- Creates a user unless its username is taken, so two concurrent registrations
+-- for one username cannot both succeed; writes the same keys Spring Data does
+-- KEYS[1] = Spring Data username index set, which doubles as the reservation,
+-- KEYS[2] = user hash, KEYS[3] = keyspace set of user ids, KEYS[4] = set of the user's index keys
+-- ARGV[1] = user id, ARGV[2] = registrations channel, ARGV[3] = username,
+-- ARGV[4 ..] = user hash fields and values, in pairs
+-- Returns 1 if the user was created, 0 if the username is taken
+if redis.call('EXISTS', KEYS[1]) == 1 then
+    return 0
+end
+redis.call('HSET', KEYS[2], unpack(ARGV, 4))
+redis.call('SADD', KEYS[3], ARGV[1])
+redis.call('SADD', KEYS[1], ARGV[1])
+redis.call('SADD', KEYS[4], KEYS[1])
+redis.call('PUBLISH', ARGV[2], ARGV[3])
+return 1
@@ -0,0 +1,10 @@
+-- Reserves a username for a new user id unless it is taken; the Redis Cluster counterpart
+-- of user-register.lua, whose keys would span slots
+-- KEYS[1] = Spring Data username index set, which doubles as the reservation
+-- ARGV[1] = user id
+-- Returns 1 if the username was reserved, 0 if it is taken
+if redis.call('EXISTS', KEYS[1]) == 1 then
+    return 0
+end
+redis.call('SADD', KEYS[1], ARGV[1])
+return 1
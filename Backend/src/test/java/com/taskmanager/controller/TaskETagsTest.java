@@ -0,0 +1,52 @@
+package com.taskmanager.controller;
+
+import com.taskmanager.model.Task;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for the task and listing entity tags and the conditional headers they are compared with
+ */
+class TaskETagsTest {
+    
+    @Test
+    void taskTagIsItsQuotedVersion() {
+        Task task = new Task();
+        task.setVersion(7L);
+        
+        assertThat(TaskETags.forTask(task)).isEqualTo("\"7\"");
+        assertThat(TaskETags.forTask(new Task())).isEqualTo("\"0\"");
+    }
+    
+    @Test
+    void listTagCannotBeMistakenForTaskTag() {
+        assertThat(TaskETags.forList(7L)).isEqualTo("\"tasks-7\"");
+        assertThat(TaskETags.expectedVersions(TaskETags.forList(7L))).isEmpty();
+    }
+    
+    @Test
+    void ifNoneMatchComparesWeakly() {
+        String etag = TaskETags.forList(3L);
+        
+        assertThat(TaskETags.noneMatchSatisfied(null, etag)).isFalse();
+        assertThat(TaskETags.noneMatchSatisfied("\"tasks-3\"", etag)).isTrue();
+        assertThat(TaskETags.noneMatchSatisfied("W/\"tasks-3\"", etag)).isTrue();
+        assertThat(TaskETags.noneMatchSatisfied("\"tasks-2\", W/\"tasks-3\"", etag)).isTrue();
+        assertThat(TaskETags.noneMatchSatisfied("*", etag)).isTrue();
+        assertThat(TaskETags.noneMatchSatisfied("\"tasks-2\", \"3\"", etag)).isFalse();
+    }
+    
+    @Test
+    void absentOrAnyIfMatchAcceptsEveryVersion() {
+        assertThat(TaskETags.expectedVersions(null)).isNull();
+        assertThat(TaskETags.expectedVersions(" * ")).isNull();
+    }
+    
+    @Test
+    void ifMatchAcceptsOnlyStrongTaskTags() {
+        assertThat(TaskETags.expectedVersions("\"4\"")).containsExactly(4L);
+        assertThat(TaskETags.expectedVersions("\"4\", W/\"5\", \"six\", \"\", 7, \"8\"")).containsExactly(4L, 8L);
+        assertThat(TaskETags.expectedVersions("W/\"5\"")).isEmpty();
+    }
+}
@@ -0,0 +1,105 @@
+package com.taskmanager.ratelimit;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for the GCRA token bucket, driven by explicit times
+ */
+class TokenBucketTest {
+    
+    private static final long INTERVAL = 100;
+    private static final long CAPACITY = 5;
+    private static final long BURST = CAPACITY * INTERVAL;
+    
+    @Test
+    void fullBucketAllowsItsCapacityAtOnce() {
+        TokenBucket bucket = new TokenBucket();
+        
+        for (int i = 0; i < CAPACITY; i++) {
+            assertThat(bucket.tryAcquire(1_000, INTERVAL, BURST)).isZero();
+        }
+        assertThat(bucket.tryAcquire(1_000, INTERVAL, BURST)).isEqualTo(INTERVAL);
+    }
+    
+    @Test
+    void waitShrinksAsTimePasses() {
+        TokenBucket bucket = drained(1_000);
+        
+        assertThat(bucket.tryAcquire(1_030, INTERVAL, BURST)).isEqualTo(70);
+        assertThat(bucket.tryAcquire(1_099, INTERVAL, BURST)).isEqualTo(1);
+        assertThat(bucket.tryAcquire(1_100, INTERVAL, BURST)).isZero();
+        assertThat(bucket.tryAcquire(1_100, INTERVAL, BURST)).isEqualTo(INTERVAL);
+    }
+    
+    @Test
+    void rejectedRequestsDoNotUseTokens() {
+        TokenBucket bucket = drained(1_000);
+        for (int i = 0; i < 10; i++) {
+            bucket.tryAcquire(1_050, INTERVAL, BURST);
+        }
+        
+        assertThat(bucket.tryAcquire(1_100, INTERVAL, BURST)).isZero();
+    }
+    
+    @Test
+    void idleBucketRefillsOnlyToCapacity() {
+        TokenBucket bucket = drained(1_000);
+        long later = 1_000 + 100 * BURST;
+        
+        for (int i = 0; i < CAPACITY; i++) {
+            assertThat(bucket.tryAcquire(later, INTERVAL, BURST)).isZero();
+        }
+        assertThat(bucket.tryAcquire(later, INTERVAL, BURST)).isEqualTo(INTERVAL);
+    }
+    
+    @Test
+    void clockCrossingTheLongRangeKeepsCounting() {
+        long beforeWrap = Long.MAX_VALUE - 150;
+        TokenBucket bucket = drained(beforeWrap);
+        
+        assertThat(bucket.tryAcquire(beforeWrap + 50, INTERVAL, BURST)).isEqualTo(50);
+        assertThat(bucket.tryAcquire(beforeWrap + 100, INTERVAL, BURST)).isZero();
+        assertThat(bucket.tryAcquire(beforeWrap + 200, INTERVAL, BURST)).isZero();
+        assertThat(bucket.tryAcquire(beforeWrap + 200, INTERVAL, BURST)).isEqualTo(INTERVAL);
+    }
+    
+    @Test
+    void racingThreadsShareTheCapacity() throws Exception {
+        TokenBucket bucket = new TokenBucket();
+        AtomicInteger granted = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int thread = 0; thread < 8; thread++) {
+            futures.add(executor.submit(() -> {
+                for (int i = 0; i < 1_000; i++) {
+                    if (bucket.tryAcquire(1_000, INTERVAL, 100 * INTERVAL) == 0) {
+                        granted.incrementAndGet();
+                    }
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+        
+        assertThat(granted.get()).isEqualTo(100);
+    }
+    
+    private static TokenBucket drained(long now) {
+        TokenBucket bucket = new TokenBucket();
+        for (int i = 0; i < CAPACITY; i++) {
+            bucket.tryAcquire(now, INTERVAL, BURST);
+        }
+        return bucket;
+    }
+}
@@ -0,0 +1,141 @@
+package com.taskmanager.repository;
+
+import com.taskmanager.model.Task;
+import com.taskmanager.model.TaskStatus;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Runs the packed task scripts against an embedded Redis, so the Java codec and
+ * the scripts' cmsgpack have to agree on every value
+ */
+class BinaryTaskStoreTest {
+    
+    private static final String OWNER = "owner";
+    private static final String OTHER_USER = "intruder";
+    
+    private static EmbeddedRedis redis;
+    
+    private StringRedisTemplate redisTemplate;
+    
+    private BinaryTaskStore store;
+    
+    @BeforeAll
+    static void startRedis() throws IOException {
+        redis = EmbeddedRedis.start();
+    }
+    
+    @AfterAll
+    static void stopRedis() throws IOException {
+        redis.stop();
+    }
+    
+    @BeforeEach
+    void setUp() {
+        redisTemplate = redis.flushedTemplate();
+        TaskScriptRepository taskScriptRepository = new TaskScriptRepository();
+        ReflectionTestUtils.setField(taskScriptRepository, "redisTemplate", redisTemplate);
+        ReflectionTestUtils.setField(taskScriptRepository, "tombstoneTtl", Duration.ofDays(30));
+        ReflectionTestUtils.setField(taskScriptRepository, "maxTombstones", 10_000L);
+        
+        store = new BinaryTaskStore();
+        ReflectionTestUtils.setField(store, "redisTemplate", redisTemplate);
+        ReflectionTestUtils.setField(store, "redisConverter", EmbeddedRedis.converter());
+        ReflectionTestUtils.setField(store, "taskScriptRepository", taskScriptRepository);
+        ReflectionTestUtils.setField(store, "redisTimers", EmbeddedRedis.timers());
+    }
+    
+    @Test
+    void insertedTaskReadsBackUnchanged() {
+        Task task = insert("Write tests", "with ünïcode and a longer description " + "x".repeat(300));
+        
+        Task read = store.findById(OWNER, task.getId()).orElseThrow();
+        
+        assertThat(read).usingRecursiveComparison().isEqualTo(task);
+    }
+    
+    @Test
+    void scriptUpdateKeepsThePackedFormat() {
+        Task task = insert("Draft", null);
+        
+        Task updated = store.update(OWNER, task.getId(), Map.of("title", "Final",
+            "status", TaskStatus.COMPLETED.name(), "updatedAt", "1792324269650"), List.of(), null).orElseThrow();
+        
+        assertThat(updated.getTitle()).isEqualTo("Final");
+        assertThat(updated.getStatus()).isEqualTo(TaskStatus.COMPLETED);
+        assertThat(updated.getUpdatedAt()).isEqualTo(1792324269650L);
+        assertThat(updated.getVersion()).isEqualTo(2L);
+        assertThat(updated.getCreatedAt()).isEqualTo(task.getCreatedAt());
+        assertThat(store.findById(OWNER, task.getId())).hasValueSatisfying(read ->
+            assertThat(read).usingRecursiveComparison().isEqualTo(updated));
+    }
+    
+    @Test
+    void otherUserCannotUpdateOrDelete() {
+        Task task = insert("Mine", null);
+        
+        assertThat(store.update(OTHER_USER, task.getId(), Map.of("title", "stolen"), List.of(), null)).isEmpty();
+        assertThat(store.updateAll(OTHER_USER, List.of(task.getId()), Map.of("title", "stolen"))).isEmpty();
+        assertThat(store.delete(OTHER_USER, task.getId(), null)).isFalse();
+        assertThat(store.deleteAll(OTHER_USER, List.of(task.getId()))).isEmpty();
+        
+        assertThat(store.findById(OWNER, task.getId())).hasValueSatisfying(read -> {
+            assertThat(read.getTitle()).isEqualTo("Mine");
+            assertThat(read.getVersion()).isEqualTo(1L);
+        });
+    }
+    
+    @Test
+    void writesWithStaleVersionAreRejected() {
+        Task task = insert("Versioned", null);
+        
+        assertThatThrownBy(() -> store.update(OWNER, task.getId(), Map.of("title", "late"), List.of(), List.of(5L)))
+            .isInstanceOf(OptimisticLockingFailureException.class);
+        assertThatThrownBy(() -> store.delete(OWNER, task.getId(), List.of(5L)))
+            .isInstanceOf(OptimisticLockingFailureException.class);
+        assertThat(store.delete(OWNER, task.getId(), List.of(1L))).isTrue();
+        assertThat(store.findById(OWNER, task.getId())).isEmpty();
+    }
+    
+    @Test
+    void replaceSkipsTasksThatAreGoneOrChanged() {
+        Task kept = insert("Kept", null);
+        Task changed = insert("Changed", null);
+        Task deleted = insert("Deleted", null);
+        store.update(OWNER, changed.getId(), Map.of("title", "elsewhere"), List.of(), null);
+        store.delete(OWNER, deleted.getId(), null);
+        
+        List<Task> replacements = List.of(kept, changed, deleted);
+        replacements.forEach(task -> {
+            task.setTitle(task.getTitle() + " (replaced)");
+            task.setVersion(2L);
+        });
+        changed.setVersion(3L);
+        
+        assertThat(store.replaceAll(replacements, List.of(1L, 1L, 1L))).containsExactly(kept.getId());
+        assertThat(store.findById(OWNER, kept.getId()).orElseThrow().getTitle()).isEqualTo("Kept (replaced)");
+        assertThat(store.findById(OWNER, changed.getId()).orElseThrow().getTitle()).isEqualTo("elsewhere");
+        assertThat(store.findById(OWNER, deleted.getId())).isEmpty();
+    }
+    
+    private Task insert(String title, String description) {
+        Task task = new Task(title, description, TaskStatus.PENDING, OWNER);
+        task.setCreatedAt(1_700_000_000_000L);
+        task.setUpdatedAt(1_700_000_000_000L);
+        task.setVersion(1L);
+        return store.insert(task);
+    }
+}
@@ -0,0 +1,77 @@
+package com.taskmanager.repository;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.convert.MappingRedisConverter;
+import org.springframework.data.redis.core.mapping.RedisMappingContext;
+import org.springframework.test.util.ReflectionTestUtils;
+import redis.embedded.RedisServer;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+
+/**
+ * Embedded Redis server on a free port, for tests that run the Lua scripts
+ */
+final class EmbeddedRedis {
+    
+    private final RedisServer server;
+    
+    private final LettuceConnectionFactory connectionFactory;
+    
+    private EmbeddedRedis(RedisServer server, LettuceConnectionFactory connectionFactory) {
+        this.server = server;
+        this.connectionFactory = connectionFactory;
+    }
+    
+    static EmbeddedRedis start() throws IOException {
+        int port;
+        try (ServerSocket socket = new ServerSocket(0)) {
+            port = socket.getLocalPort();
+        }
+        RedisServer server = RedisServer.newRedisServer()
+            .port(port)
+            .setting("bind 127.0.0.1")
+            .setting("save \"\"")
+            .setting("appendonly no")
+            .build();
+        server.start();
+        LettuceConnectionFactory connectionFactory =
+            new LettuceConnectionFactory(new RedisStandaloneConfiguration("127.0.0.1", port));
+        connectionFactory.afterPropertiesSet();
+        connectionFactory.start();
+        return new EmbeddedRedis(server, connectionFactory);
+    }
+    
+    /**
+     * Template over an emptied server
+     */
+    StringRedisTemplate flushedTemplate() {
+        StringRedisTemplate redisTemplate = new StringRedisTemplate(connectionFactory);
+        redisTemplate.execute((RedisCallback<Void>) connection -> {
+            connection.serverCommands().flushAll();
+            return null;
+        });
+        return redisTemplate;
+    }
+    
+    void stop() throws IOException {
+        connectionFactory.destroy();
+        server.stop();
+    }
+    
+    static MappingRedisConverter converter() {
+        MappingRedisConverter converter = new MappingRedisConverter(new RedisMappingContext());
+        converter.afterPropertiesSet();
+        return converter;
+    }
+    
+    static RedisOperationTimers timers() {
+        RedisOperationTimers timers = new RedisOperationTimers();
+        ReflectionTestUtils.setField(timers, "meterRegistry", new SimpleMeterRegistry());
+        return timers;
+    }
+}
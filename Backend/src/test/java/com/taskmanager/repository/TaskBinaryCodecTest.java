@@ -0,0 +1,114 @@
+package com.taskmanager.repository;
+
+import com.taskmanager.model.Task;
+import com.taskmanager.model.TaskStatus;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Tests for the packed task format, including the encodings only cmsgpack writes
+ */
+class TaskBinaryCodecTest {
+    
+    @Test
+    void fullTaskRoundTrips() {
+        Task task = task("Plan the release", "Tag it — ü and 日本語", TaskStatus.COMPLETED);
+        task.setCreatedAt(1_700_000_000_000L);
+        task.setUpdatedAt(1_700_000_123_456L);
+        task.setVersion(42L);
+        
+        assertRoundTrips(task);
+    }
+    
+    @Test
+    void absentValuesRoundTrip() {
+        Task task = task("Only a title", null, null);
+        
+        Task decoded = TaskBinaryCodec.decode(task.getId(), TaskBinaryCodec.encode(task));
+        
+        assertThat(decoded.getDescription()).isNull();
+        assertThat(decoded.getStatus()).isNull();
+        assertThat(decoded.getCreatedAt()).isNull();
+        assertThat(decoded.getUpdatedAt()).isNull();
+        assertThat(decoded.getVersion()).isZero();
+    }
+    
+    @Test
+    void stringsRoundTripAcrossEveryLengthEncoding() {
+        for (int length : new int[] {0, 31, 32, 255, 256, 65_535, 65_536, 100_000}) {
+            Task task = task("x".repeat(length), "é".repeat(length / 2), TaskStatus.PENDING);
+            task.setVersion(1L);
+            
+            assertRoundTrips(task);
+        }
+    }
+    
+    @Test
+    void numbersRoundTripAcrossEveryIntegerEncoding() {
+        for (long value : new long[] {0, 127, 128, 0xffff_ffffL, 0x1_0000_0000L, Long.MAX_VALUE, -1, Long.MIN_VALUE}) {
+            Task task = task("Numbers", null, TaskStatus.COMPLETED);
+            task.setCreatedAt(value);
+            task.setUpdatedAt(value);
+            task.setVersion(value);
+            
+            assertRoundTrips(task);
+        }
+    }
+    
+    @Test
+    void numbersInCmsgpackEncodingsAreRead() {
+        ByteBuffer packed = ByteBuffer.allocate(64)
+            .put((byte) 0x98)
+            .put((byte) 0x01)
+            .put(new byte[] {(byte) 0xa1, 'u'})
+            .put(new byte[] {(byte) 0xa1, 't'})
+            .put((byte) 0xc0)
+            .put((byte) 0xc2)
+            .put((byte) 0xcb).putDouble(1.0e16)
+            .put((byte) 0xd0).put((byte) -5)
+            .put((byte) 0xcd).putShort((short) 0xfffe);
+        
+        Task task = TaskBinaryCodec.decode("t1", packed.array());
+        
+        assertThat(task.getDescription()).isNull();
+        assertThat(task.getStatus()).isNull();
+        assertThat(task.getCreatedAt()).isEqualTo(10_000_000_000_000_000L);
+        assertThat(task.getUpdatedAt()).isEqualTo(-5L);
+        assertThat(task.getVersion()).isEqualTo(0xfffeL);
+    }
+    
+    @Test
+    void unknownSchemaIsRejected() {
+        byte[] packed = TaskBinaryCodec.encode(task("Future", null, TaskStatus.PENDING));
+        packed[1] = (byte) (TaskBinaryCodec.SCHEMA_VERSION + 1);
+        
+        assertThatThrownBy(() -> TaskBinaryCodec.decode("t1", packed))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessageContaining("schema 2");
+    }
+    
+    @Test
+    void valueThatIsNotAPackedTaskIsRejected() {
+        assertThatThrownBy(() -> TaskBinaryCodec.decode("t1", new byte[] {(byte) 0xa1, 'x'}))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessage("Packed task is not an array");
+        assertThatThrownBy(() -> TaskBinaryCodec.decode("t1", new byte[] {(byte) 0x92, 0x01, (byte) 0xa1, 'u'}))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+    
+    private static Task task(String title, String description, TaskStatus status) {
+        Task task = new Task(title, description, status, "user-1");
+        task.setId("t1");
+        return task;
+    }
+    
+    private static void assertRoundTrips(Task task) {
+        Task decoded = TaskBinaryCodec.decode(task.getId(), TaskBinaryCodec.encode(task));
+        
+        assertThat(decoded).usingRecursiveComparison().isEqualTo(task);
+    }
+}
@@ -0,0 +1,188 @@
+package com.taskmanager.repository;
+
+import com.taskmanager.model.Task;
+import com.taskmanager.model.TaskStatus;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Runs the ownership-checked task scripts against an embedded Redis
+ */
+class TaskScriptRepositoryTest {
+    
+    private static final String OWNER = "owner";
+    private static final String OTHER_USER = "intruder";
+    
+    private static EmbeddedRedis redis;
+    
+    private StringRedisTemplate redisTemplate;
+    
+    private TaskScriptRepository repository;
+    
+    @BeforeAll
+    static void startRedis() throws IOException {
+        redis = EmbeddedRedis.start();
+    }
+    
+    @AfterAll
+    static void stopRedis() throws IOException {
+        redis.stop();
+    }
+    
+    @BeforeEach
+    void setUp() {
+        redisTemplate = redis.flushedTemplate();
+        repository = new TaskScriptRepository();
+        ReflectionTestUtils.setField(repository, "redisTemplate", redisTemplate);
+        ReflectionTestUtils.setField(repository, "redisConverter", EmbeddedRedis.converter());
+        ReflectionTestUtils.setField(repository, "redisTimers", EmbeddedRedis.timers());
+        ReflectionTestUtils.setField(repository, "tombstoneTtl", Duration.ofDays(30));
+        ReflectionTestUtils.setField(repository, "maxTombstones", 10_000L);
+    }
+    
+    @Test
+    void ownerUpdatesTaskAndBumpsVersion() {
+        storeTask("t1", TaskStatus.PENDING);
+        
+        Optional<Task> updated = repository.update(OWNER, "t1", Map.of("title", "renamed"), List.of(), null);
+        
+        assertThat(updated).hasValueSatisfying(task -> {
+            assertThat(task.getTitle()).isEqualTo("renamed");
+            assertThat(task.getVersion()).isEqualTo(2L);
+        });
+        assertThat(field("t1", "title")).isEqualTo("renamed");
+    }
+    
+    @Test
+    void otherUserCannotUpdate() {
+        storeTask("t1", TaskStatus.PENDING);
+        
+        Optional<Task> updated = repository.update(OTHER_USER, "t1", Map.of("title", "stolen"), List.of(), null);
+        
+        assertThat(updated).isEmpty();
+        assertThat(field("t1", "title")).isEqualTo("original");
+        assertThat(field("t1", "version")).isEqualTo("1");
+    }
+    
+    @Test
+    void updateOfMissingTaskFindsNothing() {
+        assertThat(repository.update(OWNER, "missing", Map.of("title", "x"), List.of(), null)).isEmpty();
+        assertThat(redisTemplate.hasKey(TaskKeys.task(OWNER, "missing"))).isFalse();
+    }
+    
+    @Test
+    void updateWithStaleVersionIsRejected() {
+        storeTask("t1", TaskStatus.PENDING);
+        
+        assertThatThrownBy(() -> repository.update(OWNER, "t1", Map.of("title", "late"), List.of(), List.of(7L)))
+            .isInstanceOf(OptimisticLockingFailureException.class);
+        assertThat(field("t1", "title")).isEqualTo("original");
+        
+        assertThat(repository.update(OWNER, "t1", Map.of("title", "current"), List.of(), List.of(7L, 1L)))
+            .isPresent();
+    }
+    
+    @Test
+    void statusChangeMovesTaskBetweenStatusIndexesAndCounters() {
+        storeTask("t1", TaskStatus.PENDING);
+        
+        repository.update(OWNER, "t1", Map.of("status", TaskStatus.COMPLETED.name()), List.of(), null);
+        
+        assertThat(redisTemplate.opsForZSet().score(TaskKeys.byStatus(OWNER, TaskStatus.PENDING), "t1")).isNull();
+        assertThat(redisTemplate.opsForZSet().score(TaskKeys.byStatus(OWNER, TaskStatus.COMPLETED), "t1"))
+            .isNotNull();
+        assertThat(redisTemplate.<String, String>opsForHash().entries(TaskKeys.stats(OWNER)))
+            .containsEntry("PENDING", "0")
+            .containsEntry("COMPLETED", "1");
+    }
+    
+    @Test
+    void otherUserCannotDelete() {
+        storeTask("t1", TaskStatus.PENDING);
+        
+        assertThat(repository.delete(OTHER_USER, "t1", null)).isFalse();
+        assertThat(redisTemplate.hasKey(TaskKeys.task(OWNER, "t1"))).isTrue();
+        assertThat(redisTemplate.opsForSet().isMember(TaskKeys.userIdIndex(OWNER), "t1")).isTrue();
+    }
+    
+    @Test
+    void ownerDeleteRemovesIndexesAndLeavesTombstone() {
+        storeTask("t1", TaskStatus.PENDING);
+        
+        assertThat(repository.delete(OWNER, "t1", null)).isTrue();
+        
+        assertThat(redisTemplate.hasKey(TaskKeys.task(OWNER, "t1"))).isFalse();
+        assertThat(redisTemplate.opsForSet().isMember(TaskKeys.userIdIndex(OWNER), "t1")).isFalse();
+        assertThat(redisTemplate.opsForZSet().score(TaskKeys.byUser(OWNER), "t1")).isNull();
+        assertThat(redisTemplate.<String, String>opsForHash().get(TaskKeys.stats(OWNER), "PENDING")).isEqualTo("0");
+        assertThat(redisTemplate.opsForZSet().range(TaskKeys.tombstones(OWNER), 0, -1))
+            .singleElement()
+            .asString()
+            .endsWith(":t1");
+    }
+    
+    @Test
+    void deleteWithStaleVersionIsRejected() {
+        storeTask("t1", TaskStatus.PENDING);
+        
+        assertThatThrownBy(() -> repository.delete(OWNER, "t1", List.of(2L)))
+            .isInstanceOf(OptimisticLockingFailureException.class);
+        assertThat(redisTemplate.hasKey(TaskKeys.task(OWNER, "t1"))).isTrue();
+    }
+    
+    @Test
+    void bulkWritesOnlyTouchTheUsersOwnTasks() {
+        storeTask("mine", TaskStatus.PENDING);
+        storeTask("theirs", TaskStatus.PENDING, OTHER_USER);
+        
+        assertThat(repository.updateAll(OWNER, List.of("mine", "theirs", "missing"), Map.of("title", "bulk")))
+            .containsExactly("mine");
+        assertThat(field("theirs", "title")).isEqualTo("original");
+        
+        assertThat(repository.deleteAll(OWNER, List.of("theirs", "mine"))).containsExactly("mine");
+        assertThat(redisTemplate.hasKey(TaskKeys.task(OTHER_USER, "theirs"))).isTrue();
+    }
+    
+    private void storeTask(String id, TaskStatus status) {
+        storeTask(id, status, OWNER);
+    }
+    
+    /**
+     * Write a task and its index entries the way the insert path leaves them
+     */
+    private void storeTask(String id, TaskStatus status, String userId) {
+        redisTemplate.opsForHash().putAll(TaskKeys.task(userId, id), Map.of(
+            "id", id,
+            "userId", userId,
+            "title", "original",
+            "status", status.name(),
+            "createdAt", "1000",
+            "updatedAt", "1000",
+            "version", "1"));
+        long sequence = redisTemplate.opsForValue().increment(TaskKeys.sequence(userId));
+        redisTemplate.opsForSet().add(TaskKeys.userIdIndex(userId), id);
+        redisTemplate.opsForZSet().add(TaskKeys.byUser(userId), id, sequence);
+        redisTemplate.opsForZSet().add(TaskKeys.byUpdate(userId), id, sequence);
+        redisTemplate.opsForZSet().add(TaskKeys.byStatus(userId, status), id, sequence);
+        redisTemplate.opsForZSet().add(TaskKeys.byStatusUpdate(userId, status), id, sequence);
+        redisTemplate.opsForHash().increment(TaskKeys.stats(userId), status.name(), 1);
+    }
+    
+    private String field(String id, String field) {
+        return redisTemplate.<String, String>opsForHash().get(TaskKeys.task(OWNER, id), field);
+    }
+}
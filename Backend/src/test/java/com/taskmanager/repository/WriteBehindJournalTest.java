@@ -0,0 +1,214 @@
+package com.taskmanager.repository;
+
+import com.taskmanager.model.Task;
+import com.taskmanager.model.TaskStatus;
+import com.taskmanager.repository.WriteBehindTaskStore.Pending;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for replaying the write-behind journal after a restart, including torn records
+ */
+class WriteBehindJournalTest {
+    
+    private static final int SIZE = 4096;
+    
+    /**
+     * Journal header, then each record's length and checksum
+     */
+    private static final int HEADER_SIZE = 12;
+    private static final int RECORD_HEADER_SIZE = 8;
+    
+    @TempDir
+    Path directory;
+    
+    @Test
+    void newJournalIsEmpty() throws IOException {
+        try (WriteBehindJournal journal = open()) {
+            assertThat(journal.read()).isEmpty();
+            assertThat(journal.isEmpty()).isTrue();
+            assertThat(journal.size()).isEqualTo(HEADER_SIZE);
+        }
+    }
+    
+    @Test
+    void appendedRecordsAreReplayedInOrderAfterReopening() throws IOException {
+        try (WriteBehindJournal journal = open()) {
+            journal.read();
+            append(journal, "first", "second", "third");
+        }
+        
+        try (WriteBehindJournal journal = open()) {
+            assertThat(strings(journal.read())).containsExactly("first", "second", "third");
+            assertThat(journal.size()).isEqualTo(HEADER_SIZE + 3 * RECORD_HEADER_SIZE + 16);
+        }
+    }
+    
+    @Test
+    void recordFailingItsChecksumEndsReplay() throws IOException {
+        try (WriteBehindJournal journal = open()) {
+            journal.read();
+            append(journal, "first", "second", "third");
+        }
+        // Flip a byte of the second record's payload
+        corrupt(0, HEADER_SIZE + RECORD_HEADER_SIZE + 5 + RECORD_HEADER_SIZE, (byte) 'X');
+        
+        try (WriteBehindJournal journal = open()) {
+            assertThat(strings(journal.read())).containsExactly("first");
+        }
+    }
+    
+    @Test
+    void recordLongerThanTheFileEndsReplay() throws IOException {
+        try (WriteBehindJournal journal = open()) {
+            journal.read();
+            append(journal, "first", "second");
+        }
+        writeInt(0, HEADER_SIZE + RECORD_HEADER_SIZE + 5, SIZE);
+        
+        try (WriteBehindJournal journal = open()) {
+            assertThat(strings(journal.read())).containsExactly("first");
+        }
+    }
+    
+    @Test
+    void tornRecordIsCutOffSoLaterAppendsReplay() throws IOException {
+        try (WriteBehindJournal journal = open()) {
+            journal.read();
+            append(journal, "first", "second");
+        }
+        corrupt(0, HEADER_SIZE + RECORD_HEADER_SIZE + 5 + RECORD_HEADER_SIZE, (byte) 'X');
+        
+        try (WriteBehindJournal journal = open()) {
+            assertThat(strings(journal.read())).containsExactly("first");
+            append(journal, "again");
+        }
+        
+        try (WriteBehindJournal journal = open()) {
+            assertThat(strings(journal.read())).containsExactly("first", "again");
+        }
+    }
+    
+    @Test
+    void rewriteSwitchesToTheNextGeneration() throws IOException {
+        try (WriteBehindJournal journal = open()) {
+            journal.read();
+            append(journal, "first", "second");
+            assertThat(journal.rewrite(List.of(bytes("second")))).isTrue();
+            append(journal, "third");
+        }
+        
+        try (WriteBehindJournal journal = open()) {
+            assertThat(strings(journal.read())).containsExactly("second", "third");
+            assertThat(journal.rewrite(List.of())).isTrue();
+            assertThat(journal.isEmpty()).isTrue();
+        }
+        
+        try (WriteBehindJournal journal = open()) {
+            assertThat(journal.read()).isEmpty();
+        }
+    }
+    
+    @Test
+    void rewriteWithoutItsHeaderLeavesTheCurrentGeneration() throws IOException {
+        try (WriteBehindJournal journal = open()) {
+            journal.read();
+            append(journal, "first", "second");
+            journal.rewrite(List.of(bytes("second")));
+        }
+        // As if the process died before the new file's header was written
+        writeInt(1, 0, 0);
+        
+        try (WriteBehindJournal journal = open()) {
+            assertThat(strings(journal.read())).containsExactly("first", "second");
+        }
+    }
+    
+    @Test
+    void recordsThatDoNotFitAreRefused() throws IOException {
+        try (WriteBehindJournal journal = open()) {
+            journal.read();
+            append(journal, "first");
+            int size = journal.size();
+            byte[] large = new byte[SIZE - size - RECORD_HEADER_SIZE + 1];
+            
+            assertThat(journal.append(large)).isFalse();
+            assertThat(journal.rewrite(List.of(bytes("first"), large))).isFalse();
+            assertThat(journal.size()).isEqualTo(size);
+            assertThat(journal.append(new byte[large.length - 1])).isTrue();
+        }
+        
+        try (WriteBehindJournal journal = open()) {
+            assertThat(journal.read()).hasSize(2);
+        }
+    }
+    
+    @Test
+    void pendingWritesAndDeletesReplayUnchanged() throws IOException {
+        Task task = new Task("Journaled", null, TaskStatus.PENDING, "user-1");
+        task.setId("t1");
+        task.setCreatedAt(1_700_000_000_000L);
+        task.setUpdatedAt(1_700_000_000_000L);
+        task.setVersion(3L);
+        try (WriteBehindJournal journal = open()) {
+            journal.read();
+            assertThat(journal.append(new Pending("user-1", "t1", task, false, 2L).encode())).isTrue();
+            assertThat(journal.append(new Pending("user-1", "t2", null, false, 5L).encode())).isTrue();
+        }
+        
+        try (WriteBehindJournal journal = open()) {
+            List<Pending> replayed = journal.read().stream().map(Pending::decode).toList();
+            
+            assertThat(replayed).hasSize(2);
+            assertThat(replayed.get(0)).usingRecursiveComparison()
+                .isEqualTo(new Pending("user-1", "t1", task, false, 2L));
+            assertThat(replayed.get(1).task).isNull();
+            assertThat(replayed.get(1).id).isEqualTo("t2");
+            assertThat(replayed.get(1).baseVersion).isEqualTo(5L);
+        }
+    }
+    
+    private WriteBehindJournal open() throws IOException {
+        return new WriteBehindJournal(directory, SIZE, false);
+    }
+    
+    private static void append(WriteBehindJournal journal, String... records) {
+        for (String record : records) {
+            assertThat(journal.append(bytes(record))).isTrue();
+        }
+    }
+    
+    private void corrupt(int file, long offset, byte value) throws IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(journalFile(file), "rw")) {
+            raf.seek(offset);
+            raf.write(value);
+        }
+    }
+    
+    private void writeInt(int file, long offset, int value) throws IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(journalFile(file), "rw")) {
+            raf.seek(offset);
+            raf.writeInt(value);
+        }
+    }
+    
+    private String journalFile(int file) {
+        return directory.resolve("tasks-" + file + ".journal").toString();
+    }
+    
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+    
+    private static List<String> strings(List<byte[]> records) {
+        return records.stream().map(record -> new String(record, StandardCharsets.UTF_8)).toList();
+    }
+}
@@ -0,0 +1,96 @@
+package com.taskmanager.service;
+
+import com.taskmanager.repository.TaskIndexRepository.IndexEntry;
+import com.taskmanager.repository.TaskSyncRepository.Changes;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Tests for the page cursors and sync tokens of TaskService
+ */
+class TaskServiceTest {
+    
+    @Test
+    void cursorRoundTrips() {
+        for (long sequence : new long[] {0, 1, 42, 1_000_000_007L, Long.MAX_VALUE}) {
+            assertThat(TaskService.decodeCursor(TaskService.encodeCursor(sequence))).isEqualTo(sequence);
+        }
+    }
+    
+    @Test
+    void cursorIsUrlSafeWithoutPadding() {
+        String cursor = TaskService.encodeCursor(Long.MAX_VALUE);
+        
+        assertThat(cursor).matches("[A-Za-z0-9_-]+");
+    }
+    
+    @Test
+    void missingCursorStartsAtTheBeginning() {
+        assertThat(TaskService.decodeCursor(null)).isZero();
+        assertThat(TaskService.decodeCursor("")).isZero();
+    }
+    
+    @Test
+    void malformedCursorIsRejected() {
+        String notANumber = Base64.getUrlEncoder().encodeToString("abc".getBytes(StandardCharsets.US_ASCII));
+        String negative = Base64.getUrlEncoder().encodeToString("-5".getBytes(StandardCharsets.US_ASCII));
+        
+        for (String cursor : new String[] {"!!!", notANumber, negative}) {
+            assertThatThrownBy(() -> TaskService.decodeCursor(cursor))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Invalid cursor");
+        }
+    }
+    
+    @Test
+    void syncCoversEveryChangeWhenNeitherSetFillsItsPage() {
+        Changes changes = new Changes(9, false, entries(3, 5), entries(4));
+        
+        assertThat(TaskService.syncedUpTo(changes, 10)).isEqualTo(9);
+    }
+    
+    @Test
+    void syncStopsAtTheLastEntryOfAFullSet() {
+        Changes changes = new Changes(20, false, entries(2, 4, 6), entries(7));
+        
+        assertThat(TaskService.syncedUpTo(changes, 3)).isEqualTo(6);
+    }
+    
+    @Test
+    void syncStopsAtTheEarlierOfTwoFullSets() {
+        Changes changes = new Changes(20, false, entries(1, 2, 9), entries(3, 4, 5));
+        
+        assertThat(TaskService.syncedUpTo(changes, 3)).isEqualTo(3);
+    }
+    
+    @Test
+    void syncOfBothSetsStillFitsInOnePage() {
+        Changes changes = new Changes(20, false, entries(1, 3, 5), entries(2, 4));
+        
+        assertThat(TaskService.syncedUpTo(changes, 3)).isEqualTo(3);
+    }
+    
+    @Test
+    void syncTokenSharesTheCursorEncoding() {
+        assertThat(TaskService.decodeSyncToken(TaskService.encodeCursor(17))).isEqualTo(17);
+        assertThat(TaskService.decodeSyncToken(null)).isZero();
+        assertThatThrownBy(() -> TaskService.decodeSyncToken("!!!"))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessage("Invalid sync token");
+    }
+    
+    private static List<IndexEntry> entries(long... sequences) {
+        List<IndexEntry> entries = new ArrayList<>();
+        for (long sequence : sequences) {
+            entries.add(new IndexEntry("task-" + sequence, sequence));
+        }
+        return entries;
+    }
+}
@@ -0,0 +1,88 @@
+package com.taskmanager.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.within;
+
+/**
+ * Tests for the Bloom filter's guarantees and sizing
+ */
+class BloomFilterTest {
+    
+    @Test
+    void addedValuesAreAlwaysFound() {
+        BloomFilter filter = new BloomFilter(10_000, 0.01);
+        for (int i = 0; i < 10_000; i++) {
+            filter.put("user-" + i);
+        }
+        
+        for (int i = 0; i < 10_000; i++) {
+            assertThat(filter.mightContain("user-" + i)).as("user-" + i).isTrue();
+        }
+    }
+    
+    @Test
+    void falsePositiveRateStaysNearTheTarget() {
+        BloomFilter filter = new BloomFilter(20_000, 0.01);
+        for (int i = 0; i < 20_000; i++) {
+            filter.put(UUID.randomUUID().toString());
+        }
+        
+        long falsePositives = IntStream.range(0, 100_000)
+            .filter(i -> filter.mightContain("absent-" + i))
+            .count();
+        
+        assertThat(falsePositives / 100_000.0).isCloseTo(0.01, within(0.005));
+    }
+    
+    @Test
+    void emptyFilterContainsNothing() {
+        BloomFilter filter = new BloomFilter(100, 0.01);
+        
+        assertThat(filter.mightContain("")).isFalse();
+        assertThat(filter.mightContain("anything")).isFalse();
+    }
+    
+    @Test
+    void filterIsSizedForItsTarget() {
+        BloomFilter filter = new BloomFilter(1_000, 0.01);
+        
+        assertThat(filter.bitSize()).isEqualTo(9_600L);
+        assertThat(filter.hashCount()).isEqualTo(7);
+        assertThat(new BloomFilter(0, 0.5).bitSize()).isEqualTo(64);
+    }
+    
+    @Test
+    void rateOutsideTheOpenUnitIntervalIsRejected() {
+        for (double rate : new double[] {0, 1, -0.1, 1.5}) {
+            assertThatThrownBy(() -> new BloomFilter(100, rate))
+                .isInstanceOf(IllegalArgumentException.class);
+        }
+    }
+    
+    @Test
+    void concurrentAddsAreNotLost() throws InterruptedException {
+        BloomFilter filter = new BloomFilter(40_000, 0.01);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        for (int thread = 0; thread < 4; thread++) {
+            int offset = thread * 10_000;
+            executor.execute(() -> {
+                for (int i = offset; i < offset + 10_000; i++) {
+                    filter.put("task-" + i);
+                }
+            });
+        }
+        executor.shutdown();
+        assertThat(executor.awaitTermination(10, TimeUnit.SECONDS)).isTrue();
+        
+        assertThat(IntStream.range(0, 40_000).allMatch(i -> filter.mightContain("task-" + i))).isTrue();
+    }
+}
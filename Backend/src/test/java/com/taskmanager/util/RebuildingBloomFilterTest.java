@@ -0,0 +1,112 @@
+package com.taskmanager.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Tests for rebuilding a Bloom filter from its store, run on the calling thread
+ */
+class RebuildingBloomFilterTest {
+    
+    private static final double RATE = 0.0001;
+    
+    @Test
+    void everyValueMightBePresentBeforeTheFirstLoad() {
+        RebuildingBloomFilter filter = filter(() -> Set.of("alice"), 100);
+        
+        assertThat(filter.mightContain("anyone")).isTrue();
+        assertThat(filter.bitSize()).isZero();
+    }
+    
+    @Test
+    void rebuildLoadsTheStore() {
+        RebuildingBloomFilter filter = filter(() -> Set.of("alice", "bob"), 100);
+        
+        filter.rebuild();
+        
+        assertThat(filter.mightContain("alice")).isTrue();
+        assertThat(filter.mightContain("bob")).isTrue();
+        assertThat(filter.mightContain("carol")).isFalse();
+        assertThat(filter.bitSize()).isEqualTo(new BloomFilter(100, RATE).bitSize());
+    }
+    
+    @Test
+    void rebuildDropsValuesTheStoreNoLongerHolds() {
+        Set<String> store = new HashSet<>(Set.of("alice", "bob"));
+        RebuildingBloomFilter filter = filter(() -> Set.copyOf(store), 100);
+        filter.rebuild();
+        
+        store.remove("bob");
+        filter.rebuild();
+        
+        assertThat(filter.mightContain("alice")).isTrue();
+        assertThat(filter.mightContain("bob")).isFalse();
+    }
+    
+    @Test
+    void valueAddedAfterLoadIsFound() {
+        RebuildingBloomFilter filter = filter(() -> Set.of("alice"), 100);
+        filter.rebuild();
+        
+        filter.put("dave");
+        
+        assertThat(filter.mightContain("dave")).isTrue();
+    }
+    
+    @Test
+    void valueAddedWhileTheStoreIsReadSurvivesTheRebuild() {
+        AtomicReference<RebuildingBloomFilter> self = new AtomicReference<>();
+        RebuildingBloomFilter filter = filter(() -> {
+            // Written to the store just after this read saw it
+            self.get().put("erin");
+            return Set.of("alice");
+        }, 100);
+        self.set(filter);
+        
+        filter.rebuild();
+        
+        assertThat(filter.mightContain("alice")).isTrue();
+        assertThat(filter.mightContain("erin")).isTrue();
+    }
+    
+    @Test
+    void outgrownFilterIsResizedWithHeadroom() {
+        Set<String> store = new HashSet<>();
+        for (int i = 0; i < 50; i++) {
+            store.add("user-" + i);
+        }
+        RebuildingBloomFilter filter = filter(() -> store, 10);
+        
+        filter.rebuild();
+        
+        assertThat(filter.bitSize()).isEqualTo(new BloomFilter(100, RATE).bitSize());
+        assertThat(store).allMatch(filter::mightContain);
+    }
+    
+    @Test
+    void failedReadKeepsTheLoadedFilter() {
+        AtomicReference<Supplier<Set<String>>> source = new AtomicReference<>(() -> Set.of("alice"));
+        RebuildingBloomFilter filter = filter(() -> source.get().get(), 100);
+        filter.rebuild();
+        
+        source.set(() -> {
+            throw new IllegalStateException("store unavailable");
+        });
+        
+        assertThatThrownBy(filter::rebuild).hasMessage("store unavailable");
+        assertThat(filter.mightContain("alice")).isTrue();
+        assertThat(filter.mightContain("carol")).isFalse();
+    }
+    
+    private static RebuildingBloomFilter filter(Supplier<Set<String>> source, long expectedInsertions) {
+        return new RebuildingBloomFilter("Test", source, expectedInsertions, RATE, Duration.ofMinutes(10));
+    }
+}
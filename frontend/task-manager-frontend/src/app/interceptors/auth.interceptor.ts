@@ -1,5 +1,6 @@
 import { inject } from '@angular/core';
-import { HttpInterceptorFn } from '@angular/common/http';
+import { HttpErrorResponse, HttpInterceptorFn, HttpRequest } from '@angular/common/http';
+import { catchError, switchMap, throwError } from 'rxjs';
 import { AuthService } from '../services/auth.service';
 
 export const authInterceptor: HttpInterceptorFn = (req, next) => {
@@ -7,12 +8,38 @@ export const authInterceptor: HttpInterceptorFn = (req, next) => {
   const token = authService.getToken();
   
   // Add authorization header if token exists and request is to API
-  if (token && req.url.includes('/api/')) {
-    const authReq = req.clone({
-      headers: req.headers.set('Authorization', `Bearer ${token}`)
-    });
-    return next(authReq);
+  if (!token || !req.url.includes('/api/')) {
+    return next(req);
   }
   
-  return next(req);
+  // Auth endpoints are never retried, so a failed refresh or logout cannot loop
+  if (req.url.includes('/api/auth/')) {
+    return next(withToken(req, token));
+  }
+  
+  // Renew an access token that is about to expire before sending
+  if (authService.isTokenExpiring() && authService.getRefreshToken()) {
+    return authService.refresh().pipe(
+      switchMap(newToken => next(withToken(req, newToken)))
+    );
+  }
+  
+  // The access token may have expired or been revoked meanwhile: refresh once and retry
+  return next(withToken(req, token)).pipe(
+    catchError(error => {
+      if (error instanceof HttpErrorResponse && (error.status === 401 || error.status === 403)
+          && authService.getRefreshToken()) {
+        return authService.refresh().pipe(
+          switchMap(newToken => next(withToken(req, newToken)))
+        );
+      }
+      return throwError(() => error);
+    })
+  );
 };
+
+function withToken(req: HttpRequest<unknown>, token: string): HttpRequest<unknown> {
+  return req.clone({
+    headers: req.headers.set('Authorization', `Bearer ${token}`)
+  });
+}
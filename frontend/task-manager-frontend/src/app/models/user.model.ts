@@ -15,6 +15,8 @@ export interface RegisterRequest {
 
 export interface AuthResponse {
   token?: string;
+  refreshToken?: string;
+  expiresIn?: number;
   username?: string;
   message?: string;
 }
@@ -1,6 +1,6 @@
 import { Injectable } from '@angular/core';
 import { HttpClient } from '@angular/common/http';
-import { BehaviorSubject, Observable, tap } from 'rxjs';
+import { BehaviorSubject, Observable, catchError, finalize, map, shareReplay, tap, throwError } from 'rxjs';
 import { AuthResponse, LoginRequest, RegisterRequest } from '../models/user.model';
 import { environment } from '../../environments/environment';
 
@@ -11,6 +11,11 @@ export class AuthService {
   private readonly API_URL = environment.apiUrl;
   private readonly TOKEN_KEY = 'auth_token';
   private readonly USERNAME_KEY = 'username';
+  private readonly REFRESH_TOKEN_KEY = 'refresh_token';
+  private readonly EXPIRES_AT_KEY = 'auth_token_expires_at';
+  
+  // One refresh at a time; requests failing meanwhile wait for it
+  private refreshInFlight: Observable<string> | null = null;
   
   private isAuthenticatedSubject = new BehaviorSubject<boolean>(this.hasToken());
   public isAuthenticated$ = this.isAuthenticatedSubject.asObservable();
@@ -32,8 +37,7 @@ export class AuthService {
       .pipe(
         tap(response => {
           if (response.token) {
-            this.setToken(response.token);
-            this.setUsername(response.username || '');
+            this.storeSession(response);
             this.isAuthenticatedSubject.next(true);
           }
         })
@@ -41,12 +45,43 @@ export class AuthService {
   }
 
   /**
-   * Logout user and clear stored data
+   * Exchange the stored refresh token for a new access token
+   * Each refresh token works once, so concurrent callers share a single request
+   */
+  refresh(): Observable<string> {
+    const refreshToken = this.getRefreshToken();
+    if (!refreshToken) {
+      return throwError(() => new Error('No refresh token'));
+    }
+    if (!this.refreshInFlight) {
+      this.refreshInFlight = this.http.post<AuthResponse>(`${this.API_URL}/api/auth/refresh`, { refreshToken })
+        .pipe(
+          map(response => {
+            this.storeSession(response);
+            return response.token as string;
+          }),
+          catchError(error => {
+            this.clearSession();
+            return throwError(() => error);
+          }),
+          finalize(() => this.refreshInFlight = null),
+          shareReplay(1)
+        );
+    }
+    return this.refreshInFlight;
+  }
+
+  /**
+   * Logout user, revoking the session on the server, and clear stored data
    */
   logout(): void {
-    localStorage.removeItem(this.TOKEN_KEY);
-    localStorage.removeItem(this.USERNAME_KEY);
-    this.isAuthenticatedSubject.next(false);
+    const refreshToken = this.getRefreshToken();
+    if (this.hasToken() || refreshToken) {
+      // Local data is cleared whether or not the server could be reached
+      this.http.post<AuthResponse>(`${this.API_URL}/api/auth/logout`, refreshToken ? { refreshToken } : {})
+        .subscribe({ error: () => {} });
+    }
+    this.clearSession();
   }
 
   /**
@@ -56,6 +91,21 @@ export class AuthService {
     return localStorage.getItem(this.TOKEN_KEY);
   }
 
+  /**
+   * Get stored refresh token
+   */
+  getRefreshToken(): string | null {
+    return localStorage.getItem(this.REFRESH_TOKEN_KEY);
+  }
+
+  /**
+   * Check if the stored access token has expired or is about to
+   */
+  isTokenExpiring(): boolean {
+    const expiresAt = Number(localStorage.getItem(this.EXPIRES_AT_KEY));
+    return !!expiresAt && Date.now() > expiresAt - 30000;
+  }
+
   /**
    * Get stored username
    */
@@ -70,12 +120,23 @@ export class AuthService {
     return this.hasToken();
   }
 
-  private setToken(token: string): void {
-    localStorage.setItem(this.TOKEN_KEY, token);
+  private storeSession(response: AuthResponse): void {
+    localStorage.setItem(this.TOKEN_KEY, response.token || '');
+    localStorage.setItem(this.USERNAME_KEY, response.username || '');
+    if (response.refreshToken) {
+      localStorage.setItem(this.REFRESH_TOKEN_KEY, response.refreshToken);
+    }
+    if (response.expiresIn) {
+      localStorage.setItem(this.EXPIRES_AT_KEY, String(Date.now() + response.expiresIn * 1000));
+    }
   }
 
-  private setUsername(username: string): void {
-    localStorage.setItem(this.USERNAME_KEY, username);
+  private clearSession(): void {
+    localStorage.removeItem(this.TOKEN_KEY);
+    localStorage.removeItem(this.USERNAME_KEY);
+    localStorage.removeItem(this.REFRESH_TOKEN_KEY);
+    localStorage.removeItem(this.EXPIRES_AT_KEY);
+    this.isAuthenticatedSubject.next(false);
   }
 
   private hasToken(): boolean {